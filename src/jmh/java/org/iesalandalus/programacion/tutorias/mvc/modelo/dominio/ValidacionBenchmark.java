@@ -0,0 +1,88 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.dominio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Compara las validaciones anteriores (String.matches en cada llamada) con las de Validador */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacionBenchmark {
+
+	private static final String ER_NOMBRE = "([a-zA-ZÁÉÍÓÚáéíóú]+)(\\s+([a-zA-ZÁÉÍÓÚáéíóú]+))+";
+	private static final String ER_DNI = "([0-9]{8})([A-Za-z])";
+	private static final String ER_CORREO = "[(\\w\\.)+|(\\w)+]+@\\w+\\.\\w{2,3}";
+
+	private String nombre = "José Ramón Jiménez Reyes";
+	private String dni = "11223344B";
+	private String correo = "joseramon.jimenez@iesalandalus.org";
+
+	@Benchmark
+	public boolean nombreAnterior()
+	{
+		return nombre.matches(ER_NOMBRE);
+	}
+
+	@Benchmark
+	public boolean nombrePrecompilado()
+	{
+		return Validador.esNombreValido(nombre);
+	}
+
+	@Benchmark
+	public boolean correoAnterior()
+	{
+		return correo.matches(ER_CORREO);
+	}
+
+	@Benchmark
+	public boolean correoPrecompilado()
+	{
+		return Validador.esCorreoProfesorValido(correo);
+	}
+
+	@Benchmark
+	public boolean dniAnterior()
+	{
+		return dni.matches(ER_DNI) && comprobarLetraDniAnterior(dni);
+	}
+
+	@Benchmark
+	public boolean dniPrecompilado()
+	{
+		return Validador.esDniValido(dni) && Validador.esLetraDniCorrecta(dni);
+	}
+
+	@Benchmark
+	public Profesor copiarProfesor()
+	{
+		return new Profesor(Profesor.restaurar(nombre, dni, correo));
+	}
+
+	// Versión original de Profesor.comprobarLetraDni
+	private static boolean comprobarLetraDniAnterior(String dni)
+	{
+		Pattern patronDni = Pattern.compile(ER_DNI);
+		Matcher comparadorDni = patronDni.matcher(dni);
+		comparadorDni.matches();
+		int resto = Integer.parseInt(comparadorDni.group(1)) % 23;
+		String[] letraEsperada = { "T", "R", "W", "A", "G", "M", "Y", "F", "P", "D", "X", "B", "N", "J", "Z", "S", "Q",
+				"V", "H", "L", "C", "K", "E" };
+		return comparadorDni.group(2).equals(letraEsperada[resto]);
+	}
+
+}
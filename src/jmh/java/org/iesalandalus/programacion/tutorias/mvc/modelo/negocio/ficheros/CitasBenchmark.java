@@ -0,0 +1,66 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Coste de listar todas las citas: copia de cada cita más la ordenación */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CitasBenchmark {
+
+	private static final int CITAS_POR_SESION = 20;
+
+	@Param({ "400", "4000" })
+	private int numeroCitas;
+
+	private Citas citas;
+
+	@Setup
+	public void crearCitas() throws OperationNotSupportedException
+	{
+		citas = new Citas();
+		Profesor profesor = new Profesor("José Ramón Jiménez", "11223344B", "joseramon.jimenez@iesalandalus.org");
+		for (int i = 0; i < numeroCitas / CITAS_POR_SESION; i++)
+		{
+			Sesion sesion = new Sesion(new Tutoria(profesor, "Tutoria " + i % 10), LocalDate.now().plusDays(1 + i / 10),
+					LocalTime.of(16, 0), LocalTime.of(21, 0), 15);
+			for (int j = 0; j < CITAS_POR_SESION; j++)
+			{
+				Alumno alumno = new Alumno("Alumno Prueba", "alumno" + (i * CITAS_POR_SESION + j) + "@gmail.com");
+				citas.insertar(new Cita(alumno, sesion, LocalTime.of(16, 0).plusMinutes(15 * j)));
+			}
+		}
+	}
+
+	@Benchmark
+	public List<Cita> get()
+	{
+		return citas.get();
+	}
+
+}
@@ -5,6 +5,7 @@ import org.iesalandalus.programacion.tutorias.mvc.controlador.IControlador;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.FactoriaFuenteDatos;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.IModelo;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.Modelo;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.RegistroOperaciones;
 import org.iesalandalus.programacion.tutorias.mvc.vista.IVista;
 import org.iesalandalus.programacion.tutorias.mvc.vista.texto.VistaTexto;
 
@@ -14,7 +15,7 @@ public class MainApp {
 	 * Author: Jaime Ruíz Ramírez
 	 */
 	public static void main(String[] args) {
-		IModelo modelo = new Modelo(FactoriaFuenteDatos.FICHEROS.crear());
+		IModelo modelo = new Modelo(FactoriaFuenteDatos.FICHEROS.crear(), new RegistroOperaciones());
 		IVista vista = new VistaTexto();
 		IControlador controlador = new Controlador(modelo, vista);
 		controlador.comenzar();
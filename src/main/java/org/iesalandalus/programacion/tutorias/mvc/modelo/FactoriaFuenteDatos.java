@@ -1,6 +1,10 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo;
 
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos.FactoriaFuenteDatosBaseDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios.FactoriaFuenteDatosBinarios;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios.FactoriaFuenteDatosMapeados;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor.FactoriaFuenteDatosClaveValor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.FactoriaFuenteDatosFicheros;
 
 public enum FactoriaFuenteDatos {
@@ -10,6 +14,34 @@ public enum FactoriaFuenteDatos {
 		{
 			return new FactoriaFuenteDatosFicheros();
 		}
+	},
+	
+	BINARIOS {
+		public IFuenteDatos crear() 
+		{
+			return new FactoriaFuenteDatosBinarios();
+		}
+	},
+	
+	MAPEADOS {
+		public IFuenteDatos crear() 
+		{
+			return new FactoriaFuenteDatosMapeados();
+		}
+	},
+	
+	BASE_DATOS {
+		public IFuenteDatos crear() 
+		{
+			return new FactoriaFuenteDatosBaseDatos();
+		}
+	},
+	
+	CLAVE_VALOR {
+		public IFuenteDatos crear() 
+		{
+			return new FactoriaFuenteDatosClaveValor();
+		}
 	};
 
 	public abstract IFuenteDatos crear();
@@ -1,6 +1,10 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -9,6 +13,8 @@ import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Hueco;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
 
 public interface IModelo {
 	
@@ -26,6 +32,32 @@ public interface IModelo {
 
 	void insertar(Cita cita) throws OperationNotSupportedException;
 
+	/*
+	 * Inserciones en bloque: se comprueba el bloque entero antes de insertar, así que si algún
+	 * elemento no es válido no se inserta ninguno. Devuelven cuántos se han insertado.
+	 */
+	int insertarAlumnos(Collection<Alumno> alumnos) throws OperationNotSupportedException;
+
+	int insertarCitas(Collection<Cita> citas) throws OperationNotSupportedException;
+
+	/*
+	 * Da al alumno la primera hora libre de la sesión en una sola operación, sin que otra
+	 * inserción pueda ocuparla entre la consulta y la reserva. Devuelve la cita creada.
+	 */
+	Cita reservar(Alumno alumno, Sesion sesion) throws OperationNotSupportedException;
+
+	boolean estaLibre(Sesion sesion, LocalTime hora);
+
+	LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde);
+
+	/*
+	 * Las primeras horas libres entre dos fechas en las sesiones de una tutoría o de todas las
+	 * tutorías de un profesor, ordenadas por fecha y hora.
+	 */
+	List<Hueco> getHuecos(Tutoria tutoria, LocalDate desde, LocalDate hasta, int cuantos);
+
+	List<Hueco> getHuecos(Profesor profesor, LocalDate desde, LocalDate hasta, int cuantos);
+
 	Alumno buscar(Alumno alumno);
 
 	Profesor buscar(Profesor profesor);
@@ -36,15 +68,19 @@ public interface IModelo {
 
 	Cita buscar(Cita cita);
 
-	void borrar(Alumno alumno) throws OperationNotSupportedException;
+	/*
+	 * Los borrados arrastran todo lo que depende de la entidad (citas, sesiones y tutorías) y
+	 * devuelven cuántas entidades se han borrado en total, incluida la propia entidad.
+	 */
+	int borrar(Alumno alumno) throws OperationNotSupportedException;
 
-	void borrar(Profesor profesor) throws OperationNotSupportedException;
+	int borrar(Profesor profesor) throws OperationNotSupportedException;
 
-	void borrar(Tutoria tutoria) throws OperationNotSupportedException;
+	int borrar(Tutoria tutoria) throws OperationNotSupportedException;
 
-	void borrar(Sesion sesion) throws OperationNotSupportedException;
+	int borrar(Sesion sesion) throws OperationNotSupportedException;
 
-	void borrar(Cita cita) throws OperationNotSupportedException;
+	int borrar(Cita cita) throws OperationNotSupportedException;
 
 	List<Alumno> getAlumnos();
 
@@ -64,4 +100,57 @@ public interface IModelo {
 
 	List<Cita> getCitas(Alumno alumno);
 
+	/*
+	 * Consultas de solo lectura: devuelven listas ordenadas que no se pueden modificar y que
+	 * comparten las instancias (inmutables) registradas, sin copiarlas.
+	 */
+	List<Alumno> getVistaAlumnos();
+
+	List<Profesor> getVistaProfesores();
+
+	List<Tutoria> getVistaTutorias();
+
+	List<Sesion> getVistaSesiones();
+
+	List<Cita> getVistaCitas();
+
+	/*
+	 * Consultas paginadas por fechas (ambas incluidas). La primera página se pide con el cursor
+	 * nulo y las siguientes con el cursor de la página anterior.
+	 */
+	Pagina<Sesion> getSesiones(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano);
+
+	Pagina<Sesion> getSesiones(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano);
+
+	Pagina<Cita> getCitas(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano);
+
+	/*
+	 * Abre en tiempo constante una vista de solo lectura de todas las colecciones tal y como
+	 * están ahora, que no cambia aunque después se modifique el modelo. Si la fuente de datos
+	 * no tiene las colecciones en memoria, el primer cambio posterior las lee enteras.
+	 */
+	Instantanea getInstantanea();
+
+	/*
+	 * Recorridos perezosos en el mismo orden que las listas: no construyen listas intermedias
+	 * y se pueden seguir consumiendo aunque mientras tanto se inserte o se borre.
+	 */
+	Stream<Alumno> streamAlumnos();
+
+	Stream<Profesor> streamProfesores();
+
+	Stream<Tutoria> streamTutorias();
+
+	Stream<Tutoria> streamTutorias(Profesor profesor);
+
+	Stream<Sesion> streamSesiones();
+
+	Stream<Sesion> streamSesiones(Tutoria tutoria);
+
+	Stream<Cita> streamCitas();
+
+	Stream<Cita> streamCitas(Sesion sesion);
+
+	Stream<Cita> streamCitas(Alumno alumno);
+
 }
\ No newline at end of file
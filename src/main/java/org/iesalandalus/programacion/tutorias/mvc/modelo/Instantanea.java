@@ -0,0 +1,194 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Vista de solo lectura de las cinco colecciones tal y como estaban al abrirla, por mucho que el
+ * modelo cambie después. Abrirla no copia nada: mientras el modelo no cambie, cada colección se
+ * lee de la vista ordenada que ya mantiene el propio modelo. Antes de la primera modificación
+ * el modelo congela la instantánea, que se queda con esas vistas; como las colecciones las
+ * reemplazan en lugar de modificarlas y las entidades son inmutables, la instantánea y el
+ * modelo siguen compartiendo todas las instancias.
+ *
+ * Con las fuentes de datos que no tienen las colecciones en memoria (la base de datos), la vista
+ * de cada colección es una consulta de la tabla entera: congelar la instantánea lee las cinco
+ * tablas en el montón. Solo se paga en el primer cambio después de pedirla, así que con esas
+ * fuentes la instantánea es para informes puntuales y no para cada consulta.
+ */
+public final class Instantanea {
+
+	private final Object cerrojo;
+	private final Supplier<List<Alumno>> vistaAlumnos;
+	private final Supplier<List<Profesor>> vistaProfesores;
+	private final Supplier<List<Tutoria>> vistaTutorias;
+	private final Supplier<List<Sesion>> vistaSesiones;
+	private final Supplier<List<Cita>> vistaCitas;
+	private List<Alumno> alumnos;
+	private List<Profesor> profesores;
+	private List<Tutoria> tutorias;
+	private List<Sesion> sesiones;
+	private List<Cita> citas;
+	// Índices de la instantánea, construidos la primera vez que se consultan
+	private Map<Profesor, List<Tutoria>> tutoriasPorProfesor;
+	private Map<Tutoria, List<Sesion>> sesionesPorTutoria;
+	private Map<Sesion, List<Cita>> citasPorSesion;
+	private Map<Alumno, List<Cita>> citasPorAlumno;
+
+	/* El cerrojo es el mismo que toma el modelo para modificarse */
+	Instantanea(IModelo modelo, Object cerrojo)
+	{
+		this.cerrojo = cerrojo;
+		vistaAlumnos = modelo::getVistaAlumnos;
+		vistaProfesores = modelo::getVistaProfesores;
+		vistaTutorias = modelo::getVistaTutorias;
+		vistaSesiones = modelo::getVistaSesiones;
+		vistaCitas = modelo::getVistaCitas;
+	}
+
+	/* Lo llama el modelo con su cerrojo tomado, justo antes de su primera modificación */
+	void congelar()
+	{
+		getAlumnos();
+		getProfesores();
+		getTutorias();
+		getSesiones();
+		getCitas();
+	}
+
+	public List<Alumno> getAlumnos()
+	{
+		synchronized (cerrojo)
+		{
+			if (alumnos == null)
+			{
+				alumnos = vistaAlumnos.get();
+			}
+			return alumnos;
+		}
+	}
+
+	public List<Profesor> getProfesores()
+	{
+		synchronized (cerrojo)
+		{
+			if (profesores == null)
+			{
+				profesores = vistaProfesores.get();
+			}
+			return profesores;
+		}
+	}
+
+	public List<Tutoria> getTutorias()
+	{
+		synchronized (cerrojo)
+		{
+			if (tutorias == null)
+			{
+				tutorias = vistaTutorias.get();
+			}
+			return tutorias;
+		}
+	}
+
+	public List<Sesion> getSesiones()
+	{
+		synchronized (cerrojo)
+		{
+			if (sesiones == null)
+			{
+				sesiones = vistaSesiones.get();
+			}
+			return sesiones;
+		}
+	}
+
+	public List<Cita> getCitas()
+	{
+		synchronized (cerrojo)
+		{
+			if (citas == null)
+			{
+				citas = vistaCitas.get();
+			}
+			return citas;
+		}
+	}
+
+	public synchronized List<Tutoria> getTutorias(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		if (tutoriasPorProfesor == null)
+		{
+			tutoriasPorProfesor = agrupar(getTutorias(), Tutoria::getProfesor);
+		}
+		return tutoriasPorProfesor.getOrDefault(profesor, Collections.emptyList());
+	}
+
+	public synchronized List<Sesion> getSesiones(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (sesionesPorTutoria == null)
+		{
+			sesionesPorTutoria = agrupar(getSesiones(), Sesion::getTutoria);
+		}
+		return sesionesPorTutoria.getOrDefault(tutoria, Collections.emptyList());
+	}
+
+	public synchronized List<Cita> getCitas(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		if (citasPorSesion == null)
+		{
+			citasPorSesion = agrupar(getCitas(), Cita::getSesion);
+		}
+		return citasPorSesion.getOrDefault(sesion, Collections.emptyList());
+	}
+
+	public synchronized List<Cita> getCitas(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		if (citasPorAlumno == null)
+		{
+			citasPorAlumno = agrupar(getCitas(), Cita::getAlumno);
+		}
+		return citasPorAlumno.getOrDefault(alumno, Collections.emptyList());
+	}
+
+	// Cada grupo conserva el orden natural de la lista completa
+	private static <K, T> Map<K, List<T>> agrupar(List<T> elementos, Function<T, K> clave)
+	{
+		Map<K, List<T>> grupos = new HashMap<>();
+		for (T elemento : elementos)
+		{
+			grupos.computeIfAbsent(clave.apply(elemento), k -> new ArrayList<>()).add(elemento);
+		}
+		grupos.replaceAll((k, grupo) -> Collections.unmodifiableList(grupo));
+		return grupos;
+	}
+
+}
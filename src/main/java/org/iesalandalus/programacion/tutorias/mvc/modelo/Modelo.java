@@ -1,6 +1,22 @@
 	package org.iesalandalus.programacion.tutorias.mvc.modelo;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -9,12 +25,15 @@ import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.BuscadorHuecos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Hueco;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Alumnos;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Profesores;
@@ -28,50 +47,292 @@ public class Modelo implements IModelo {
 	private ISesiones sesiones;
 	private ICitas citas;
 	private IAlumnos alumnos;
+	private BuscadorHuecos buscadorHuecos;
+	// Instantánea abierta sobre el estado actual, si alguien la ha pedido desde el último cambio
+	private Instantanea instantanea;
+	private RegistroOperaciones registro;
+	// Algún cambio no se ha podido anotar: solo está en memoria hasta que se compacte
+	private boolean sinAnotar;
+	private boolean enParalelo;
+	private IFuenteDatos fuenteDatos;
 	
 	public Modelo(IFuenteDatos fuenteDatos) 
 	{
+		this.fuenteDatos = fuenteDatos;
 		profesores = fuenteDatos.crearProfesores();
 		tutorias = fuenteDatos.crearTutorias();
 		sesiones = fuenteDatos.crearSesiones();
 		citas = fuenteDatos.crearCitas();
 		alumnos = fuenteDatos.crearAlumnos();
+		buscadorHuecos = new BuscadorHuecos(sesiones, citas);
+	}
+	
+	public Modelo(IFuenteDatos fuenteDatos, RegistroOperaciones registro) 
+	{
+		this(fuenteDatos);
+		if (registro == null) 
+		{
+			throw new NullPointerException("ERROR: El registro de operaciones no puede ser nulo.");
+		}
+		this.registro = registro;
+	}
+	
+	/*
+	 * En paralelo, los cinco ficheros se leen a la vez (cada colección lee solo el suyo) y al
+	 * terminar una fase de enlace hace que cada entidad apunte a las instancias de las que
+	 * depende, ya leídas. Al terminar, los cinco ficheros también se escriben a la vez.
+	 */
+	public void setEnParalelo(boolean enParalelo) 
+	{
+		this.enParalelo = enParalelo;
 	}
 	
 	@Override
-	public void comenzar() 
+	public synchronized void comenzar() 
 	{
-		alumnos.comenzar();
-		profesores.comenzar();
-		tutorias.comenzar();
-		sesiones.comenzar();
-		citas.comenzar();
+		nuevaVersion();
+		if (enParalelo) 
+		{
+			Map<String, Throwable> fallos = ejecutarEnParalelo(porColeccion(alumnos::comenzar, profesores::comenzar, tutorias::comenzar, sesiones::comenzar, citas::comenzar));
+			for (Throwable fallo : fallos.values()) 
+			{
+				// Cada colección ya informa de sus errores de lectura: aquí solo llegan errores de programación
+				if (fallo instanceof RuntimeException) 
+				{
+					throw (RuntimeException) fallo;
+				}
+				throw new IllegalStateException(fallo);
+			}
+			enlazar();
+		} else {
+			alumnos.comenzar();
+			profesores.comenzar();
+			tutorias.comenzar();
+			sesiones.comenzar();
+			citas.comenzar();
+		}
+		if (registro != null) 
+		{
+			recuperar();
+		}
+	}
+	
+	@FunctionalInterface
+	private interface Operacion {
+		void ejecutar() throws IOException;
+	}
+	
+	private Map<String, Operacion> porColeccion(Operacion deAlumnos, Operacion deProfesores, Operacion deTutorias, Operacion deSesiones, Operacion deCitas) 
+	{
+		Map<String, Operacion> operaciones = new LinkedHashMap<>();
+		operaciones.put("alumnos", deAlumnos);
+		operaciones.put("profesores", deProfesores);
+		operaciones.put("tutorias", deTutorias);
+		operaciones.put("sesiones", deSesiones);
+		operaciones.put("citas", deCitas);
+		return operaciones;
+	}
+	
+	/*
+	 * Lanza todas las operaciones a la vez y espera a que acaben todas, aunque alguna falle.
+	 * Devuelve el error de cada una que ha fallado, por nombre de colección.
+	 */
+	private static Map<String, Throwable> ejecutarEnParalelo(Map<String, Operacion> operaciones) 
+	{
+		ExecutorService ejecutor = Executors.newFixedThreadPool(operaciones.size());
+		Map<String, Future<Void>> resultados = new LinkedHashMap<>();
+		Map<String, Throwable> fallos = new LinkedHashMap<>();
+		try {
+			for (Map.Entry<String, Operacion> operacion : operaciones.entrySet()) 
+			{
+				Operacion tarea = operacion.getValue();
+				resultados.put(operacion.getKey(), ejecutor.submit(() -> {
+					tarea.ejecutar();
+					return null;
+				}));
+			}
+			for (Map.Entry<String, Future<Void>> resultado : resultados.entrySet()) 
+			{
+				try {
+					resultado.getValue().get();
+				} catch (ExecutionException e) {
+					fallos.put(resultado.getKey(), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					fallos.put(resultado.getKey(), e);
+				}
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+		return fallos;
+	}
+	
+	private void enlazar() 
+	{
+		// Los padres primero, para que cada nivel reciba las instancias guardadas del anterior ya enlazadas
+		int sinEnlazar = tutorias.enlazar(profesores.getVista());
+		sinEnlazar += sesiones.enlazar(tutorias.getVista());
+		sinEnlazar += citas.enlazar(alumnos.getVista(), sesiones.getVista());
+		if (sinEnlazar > 0) 
+		{
+			System.out.println("Hay " + sinEnlazar + " registros que hacen referencia a datos que no existen.");
+		}
+	}
+	
+	private void recuperar() 
+	{
+		RegistroOperaciones registroActivo = registro;
+		// Lo que se reproduce ya está en el registro: no se vuelve a anotar
+		registro = null;
+		try {
+			int aplicadas = registroActivo.reproducir(this);
+			if (aplicadas > 0) 
+			{
+				System.out.println("Se han recuperado " + aplicadas + " operaciones del registro de operaciones.");
+			}
+			registro = registroActivo;
+			registro.iniciarCompactacion(this::compactarEnSegundoPlano);
+		} catch (IOException e) {
+			System.out.println("No puedo abrir el registro de operaciones: los cambios se guardarán al salir.");
+		}
 	}
 
 	@Override
 	public void terminar() 
 	{
-		alumnos.terminar();
-		profesores.terminar();
-		tutorias.terminar();
-		sesiones.terminar();
-		citas.terminar();
+		if (registro == null) 
+		{
+			if (enParalelo) 
+			{
+				// Cada colección informa del resultado de su propio fichero; aquí solo llegan errores inesperados
+				Map<String, Throwable> fallos = ejecutarEnParalelo(porColeccion(alumnos::terminar, profesores::terminar, tutorias::terminar, sesiones::terminar, citas::terminar));
+				for (Map.Entry<String, Throwable> fallo : fallos.entrySet()) 
+				{
+					System.out.println("No se ha podido escribir el fichero de " + fallo.getKey() + ": " + fallo.getValue().getMessage());
+				}
+			} else {
+				alumnos.terminar();
+				profesores.terminar();
+				tutorias.terminar();
+				sesiones.terminar();
+				citas.terminar();
+			}
+			return;
+		}
+		// Antes de tomar el bloqueo: una compactación en curso lo necesita para acabar
+		registro.detenerCompactacion();
+		synchronized (this) 
+		{
+			// Con registro solo hace falta reescribir los ficheros si hay operaciones pendientes o sin anotar
+			try {
+				if (sinAnotar || registro.getNumeroOperaciones() > 0) 
+				{
+					compactar();
+					System.out.println("Ficheros de datos actualizados con el registro de operaciones.");
+				}
+			} catch (IOException e) {
+				System.out.println("No se han podido escribir los ficheros de datos: los cambios se conservan en el registro de operaciones.");
+			}
+			try {
+				registro.cerrar();
+			} catch (IOException e) {
+				System.out.println("Error inesperado de Entrada/Salida.");
+			}
+		}
+	}
+	
+	/*
+	 * Vuelca todas las colecciones a sus ficheros y, solo si todas se han escrito, vacía el registro.
+	 * Cada fichero se reemplaza de forma atómica: si uno falla, se queda con su versión anterior y
+	 * el registro conserva las operaciones necesarias para reconstruirlo.
+	 */
+	private synchronized void compactar() throws IOException 
+	{
+		if (enParalelo) 
+		{
+			Map<String, Throwable> fallos = ejecutarEnParalelo(porColeccion(alumnos::guardar, profesores::guardar, tutorias::guardar, sesiones::guardar, citas::guardar));
+			for (Map.Entry<String, Throwable> fallo : fallos.entrySet()) 
+			{
+				System.out.println("No se ha podido escribir el fichero de " + fallo.getKey() + ": " + fallo.getValue().getMessage());
+			}
+			if (!fallos.isEmpty()) 
+			{
+				throw new IOException("ERROR: No se han podido escribir " + fallos.size() + " ficheros de datos.");
+			}
+		} else {
+			alumnos.guardar();
+			profesores.guardar();
+			tutorias.guardar();
+			sesiones.guardar();
+			citas.guardar();
+		}
+		registro.vaciar();
+		sinAnotar = false;
+	}
+	
+	private void compactarEnSegundoPlano() 
+	{
+		try {
+			compactar();
+		} catch (IOException e) {
+			System.out.println("No se ha podido compactar el registro de operaciones: " + e.getMessage());
+		}
+	}
+	
+	@FunctionalInterface
+	private interface Anotacion {
+		void anotar(RegistroOperaciones registro) throws IOException;
+	}
+	
+	// Se anota antes de aplicar el cambio en memoria: nadie llega a ver un cambio que no esté ya en disco
+	private void anotar(Anotacion anotacion) 
+	{
+		if (registro != null) 
+		{
+			try {
+				anotacion.anotar(registro);
+			} catch (IOException e) {
+				sinAnotar = true;
+				System.out.println("No se ha podido anotar la operación en el registro de operaciones: se guardará al salir.");
+			}
+		}
 	}
 
 	@Override
-	public void insertar(Alumno alumno) throws OperationNotSupportedException
+	public synchronized void insertar(Alumno alumno) throws OperationNotSupportedException
 	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+		}
+		if (comprobarAntes() && alumnos.buscar(alumno) != null) 
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe un alumno con ese expediente.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercion(alumno));
 		alumnos.insertar(alumno);
 	}
 
 	@Override
-	public void insertar(Profesor profesor) throws OperationNotSupportedException
+	public synchronized void insertar(Profesor profesor) throws OperationNotSupportedException
 	{
+		if (profesor == null) 
+		{
+			throw new NullPointerException("ERROR: No se puede insertar un profesor nulo.");
+		}
+		if (comprobarAntes() && profesores.buscar(profesor) != null) 
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe un profesor con ese DNI.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercion(profesor));
 		profesores.insertar(profesor);
 	}
 
 	@Override
-	public void insertar(Tutoria tutoria) throws OperationNotSupportedException
+	public synchronized void insertar(Tutoria tutoria) throws OperationNotSupportedException
 	{
 		if (tutoria == null) 
 		{
@@ -82,11 +343,17 @@ public class Modelo implements IModelo {
 		{
 			throw new OperationNotSupportedException("ERROR: No existe el profesor de esta tutoría.");
 		}
-		tutorias.insertar(new Tutoria(profesor, tutoria.getNombre()));
+		if (comprobarAntes() && tutorias.buscar(tutoria) != null) 
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe una tutoría con ese identificador.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercion(tutoria));
+		tutorias.insertar(Tutoria.restaurar(profesor, tutoria.getNombre()));
 	}
 
 	@Override
-	public void insertar(Sesion sesion) throws OperationNotSupportedException
+	public synchronized void insertar(Sesion sesion) throws OperationNotSupportedException
 	{
 		if (sesion == null)
 		{
@@ -97,11 +364,18 @@ public class Modelo implements IModelo {
 		{
 			throw new OperationNotSupportedException("ERROR: No existe la tutoría de esta sesión.");
 		}
-		sesiones.insertar(new Sesion(tutoria, sesion.getFecha(), sesion.getHoraInicio(), sesion.getHoraFin(),sesion.getMinutosDuracion()));
+		if (comprobarAntes() && sesiones.buscar(sesion) != null) 
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe una sesión con esa fecha.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercion(sesion));
+		// La sesión ya se validó al crearla: solo se cambia su tutoría por la registrada
+		sesiones.insertar(Sesion.restaurar(tutoria, sesion.getFecha(), sesion.getHoraInicio(), sesion.getHoraFin(), sesion.getMinutosDuracion()));
 	}
 
 	@Override
-	public void insertar(Cita cita) throws OperationNotSupportedException
+	public synchronized void insertar(Cita cita) throws OperationNotSupportedException
 	{
 		if (cita == null) 
 		{
@@ -117,7 +391,206 @@ public class Modelo implements IModelo {
 		{
 			throw new OperationNotSupportedException("ERROR: No existe la sesión de esta cita.");
 		}
-		citas.insertar(new Cita(alumno, sesion, cita.getHora()));	
+		if (comprobarAntes() && !citas.estaLibre(sesion, cita.getHora())) 
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe una cita con esa hora.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercion(cita));
+		// Se enlaza con el alumno y la sesión registrados en lugar de duplicarlos
+		citas.insertar(Cita.restaurar(alumno, sesion, cita.getHora()));
+	}
+
+	@Override
+	public synchronized int insertarAlumnos(Collection<Alumno> alumnosNuevos) throws OperationNotSupportedException
+	{
+		if (alumnosNuevos == null) 
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar alumnos nulos.");
+		}
+		if (comprobarAntes()) 
+		{
+			Set<Alumno> vistos = new HashSet<>(alumnosNuevos.size() * 4 / 3 + 1);
+			for (Alumno alumno : alumnosNuevos) 
+			{
+				if (alumno == null) 
+				{
+					throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+				}
+				if (!vistos.add(alumno) || alumnos.buscar(alumno) != null) 
+				{
+					throw new OperationNotSupportedException("ERROR: Ya existe un alumno con ese expediente.");
+				}
+			}
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercionAlumnos(alumnosNuevos));
+		alumnos.insertarTodos(alumnosNuevos);
+		return alumnosNuevos.size();
+	}
+
+	/*
+	 * En lugar de buscar el alumno y la sesión de cada cita, se reúnen las citas con los alumnos
+	 * y las sesiones registrados a través de dos tablas hash construidas una sola vez. Recorrer
+	 * una colección entera solo compensa si el bloque es al menos igual de grande (en las fuentes
+	 * que no la tienen en memoria supone leerla entera); si no, la tabla empieza vacía y cada
+	 * alumno o sesión distinto se busca por su clave una sola vez.
+	 */
+	@Override
+	public synchronized int insertarCitas(Collection<Cita> citasNuevas) throws OperationNotSupportedException
+	{
+		if (citasNuevas == null) 
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar citas nulas.");
+		}
+		Map<Alumno, Alumno> alumnosRegistrados = citasNuevas.size() >= alumnos.getTamano() ? porValor(alumnos.getVista()) : new HashMap<>();
+		Map<Sesion, Sesion> sesionesRegistradas = citasNuevas.size() >= sesiones.getTamano() ? porValor(sesiones.getVista()) : new HashMap<>();
+		List<Cita> citasEnlazadas = new ArrayList<>(citasNuevas.size());
+		for (Cita cita : citasNuevas) 
+		{
+			if (cita == null) 
+			{
+				throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+			}
+			Alumno alumno = alumnosRegistrados.computeIfAbsent(cita.getAlumno(), alumnos::buscar);
+			if (alumno == null) 
+			{
+				throw new OperationNotSupportedException("ERROR: No existe el alumno de esta cita.");
+			}
+			Sesion sesion = sesionesRegistradas.computeIfAbsent(cita.getSesion(), sesiones::buscar);
+			if (sesion == null) 
+			{
+				throw new OperationNotSupportedException("ERROR: No existe la sesión de esta cita.");
+			}
+			citasEnlazadas.add(Cita.restaurar(alumno, sesion, cita.getHora()));
+		}
+		if (comprobarAntes()) 
+		{
+			comprobarLibres(citasEnlazadas);
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercionCitas(citasEnlazadas));
+		// Los duplicados, dentro del bloque o con las citas ya registradas, los rechaza la colección
+		citas.insertarTodas(citasEnlazadas);
+		return citasEnlazadas.size();
+	}
+
+	private void comprobarLibres(List<Cita> citasNuevas) throws OperationNotSupportedException
+	{
+		Map<Sesion, Set<LocalTime>> horasOcupadas = new HashMap<>();
+		for (Cita cita : citasNuevas) 
+		{
+			if (!horasOcupadas.computeIfAbsent(cita.getSesion(), sesion -> new HashSet<>()).add(cita.getHora()) 
+					|| !citas.estaLibre(cita.getSesion(), cita.getHora())) 
+			{
+				throw new OperationNotSupportedException("ERROR: Ya existe una cita con esa hora.");
+			}
+		}
+	}
+
+	@Override
+	public synchronized Cita reservar(Alumno alumno, Sesion sesion) throws OperationNotSupportedException
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		Alumno alumnoRegistrado = alumnos.buscar(alumno);
+		if (alumnoRegistrado == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No existe el alumno de esta cita.");
+		}
+		Sesion sesionRegistrada = sesiones.buscar(sesion);
+		if (sesionRegistrada == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No existe la sesión de esta cita.");
+		}
+		LocalTime hora = citas.getSiguienteHoraLibre(sesionRegistrada, null);
+		if (hora == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No quedan horas libres en esta sesión.");
+		}
+		Cita cita = Cita.restaurar(alumnoRegistrado, sesionRegistrada, hora);
+		nuevaVersion();
+		anotar(registro -> registro.anotarInsercion(cita));
+		citas.insertar(cita);
+		return new Cita(cita);
+	}
+
+	@Override
+	public synchronized Instantanea getInstantanea()
+	{
+		if (instantanea == null) 
+		{
+			instantanea = new Instantanea(this, this);
+		}
+		return instantanea;
+	}
+
+	/*
+	 * Justo antes de cada cambio, la instantánea abierta se queda con las colecciones tal y como
+	 * están y el cambio se anota en el registro. Ni una cosa ni otra deben pasar si el cambio no
+	 * procede: con una instantánea o un registro abiertos, cada cambio comprueba antes lo mismo
+	 * que rechazaría la colección; sin ninguno de los dos no hace falta buscar nada.
+	 */
+	private boolean comprobarAntes()
+	{
+		return instantanea != null || registro != null;
+	}
+
+	private void nuevaVersion()
+	{
+		if (instantanea != null) 
+		{
+			instantanea.congelar();
+			instantanea = null;
+		}
+	}
+
+	@Override
+	public boolean estaLibre(Sesion sesion, LocalTime hora)
+	{
+		return citas.estaLibre(sesion, hora);
+	}
+
+	@Override
+	public LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde)
+	{
+		return citas.getSiguienteHoraLibre(sesion, desde);
+	}
+
+	@Override
+	public List<Hueco> getHuecos(Tutoria tutoria, LocalDate desde, LocalDate hasta, int cuantos)
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		return buscadorHuecos.buscar(Collections.singletonList(tutoria), desde, hasta, cuantos);
+	}
+
+	@Override
+	public List<Hueco> getHuecos(Profesor profesor, LocalDate desde, LocalDate hasta, int cuantos)
+	{
+		if (profesor == null) 
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		return buscadorHuecos.buscar(tutorias.get(profesor), desde, hasta, cuantos);
+	}
+
+	private static <T> Map<T, T> porValor(List<T> elementos)
+	{
+		Map<T, T> elementosPorValor = new HashMap<>(elementos.size() * 4 / 3 + 1);
+		for (T elemento : elementos) 
+		{
+			elementosPorValor.put(elemento, elemento);
+		}
+		return elementosPorValor;
 	}
 
 	@Override
@@ -150,54 +623,128 @@ public class Modelo implements IModelo {
 		return citas.buscar(cita);
 	}
 
+	/*
+	 * Cada colección quita de una vez, con sus índices, todo lo que cuelga de la entidad
+	 * borrada. Se borra de abajo arriba (la entidad la última, como piden las claves ajenas de
+	 * la base de datos) y como una sola operación de la fuente de datos: si la entidad no existe
+	 * o algo falla a mitad, una fuente con transacciones no se queda con nada borrado.
+	 */
 	@Override
-	public void borrar(Alumno alumno) throws OperationNotSupportedException
+	public synchronized int borrar(Alumno alumno) throws OperationNotSupportedException
 	{
-		List<Cita> citasAlumno = citas.get(alumno);
-		for (Cita cita: citasAlumno) 
+		if (alumno == null) 
 		{
-			citas.borrar(cita);
+			throw new IllegalArgumentException("ERROR: No se puede borrar un alumno nulo.");
 		}
-		alumnos.borrar(alumno);
+		if (comprobarAntes() && alumnos.buscar(alumno) == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ningún alumno con ese expediente.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarBorrado(alumno));
+		return fuenteDatos.aplicarJuntos(() -> {
+			int borradas = 1 + citas.borrarTodas(alumno);
+			alumnos.borrar(alumno);
+			return borradas;
+		});
 	}
 
 	@Override
-	public void borrar(Profesor profesor) throws OperationNotSupportedException
+	public synchronized int borrar(Profesor profesor) throws OperationNotSupportedException
 	{
-		List<Tutoria> tutoriasProfesor = tutorias.get(profesor);
-		for (Tutoria tutoria: tutoriasProfesor) 
+		if (profesor == null) 
 		{
-			borrar(tutoria);
+			throw new IllegalArgumentException("ERROR: No se puede borrar un profesor nulo.");
 		}
-		profesores.borrar(profesor);
+		if (comprobarAntes() && profesores.buscar(profesor) == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ningún profesor con ese DNI.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarBorrado(profesor));
+		return fuenteDatos.aplicarJuntos(() -> {
+			int borradas = 1 + borrarDependientes(profesor);
+			profesores.borrar(profesor);
+			return borradas;
+		});
 	}
 
 	@Override
-	public void borrar(Tutoria tutoria) throws OperationNotSupportedException
+	public synchronized int borrar(Tutoria tutoria) throws OperationNotSupportedException
 	{
-		List<Sesion> sesionesTutoria = sesiones.get(tutoria);
-		for (Sesion sesion: sesionesTutoria) 
+		if (tutoria == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una tutoría nula.");
+		}
+		if (comprobarAntes() && tutorias.buscar(tutoria) == null) 
 		{
-			borrar(sesion);
+			throw new OperationNotSupportedException("ERROR: No existe ninguna tutoría con ese identificador.");
 		}
-		tutorias.borrar(tutoria);
+		nuevaVersion();
+		anotar(registro -> registro.anotarBorrado(tutoria));
+		return fuenteDatos.aplicarJuntos(() -> {
+			int borradas = 1 + borrarDependientes(tutoria);
+			tutorias.borrar(tutoria);
+			return borradas;
+		});
 	}
 
 	@Override
-	public void borrar(Sesion sesion) throws OperationNotSupportedException
+	public synchronized int borrar(Sesion sesion) throws OperationNotSupportedException
+	{
+		if (sesion == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una sesión nula.");
+		}
+		if (comprobarAntes() && sesiones.buscar(sesion) == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna sesión con esa fecha.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarBorrado(sesion));
+		return fuenteDatos.aplicarJuntos(() -> {
+			int borradas = 1 + citas.borrarTodas(sesion);
+			sesiones.borrar(sesion);
+			return borradas;
+		});
+	}
+
+	// Los borrados en cascada solo se anotan una vez, con la entidad que los origina
+	private int borrarDependientes(Profesor profesor)
+	{
+		int borradas = 0;
+		for (Tutoria tutoria : tutorias.get(profesor)) 
+		{
+			borradas += borrarDependientes(tutoria);
+		}
+		return borradas + tutorias.borrarTodas(profesor).size();
+	}
+
+	private int borrarDependientes(Tutoria tutoria)
 	{
-		List<Cita> citasSesion = citas.get(sesion);
-		for (Cita cita: citasSesion) 
+		int borradas = 0;
+		for (Sesion sesion : sesiones.get(tutoria)) 
 		{
-			citas.borrar(cita);
+			borradas += citas.borrarTodas(sesion);
 		}
-		sesiones.borrar(sesion);
+		return borradas + sesiones.borrarTodas(tutoria).size();
 	}
 
 	@Override
-	public void borrar(Cita cita) throws OperationNotSupportedException
+	public synchronized int borrar(Cita cita) throws OperationNotSupportedException
 	{
+		if (cita == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una cita nula.");
+		}
+		if (comprobarAntes() && citas.buscar(cita) == null) 
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna cita con esa hora.");
+		}
+		nuevaVersion();
+		anotar(registro -> registro.anotarBorrado(cita));
 		citas.borrar(cita);
+		return 1;
 	}
 
 	@Override
@@ -253,4 +800,106 @@ public class Modelo implements IModelo {
 	{
 		return citas.get(alumno);
 	}
+
+	@Override
+	public List<Alumno> getVistaAlumnos() 
+	{
+		return alumnos.getVista();
+	}
+
+	@Override
+	public List<Profesor> getVistaProfesores() 
+	{
+		return profesores.getVista();
+	}
+
+	@Override
+	public List<Tutoria> getVistaTutorias() 
+	{
+		return tutorias.getVista();
+	}
+
+	@Override
+	public List<Sesion> getVistaSesiones() 
+	{
+		return sesiones.getVista();
+	}
+
+	@Override
+	public List<Cita> getVistaCitas() 
+	{
+		return citas.getVista();
+	}
+
+	@Override
+	public Pagina<Sesion> getSesiones(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano) 
+	{
+		return sesiones.get(desde, hasta, despuesDe, tamano);
+	}
+
+	@Override
+	public Pagina<Sesion> getSesiones(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano) 
+	{
+		return sesiones.get(tutoria, desde, despuesDe, tamano);
+	}
+
+	@Override
+	public Pagina<Cita> getCitas(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano) 
+	{
+		return citas.get(desde, hasta, despuesDe, tamano);
+	}
+
+	@Override
+	public Stream<Alumno> streamAlumnos() 
+	{
+		return alumnos.stream();
+	}
+
+	@Override
+	public Stream<Profesor> streamProfesores() 
+	{
+		return profesores.stream();
+	}
+
+	@Override
+	public Stream<Tutoria> streamTutorias() 
+	{
+		return tutorias.stream();
+	}
+
+	@Override
+	public Stream<Tutoria> streamTutorias(Profesor profesor) 
+	{
+		return tutorias.stream(profesor);
+	}
+
+	@Override
+	public Stream<Sesion> streamSesiones() 
+	{
+		return sesiones.stream();
+	}
+
+	@Override
+	public Stream<Sesion> streamSesiones(Tutoria tutoria) 
+	{
+		return sesiones.stream(tutoria);
+	}
+
+	@Override
+	public Stream<Cita> streamCitas() 
+	{
+		return citas.stream();
+	}
+
+	@Override
+	public Stream<Cita> streamCitas(Sesion sesion) 
+	{
+		return citas.stream(sesion);
+	}
+
+	@Override
+	public Stream<Cita> streamCitas(Alumno alumno) 
+	{
+		return citas.stream(alumno);
+	}
 }
@@ -0,0 +1,421 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Hueco;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Modelo compartido por varios puestos a la vez. Envuelve otro modelo con un cerrojo de lectura
+ * y escritura: las consultas entran todas a la vez y cada modificación entra sola, así que un
+ * borrado en cascada nunca se ve a medias. Los recorridos perezosos toman el cerrojo en cada
+ * paso y lo sueltan antes de entregar el elemento, de modo que quien los consume puede
+ * modificar el modelo sin bloquearse.
+ */
+public class ModeloConcurrente implements IModelo {
+
+	private final IModelo modelo;
+	private final Lock lectura;
+	private final Lock escritura;
+
+	public ModeloConcurrente(IModelo modelo)
+	{
+		if (modelo == null)
+		{
+			throw new NullPointerException("ERROR: El modelo no puede ser nulo.");
+		}
+		this.modelo = modelo;
+		ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+		lectura = cerrojo.readLock();
+		escritura = cerrojo.writeLock();
+	}
+
+	private interface Modificacion<T> {
+		T ejecutar() throws OperationNotSupportedException;
+	}
+
+	private <T> T leer(Supplier<T> consulta)
+	{
+		lectura.lock();
+		try {
+			return consulta.get();
+		} finally {
+			lectura.unlock();
+		}
+	}
+
+	private <T> T escribir(Modificacion<T> modificacion) throws OperationNotSupportedException
+	{
+		escritura.lock();
+		try {
+			return modificacion.ejecutar();
+		} finally {
+			escritura.unlock();
+		}
+	}
+
+	private <T> Stream<T> recorrer(Supplier<Stream<T>> flujo)
+	{
+		Spliterator<T> recorrido = leer(() -> flujo.get().spliterator());
+		return StreamSupport.stream(new RecorridoBloqueado<>(recorrido), false);
+	}
+
+	private class RecorridoBloqueado<T> extends Spliterators.AbstractSpliterator<T> {
+
+		private final Spliterator<T> recorrido;
+		private T siguiente;
+
+		private RecorridoBloqueado(Spliterator<T> recorrido)
+		{
+			super(Long.MAX_VALUE, recorrido.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED));
+			this.recorrido = recorrido;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> accion)
+		{
+			boolean avanza = leer(() -> recorrido.tryAdvance(elemento -> siguiente = elemento));
+			if (avanza)
+			{
+				accion.accept(siguiente);
+			}
+			return avanza;
+		}
+
+	}
+
+	@Override
+	public void comenzar()
+	{
+		escritura.lock();
+		try {
+			modelo.comenzar();
+		} finally {
+			escritura.unlock();
+		}
+	}
+
+	@Override
+	public void terminar()
+	{
+		escritura.lock();
+		try {
+			modelo.terminar();
+		} finally {
+			escritura.unlock();
+		}
+	}
+
+	@Override
+	public void insertar(Alumno alumno) throws OperationNotSupportedException
+	{
+		escribir(() -> { modelo.insertar(alumno); return null; });
+	}
+
+	@Override
+	public void insertar(Profesor profesor) throws OperationNotSupportedException
+	{
+		escribir(() -> { modelo.insertar(profesor); return null; });
+	}
+
+	@Override
+	public void insertar(Tutoria tutoria) throws OperationNotSupportedException
+	{
+		escribir(() -> { modelo.insertar(tutoria); return null; });
+	}
+
+	@Override
+	public void insertar(Sesion sesion) throws OperationNotSupportedException
+	{
+		escribir(() -> { modelo.insertar(sesion); return null; });
+	}
+
+	@Override
+	public void insertar(Cita cita) throws OperationNotSupportedException
+	{
+		escribir(() -> { modelo.insertar(cita); return null; });
+	}
+
+	@Override
+	public int insertarAlumnos(Collection<Alumno> alumnos) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.insertarAlumnos(alumnos));
+	}
+
+	@Override
+	public int insertarCitas(Collection<Cita> citas) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.insertarCitas(citas));
+	}
+
+	@Override
+	public Cita reservar(Alumno alumno, Sesion sesion) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.reservar(alumno, sesion));
+	}
+
+	@Override
+	public boolean estaLibre(Sesion sesion, LocalTime hora)
+	{
+		return leer(() -> modelo.estaLibre(sesion, hora));
+	}
+
+	@Override
+	public LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde)
+	{
+		return leer(() -> modelo.getSiguienteHoraLibre(sesion, desde));
+	}
+
+	@Override
+	public List<Hueco> getHuecos(Tutoria tutoria, LocalDate desde, LocalDate hasta, int cuantos)
+	{
+		return leer(() -> modelo.getHuecos(tutoria, desde, hasta, cuantos));
+	}
+
+	@Override
+	public List<Hueco> getHuecos(Profesor profesor, LocalDate desde, LocalDate hasta, int cuantos)
+	{
+		return leer(() -> modelo.getHuecos(profesor, desde, hasta, cuantos));
+	}
+
+	@Override
+	public Alumno buscar(Alumno alumno)
+	{
+		return leer(() -> modelo.buscar(alumno));
+	}
+
+	@Override
+	public Profesor buscar(Profesor profesor)
+	{
+		return leer(() -> modelo.buscar(profesor));
+	}
+
+	@Override
+	public Tutoria buscar(Tutoria tutoria)
+	{
+		return leer(() -> modelo.buscar(tutoria));
+	}
+
+	@Override
+	public Sesion buscar(Sesion sesion)
+	{
+		return leer(() -> modelo.buscar(sesion));
+	}
+
+	@Override
+	public Cita buscar(Cita cita)
+	{
+		return leer(() -> modelo.buscar(cita));
+	}
+
+	@Override
+	public int borrar(Alumno alumno) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.borrar(alumno));
+	}
+
+	@Override
+	public int borrar(Profesor profesor) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.borrar(profesor));
+	}
+
+	@Override
+	public int borrar(Tutoria tutoria) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.borrar(tutoria));
+	}
+
+	@Override
+	public int borrar(Sesion sesion) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.borrar(sesion));
+	}
+
+	@Override
+	public int borrar(Cita cita) throws OperationNotSupportedException
+	{
+		return escribir(() -> modelo.borrar(cita));
+	}
+
+	@Override
+	public List<Alumno> getAlumnos()
+	{
+		return leer(modelo::getAlumnos);
+	}
+
+	@Override
+	public List<Profesor> getProfesores()
+	{
+		return leer(modelo::getProfesores);
+	}
+
+	@Override
+	public List<Tutoria> getTutorias()
+	{
+		return leer(modelo::getTutorias);
+	}
+
+	@Override
+	public List<Tutoria> getTutorias(Profesor profesor)
+	{
+		return leer(() -> modelo.getTutorias(profesor));
+	}
+
+	@Override
+	public List<Sesion> getSesiones()
+	{
+		return leer(modelo::getSesiones);
+	}
+
+	@Override
+	public List<Sesion> getSesiones(Tutoria tutoria)
+	{
+		return leer(() -> modelo.getSesiones(tutoria));
+	}
+
+	@Override
+	public List<Cita> getCitas()
+	{
+		return leer(modelo::getCitas);
+	}
+
+	@Override
+	public List<Cita> getCitas(Sesion sesion)
+	{
+		return leer(() -> modelo.getCitas(sesion));
+	}
+
+	@Override
+	public List<Cita> getCitas(Alumno alumno)
+	{
+		return leer(() -> modelo.getCitas(alumno));
+	}
+
+	@Override
+	public List<Alumno> getVistaAlumnos()
+	{
+		return leer(modelo::getVistaAlumnos);
+	}
+
+	@Override
+	public List<Profesor> getVistaProfesores()
+	{
+		return leer(modelo::getVistaProfesores);
+	}
+
+	@Override
+	public List<Tutoria> getVistaTutorias()
+	{
+		return leer(modelo::getVistaTutorias);
+	}
+
+	@Override
+	public List<Sesion> getVistaSesiones()
+	{
+		return leer(modelo::getVistaSesiones);
+	}
+
+	@Override
+	public List<Cita> getVistaCitas()
+	{
+		return leer(modelo::getVistaCitas);
+	}
+
+	@Override
+	public Pagina<Sesion> getSesiones(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano)
+	{
+		return leer(() -> modelo.getSesiones(desde, hasta, despuesDe, tamano));
+	}
+
+	@Override
+	public Pagina<Sesion> getSesiones(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano)
+	{
+		return leer(() -> modelo.getSesiones(tutoria, desde, despuesDe, tamano));
+	}
+
+	@Override
+	public Pagina<Cita> getCitas(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano)
+	{
+		return leer(() -> modelo.getCitas(desde, hasta, despuesDe, tamano));
+	}
+
+	@Override
+	public Instantanea getInstantanea()
+	{
+		return leer(modelo::getInstantanea);
+	}
+
+	@Override
+	public Stream<Alumno> streamAlumnos()
+	{
+		return recorrer(modelo::streamAlumnos);
+	}
+
+	@Override
+	public Stream<Profesor> streamProfesores()
+	{
+		return recorrer(modelo::streamProfesores);
+	}
+
+	@Override
+	public Stream<Tutoria> streamTutorias()
+	{
+		return recorrer(modelo::streamTutorias);
+	}
+
+	@Override
+	public Stream<Tutoria> streamTutorias(Profesor profesor)
+	{
+		return recorrer(() -> modelo.streamTutorias(profesor));
+	}
+
+	@Override
+	public Stream<Sesion> streamSesiones()
+	{
+		return recorrer(modelo::streamSesiones);
+	}
+
+	@Override
+	public Stream<Sesion> streamSesiones(Tutoria tutoria)
+	{
+		return recorrer(() -> modelo.streamSesiones(tutoria));
+	}
+
+	@Override
+	public Stream<Cita> streamCitas()
+	{
+		return recorrer(modelo::streamCitas);
+	}
+
+	@Override
+	public Stream<Cita> streamCitas(Sesion sesion)
+	{
+		return recorrer(() -> modelo.streamCitas(sesion));
+	}
+
+	@Override
+	public Stream<Cita> streamCitas(Alumno alumno)
+	{
+		return recorrer(() -> modelo.streamCitas(alumno));
+	}
+
+}
@@ -0,0 +1,563 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Registro de operaciones de solo añadir. Cada inserción o borrado que hace el modelo se anota
+ * como un registro pequeño (longitud, CRC32, operación y datos de la entidad) y se fuerza a disco,
+ * de modo que sobrevive a una caída aunque los ficheros de datos no se hayan reescrito.
+ * Al comenzar se reproduce sobre los datos leídos; al compactar, los ficheros de datos se
+ * reescriben y el registro se vacía.
+ */
+public class RegistroOperaciones {
+
+	public static final String NOMBRE_FICHERO_REGISTRO = "datos/operaciones.log";
+
+	private static final int UMBRAL_COMPACTACION = 1000;
+	private static final long PERIODO_COMPACTACION_SEGUNDOS = 60;
+
+	private static final byte INSERTAR = 1;
+	private static final byte BORRAR = 2;
+
+	private static final byte ALUMNO = 1;
+	private static final byte PROFESOR = 2;
+	private static final byte TUTORIA = 3;
+	private static final byte SESION = 4;
+	private static final byte CITA = 5;
+
+	// longitud de los datos y CRC32
+	private static final int TAMANO_CABECERA = 4 + 4;
+
+	private Path fichero;
+	private FileChannel canal;
+	private int numeroOperaciones;
+	private ScheduledExecutorService compactador;
+
+	public RegistroOperaciones()
+	{
+		this(NOMBRE_FICHERO_REGISTRO);
+	}
+
+	public RegistroOperaciones(String nombreFichero)
+	{
+		if (nombreFichero == null)
+		{
+			throw new NullPointerException("ERROR: El nombre del fichero no puede ser nulo.");
+		}
+		fichero = Paths.get(nombreFichero);
+	}
+
+	/*
+	 * Aplica sobre el modelo las operaciones anotadas y deja el registro abierto para seguir
+	 * anotando. Un registro final incompleto o dañado (una caída a mitad de escritura) se descarta.
+	 */
+	public synchronized int reproducir(IModelo modelo) throws IOException
+	{
+		int aplicadas = 0;
+		int descartadas = 0;
+		long posicionValida = 0;
+		if (Files.exists(fichero))
+		{
+			ByteBuffer contenido = ByteBuffer.wrap(Files.readAllBytes(fichero));
+			while (contenido.remaining() >= TAMANO_CABECERA)
+			{
+				int longitud = contenido.getInt();
+				int crc = contenido.getInt();
+				if (longitud <= 0 || longitud > contenido.remaining())
+				{
+					break;
+				}
+				byte[] datos = new byte[longitud];
+				contenido.get(datos);
+				if (crc != calcularCrc(datos))
+				{
+					break;
+				}
+				posicionValida = contenido.position();
+				numeroOperaciones++;
+				try {
+					aplicar(modelo, new DataInputStream(new ByteArrayInputStream(datos)));
+					aplicadas++;
+				} catch (OperationNotSupportedException | IllegalArgumentException | NullPointerException | IOException e) {
+					// Ya estaba en los ficheros de datos (compactación interrumpida) o ya no es aplicable
+					descartadas++;
+				}
+			}
+		}
+		if (descartadas > 0)
+		{
+			System.out.println("Se han descartado " + descartadas + " operaciones del registro que ya no se podían aplicar.");
+		}
+		abrir(posicionValida);
+		return aplicadas;
+	}
+
+	private void abrir(long posicionValida) throws IOException
+	{
+		if (fichero.getParent() != null)
+		{
+			Files.createDirectories(fichero.getParent());
+		}
+		canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		// Se corta lo que haya detrás del último registro válido
+		canal.truncate(posicionValida);
+		canal.position(posicionValida);
+	}
+
+	private static int calcularCrc(byte[] datos)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(datos, 0, datos.length);
+		return (int) crc.getValue();
+	}
+
+	public synchronized int getNumeroOperaciones()
+	{
+		return numeroOperaciones;
+	}
+
+	public void anotarInsercion(Alumno alumno) throws IOException
+	{
+		anotar(INSERTAR, ALUMNO, salida -> escribirAlumno(salida, alumno));
+	}
+
+	public void anotarInsercion(Profesor profesor) throws IOException
+	{
+		anotar(INSERTAR, PROFESOR, salida -> escribirProfesor(salida, profesor));
+	}
+
+	public void anotarInsercion(Tutoria tutoria) throws IOException
+	{
+		anotar(INSERTAR, TUTORIA, salida -> escribirTutoria(salida, tutoria));
+	}
+
+	public void anotarInsercion(Sesion sesion) throws IOException
+	{
+		anotar(INSERTAR, SESION, salida -> escribirSesion(salida, sesion));
+	}
+
+	public void anotarInsercion(Cita cita) throws IOException
+	{
+		anotar(INSERTAR, CITA, salida -> escribirCita(salida, cita));
+	}
+
+	public void anotarBorrado(Alumno alumno) throws IOException
+	{
+		anotar(BORRAR, ALUMNO, salida -> escribirAlumno(salida, alumno));
+	}
+
+	public void anotarBorrado(Profesor profesor) throws IOException
+	{
+		anotar(BORRAR, PROFESOR, salida -> escribirProfesor(salida, profesor));
+	}
+
+	public void anotarBorrado(Tutoria tutoria) throws IOException
+	{
+		anotar(BORRAR, TUTORIA, salida -> escribirTutoria(salida, tutoria));
+	}
+
+	public void anotarBorrado(Sesion sesion) throws IOException
+	{
+		anotar(BORRAR, SESION, salida -> escribirSesion(salida, sesion));
+	}
+
+	public void anotarBorrado(Cita cita) throws IOException
+	{
+		anotar(BORRAR, CITA, salida -> escribirCita(salida, cita));
+	}
+
+	/*
+	 * Las inserciones en bloque se anotan juntas: una sola escritura y un solo forzado a disco
+	 * para todo el bloque. Al reproducirlo, cada registro sigue siendo una operación.
+	 */
+	public void anotarInsercionAlumnos(Collection<Alumno> alumnos) throws IOException
+	{
+		anotar(INSERTAR, ALUMNO, alumnos, RegistroOperaciones::escribirAlumno);
+	}
+
+	public void anotarInsercionCitas(Collection<Cita> citas) throws IOException
+	{
+		anotar(INSERTAR, CITA, citas, RegistroOperaciones::escribirCita);
+	}
+
+	@FunctionalInterface
+	private interface Escritura {
+		void escribir(DataOutput salida) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface EscrituraElemento<T> {
+		void escribir(DataOutput salida, T elemento) throws IOException;
+	}
+
+	private synchronized void anotar(byte operacion, byte tipo, Escritura escritura) throws IOException
+	{
+		ByteArrayOutputStream registros = new ByteArrayOutputStream(128);
+		anadirRegistro(new DataOutputStream(registros), operacion, tipo, escritura);
+		escribir(registros.toByteArray(), 1);
+	}
+
+	private synchronized <T> void anotar(byte operacion, byte tipo, Collection<T> elementos, EscrituraElemento<T> escritura) throws IOException
+	{
+		ByteArrayOutputStream registros = new ByteArrayOutputStream(128 * elementos.size());
+		DataOutputStream salida = new DataOutputStream(registros);
+		for (T elemento : elementos)
+		{
+			anadirRegistro(salida, operacion, tipo, datos -> escritura.escribir(datos, elemento));
+		}
+		escribir(registros.toByteArray(), elementos.size());
+	}
+
+	private static void anadirRegistro(DataOutputStream registros, byte operacion, byte tipo, Escritura escritura) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		DataOutputStream salida = new DataOutputStream(bytes);
+		salida.writeByte(operacion);
+		salida.writeByte(tipo);
+		escritura.escribir(salida);
+		salida.flush();
+		byte[] datos = bytes.toByteArray();
+		registros.writeInt(datos.length);
+		registros.writeInt(calcularCrc(datos));
+		registros.write(datos);
+	}
+
+	private void escribir(byte[] registros, int operaciones) throws IOException
+	{
+		if (canal == null)
+		{
+			throw new IllegalStateException("ERROR: El registro de operaciones no está abierto.");
+		}
+		long posicionValida = canal.position();
+		ByteBuffer buffer = ByteBuffer.wrap(registros);
+		try {
+			while (buffer.hasRemaining())
+			{
+				canal.write(buffer);
+			}
+			canal.force(false);
+		} catch (IOException e) {
+			// Se corta lo que se haya llegado a escribir, para que los siguientes registros se puedan leer
+			try {
+				canal.truncate(posicionValida);
+				canal.position(posicionValida);
+			} catch (IOException eCorte) {
+				e.addSuppressed(eCorte);
+			}
+			throw e;
+		}
+		numeroOperaciones += operaciones;
+	}
+
+	/*
+	 * Se llama una vez que los ficheros de datos ya contienen todas las operaciones anotadas.
+	 */
+	public synchronized void vaciar() throws IOException
+	{
+		if (canal != null)
+		{
+			canal.truncate(0);
+			canal.position(0);
+			canal.force(true);
+		}
+		numeroOperaciones = 0;
+	}
+
+	/*
+	 * Lanza en segundo plano la compactación cada cierto tiempo, solo si se han acumulado
+	 * suficientes operaciones desde la última.
+	 */
+	public synchronized void iniciarCompactacion(Runnable compactacion)
+	{
+		if (compactacion == null)
+		{
+			throw new NullPointerException("ERROR: La compactación no puede ser nula.");
+		}
+		if (compactador == null)
+		{
+			compactador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+				Thread hilo = new Thread(tarea, "compactacion-registro");
+				hilo.setDaemon(true);
+				return hilo;
+			});
+			compactador.scheduleWithFixedDelay(() -> {
+				if (getNumeroOperaciones() >= UMBRAL_COMPACTACION)
+				{
+					compactacion.run();
+				}
+			}, PERIODO_COMPACTACION_SEGUNDOS, PERIODO_COMPACTACION_SEGUNDOS, TimeUnit.SECONDS);
+		}
+	}
+
+	public void detenerCompactacion()
+	{
+		ScheduledExecutorService compactadorActivo;
+		synchronized (this)
+		{
+			compactadorActivo = compactador;
+			compactador = null;
+		}
+		if (compactadorActivo != null)
+		{
+			// Fuera del bloqueo: una compactación en curso necesita vaciar el registro para terminar
+			compactadorActivo.shutdown();
+			try {
+				compactadorActivo.awaitTermination(PERIODO_COMPACTACION_SEGUNDOS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public void cerrar() throws IOException
+	{
+		detenerCompactacion();
+		synchronized (this)
+		{
+			if (canal != null)
+			{
+				canal.close();
+				canal = null;
+			}
+		}
+	}
+
+	private static void aplicar(IModelo modelo, DataInput entrada) throws IOException, OperationNotSupportedException
+	{
+		byte operacion = entrada.readByte();
+		byte tipo = entrada.readByte();
+		boolean insertar = operacion == INSERTAR;
+		if (!insertar && operacion != BORRAR)
+		{
+			throw new IOException("ERROR: Operación desconocida en el registro de operaciones.");
+		}
+		switch (tipo)
+		{
+			case ALUMNO:
+				Alumno alumno = leerAlumno(entrada);
+				if (insertar)
+				{
+					modelo.insertar(alumno);
+				} else {
+					try {
+						modelo.borrar(alumno);
+					} catch (OperationNotSupportedException e) {
+						borrarHuerfanos(modelo, alumno, e);
+					}
+				}
+				break;
+			case PROFESOR:
+				Profesor profesor = leerProfesor(entrada);
+				if (insertar)
+				{
+					modelo.insertar(profesor);
+				} else {
+					try {
+						modelo.borrar(profesor);
+					} catch (OperationNotSupportedException e) {
+						borrarHuerfanos(modelo, profesor, e);
+					}
+				}
+				break;
+			case TUTORIA:
+				Tutoria tutoria = leerTutoria(entrada);
+				if (insertar)
+				{
+					modelo.insertar(tutoria);
+				} else {
+					try {
+						modelo.borrar(tutoria);
+					} catch (OperationNotSupportedException e) {
+						borrarHuerfanos(modelo, tutoria, e);
+					}
+				}
+				break;
+			case SESION:
+				Sesion sesion = leerSesion(entrada);
+				if (insertar)
+				{
+					modelo.insertar(sesion);
+				} else {
+					try {
+						modelo.borrar(sesion);
+					} catch (OperationNotSupportedException e) {
+						borrarHuerfanos(modelo, sesion, e);
+					}
+				}
+				break;
+			case CITA:
+				Cita cita = leerCita(entrada);
+				if (insertar)
+				{
+					modelo.insertar(cita);
+				} else {
+					modelo.borrar(cita);
+				}
+				break;
+			default:
+				throw new IOException("ERROR: Tipo de entidad desconocido en el registro de operaciones.");
+		}
+	}
+
+	/*
+	 * Una compactación interrumpida puede haber reescrito ya el fichero de la entidad borrada y no
+	 * los de las que dependen de ella. El borrado se completa quitando lo que siga colgando de la
+	 * entidad; si no queda nada, la operación ya estaba aplicada y se descarta.
+	 */
+	private static void borrarHuerfanos(IModelo modelo, Alumno alumno, OperationNotSupportedException noExiste) throws OperationNotSupportedException
+	{
+		int borradas = 0;
+		for (Cita cita : modelo.getCitas(alumno))
+		{
+			borradas += modelo.borrar(cita);
+		}
+		comprobarBorradas(borradas, noExiste);
+	}
+
+	private static void borrarHuerfanos(IModelo modelo, Profesor profesor, OperationNotSupportedException noExiste) throws OperationNotSupportedException
+	{
+		int borradas = 0;
+		for (Tutoria tutoria : modelo.getTutorias(profesor))
+		{
+			borradas += modelo.borrar(tutoria);
+		}
+		borradas += borrarHuerfanas(modelo, sesion -> sesion.getTutoria().getProfesor().equals(profesor));
+		comprobarBorradas(borradas, noExiste);
+	}
+
+	private static void borrarHuerfanos(IModelo modelo, Tutoria tutoria, OperationNotSupportedException noExiste) throws OperationNotSupportedException
+	{
+		comprobarBorradas(borrarHuerfanas(modelo, sesion -> sesion.getTutoria().equals(tutoria)), noExiste);
+	}
+
+	private static void borrarHuerfanos(IModelo modelo, Sesion sesion, OperationNotSupportedException noExiste) throws OperationNotSupportedException
+	{
+		comprobarBorradas(borrarHuerfanas(modelo, sesion::equals), noExiste);
+	}
+
+	// Sesiones cuyo padre ya no existe y citas de esas sesiones, aunque las sesiones tampoco existan ya
+	private static int borrarHuerfanas(IModelo modelo, Predicate<Sesion> huerfana) throws OperationNotSupportedException
+	{
+		int borradas = 0;
+		for (Sesion sesion : modelo.getSesiones())
+		{
+			if (huerfana.test(sesion))
+			{
+				borradas += modelo.borrar(sesion);
+			}
+		}
+		for (Cita cita : modelo.getCitas())
+		{
+			if (huerfana.test(cita.getSesion()))
+			{
+				borradas += modelo.borrar(cita);
+			}
+		}
+		return borradas;
+	}
+
+	private static void comprobarBorradas(int borradas, OperationNotSupportedException noExiste) throws OperationNotSupportedException
+	{
+		if (borradas == 0)
+		{
+			throw noExiste;
+		}
+	}
+
+	private static void escribirAlumno(DataOutput salida, Alumno alumno) throws IOException
+	{
+		salida.writeUTF(alumno.getNombre());
+		salida.writeUTF(alumno.getCorreo());
+		salida.writeUTF(alumno.getExpediente());
+	}
+
+	private static Alumno leerAlumno(DataInput entrada) throws IOException
+	{
+		return Alumno.restaurar(entrada.readUTF(), entrada.readUTF(), entrada.readUTF());
+	}
+
+	private static void escribirProfesor(DataOutput salida, Profesor profesor) throws IOException
+	{
+		salida.writeUTF(profesor.getNombre());
+		salida.writeUTF(profesor.getDni());
+		salida.writeUTF(profesor.getCorreo());
+	}
+
+	private static Profesor leerProfesor(DataInput entrada) throws IOException
+	{
+		return Profesor.restaurar(entrada.readUTF(), entrada.readUTF(), entrada.readUTF());
+	}
+
+	private static void escribirTutoria(DataOutput salida, Tutoria tutoria) throws IOException
+	{
+		escribirProfesor(salida, tutoria.getProfesor());
+		salida.writeUTF(tutoria.getNombre());
+	}
+
+	private static Tutoria leerTutoria(DataInput entrada) throws IOException
+	{
+		Profesor profesor = leerProfesor(entrada);
+		return Tutoria.restaurar(profesor, entrada.readUTF());
+	}
+
+	private static void escribirSesion(DataOutput salida, Sesion sesion) throws IOException
+	{
+		escribirTutoria(salida, sesion.getTutoria());
+		salida.writeLong(sesion.getFecha().toEpochDay());
+		salida.writeInt(sesion.getHoraInicio().toSecondOfDay());
+		salida.writeInt(sesion.getHoraFin().toSecondOfDay());
+		salida.writeInt(sesion.getMinutosDuracion());
+	}
+
+	private static Sesion leerSesion(DataInput entrada) throws IOException
+	{
+		Tutoria tutoria = leerTutoria(entrada);
+		LocalDate fecha = LocalDate.ofEpochDay(entrada.readLong());
+		LocalTime horaInicio = LocalTime.ofSecondOfDay(entrada.readInt());
+		LocalTime horaFin = LocalTime.ofSecondOfDay(entrada.readInt());
+		return Sesion.restaurar(tutoria, fecha, horaInicio, horaFin, entrada.readInt());
+	}
+
+	private static void escribirCita(DataOutput salida, Cita cita) throws IOException
+	{
+		escribirAlumno(salida, cita.getAlumno());
+		escribirSesion(salida, cita.getSesion());
+		salida.writeInt(cita.getHora().toSecondOfDay());
+	}
+
+	private static Cita leerCita(DataInput entrada) throws IOException
+	{
+		Alumno alumno = leerAlumno(entrada);
+		Sesion sesion = leerSesion(entrada);
+		return Cita.restaurar(alumno, sesion, LocalTime.ofSecondOfDay(entrada.readInt()));
+	}
+
+}
@@ -5,10 +5,8 @@ import java.util.Objects;
 
 public class Alumno implements Serializable {
 
-	private static final String ER_NOMBRE = "([a-zA-ZÁÉÍÓÚáéíóú]+)(\\s+([a-zA-ZÁÉÍÓÚáéíóú]+))+";
+	private static final long serialVersionUID = 7376985145781803947L;
 	private static final String PREFIJO_EXPEDIENTE = "SP_";
-	private static final String ER_CORREO = "([\\w\\.]+[^.])@[\\w^\\_]+\\.[a-z]{2,3}";
-	private static int ultimoIdentificador;
 	private String nombre, correo, expediente;
 
 	public Alumno(String nombre, String correo) {
@@ -22,11 +20,27 @@ public class Alumno implements Serializable {
 		if (alumnoCopia == null) {
 			throw new NullPointerException("ERROR: No es posible copiar un alumno nulo.");
 		}
-		setNombre(alumnoCopia.nombre);
-		setCorreo(alumnoCopia.correo);
+		// El original ya se validó al crearlo: se reutilizan sus datos sin comprobarlos de nuevo
+		this.nombre = alumnoCopia.nombre;
+		this.correo = alumnoCopia.correo;
 		this.expediente = alumnoCopia.expediente;
 	}
 	
+	private Alumno() {
+	}
+
+	// Reconstruye un alumno ya validado al guardarlo: conserva su expediente y no repite las comprobaciones
+	public static Alumno restaurar(String nombre, String correo, String expediente) {
+		if (nombre == null || correo == null || expediente == null) {
+			throw new NullPointerException("ERROR: Los datos del alumno no pueden ser nulos.");
+		}
+		Alumno alumno = new Alumno();
+		alumno.nombre = nombre;
+		alumno.correo = correo;
+		alumno.expediente = expediente;
+		return alumno;
+	}
+	
 	public static Alumno getAlumnoFicticio(String correo) {
 		return new Alumno("Jaime El Poderoso", correo);
 	}
@@ -39,23 +53,10 @@ public class Alumno implements Serializable {
 		if (nombre == null) {
 			throw new NullPointerException("ERROR: El nombre no puede ser nulo.");
 		}
-		if (!nombre.matches(ER_NOMBRE)) {
+		if (!Validador.esNombreValido(nombre)) {
 			throw new IllegalArgumentException("ERROR: El nombre no tiene un formato válido.");
 		}
-		this.nombre = formateaNombre(nombre);
-	}
-
-	private String formateaNombre(String nombre) {
-		nombre = nombre.replaceAll("\\s+", " ");
-		nombre = nombre.trim();
-		String[] palabras = nombre.split(" ");
-		StringBuilder copiaNombre = new StringBuilder();
-		for (int i = 0; i <= palabras.length - 1; i++) {
-			palabras[i] = palabras[i].substring(0, 1).toUpperCase() + palabras[i].substring(1).toLowerCase();
-			copiaNombre.append(palabras[i] + " ");
-		}
-		nombre = copiaNombre.toString();
-		return nombre.trim();
+		this.nombre = Validador.formateaNombre(nombre);
 	}
 
 	public String getCorreo() {
@@ -66,7 +67,7 @@ public class Alumno implements Serializable {
 		if (correo == null) {
 			throw new NullPointerException("ERROR: El correo no puede ser nulo.");
 		}
-		if (!correo.matches(ER_CORREO)) {
+		if (!Validador.esCorreoAlumnoValido(correo)) {
 			throw new IllegalArgumentException("ERROR: El formato del correo no es válido.");
 		}
 		this.correo = correo;
@@ -79,15 +80,10 @@ public class Alumno implements Serializable {
 	private void setExpediente() {
 		StringBuilder expedienteAsignado = new StringBuilder(PREFIJO_EXPEDIENTE);
 		expedienteAsignado.append(getIniciales() + "_");
-		incrementaUltimoIdentificador();
-		expedienteAsignado.append(ultimoIdentificador);
+		expedienteAsignado.append(SecuenciaExpedientes.siguiente());
 		this.expediente = expedienteAsignado.toString();
 	}
 
-	private static void incrementaUltimoIdentificador() {
-		++ultimoIdentificador;
-	}
-
 	private String getIniciales() {
 		String iniciales = "";
 		String[] palabras = getNombre().split(" ");
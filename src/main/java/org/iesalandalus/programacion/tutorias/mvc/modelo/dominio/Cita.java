@@ -7,6 +7,7 @@ import java.util.Objects;
 
 public class Cita implements Serializable {
 
+	private static final long serialVersionUID = 3155899093765743413L;
 	public static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
 	private LocalTime hora;
 	private Sesion sesion;
@@ -26,9 +27,32 @@ public class Cita implements Serializable {
 		{
 			throw new NullPointerException("ERROR: No es posible copiar una cita nula.");
 		}
-		setAlumno(citaCopia.getAlumno());
-		setSesion(citaCopia.sesion);
-		setHora(citaCopia.hora);
+		// Alumnos y sesiones son inmutables: la copia comparte los de la cita original
+		alumno = citaCopia.alumno;
+		sesion = citaCopia.sesion;
+		hora = citaCopia.hora;
+	}
+
+	private Cita() 
+	{
+	}
+	
+	// Reconstruye una cita ya validada al guardarla, compartiendo las referencias a su alumno y su sesión
+	public static Cita restaurar(Alumno alumno, Sesion sesion, LocalTime hora) 
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		Cita cita = new Cita();
+		cita.alumno = alumno;
+		cita.sesion = sesion;
+		cita.setHora(hora);
+		return cita;
 	}
 
 	public Alumno getAlumno() 
@@ -2,14 +2,10 @@ package org.iesalandalus.programacion.tutorias.mvc.modelo.dominio;
 
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Profesor implements Serializable {
 	
-	private static final String ER_NOMBRE = "([a-zA-ZÁÉÍÓÚáéíóú]+)(\\s+([a-zA-ZÁÉÍÓÚáéíóú]+))+";
-	private static final String ER_DNI = "([0-9]{8})([A-Za-z])";
-	private static final String ER_CORREO = "[(\\w\\.)+|(\\w)+]+@\\w+\\.\\w{2,3}";
+	private static final long serialVersionUID = 8457129293565895494L;
 	private String nombre, dni, correo;
 
 	public Profesor(String nombre,String dni, String correo) 
@@ -26,12 +22,31 @@ public class Profesor implements Serializable {
 		{
 			throw new NullPointerException("ERROR: No es posible copiar un profesor nulo.");
 		}
-		setNombre(profesorCopia.nombre);
-		setDni(profesorCopia.dni);
-		setCorreo(profesorCopia.correo);
+		// El original ya se validó al crearlo: se reutilizan sus datos sin comprobarlos de nuevo
+		this.nombre = profesorCopia.nombre;
+		this.dni = profesorCopia.dni;
+		this.correo = profesorCopia.correo;
 	}
 	
 
+	private Profesor() 
+	{
+	}
+	
+	// Reconstruye un profesor ya validado al guardarlo sin repetir las comprobaciones
+	public static Profesor restaurar(String nombre, String dni, String correo) 
+	{
+		if (nombre == null || dni == null || correo == null) 
+		{
+			throw new NullPointerException("ERROR: Los datos del profesor no pueden ser nulos.");
+		}
+		Profesor profesor = new Profesor();
+		profesor.nombre = nombre;
+		profesor.dni = dni;
+		profesor.correo = correo;
+		return profesor;
+	}
+
 	public String getNombre() 
 	{
 		return nombre;
@@ -43,67 +58,35 @@ public class Profesor implements Serializable {
 		{
 			throw new NullPointerException("ERROR: El nombre no puede ser nulo.");
 		}
-		if (!nombre.matches(ER_NOMBRE)) 
+		if (!Validador.esNombreValido(nombre)) 
 		{
 			throw new IllegalArgumentException("ERROR: El nombre no tiene un formato válido.");
 		}
-		this.nombre = formateaNombre(nombre);
+		this.nombre = Validador.formateaNombre(nombre);
 	}
 	
-	private String formateaNombre(String nombre) 
-	{
-		nombre = nombre.replaceAll("\\s+", " ");
-		nombre = nombre.trim();
-		String[] palabras = nombre.split(" ");
-		StringBuilder copiaNombre = new StringBuilder();
-		for (int i = 0; i <= palabras.length - 1; i++) 
-		{
-			palabras[i] = palabras[i].substring(0, 1).toUpperCase() + palabras[i].substring(1).toLowerCase();
-			copiaNombre.append(palabras[i] + " ");
-		}
-		nombre = copiaNombre.toString();
-		return nombre.trim();
-	}
-
 	public String getDni() 
 	{
 		return dni;
 	}
 
-	public void setDni(String dni) 
+	private void setDni(String dni) 
 	{
 		if (dni == null) 
 		{
 			throw new NullPointerException("ERROR: El DNI no puede ser nulo.");
 		}
-		if (!dni.matches(ER_DNI)) 
+		if (!Validador.esDniValido(dni)) 
 		{
 			throw new IllegalArgumentException("ERROR: El DNI no tiene un formato válido.");
 		}
-		if (!comprobarLetraDni(dni)) 
+		if (!Validador.esLetraDniCorrecta(dni)) 
 		{
 			throw new IllegalArgumentException("ERROR: La letra del DNI no es correcta.");
 		}
 		this.dni = dni;
 	}
 	
-	private boolean comprobarLetraDni(String dni)
-	{
-		boolean letraCorrecta = false;
-		Pattern patronDni = Pattern.compile(ER_DNI);
-		Matcher comparadorDni = patronDni.matcher(dni);
-		comparadorDni.matches();
-		int numerosDni = Integer.parseInt(comparadorDni.group(1));
-		int resto = numerosDni % 23;
-		String[] letraEsperada = { "T", "R", "W", "A", "G", "M", "Y", "F", "P", "D", "X", "B", "N", "J", "Z", "S", "Q",
-				"V", "H", "L", "C", "K", "E" };
-		if (comparadorDni.group(2).equals(letraEsperada[resto])) 
-		{
-			letraCorrecta = true;
-		}
-		return letraCorrecta;
-	}
-	
 	public String getCorreo()
 	{
 		return correo;
@@ -115,7 +98,7 @@ public class Profesor implements Serializable {
 		{
 			throw new NullPointerException("ERROR: El correo no puede ser nulo.");
 		}
-		if (!correo.matches(ER_CORREO)) 
+		if (!Validador.esCorreoProfesorValido(correo)) 
 		{
 			throw new IllegalArgumentException("ERROR: El formato del correo no es válido.");
 		}
@@ -0,0 +1,67 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.dominio;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Números de expediente de los alumnos. El contador compartido solo se toca para reservar un
+ * bloque de números: cada hilo reparte después los de su bloque sin competir con los demás,
+ * así que una carga masiva desde varios hilos no se pelea por el contador. Al leer los alumnos
+ * guardados el contador avanza hasta el mayor expediente, y los bloques que quedaran por debajo
+ * se descartan para no repetir números de una ejecución anterior.
+ */
+public final class SecuenciaExpedientes {
+
+	private static final int TAMANO_BLOQUE = 32;
+	private static final AtomicInteger ultimoReservado = new AtomicInteger();
+	// Mayor expediente leído de los ficheros: ningún número repartido puede quedar por debajo
+	private static final AtomicInteger ultimoGuardado = new AtomicInteger();
+	private static final ThreadLocal<Bloque> bloques = ThreadLocal.withInitial(Bloque::new);
+
+	private SecuenciaExpedientes() {
+	}
+
+	private static class Bloque {
+		private int siguiente;
+		private int fin;
+	}
+
+	public static int siguiente() {
+		Bloque bloque = bloques.get();
+		while (bloque.siguiente >= bloque.fin || bloque.siguiente <= ultimoGuardado.get()) {
+			bloque.fin = ultimoReservado.addAndGet(TAMANO_BLOQUE) + 1;
+			bloque.siguiente = bloque.fin - TAMANO_BLOQUE;
+		}
+		return bloque.siguiente++;
+	}
+
+	/* Hace que los números que se repartan a partir de ahora sean mayores que el dado */
+	public static void avanzarHasta(int numero) {
+		if (numero > ultimoGuardado.get()) {
+			ultimoGuardado.accumulateAndGet(numero, Math::max);
+			ultimoReservado.accumulateAndGet(numero, Math::max);
+		}
+	}
+
+	/*
+	 * Para números que llegan de fuera mientras se trabaja, como los de un alumno restaurado: los
+	 * que ya ha repartido esta secuencia no mueven nada, así que insertar no descarta bloques.
+	 */
+	public static void reconocer(int numero) {
+		if (numero > ultimoReservado.get()) {
+			avanzarHasta(numero);
+		}
+	}
+
+	// El número es lo que sigue al último guion bajo; un expediente sin número no cuenta
+	public static int numero(String expediente) {
+		if (expediente == null) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(expediente.substring(expediente.lastIndexOf('_') + 1));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
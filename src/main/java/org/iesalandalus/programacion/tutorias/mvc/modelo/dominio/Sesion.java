@@ -9,6 +9,7 @@ import java.util.Objects;
 
 public class Sesion implements Serializable {
 
+	private static final long serialVersionUID = -7237463847289305143L;
 	private static final LocalTime HORA_COMIENZO_CLASES = LocalTime.of(16, 00);
 	private static final LocalTime HORA_FIN_CLASES = LocalTime.of(22, 15);
 	public static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/YYYY");
@@ -29,17 +30,23 @@ public class Sesion implements Serializable {
 		comprobarValidezSesion();
 	}
 	
+	private Sesion() 
+	{
+	}
+	
 	public Sesion(Sesion sesionCopia) 
 	{
 		if (sesionCopia==null) 
 		{
 			throw new NullPointerException("ERROR: No es posible copiar una sesión nula.");
 		}
-		setTutoria(sesionCopia.getTutoria());
-		setFecha(sesionCopia.fecha);
-		setHoraInicio(sesionCopia.horaInicio);
-		setHoraFin(sesionCopia.horaFin);
-		setMinutosDuracion(sesionCopia.minutosDuracion);
+		// Las tutorías son inmutables: la copia comparte la de la sesión original
+		tutoria = sesionCopia.tutoria;
+		// La sesión original ya era válida aunque su fecha haya pasado: no se comprueba de nuevo
+		fecha = sesionCopia.fecha;
+		horaInicio = sesionCopia.horaInicio;
+		horaFin = sesionCopia.horaFin;
+		minutosDuracion = sesionCopia.minutosDuracion;
 	}
 
 	public Tutoria getTutoria() 
@@ -47,7 +54,7 @@ public class Sesion implements Serializable {
 		return tutoria;
 	}
 
-	public void setTutoria(Tutoria tutoria) 
+	private void setTutoria(Tutoria tutoria) 
 	{
 		if (tutoria == null)
 		{
@@ -61,13 +68,18 @@ public class Sesion implements Serializable {
 		return fecha;
 	}
 
-	public void setFecha(LocalDate fecha) 
+	private void setFecha(LocalDate fecha) 
+	{
+		setFecha(fecha, true);
+	}
+	
+	private void setFecha(LocalDate fecha, boolean exigirFechaFutura) 
 	{
 		if (fecha == null)
 		{
 			throw new NullPointerException("ERROR: La fecha no puede ser nula.");
 		}
-		if (fecha.compareTo(LocalDate.now()) <= 0)
+		if (exigirFechaFutura && fecha.compareTo(LocalDate.now()) <= 0)
 		{
 			throw new IllegalArgumentException("ERROR: Las sesiones de deben planificar para fechas futuras.");
 		}
@@ -79,7 +91,7 @@ public class Sesion implements Serializable {
 		return horaInicio;
 	}
 
-	public void setHoraInicio(LocalTime horaInicio) 
+	private void setHoraInicio(LocalTime horaInicio) 
 	{
 		if (horaInicio == null) 
 		{
@@ -93,7 +105,7 @@ public class Sesion implements Serializable {
 		return horaFin;
 	}
 
-	public void setHoraFin(LocalTime horaFin) 
+	private void setHoraFin(LocalTime horaFin) 
 	{
 		if (horaFin == null) 
 		{
@@ -107,9 +119,9 @@ public class Sesion implements Serializable {
 		return minutosDuracion;
 	}
 
-	public void setMinutosDuracion(int minutosDuracion) 
+	private void setMinutosDuracion(int minutosDuracion) 
 	{
-		if (minutosDuracion == 0) 
+		if (minutosDuracion <= 0) 
 		{
 			throw new IllegalArgumentException("ERROR: Los minutos de duración no son válidos.");
 		}
@@ -138,6 +150,25 @@ public class Sesion implements Serializable {
 		}
 	}
 
+	// Reconstruye una sesión ya validada al guardarla, que puede haber quedado en el pasado,
+	// compartiendo la referencia a su tutoría. La fecha no se comprueba, pero las horas y la
+	// duración sí: un registro dañado no debe llegar a las colecciones
+	public static Sesion restaurar(Tutoria tutoria, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, int minutosDuracion) 
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		Sesion sesion = new Sesion();
+		sesion.tutoria = tutoria;
+		sesion.setFecha(fecha, false);
+		sesion.setHoraInicio(horaInicio);
+		sesion.setHoraFin(horaFin);
+		sesion.setMinutosDuracion(minutosDuracion);
+		sesion.comprobarValidezSesion();
+		return sesion;
+	}
+
 	public static Sesion getSesionFicticia(Tutoria tutoria, LocalDate fecha) 
 	{
 		return new Sesion(tutoria, fecha, LocalTime.of(16, 00), LocalTime.of(18, 00), 15);
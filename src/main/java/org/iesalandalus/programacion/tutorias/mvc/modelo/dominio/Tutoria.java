@@ -5,6 +5,7 @@ import java.util.Objects;
 
 public class Tutoria implements Serializable {
 
+	private static final long serialVersionUID = 5195028493311746049L;
 	private String nombre;
 	private Profesor profesor;	
 
@@ -21,8 +22,30 @@ public class Tutoria implements Serializable {
 		{
 			throw new NullPointerException("ERROR: No es posible copiar una tutoría nula.");
 		}
-		setProfesor(tutoriaCopia.getProfesor());
-		setNombre(tutoriaCopia.nombre);
+		// Los profesores son inmutables: la copia comparte el de la tutoría original
+		profesor = tutoriaCopia.profesor;
+		nombre = tutoriaCopia.nombre;
+	}
+	
+	private Tutoria() 
+	{
+	}
+	
+	// Reconstruye una tutoría ya validada al guardarla, compartiendo la referencia a su profesor
+	public static Tutoria restaurar(Profesor profesor, String nombre) 
+	{
+		if (profesor == null) 
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		if (nombre == null)
+		{
+			throw new NullPointerException("ERROR: El nombre no puede ser nulo.");
+		}
+		Tutoria tutoria = new Tutoria();
+		tutoria.profesor = profesor;
+		tutoria.nombre = nombre;
+		return tutoria;
 	}
 	
 	public Profesor getProfesor() 
@@ -0,0 +1,66 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.dominio;
+
+import java.util.regex.Pattern;
+
+/* Expresiones regulares compiladas una sola vez y compartidas por alumnos y profesores */
+final class Validador {
+
+	private static final Pattern PATRON_NOMBRE = Pattern.compile("([a-zA-ZÁÉÍÓÚáéíóú]+)(\\s+([a-zA-ZÁÉÍÓÚáéíóú]+))+");
+	private static final Pattern PATRON_ESPACIOS = Pattern.compile("\\s+");
+	private static final Pattern PATRON_CORREO_ALUMNO = Pattern.compile("([\\w\\.]+[^.])@[\\w^\\_]+\\.[a-z]{2,3}");
+	private static final Pattern PATRON_CORREO_PROFESOR = Pattern.compile("[(\\w\\.)+|(\\w)+]+@\\w+\\.\\w{2,3}");
+	private static final Pattern PATRON_DNI = Pattern.compile("([0-9]{8})([A-Za-z])");
+	private static final String LETRAS_DNI = "TRWAGMYFPDXBNJZSQVHLCKE";
+	private static final int DIGITOS_DNI = 8;
+
+	private Validador()
+	{
+	}
+
+	static boolean esNombreValido(String nombre)
+	{
+		return PATRON_NOMBRE.matcher(nombre).matches();
+	}
+
+	static String formateaNombre(String nombre)
+	{
+		String[] palabras = PATRON_ESPACIOS.split(nombre.trim());
+		StringBuilder copiaNombre = new StringBuilder(nombre.length());
+		for (String palabra : palabras)
+		{
+			if (copiaNombre.length() > 0)
+			{
+				copiaNombre.append(' ');
+			}
+			copiaNombre.append(palabra.substring(0, 1).toUpperCase()).append(palabra.substring(1).toLowerCase());
+		}
+		return copiaNombre.toString();
+	}
+
+	static boolean esCorreoAlumnoValido(String correo)
+	{
+		return PATRON_CORREO_ALUMNO.matcher(correo).matches();
+	}
+
+	static boolean esCorreoProfesorValido(String correo)
+	{
+		return PATRON_CORREO_PROFESOR.matcher(correo).matches();
+	}
+
+	static boolean esDniValido(String dni)
+	{
+		return PATRON_DNI.matcher(dni).matches();
+	}
+
+	// Se supone un DNI con formato válido: calcula el resto sin crear cadenas ni tablas
+	static boolean esLetraDniCorrecta(String dni)
+	{
+		int numeroDni = 0;
+		for (int i = 0; i < DIGITOS_DNI; i++)
+		{
+			numeroDni = numeroDni * 10 + (dni.charAt(i) - '0');
+		}
+		return dni.charAt(DIGITOS_DNI) == LETRAS_DNI.charAt(numeroDni % 23);
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Busca las primeras horas libres de un conjunto de tutorías entre dos fechas. Las sesiones se
+ * recorren día a día y de cada una solo se piden las horas que aún faltan, que la colección de
+ * citas ya tiene calculadas, así que la consulta se para en cuanto completa el primer día que
+ * llega a la cantidad pedida.
+ */
+public final class BuscadorHuecos {
+
+	private static final int TAMANO_PAGINA = 32;
+	// Dentro de un día varias sesiones pueden solaparse: manda la hora y después el orden natural
+	private static final Comparator<Sesion> POR_COMIENZO = Comparator.comparing(Sesion::getFecha)
+			.thenComparing(Sesion::getHoraInicio).thenComparing(OrdenNatural.SESIONES);
+	private static final Comparator<Hueco> POR_HORA = Comparator.comparing(Hueco::getHora)
+			.thenComparing(Hueco::getSesion, OrdenNatural.SESIONES);
+
+	private final ISesiones sesiones;
+	private final ICitas citas;
+
+	public BuscadorHuecos(ISesiones sesiones, ICitas citas)
+	{
+		if (sesiones == null || citas == null)
+		{
+			throw new NullPointerException("ERROR: Las colecciones no pueden ser nulas.");
+		}
+		this.sesiones = sesiones;
+		this.citas = citas;
+	}
+
+	public List<Hueco> buscar(Collection<Tutoria> tutorias, LocalDate desde, LocalDate hasta, int cuantos)
+	{
+		if (tutorias == null)
+		{
+			throw new NullPointerException("ERROR: Las tutorías no pueden ser nulas.");
+		}
+		Pagina.comprobarIntervalo(desde, hasta);
+		if (cuantos <= 0)
+		{
+			throw new IllegalArgumentException("ERROR: El número de huecos debe ser mayor que cero.");
+		}
+		List<Sesion> candidatas = new ArrayList<>();
+		for (Tutoria tutoria : tutorias)
+		{
+			anadirSesiones(tutoria, desde, hasta, candidatas);
+		}
+		candidatas.sort(POR_COMIENZO);
+		List<Hueco> huecos = new ArrayList<>();
+		List<Hueco> huecosDia = new ArrayList<>();
+		int i = 0;
+		while (i < candidatas.size() && huecos.size() < cuantos)
+		{
+			LocalDate fecha = candidatas.get(i).getFecha();
+			huecosDia.clear();
+			for (; i < candidatas.size() && candidatas.get(i).getFecha().equals(fecha); i++)
+			{
+				Sesion sesion = candidatas.get(i);
+				for (LocalTime hora : citas.getHorasLibres(sesion, cuantos - huecos.size()))
+				{
+					huecosDia.add(new Hueco(sesion, hora));
+				}
+			}
+			huecosDia.sort(POR_HORA);
+			huecos.addAll(huecosDia.subList(0, Math.min(huecosDia.size(), cuantos - huecos.size())));
+		}
+		return huecos;
+	}
+
+	// Las sesiones de la tutoría se piden por páginas desde la fecha inicial, sin pasar por las anteriores
+	private void anadirSesiones(Tutoria tutoria, LocalDate desde, LocalDate hasta, List<Sesion> candidatas)
+	{
+		Sesion cursor = null;
+		do {
+			Pagina<Sesion> pagina = sesiones.get(tutoria, desde, cursor, TAMANO_PAGINA);
+			for (Sesion sesion : pagina.getElementos())
+			{
+				if (sesion.getFecha().isAfter(hasta))
+				{
+					return;
+				}
+				candidatas.add(sesion);
+			}
+			cursor = pagina.getCursor();
+		} while (cursor != null);
+	}
+
+}
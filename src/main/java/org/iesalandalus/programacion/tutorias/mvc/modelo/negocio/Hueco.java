@@ -0,0 +1,65 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
+
+import java.time.LocalTime;
+import java.util.Objects;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+
+/* Hora de una sesión en la que todavía se puede pedir cita */
+public final class Hueco {
+
+	private final Sesion sesion;
+	private final LocalTime hora;
+
+	public Hueco(Sesion sesion, LocalTime hora)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		if (hora == null)
+		{
+			throw new NullPointerException("ERROR: La hora no puede ser nula.");
+		}
+		this.sesion = sesion;
+		this.hora = hora;
+	}
+
+	public Sesion getSesion()
+	{
+		return sesion;
+	}
+
+	public LocalTime getHora()
+	{
+		return hora;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(hora, sesion);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof Hueco))
+		{
+			return false;
+		}
+		Hueco other = (Hueco) obj;
+		return Objects.equals(hora, other.hora) && Objects.equals(sesion, other.sesion);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("sesion=%s, hora=%s", sesion, hora);
+	}
+
+}
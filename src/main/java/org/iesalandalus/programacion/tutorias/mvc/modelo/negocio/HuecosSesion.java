@@ -0,0 +1,118 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+
+/*
+ * Horas de cita de una sesión como mapa de bits: un bit por minuto desde la hora de inicio, a uno
+ * si en ese minuto puede empezar una cita (la misma regla que valida Cita) y todavía está libre.
+ * Consultar una hora es leer un bit y la siguiente hora libre es el siguiente bit a uno.
+ */
+public final class HuecosSesion {
+
+	private static final int SEGUNDOS_MINUTO = 60;
+
+	private final LocalTime horaInicio;
+	private final int minutosDuracion;
+	private final int minutosSesion;
+	private final BitSet libres;
+
+	public HuecosSesion(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		horaInicio = sesion.getHoraInicio();
+		minutosDuracion = sesion.getMinutosDuracion();
+		minutosSesion = (sesion.getHoraFin().toSecondOfDay() - horaInicio.toSecondOfDay()) / SEGUNDOS_MINUTO;
+		libres = new BitSet(minutosSesion + 1);
+		for (int minuto = 0; minuto <= minutosSesion; minuto++)
+		{
+			if (horaInicio.plusMinutes(minuto).getMinute() % minutosDuracion == 0)
+			{
+				libres.set(minuto);
+			}
+		}
+	}
+
+	// Minuto de la sesión en el que empieza la hora, o -1 si no es una hora de cita de la sesión
+	private int minuto(LocalTime hora)
+	{
+		int segundos = hora.toSecondOfDay() - horaInicio.toSecondOfDay();
+		if (segundos < 0 || segundos % SEGUNDOS_MINUTO != 0 || segundos / SEGUNDOS_MINUTO > minutosSesion
+				|| hora.getMinute() % minutosDuracion != 0)
+		{
+			return -1;
+		}
+		return segundos / SEGUNDOS_MINUTO;
+	}
+
+	public boolean estaLibre(LocalTime hora)
+	{
+		if (hora == null)
+		{
+			throw new NullPointerException("ERROR: La hora no puede ser nula.");
+		}
+		int minuto = minuto(hora);
+		return minuto >= 0 && libres.get(minuto);
+	}
+
+	/* Comprueba y ocupa la hora en un solo paso: devuelve false si ya estaba ocupada */
+	public boolean reservar(LocalTime hora)
+	{
+		if (!estaLibre(hora))
+		{
+			return false;
+		}
+		libres.clear(minuto(hora));
+		return true;
+	}
+
+	public void liberar(LocalTime hora)
+	{
+		if (hora == null)
+		{
+			throw new NullPointerException("ERROR: La hora no puede ser nula.");
+		}
+		int minuto = minuto(hora);
+		if (minuto >= 0)
+		{
+			libres.set(minuto);
+		}
+	}
+
+	/* Primera hora libre a partir de la dada (incluida), o null si no queda ninguna */
+	public LocalTime getSiguienteLibre(LocalTime desde)
+	{
+		int minuto = 0;
+		if (desde != null && desde.isAfter(horaInicio))
+		{
+			// Se redondea hacia arriba al minuto siguiente si la hora tiene segundos
+			minuto = (desde.toSecondOfDay() - horaInicio.toSecondOfDay() + SEGUNDOS_MINUTO - 1) / SEGUNDOS_MINUTO;
+		}
+		int libre = libres.nextSetBit(minuto);
+		return libre < 0 ? null : horaInicio.plusMinutes(libre);
+	}
+
+	/* Las primeras horas libres de la sesión, como mucho las pedidas */
+	public List<LocalTime> getLibres(int cuantas)
+	{
+		List<LocalTime> horas = new ArrayList<>();
+		for (int libre = libres.nextSetBit(0); libre >= 0 && horas.size() < cuantas; libre = libres.nextSetBit(libre + 1))
+		{
+			horas.add(horaInicio.plusMinutes(libre));
+		}
+		return horas;
+	}
+
+	public int getNumeroLibres()
+	{
+		return libres.cardinality();
+	}
+
+}
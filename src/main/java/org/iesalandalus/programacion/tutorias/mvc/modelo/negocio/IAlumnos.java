@@ -1,6 +1,9 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -11,15 +14,25 @@ public interface IAlumnos {
 	void comenzar();
 
 	void terminar();
+
+	void guardar() throws IOException;
 	
 	List<Alumno> get();
 
+	List<Alumno> getVista();
+
+	Stream<Alumno> stream();
+
 	int getTamano();
 
 	void insertar(Alumno alumno) throws OperationNotSupportedException;
 
+	void insertarTodos(Collection<Alumno> alumnos) throws OperationNotSupportedException;
+
 	Alumno buscar(Alumno alumno);
 
+	Alumno buscarPorExpediente(String expediente);
+
 	void borrar(Alumno alumno) throws OperationNotSupportedException;
 
 }
\ No newline at end of file
@@ -1,6 +1,11 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -14,18 +19,44 @@ public interface ICitas {
 	
 	void terminar();
 
+	void guardar() throws IOException;
+
+	int enlazar(List<Alumno> alumnos, List<Sesion> sesiones);
+
 	List<Cita> get();
 
+	List<Cita> getVista();
+
 	List<Cita> get(Sesion sesion);
 
 	List<Cita> get(Alumno alumno);
 
+	Pagina<Cita> get(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano);
+
+	Stream<Cita> stream();
+
+	Stream<Cita> stream(Sesion sesion);
+
+	Stream<Cita> stream(Alumno alumno);
+
 	int getTamano();
 
+	boolean estaLibre(Sesion sesion, LocalTime hora);
+
+	LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde);
+
+	List<LocalTime> getHorasLibres(Sesion sesion, int cuantas);
+
 	void insertar(Cita cita) throws OperationNotSupportedException;
 
+	void insertarTodas(Collection<Cita> citas) throws OperationNotSupportedException;
+
 	Cita buscar(Cita cita);
 
 	void borrar(Cita cita) throws OperationNotSupportedException;
 
+	int borrarTodas(Sesion sesion);
+
+	int borrarTodas(Alumno alumno);
+
 }
\ No newline at end of file
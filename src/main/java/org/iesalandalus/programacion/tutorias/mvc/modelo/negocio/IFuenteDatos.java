@@ -1,7 +1,14 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 
+import javax.naming.OperationNotSupportedException;
+
 public interface IFuenteDatos {
 
+	@FunctionalInterface
+	interface Cambios {
+		int aplicar() throws OperationNotSupportedException;
+	}
+
 	IAlumnos crearAlumnos();
 
 	IProfesores crearProfesores();
@@ -12,4 +19,10 @@ public interface IFuenteDatos {
 
 	ICitas crearCitas();
 
+	/*
+	 * Aplica como una sola operación varios cambios sobre las colecciones, como los de un borrado
+	 * en cascada: si la fuente de datos tiene transacciones, se confirman o se deshacen todos juntos.
+	 */
+	int aplicarJuntos(Cambios cambios) throws OperationNotSupportedException;
+
 }
\ No newline at end of file
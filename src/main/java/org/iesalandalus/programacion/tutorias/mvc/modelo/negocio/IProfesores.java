@@ -1,6 +1,8 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -12,8 +14,14 @@ public interface IProfesores {
 
 	void terminar();
 
+	void guardar() throws IOException;
+
 	List<Profesor> get();
 
+	List<Profesor> getVista();
+
+	Stream<Profesor> stream();
+
 	int getTamano();
 
 	void insertar(Profesor profesor) throws OperationNotSupportedException;
@@ -1,6 +1,9 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -13,10 +16,24 @@ public interface ISesiones {
 	
 	void terminar();
 
+	void guardar() throws IOException;
+
+	int enlazar(List<Tutoria> tutorias);
+
 	List<Sesion> get();
 
+	List<Sesion> getVista();
+
 	List<Sesion> get(Tutoria tutoria);
 
+	Pagina<Sesion> get(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano);
+
+	Pagina<Sesion> get(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano);
+
+	Stream<Sesion> stream();
+
+	Stream<Sesion> stream(Tutoria tutoria);
+
 	int getTamano();
 
 	void insertar(Sesion sesion) throws OperationNotSupportedException;
@@ -25,4 +42,6 @@ public interface ISesiones {
 
 	void borrar(Sesion sesion) throws OperationNotSupportedException;
 
+	List<Sesion> borrarTodas(Tutoria tutoria);
+
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -13,10 +15,20 @@ public interface ITutorias {
 	
 	void terminar();
 
+	void guardar() throws IOException;
+
+	int enlazar(List<Profesor> profesores);
+
 	List<Tutoria> get();
 
+	List<Tutoria> getVista();
+
 	List<Tutoria> get(Profesor profesor);
 
+	Stream<Tutoria> stream();
+
+	Stream<Tutoria> stream(Profesor profesor);
+
 	int getTamano();
 
 	void insertar(Tutoria tutoria) throws OperationNotSupportedException;
@@ -25,4 +37,6 @@ public interface ITutorias {
 
 	void borrar(Tutoria tutoria) throws OperationNotSupportedException;
 
+	List<Tutoria> borrarTodas(Profesor profesor);
+
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
+
+import java.util.Comparator;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Orden en el que se listan las entidades y en el que las colecciones las mantienen guardadas:
+ * profesor por DNI, tutoría por nombre, sesión por fecha y cita por hora. Cada comparador es
+ * coherente con el equals de su clase, así que sirve como clave de un árbol ordenado.
+ */
+public final class OrdenNatural {
+
+	public static final Comparator<Alumno> ALUMNOS = OrdenNatural::comparar;
+	public static final Comparator<Profesor> PROFESORES = OrdenNatural::comparar;
+	public static final Comparator<Tutoria> TUTORIAS = OrdenNatural::comparar;
+	public static final Comparator<Sesion> SESIONES = OrdenNatural::comparar;
+	public static final Comparator<Cita> CITAS = OrdenNatural::comparar;
+	// Orden de las consultas por fechas: primero el día de la sesión y después el orden natural
+	public static final Comparator<Sesion> SESIONES_POR_FECHA = Comparator.comparing(Sesion::getFecha).thenComparing(SESIONES);
+	public static final Comparator<Cita> CITAS_POR_FECHA = Comparator.comparing((Cita cita) -> cita.getSesion().getFecha()).thenComparing(CITAS);
+
+	private OrdenNatural()
+	{
+	}
+
+	private static int comparar(Alumno alumno1, Alumno alumno2)
+	{
+		return alumno1.getCorreo().compareTo(alumno2.getCorreo());
+	}
+
+	private static int comparar(Profesor profesor1, Profesor profesor2)
+	{
+		return profesor1.getDni().compareTo(profesor2.getDni());
+	}
+
+	// Las instancias compartidas se reconocen sin recorrer sus campos
+	private static int comparar(Tutoria tutoria1, Tutoria tutoria2)
+	{
+		if (tutoria1 == tutoria2)
+		{
+			return 0;
+		}
+		int resultado = comparar(tutoria1.getProfesor(), tutoria2.getProfesor());
+		return resultado != 0 ? resultado : tutoria1.getNombre().compareTo(tutoria2.getNombre());
+	}
+
+	private static int comparar(Sesion sesion1, Sesion sesion2)
+	{
+		if (sesion1 == sesion2)
+		{
+			return 0;
+		}
+		int resultado = comparar(sesion1.getTutoria(), sesion2.getTutoria());
+		return resultado != 0 ? resultado : sesion1.getFecha().compareTo(sesion2.getFecha());
+	}
+
+	// Dos alumnos pueden tener cita a la misma hora: el correo del alumno deshace el empate
+	private static int comparar(Cita cita1, Cita cita2)
+	{
+		int resultado = comparar(cita1.getSesion(), cita2.getSesion());
+		if (resultado == 0)
+		{
+			resultado = cita1.getHora().compareTo(cita2.getHora());
+		}
+		return resultado != 0 ? resultado : comparar(cita1.getAlumno(), cita2.getAlumno());
+	}
+
+}
@@ -0,0 +1,84 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Resultado de una consulta paginada. Para pedir la página siguiente se vuelve a hacer la misma
+ * consulta pasando como cursor el de esta página, que es el último elemento devuelto.
+ */
+public final class Pagina<T> {
+
+	private final List<T> elementos;
+	private final boolean hayMas;
+
+	public Pagina(List<T> elementos, boolean hayMas)
+	{
+		if (elementos == null)
+		{
+			throw new NullPointerException("ERROR: Los elementos de la página no pueden ser nulos.");
+		}
+		if (hayMas && elementos.isEmpty())
+		{
+			throw new IllegalArgumentException("ERROR: Una página vacía no puede tener continuación.");
+		}
+		this.elementos = Collections.unmodifiableList(elementos);
+		this.hayMas = hayMas;
+	}
+
+	public List<T> getElementos()
+	{
+		return elementos;
+	}
+
+	public boolean hayMas()
+	{
+		return hayMas;
+	}
+
+	public T getCursor()
+	{
+		return hayMas ? elementos.get(elementos.size() - 1) : null;
+	}
+
+	public static void comprobarTamano(int tamano)
+	{
+		if (tamano <= 0)
+		{
+			throw new IllegalArgumentException("ERROR: El tamaño de la página debe ser mayor que cero.");
+		}
+	}
+
+	public static void comprobarIntervalo(LocalDate desde, LocalDate hasta)
+	{
+		if (desde == null || hasta == null)
+		{
+			throw new NullPointerException("ERROR: Las fechas de la consulta no pueden ser nulas.");
+		}
+		if (desde.isAfter(hasta))
+		{
+			throw new IllegalArgumentException("ERROR: La fecha inicial no puede ser posterior a la final.");
+		}
+	}
+
+	/*
+	 * Página de una lista ya ordenada con el comparador dado: empieza justo detrás del cursor,
+	 * que puede ser nulo para pedir la primera.
+	 */
+	public static <T> Pagina<T> de(List<T> ordenados, T despuesDe, Comparator<T> orden, int tamano)
+	{
+		comprobarTamano(tamano);
+		int inicio = 0;
+		if (despuesDe != null)
+		{
+			int posicion = Collections.binarySearch(ordenados, despuesDe, orden);
+			inicio = posicion < 0 ? -posicion - 1 : posicion + 1;
+		}
+		int fin = Math.min(ordenados.size(), inicio + tamano);
+		return new Pagina<>(new ArrayList<>(ordenados.subList(inicio, fin)), fin < ordenados.size());
+	}
+
+}
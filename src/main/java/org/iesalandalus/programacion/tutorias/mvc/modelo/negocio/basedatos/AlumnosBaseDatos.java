@@ -0,0 +1,154 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.SecuenciaExpedientes;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+public class AlumnosBaseDatos implements IAlumnos {
+
+	private static final String INSERTAR = "INSERT INTO alumno (correo, nombre, expediente, numero) VALUES (?, ?, ?, ?)";
+	private static final String YA_EXISTE = "ERROR: Ya existe un alumno con ese expediente.";
+
+	private final BaseDatos baseDatos;
+
+	AlumnosBaseDatos(BaseDatos baseDatos)
+	{
+		this.baseDatos = baseDatos;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		if (baseDatos.abrir())
+		{
+			// Los alumnos nuevos de esta ejecución siguen numerando a partir de los ya guardados
+			SecuenciaExpedientes.avanzarHasta(baseDatos.contar("SELECT COALESCE(MAX(numero), 0) FROM alumno"));
+		}
+	}
+
+	@Override
+	public void terminar()
+	{
+		baseDatos.cerrar();
+	}
+
+	// Cada operación se escribe en la base de datos al hacerla: no queda nada pendiente
+	@Override
+	public void guardar()
+	{
+	}
+
+	@Override
+	public List<Alumno> get()
+	{
+		return baseDatos.consultar(Filas.ALUMNOS + "ORDER BY a.correo", Filas::alumno);
+	}
+
+	@Override
+	public List<Alumno> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public Stream<Alumno> stream()
+	{
+		return RecorridoPaginado.flujo(anterior -> pagina(anterior == null ? null : anterior.getCursor()));
+	}
+
+	private Pagina<Alumno> pagina(Alumno despuesDe)
+	{
+		if (despuesDe == null)
+		{
+			return baseDatos.consultarPagina(Filas.ALUMNOS + "ORDER BY a.correo LIMIT ?", Filas::alumno, RecorridoPaginado.TAMANO_PAGINA);
+		}
+		return baseDatos.consultarPagina(Filas.ALUMNOS + "WHERE a.correo > ? ORDER BY a.correo LIMIT ?", Filas::alumno,
+				RecorridoPaginado.TAMANO_PAGINA, despuesDe.getCorreo());
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return baseDatos.contar("SELECT COUNT(*) FROM alumno");
+	}
+
+	@Override
+	public void insertar(Alumno alumno) throws OperationNotSupportedException
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+		}
+		int numero = SecuenciaExpedientes.numero(alumno.getExpediente());
+		baseDatos.insertar(INSERTAR, YA_EXISTE, alumno.getCorreo(), alumno.getNombre(), alumno.getExpediente(), numero);
+		// Un alumno restaurado (por ejemplo, desde el registro de operaciones) trae su propio número
+		SecuenciaExpedientes.reconocer(numero);
+	}
+
+	@Override
+	public void insertarTodos(Collection<Alumno> alumnos) throws OperationNotSupportedException
+	{
+		if (alumnos == null)
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar alumnos nulos.");
+		}
+		int mayorNumero = 0;
+		for (Alumno alumno : alumnos)
+		{
+			if (alumno == null)
+			{
+				throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+			}
+			mayorNumero = Math.max(mayorNumero, SecuenciaExpedientes.numero(alumno.getExpediente()));
+		}
+		baseDatos.insertarTodos(INSERTAR, YA_EXISTE, alumnos, (sentencia, alumno) -> {
+			sentencia.setString(1, alumno.getCorreo());
+			sentencia.setString(2, alumno.getNombre());
+			sentencia.setString(3, alumno.getExpediente());
+			sentencia.setInt(4, SecuenciaExpedientes.numero(alumno.getExpediente()));
+		});
+		SecuenciaExpedientes.reconocer(mayorNumero);
+	}
+
+	@Override
+	public Alumno buscar(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un alumno nulo.");
+		}
+		return baseDatos.consultarUno(Filas.ALUMNOS + "WHERE a.correo = ?", Filas::alumno, alumno.getCorreo());
+	}
+
+	@Override
+	public Alumno buscarPorExpediente(String expediente)
+	{
+		if (expediente == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un alumno con expediente nulo.");
+		}
+		return baseDatos.consultarUno(Filas.ALUMNOS + "WHERE a.expediente = ?", Filas::alumno, expediente);
+	}
+
+	@Override
+	public void borrar(Alumno alumno) throws OperationNotSupportedException
+	{
+		if (alumno == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar un alumno nulo.");
+		}
+		if (baseDatos.actualizar("DELETE FROM alumno WHERE correo = ?", alumno.getCorreo()) == 0)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ningún alumno con ese expediente.");
+		}
+	}
+
+}
@@ -0,0 +1,266 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Conexión compartida por las cinco colecciones de una misma fuente de datos. La abre la primera
+ * colección que comienza, que también crea las tablas si no existen, y la cierra la primera que
+ * termina: los datos ya están guardados, así que a las demás no les queda nada que escribir.
+ * Cada sentencia usa la conexión con el bloqueo de este objeto, de modo que ninguna se cuela
+ * en la transacción abierta por otro hilo.
+ */
+final class BaseDatos {
+
+	private static final String CLAVE_DUPLICADA = "23505";
+	/*
+	 * Las claves ajenas no borran en cascada: Modelo borra de abajo arriba, en una sola
+	 * transacción, lo que cuelga de la entidad y después la entidad, así que cada borrarTodas
+	 * sigue contando sus filas y la base de datos rechaza cualquier fila que se quede sin padre.
+	 * Se añaden aparte para que también las tengan las bases de datos creadas sin ellas. Cada
+	 * cita ocupa su hora de la sesión, como en el índice de horas libres de las citas en memoria.
+	 */
+	private static final String[] ESQUEMA = {
+		"CREATE TABLE IF NOT EXISTS profesor (dni VARCHAR(9) PRIMARY KEY, nombre VARCHAR NOT NULL, correo VARCHAR NOT NULL)",
+		"CREATE TABLE IF NOT EXISTS alumno (correo VARCHAR PRIMARY KEY, nombre VARCHAR NOT NULL, expediente VARCHAR NOT NULL UNIQUE, "
+				+ "numero INT NOT NULL)",
+		"CREATE TABLE IF NOT EXISTS tutoria (dni VARCHAR(9) NOT NULL, nombre VARCHAR NOT NULL, PRIMARY KEY (dni, nombre))",
+		"CREATE TABLE IF NOT EXISTS sesion (dni VARCHAR(9) NOT NULL, tutoria VARCHAR NOT NULL, fecha DATE NOT NULL, "
+				+ "hora_inicio TIME NOT NULL, hora_fin TIME NOT NULL, minutos_duracion INT NOT NULL, PRIMARY KEY (dni, tutoria, fecha))",
+		"CREATE INDEX IF NOT EXISTS sesion_fecha ON sesion (fecha, dni, tutoria)",
+		"CREATE TABLE IF NOT EXISTS cita (dni VARCHAR(9) NOT NULL, tutoria VARCHAR NOT NULL, fecha DATE NOT NULL, hora TIME NOT NULL, "
+				+ "correo VARCHAR NOT NULL, PRIMARY KEY (dni, tutoria, fecha, hora))",
+		"CREATE INDEX IF NOT EXISTS cita_alumno ON cita (correo)",
+		"CREATE INDEX IF NOT EXISTS cita_fecha ON cita (fecha, dni, tutoria, hora, correo)",
+		"ALTER TABLE tutoria ADD CONSTRAINT IF NOT EXISTS tutoria_profesor FOREIGN KEY (dni) REFERENCES profesor (dni)",
+		"ALTER TABLE sesion ADD CONSTRAINT IF NOT EXISTS sesion_tutoria FOREIGN KEY (dni, tutoria) REFERENCES tutoria (dni, nombre)",
+		"ALTER TABLE cita ADD CONSTRAINT IF NOT EXISTS cita_sesion FOREIGN KEY (dni, tutoria, fecha) REFERENCES sesion (dni, tutoria, fecha)",
+		"ALTER TABLE cita ADD CONSTRAINT IF NOT EXISTS cita_alumno_correo FOREIGN KEY (correo) REFERENCES alumno (correo)"
+	};
+
+	interface Fila<T> {
+		T leer(ResultSet fila) throws SQLException;
+	}
+
+	interface Lote<T> {
+		void anadir(PreparedStatement sentencia, T elemento) throws SQLException;
+	}
+
+	private final String url;
+	private Connection conexion;
+	private boolean enTransaccion;
+
+	BaseDatos(String url)
+	{
+		if (url == null)
+		{
+			throw new NullPointerException("ERROR: La dirección de la base de datos no puede ser nula.");
+		}
+		this.url = url;
+	}
+
+	/* Devuelve si la base de datos queda abierta */
+	synchronized boolean abrir()
+	{
+		if (conexion != null)
+		{
+			return true;
+		}
+		try {
+			conexion = DriverManager.getConnection(url);
+			try (Statement sentencia = conexion.createStatement()) {
+				for (String tabla : ESQUEMA)
+				{
+					sentencia.execute(tabla);
+				}
+			}
+			System.out.println("Base de datos abierta satisfactoriamente.");
+		} catch (SQLException e) {
+			System.out.println("No puedo abrir la base de datos: " + e.getMessage());
+			cerrar();
+		}
+		return conexion != null;
+	}
+
+	synchronized void cerrar()
+	{
+		if (conexion == null)
+		{
+			return;
+		}
+		try {
+			conexion.close();
+			System.out.println("Base de datos cerrada satisfactoriamente.");
+		} catch (SQLException e) {
+			System.out.println("Error inesperado al cerrar la base de datos.");
+		}
+		conexion = null;
+	}
+
+	private synchronized Connection getConexion()
+	{
+		if (conexion == null)
+		{
+			throw new IllegalStateException("ERROR: La base de datos no está abierta.");
+		}
+		return conexion;
+	}
+
+	static IllegalStateException error(SQLException e)
+	{
+		return new IllegalStateException("ERROR: No se ha podido acceder a la base de datos.", e);
+	}
+
+	private static void asignar(PreparedStatement sentencia, Object[] parametros) throws SQLException
+	{
+		for (int i = 0; i < parametros.length; i++)
+		{
+			sentencia.setObject(i + 1, parametros[i]);
+		}
+	}
+
+	synchronized <T> List<T> consultar(String sql, Fila<T> fila, Object... parametros)
+	{
+		try (PreparedStatement sentencia = getConexion().prepareStatement(sql)) {
+			asignar(sentencia, parametros);
+			List<T> elementos = new ArrayList<>();
+			try (ResultSet filas = sentencia.executeQuery()) {
+				while (filas.next())
+				{
+					elementos.add(fila.leer(filas));
+				}
+			}
+			return elementos;
+		} catch (SQLException e) {
+			throw error(e);
+		}
+	}
+
+	<T> T consultarUno(String sql, Fila<T> fila, Object... parametros)
+	{
+		List<T> elementos = consultar(sql, fila, parametros);
+		return elementos.isEmpty() ? null : elementos.get(0);
+	}
+
+	/*
+	 * Consulta paginada: la sentencia termina en LIMIT ? y se pide una fila más que el tamaño
+	 * de la página para saber si hay continuación sin contar las que quedan.
+	 */
+	<T> Pagina<T> consultarPagina(String sql, Fila<T> fila, int tamano, Object... parametros)
+	{
+		Object[] conLimite = Arrays.copyOf(parametros, parametros.length + 1);
+		conLimite[parametros.length] = tamano + 1;
+		List<T> elementos = consultar(sql, fila, conLimite);
+		if (elementos.size() > tamano)
+		{
+			return new Pagina<>(new ArrayList<>(elementos.subList(0, tamano)), true);
+		}
+		return new Pagina<>(elementos, false);
+	}
+
+	int contar(String sql, Object... parametros)
+	{
+		return consultarUno(sql, filas -> filas.getInt(1), parametros);
+	}
+
+	synchronized int actualizar(String sql, Object... parametros)
+	{
+		try (PreparedStatement sentencia = getConexion().prepareStatement(sql)) {
+			asignar(sentencia, parametros);
+			return sentencia.executeUpdate();
+		} catch (SQLException e) {
+			throw error(e);
+		}
+	}
+
+	/* Inserta una fila; si ya existe una con la misma clave lanza la excepción con el mensaje dado */
+	synchronized void insertar(String sql, String siExiste, Object... parametros) throws OperationNotSupportedException
+	{
+		try (PreparedStatement sentencia = getConexion().prepareStatement(sql)) {
+			asignar(sentencia, parametros);
+			sentencia.executeUpdate();
+		} catch (SQLException e) {
+			if (CLAVE_DUPLICADA.equals(e.getSQLState()))
+			{
+				throw new OperationNotSupportedException(siExiste);
+			}
+			throw error(e);
+		}
+	}
+
+	/*
+	 * Inserta todas las filas en una sola transacción y con una sola sentencia preparada, que
+	 * se envía por lotes. Si una ya existía se deshace todo y no se inserta ninguna.
+	 */
+	<T> void insertarTodos(String sql, String siExiste, Iterable<T> elementos, Lote<T> lote) throws OperationNotSupportedException
+	{
+		enTransaccion(() -> {
+			try (PreparedStatement sentencia = getConexion().prepareStatement(sql)) {
+				for (T elemento : elementos)
+				{
+					lote.anadir(sentencia, elemento);
+					sentencia.addBatch();
+				}
+				sentencia.executeBatch();
+			} catch (SQLException e) {
+				if (CLAVE_DUPLICADA.equals(e.getSQLState()) || e.getNextException() != null
+						&& CLAVE_DUPLICADA.equals(e.getNextException().getSQLState()))
+				{
+					throw new OperationNotSupportedException(siExiste);
+				}
+				throw error(e);
+			}
+			return 0;
+		});
+	}
+
+	/*
+	 * Aplica los cambios en una sola transacción: si alguno falla se deshacen todos. Mientras
+	 * dura, los demás hilos esperan para usar la conexión. Una transacción abierta dentro de
+	 * otra forma parte de ella.
+	 */
+	synchronized int enTransaccion(IFuenteDatos.Cambios cambios) throws OperationNotSupportedException
+	{
+		if (enTransaccion)
+		{
+			return cambios.aplicar();
+		}
+		Connection transaccion = getConexion();
+		try {
+			transaccion.setAutoCommit(false);
+			enTransaccion = true;
+			boolean confirmada = false;
+			try {
+				int resultado = cambios.aplicar();
+				transaccion.commit();
+				confirmada = true;
+				return resultado;
+			} finally {
+				enTransaccion = false;
+				try {
+					if (!confirmada)
+					{
+						transaccion.rollback();
+					}
+				} finally {
+					transaccion.setAutoCommit(true);
+				}
+			}
+		} catch (SQLException e) {
+			throw error(e);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,290 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.HuecosSesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+public class CitasBaseDatos implements ICitas {
+
+	private static final String ORDEN = "ORDER BY c.dni, c.tutoria, c.fecha, c.hora, c.correo ";
+	// Mismo orden que OrdenNatural.CITAS_POR_FECHA, que es el del índice cita_fecha
+	private static final String ORDEN_POR_FECHA = "ORDER BY c.fecha, c.dni, c.tutoria, c.hora, c.correo ";
+	private static final String DE_SESION = "WHERE c.dni = ? AND c.tutoria = ? AND c.fecha = ? ";
+	private static final String INSERTAR = "INSERT INTO cita (dni, tutoria, fecha, hora, correo) VALUES (?, ?, ?, ?, ?)";
+	private static final String YA_EXISTE = "ERROR: Ya existe una cita con esa hora.";
+
+	private final BaseDatos baseDatos;
+
+	CitasBaseDatos(BaseDatos baseDatos)
+	{
+		this.baseDatos = baseDatos;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		baseDatos.abrir();
+	}
+
+	@Override
+	public void terminar()
+	{
+		baseDatos.cerrar();
+	}
+
+	// Cada operación se escribe en la base de datos al hacerla: no queda nada pendiente
+	@Override
+	public void guardar()
+	{
+	}
+
+	/* Cada consulta lee la cita junto a su sesión y su alumno, y las claves ajenas impiden que falten */
+	@Override
+	public int enlazar(List<Alumno> alumnos, List<Sesion> sesiones)
+	{
+		return 0;
+	}
+
+	@Override
+	public List<Cita> get()
+	{
+		return baseDatos.consultar(Filas.CITAS + ORDEN, new Filas()::cita);
+	}
+
+	@Override
+	public List<Cita> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public List<Cita> get(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return baseDatos.consultar(Filas.CITAS + DE_SESION + ORDEN, new Filas()::cita, Filas.clave(sesion));
+	}
+
+	@Override
+	public List<Cita> get(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return baseDatos.consultar(Filas.CITAS + "WHERE c.correo = ? " + ORDEN, new Filas()::cita, alumno.getCorreo());
+	}
+
+	@Override
+	public Pagina<Cita> get(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano)
+	{
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		if (despuesDe == null)
+		{
+			return baseDatos.consultarPagina(Filas.CITAS + "WHERE c.fecha BETWEEN ? AND ? " + ORDEN_POR_FECHA + "LIMIT ?",
+					new Filas()::cita, tamano, desde, hasta);
+		}
+		Object[] clave = Filas.clave(despuesDe);
+		return baseDatos.consultarPagina(Filas.CITAS + "WHERE c.fecha BETWEEN ? AND ? "
+				+ "AND (c.fecha, c.dni, c.tutoria, c.hora, c.correo) > (?, ?, ?, ?, ?) " + ORDEN_POR_FECHA + "LIMIT ?",
+				new Filas()::cita, tamano, desde, hasta, clave[2], clave[0], clave[1], clave[3], despuesDe.getAlumno().getCorreo());
+	}
+
+	@Override
+	public Stream<Cita> stream()
+	{
+		return recorrer(null);
+	}
+
+	@Override
+	public Stream<Cita> stream(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return recorrer("c.dni = ? AND c.tutoria = ? AND c.fecha = ? ", Filas.clave(sesion));
+	}
+
+	@Override
+	public Stream<Cita> stream(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return recorrer("c.correo = ? ", alumno.getCorreo());
+	}
+
+	// Recorre por páginas en el orden natural las citas que cumplen la condición dada, si la hay
+	private Stream<Cita> recorrer(String condicion, Object... parametros)
+	{
+		return RecorridoPaginado.flujo(anterior -> {
+			if (anterior == null)
+			{
+				return baseDatos.consultarPagina(Filas.CITAS + (condicion == null ? "" : "WHERE " + condicion) + ORDEN + "LIMIT ?",
+						new Filas()::cita, RecorridoPaginado.TAMANO_PAGINA, parametros);
+			}
+			Cita cursor = anterior.getCursor();
+			Object[] clave = Arrays.copyOf(Filas.clave(cursor), 5 + parametros.length);
+			clave[4] = cursor.getAlumno().getCorreo();
+			System.arraycopy(parametros, 0, clave, 5, parametros.length);
+			return baseDatos.consultarPagina(Filas.CITAS + "WHERE (c.dni, c.tutoria, c.fecha, c.hora, c.correo) > (?, ?, ?, ?, ?) "
+					+ (condicion == null ? "" : "AND " + condicion) + ORDEN + "LIMIT ?", new Filas()::cita, RecorridoPaginado.TAMANO_PAGINA,
+					clave);
+		});
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return baseDatos.contar("SELECT COUNT(*) FROM cita");
+	}
+
+	@Override
+	public boolean estaLibre(Sesion sesion, LocalTime hora)
+	{
+		return getHuecos(sesion).estaLibre(hora);
+	}
+
+	@Override
+	public LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde)
+	{
+		return getHuecos(sesion).getSiguienteLibre(desde);
+	}
+
+	@Override
+	public List<LocalTime> getHorasLibres(Sesion sesion, int cuantas)
+	{
+		return getHuecos(sesion).getLibres(cuantas);
+	}
+
+	// Las horas ocupadas de una sesión salen del principio de su clave primaria
+	private HuecosSesion getHuecos(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		HuecosSesion huecos = new HuecosSesion(sesion);
+		for (LocalTime hora : baseDatos.consultar("SELECT c.hora FROM cita c " + DE_SESION, fila -> fila.getObject(1, LocalTime.class),
+				Filas.clave(sesion)))
+		{
+			huecos.reservar(hora);
+		}
+		return huecos;
+	}
+
+	@Override
+	public void insertar(Cita cita) throws OperationNotSupportedException
+	{
+		if (cita == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+		}
+		// La clave primaria rechaza una hora ocupada, pero no una que no es hora de cita de la sesión
+		if (!estaLibre(cita.getSesion(), cita.getHora()))
+		{
+			throw new OperationNotSupportedException(YA_EXISTE);
+		}
+		Object[] clave = Filas.clave(cita);
+		baseDatos.insertar(INSERTAR, YA_EXISTE, clave[0], clave[1], clave[2], clave[3], cita.getAlumno().getCorreo());
+	}
+
+	@Override
+	public void insertarTodas(Collection<Cita> citas) throws OperationNotSupportedException
+	{
+		if (citas == null)
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar citas nulas.");
+		}
+		// Se comprueban las horas antes de enviar el lote; las que chocan con otras ya guardadas las rechaza la clave
+		Map<Sesion, HuecosSesion> huecos = new HashMap<>();
+		for (Cita cita : citas)
+		{
+			if (cita == null)
+			{
+				throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+			}
+			if (!huecos.computeIfAbsent(cita.getSesion(), HuecosSesion::new).reservar(cita.getHora()))
+			{
+				throw new OperationNotSupportedException(YA_EXISTE);
+			}
+		}
+		baseDatos.insertarTodos(INSERTAR, YA_EXISTE, citas, (sentencia, cita) -> {
+			Object[] clave = Filas.clave(cita);
+			for (int i = 0; i < clave.length; i++)
+			{
+				sentencia.setObject(i + 1, clave[i]);
+			}
+			sentencia.setString(clave.length + 1, cita.getAlumno().getCorreo());
+		});
+	}
+
+	@Override
+	public Cita buscar(Cita cita)
+	{
+		if (cita == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una cita nula.");
+		}
+		Object[] clave = Filas.clave(cita);
+		return baseDatos.consultarUno(Filas.CITAS + DE_SESION + "AND c.hora = ? AND c.correo = ?", new Filas()::cita, clave[0], clave[1],
+				clave[2], clave[3], cita.getAlumno().getCorreo());
+	}
+
+	@Override
+	public void borrar(Cita cita) throws OperationNotSupportedException
+	{
+		if (cita == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una cita nula.");
+		}
+		Object[] clave = Filas.clave(cita);
+		if (baseDatos.actualizar("DELETE FROM cita WHERE dni = ? AND tutoria = ? AND fecha = ? AND hora = ? AND correo = ?", clave[0],
+				clave[1], clave[2], clave[3], cita.getAlumno().getCorreo()) == 0)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna cita con esa hora.");
+		}
+	}
+
+	/* Se cuentan con el propio borrado, sin leer las citas */
+	@Override
+	public int borrarTodas(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return baseDatos.actualizar("DELETE FROM cita WHERE dni = ? AND tutoria = ? AND fecha = ?", Filas.clave(sesion));
+	}
+
+	@Override
+	public int borrarTodas(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return baseDatos.actualizar("DELETE FROM cita WHERE correo = ?", alumno.getCorreo());
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+
+/*
+ * Guarda los datos en una base de datos embebida en fichero en lugar de leerlos enteros en memoria:
+ * cada consulta lee solo las filas que necesita, así que los datos pueden no caber en el montón.
+ * Las cinco colecciones comparten la misma conexión. El controlador JDBC (H2 por defecto) se
+ * busca al abrir la base de datos, así que basta con que esté en el classpath de ejecución.
+ */
+public class FactoriaFuenteDatosBaseDatos implements IFuenteDatos {
+
+	private static final String URL_BASE_DATOS = "jdbc:h2:./datos/tutorias";
+
+	private final BaseDatos baseDatos;
+
+	public FactoriaFuenteDatosBaseDatos()
+	{
+		this(URL_BASE_DATOS);
+	}
+
+	public FactoriaFuenteDatosBaseDatos(String url)
+	{
+		baseDatos = new BaseDatos(url);
+	}
+
+	@Override
+	public IAlumnos crearAlumnos() 
+	{
+		return new AlumnosBaseDatos(baseDatos);
+	}
+
+
+	@Override
+	public IProfesores crearProfesores() 
+	{
+		return new ProfesoresBaseDatos(baseDatos);
+	}
+
+
+	@Override
+	public ITutorias crearTutorias() 
+	{
+		return new TutoriasBaseDatos(baseDatos);
+	}
+
+
+	@Override
+	public ISesiones crearSesiones() 
+	{
+		return new SesionesBaseDatos(baseDatos);
+	}
+
+
+	@Override
+	public ICitas crearCitas() 
+	{
+		return new CitasBaseDatos(baseDatos);
+	}
+
+
+	@Override
+	public int aplicarJuntos(Cambios cambios) throws OperationNotSupportedException 
+	{
+		return baseDatos.enTransaccion(cambios);
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Convierte las filas de una consulta en entidades. Cada entidad trae sus padres en las mismas
+ * columnas y en el mismo orden, así que una consulta puede leer cualquier entidad que esté por
+ * debajo de la que selecciona. Las filas llegan ordenadas por sus padres: mientras el padre no
+ * cambia se reutiliza la instancia de la fila anterior, igual que en las colecciones en memoria.
+ */
+final class Filas {
+
+	static final String PROFESORES = "SELECT p.dni, p.nombre, p.correo FROM profesor p ";
+	static final String ALUMNOS = "SELECT a.correo, a.nombre, a.expediente FROM alumno a ";
+	static final String TUTORIAS = "SELECT p.dni, p.nombre, p.correo, t.nombre FROM tutoria t JOIN profesor p ON p.dni = t.dni ";
+	static final String SESIONES = "SELECT p.dni, p.nombre, p.correo, t.nombre, s.fecha, s.hora_inicio, s.hora_fin, s.minutos_duracion "
+			+ "FROM sesion s JOIN tutoria t ON t.dni = s.dni AND t.nombre = s.tutoria JOIN profesor p ON p.dni = s.dni ";
+	static final String CITAS = "SELECT p.dni, p.nombre, p.correo, t.nombre, s.fecha, s.hora_inicio, s.hora_fin, s.minutos_duracion, "
+			+ "c.hora, a.correo, a.nombre, a.expediente FROM cita c "
+			+ "JOIN sesion s ON s.dni = c.dni AND s.tutoria = c.tutoria AND s.fecha = c.fecha "
+			+ "JOIN tutoria t ON t.dni = c.dni AND t.nombre = c.tutoria JOIN profesor p ON p.dni = c.dni "
+			+ "JOIN alumno a ON a.correo = c.correo ";
+
+	private static final int COLUMNA_CITA = 9;
+
+	private Profesor profesor;
+	private Tutoria tutoria;
+	private Sesion sesion;
+
+	Profesor profesor(ResultSet fila) throws SQLException
+	{
+		String dni = fila.getString(1);
+		if (profesor == null || !profesor.getDni().equals(dni))
+		{
+			profesor = Profesor.restaurar(fila.getString(2), dni, fila.getString(3));
+		}
+		return profesor;
+	}
+
+	Tutoria tutoria(ResultSet fila) throws SQLException
+	{
+		Profesor suProfesor = profesor(fila);
+		String nombre = fila.getString(4);
+		if (tutoria == null || tutoria.getProfesor() != suProfesor || !tutoria.getNombre().equals(nombre))
+		{
+			tutoria = Tutoria.restaurar(suProfesor, nombre);
+		}
+		return tutoria;
+	}
+
+	Sesion sesion(ResultSet fila) throws SQLException
+	{
+		Tutoria suTutoria = tutoria(fila);
+		LocalDate fecha = fila.getObject(5, LocalDate.class);
+		if (sesion == null || sesion.getTutoria() != suTutoria || !sesion.getFecha().equals(fecha))
+		{
+			sesion = Sesion.restaurar(suTutoria, fecha, fila.getObject(6, LocalTime.class), fila.getObject(7, LocalTime.class),
+					fila.getInt(8));
+		}
+		return sesion;
+	}
+
+	Cita cita(ResultSet fila) throws SQLException
+	{
+		Sesion suSesion = sesion(fila);
+		return Cita.restaurar(alumno(fila, COLUMNA_CITA + 1), suSesion, fila.getObject(COLUMNA_CITA, LocalTime.class));
+	}
+
+	static Alumno alumno(ResultSet fila) throws SQLException
+	{
+		return alumno(fila, 1);
+	}
+
+	private static Alumno alumno(ResultSet fila, int columna) throws SQLException
+	{
+		return Alumno.restaurar(fila.getString(columna + 1), fila.getString(columna), fila.getString(columna + 2));
+	}
+
+	// Parámetros de la clave primaria de cada tabla, en el orden de sus columnas
+	static Object[] clave(Tutoria tutoria)
+	{
+		return new Object[] { tutoria.getProfesor().getDni(), tutoria.getNombre() };
+	}
+
+	static Object[] clave(Sesion sesion)
+	{
+		return new Object[] { sesion.getTutoria().getProfesor().getDni(), sesion.getTutoria().getNombre(), sesion.getFecha() };
+	}
+
+	static Object[] clave(Cita cita)
+	{
+		Sesion suSesion = cita.getSesion();
+		return new Object[] { suSesion.getTutoria().getProfesor().getDni(), suSesion.getTutoria().getNombre(), suSesion.getFecha(),
+				cita.getHora() };
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+public class ProfesoresBaseDatos implements IProfesores {
+
+	private final BaseDatos baseDatos;
+
+	ProfesoresBaseDatos(BaseDatos baseDatos)
+	{
+		this.baseDatos = baseDatos;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		baseDatos.abrir();
+	}
+
+	@Override
+	public void terminar()
+	{
+		baseDatos.cerrar();
+	}
+
+	// Cada operación se escribe en la base de datos al hacerla: no queda nada pendiente
+	@Override
+	public void guardar()
+	{
+	}
+
+	@Override
+	public List<Profesor> get()
+	{
+		return baseDatos.consultar(Filas.PROFESORES + "ORDER BY p.dni", new Filas()::profesor);
+	}
+
+	@Override
+	public List<Profesor> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public Stream<Profesor> stream()
+	{
+		return RecorridoPaginado.flujo(anterior -> pagina(anterior == null ? null : anterior.getCursor()));
+	}
+
+	private Pagina<Profesor> pagina(Profesor despuesDe)
+	{
+		if (despuesDe == null)
+		{
+			return baseDatos.consultarPagina(Filas.PROFESORES + "ORDER BY p.dni LIMIT ?", new Filas()::profesor,
+					RecorridoPaginado.TAMANO_PAGINA);
+		}
+		return baseDatos.consultarPagina(Filas.PROFESORES + "WHERE p.dni > ? ORDER BY p.dni LIMIT ?", new Filas()::profesor,
+				RecorridoPaginado.TAMANO_PAGINA, despuesDe.getDni());
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return baseDatos.contar("SELECT COUNT(*) FROM profesor");
+	}
+
+	@Override
+	public void insertar(Profesor profesor) throws OperationNotSupportedException
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar un profesor nulo.");
+		}
+		baseDatos.insertar("INSERT INTO profesor (dni, nombre, correo) VALUES (?, ?, ?)", "ERROR: Ya existe un profesor con ese DNI.",
+				profesor.getDni(), profesor.getNombre(), profesor.getCorreo());
+	}
+
+	@Override
+	public Profesor buscar(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un profesor nulo.");
+		}
+		return baseDatos.consultarUno(Filas.PROFESORES + "WHERE p.dni = ?", new Filas()::profesor, profesor.getDni());
+	}
+
+	@Override
+	public void borrar(Profesor profesor) throws OperationNotSupportedException
+	{
+		if (profesor == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar un profesor nulo.");
+		}
+		if (baseDatos.actualizar("DELETE FROM profesor WHERE dni = ?", profesor.getDni()) == 0)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ningún profesor con ese DNI.");
+		}
+	}
+
+}
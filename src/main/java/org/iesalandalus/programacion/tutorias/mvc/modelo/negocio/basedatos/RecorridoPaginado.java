@@ -0,0 +1,57 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Flujo perezoso sobre una tabla que puede no caber en memoria: se piden páginas de tamaño fijo
+ * por clave, cada una a partir del último elemento de la anterior, y solo se guarda una página.
+ * Como el recorrido en memoria, sigue siendo válido aunque se inserte o se borre entre páginas.
+ */
+final class RecorridoPaginado<T> extends Spliterators.AbstractSpliterator<T> {
+
+	static final int TAMANO_PAGINA = 256;
+
+	private final UnaryOperator<Pagina<T>> siguiente;
+	private Pagina<T> pagina;
+	private Iterator<T> elementos;
+
+	private RecorridoPaginado(UnaryOperator<Pagina<T>> siguiente)
+	{
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+		this.siguiente = siguiente;
+	}
+
+	/*
+	 * La función recibe la página anterior (nula para pedir la primera) y devuelve la siguiente.
+	 * La primera página se pide al empezar a consumir el flujo, no al crearlo.
+	 */
+	static <T> Stream<T> flujo(UnaryOperator<Pagina<T>> siguiente)
+	{
+		return StreamSupport.stream(new RecorridoPaginado<>(siguiente), false);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> accion)
+	{
+		while (elementos == null || !elementos.hasNext())
+		{
+			if (pagina != null && !pagina.hayMas())
+			{
+				return false;
+			}
+			pagina = siguiente.apply(pagina);
+			elementos = pagina.getElementos().iterator();
+		}
+		accion.accept(elementos.next());
+		return true;
+	}
+
+}
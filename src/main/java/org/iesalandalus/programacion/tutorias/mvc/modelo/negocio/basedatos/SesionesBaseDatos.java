@@ -0,0 +1,212 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+public class SesionesBaseDatos implements ISesiones {
+
+	private static final String ORDEN = "ORDER BY s.dni, s.tutoria, s.fecha ";
+	// Mismo orden que OrdenNatural.SESIONES_POR_FECHA, que es el del índice sesion_fecha
+	private static final String ORDEN_POR_FECHA = "ORDER BY s.fecha, s.dni, s.tutoria ";
+	private static final String DE_TUTORIA = "WHERE s.dni = ? AND s.tutoria = ? ";
+
+	private final BaseDatos baseDatos;
+
+	SesionesBaseDatos(BaseDatos baseDatos)
+	{
+		this.baseDatos = baseDatos;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		baseDatos.abrir();
+	}
+
+	@Override
+	public void terminar()
+	{
+		baseDatos.cerrar();
+	}
+
+	// Cada operación se escribe en la base de datos al hacerla: no queda nada pendiente
+	@Override
+	public void guardar()
+	{
+	}
+
+	/* Cada consulta lee la sesión junto a su tutoría, y la clave ajena impide que falte */
+	@Override
+	public int enlazar(List<Tutoria> tutorias)
+	{
+		return 0;
+	}
+
+	@Override
+	public List<Sesion> get()
+	{
+		return baseDatos.consultar(Filas.SESIONES + ORDEN, new Filas()::sesion);
+	}
+
+	@Override
+	public List<Sesion> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public List<Sesion> get(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		return deTutoria(tutoria);
+	}
+
+	private List<Sesion> deTutoria(Tutoria tutoria)
+	{
+		return baseDatos.consultar(Filas.SESIONES + DE_TUTORIA + ORDEN, new Filas()::sesion, Filas.clave(tutoria));
+	}
+
+	@Override
+	public Pagina<Sesion> get(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano)
+	{
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		if (despuesDe == null)
+		{
+			return baseDatos.consultarPagina(Filas.SESIONES + "WHERE s.fecha BETWEEN ? AND ? " + ORDEN_POR_FECHA + "LIMIT ?",
+					new Filas()::sesion, tamano, desde, hasta);
+		}
+		return baseDatos.consultarPagina(Filas.SESIONES + "WHERE s.fecha BETWEEN ? AND ? AND (s.fecha, s.dni, s.tutoria) > (?, ?, ?) "
+				+ ORDEN_POR_FECHA + "LIMIT ?", new Filas()::sesion, tamano, desde, hasta, despuesDe.getFecha(),
+				despuesDe.getTutoria().getProfesor().getDni(), despuesDe.getTutoria().getNombre());
+	}
+
+	@Override
+	public Pagina<Sesion> get(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (desde == null)
+		{
+			throw new NullPointerException("ERROR: Las fechas de la consulta no pueden ser nulas.");
+		}
+		Pagina.comprobarTamano(tamano);
+		// El cursor solo sirve si es una sesión de la misma tutoría
+		if (despuesDe == null || !despuesDe.getTutoria().equals(tutoria))
+		{
+			return baseDatos.consultarPagina(Filas.SESIONES + DE_TUTORIA + "AND s.fecha >= ? " + ORDEN + "LIMIT ?", new Filas()::sesion,
+					tamano, tutoria.getProfesor().getDni(), tutoria.getNombre(), desde);
+		}
+		return baseDatos.consultarPagina(Filas.SESIONES + DE_TUTORIA + "AND s.fecha >= ? AND s.fecha > ? " + ORDEN + "LIMIT ?",
+				new Filas()::sesion, tamano, tutoria.getProfesor().getDni(), tutoria.getNombre(), desde, despuesDe.getFecha());
+	}
+
+	@Override
+	public Stream<Sesion> stream()
+	{
+		return RecorridoPaginado.flujo(anterior -> {
+			if (anterior == null)
+			{
+				return baseDatos.consultarPagina(Filas.SESIONES + ORDEN + "LIMIT ?", new Filas()::sesion, RecorridoPaginado.TAMANO_PAGINA);
+			}
+			return baseDatos.consultarPagina(Filas.SESIONES + "WHERE (s.dni, s.tutoria, s.fecha) > (?, ?, ?) " + ORDEN + "LIMIT ?",
+					new Filas()::sesion, RecorridoPaginado.TAMANO_PAGINA, Filas.clave(anterior.getCursor()));
+		});
+	}
+
+	@Override
+	public Stream<Sesion> stream(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		return RecorridoPaginado.flujo(anterior -> {
+			if (anterior == null)
+			{
+				return baseDatos.consultarPagina(Filas.SESIONES + DE_TUTORIA + ORDEN + "LIMIT ?", new Filas()::sesion,
+						RecorridoPaginado.TAMANO_PAGINA, Filas.clave(tutoria));
+			}
+			return baseDatos.consultarPagina(Filas.SESIONES + DE_TUTORIA + "AND s.fecha > ? " + ORDEN + "LIMIT ?", new Filas()::sesion,
+					RecorridoPaginado.TAMANO_PAGINA, tutoria.getProfesor().getDni(), tutoria.getNombre(), anterior.getCursor().getFecha());
+		});
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return baseDatos.contar("SELECT COUNT(*) FROM sesion");
+	}
+
+	@Override
+	public void insertar(Sesion sesion) throws OperationNotSupportedException
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una sesión nula.");
+		}
+		baseDatos.insertar("INSERT INTO sesion (dni, tutoria, fecha, hora_inicio, hora_fin, minutos_duracion) VALUES (?, ?, ?, ?, ?, ?)",
+				"ERROR: Ya existe una sesión con esa fecha.", sesion.getTutoria().getProfesor().getDni(), sesion.getTutoria().getNombre(),
+				sesion.getFecha(), sesion.getHoraInicio(), sesion.getHoraFin(), sesion.getMinutosDuracion());
+	}
+
+	@Override
+	public Sesion buscar(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una sesión nula.");
+		}
+		return baseDatos.consultarUno(Filas.SESIONES + DE_TUTORIA + "AND s.fecha = ?", new Filas()::sesion, Filas.clave(sesion));
+	}
+
+	@Override
+	public void borrar(Sesion sesion) throws OperationNotSupportedException
+	{
+		if (sesion == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una sesión nula.");
+		}
+		if (baseDatos.actualizar("DELETE FROM sesion WHERE dni = ? AND tutoria = ? AND fecha = ?", Filas.clave(sesion)) == 0)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna sesión con esa fecha.");
+		}
+	}
+
+	/*
+	 * Se devuelven las sesiones borradas; Modelo ya ha borrado antes las citas de cada una.
+	 * Las sesiones se enlazan con la tutoría recibida, sin volver a leerla.
+	 */
+	@Override
+	public List<Sesion> borrarTodas(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		List<Sesion> borradas = baseDatos.consultar("SELECT s.fecha, s.hora_inicio, s.hora_fin, s.minutos_duracion FROM sesion s "
+				+ DE_TUTORIA + ORDEN, fila -> Sesion.restaurar(tutoria, fila.getObject(1, LocalDate.class), fila.getObject(2, LocalTime.class),
+						fila.getObject(3, LocalTime.class), fila.getInt(4)), Filas.clave(tutoria));
+		if (!borradas.isEmpty())
+		{
+			baseDatos.actualizar("DELETE FROM sesion WHERE dni = ? AND tutoria = ?", Filas.clave(tutoria));
+		}
+		return borradas;
+	}
+
+}
@@ -0,0 +1,163 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+public class TutoriasBaseDatos implements ITutorias {
+
+	private static final String ORDEN = "ORDER BY t.dni, t.nombre ";
+
+	private final BaseDatos baseDatos;
+
+	TutoriasBaseDatos(BaseDatos baseDatos)
+	{
+		this.baseDatos = baseDatos;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		baseDatos.abrir();
+	}
+
+	@Override
+	public void terminar()
+	{
+		baseDatos.cerrar();
+	}
+
+	// Cada operación se escribe en la base de datos al hacerla: no queda nada pendiente
+	@Override
+	public void guardar()
+	{
+	}
+
+	/* Cada consulta lee la tutoría junto a su profesor, y la clave ajena impide que falte */
+	@Override
+	public int enlazar(List<Profesor> profesores)
+	{
+		return 0;
+	}
+
+	@Override
+	public List<Tutoria> get()
+	{
+		return baseDatos.consultar(Filas.TUTORIAS + ORDEN, new Filas()::tutoria);
+	}
+
+	@Override
+	public List<Tutoria> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public List<Tutoria> get(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		return deProfesor(profesor);
+	}
+
+	private List<Tutoria> deProfesor(Profesor profesor)
+	{
+		return baseDatos.consultar(Filas.TUTORIAS + "WHERE t.dni = ? " + ORDEN, new Filas()::tutoria, profesor.getDni());
+	}
+
+	@Override
+	public Stream<Tutoria> stream()
+	{
+		return RecorridoPaginado.flujo(anterior -> {
+			if (anterior == null)
+			{
+				return baseDatos.consultarPagina(Filas.TUTORIAS + ORDEN + "LIMIT ?", new Filas()::tutoria, RecorridoPaginado.TAMANO_PAGINA);
+			}
+			return baseDatos.consultarPagina(Filas.TUTORIAS + "WHERE (t.dni, t.nombre) > (?, ?) " + ORDEN + "LIMIT ?",
+					new Filas()::tutoria, RecorridoPaginado.TAMANO_PAGINA, Filas.clave(anterior.getCursor()));
+		});
+	}
+
+	@Override
+	public Stream<Tutoria> stream(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		// Las tutorías de un profesor empiezan en la de nombre vacío, como en el árbol en memoria
+		return RecorridoPaginado.flujo(anterior -> baseDatos.consultarPagina(Filas.TUTORIAS + "WHERE t.dni = ? AND t.nombre > ? " + ORDEN
+				+ "LIMIT ?", new Filas()::tutoria, RecorridoPaginado.TAMANO_PAGINA, profesor.getDni(),
+				anterior == null ? "" : anterior.getCursor().getNombre()));
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return baseDatos.contar("SELECT COUNT(*) FROM tutoria");
+	}
+
+	@Override
+	public void insertar(Tutoria tutoria) throws OperationNotSupportedException
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una tutoría nula.");
+		}
+		baseDatos.insertar("INSERT INTO tutoria (dni, nombre) VALUES (?, ?)", "ERROR: Ya existe una tutoría con ese identificador.",
+				Filas.clave(tutoria));
+	}
+
+	@Override
+	public Tutoria buscar(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una tutoría nula.");
+		}
+		return baseDatos.consultarUno(Filas.TUTORIAS + "WHERE t.dni = ? AND t.nombre = ?", new Filas()::tutoria, Filas.clave(tutoria));
+	}
+
+	@Override
+	public void borrar(Tutoria tutoria) throws OperationNotSupportedException
+	{
+		if (tutoria == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una tutoría nula.");
+		}
+		if (baseDatos.actualizar("DELETE FROM tutoria WHERE dni = ? AND nombre = ?", Filas.clave(tutoria)) == 0)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna tutoría con ese identificador.");
+		}
+	}
+
+	/*
+	 * Se devuelven las tutorías borradas; Modelo ya ha borrado antes lo que colgaba de cada una.
+	 * Solo se leen los nombres y se enlazan con el profesor recibido, sin volver a leerlo.
+	 */
+	@Override
+	public List<Tutoria> borrarTodas(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		List<Tutoria> borradas = baseDatos.consultar("SELECT t.nombre FROM tutoria t WHERE t.dni = ? " + ORDEN,
+				fila -> Tutoria.restaurar(profesor, fila.getString(1)), profesor.getDni());
+		if (!borradas.isEmpty())
+		{
+			baseDatos.actualizar("DELETE FROM tutoria WHERE dni = ?", profesor.getDni());
+		}
+		return borradas;
+	}
+
+}
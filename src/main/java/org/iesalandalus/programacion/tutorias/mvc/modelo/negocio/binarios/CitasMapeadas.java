@@ -0,0 +1,503 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.HuecosSesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.OrdenNatural;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.IFormatoFichero;
+
+/*
+ * Citas leídas de un fichero binario proyectado en memoria. Al comenzar solo se decodifican
+ * los bloques de alumnos y sesiones referenciados; el bloque de citas se queda en el fichero
+ * y cada consulta decodifica únicamente los registros que devuelve. La primera modificación
+ * pasa todas las citas a memoria y a partir de ahí se trabaja como con cualquier fichero.
+ */
+public class CitasMapeadas implements ICitas {
+
+	private FormatoCitas formato;
+	private ByteBuffer registros;
+	private int numeroCitas;
+	private List<Alumno> alumnos;
+	private List<Sesion> sesiones;
+	private Map<Alumno, Integer> identificadoresAlumnos;
+	private Map<Sesion, Integer> identificadoresSesiones;
+	// Posiciones de los registros de cada sesión y de cada alumno, por identificador
+	private int[][] posicionesSesiones;
+	private int[][] posicionesAlumnos;
+	private Citas citasEnMemoria;
+	private volatile List<Cita> vista;
+
+	public CitasMapeadas(String nombreFichero) 
+	{
+		formato = new FormatoCitas(nombreFichero);
+		vaciar();
+	}
+
+	private void vaciar() 
+	{
+		registros = ByteBuffer.allocate(0);
+		vista = null;
+		numeroCitas = 0;
+		alumnos = new ArrayList<>();
+		sesiones = new ArrayList<>();
+		identificadoresAlumnos = new HashMap<>();
+		identificadoresSesiones = new HashMap<>();
+		posicionesSesiones = new int[0][];
+		posicionesAlumnos = new int[0][];
+	}
+
+	@Override
+	public void comenzar() 
+	{
+		//Proyectar
+		File fichero = formato.getFichero();
+		try {
+			FicheroMapeado mapeado = FicheroMapeado.abrir(fichero, FormatoBinario.TIPO_CITAS);
+			List<Profesor> profesores = CodificacionBinaria.leerProfesores(mapeado.getEntrada());
+			List<Tutoria> tutorias = CodificacionBinaria.leerTutorias(mapeado.getEntrada(), profesores);
+			sesiones = CodificacionBinaria.leerSesiones(mapeado.getEntrada(), tutorias);
+			alumnos = CodificacionBinaria.leerAlumnos(mapeado.getEntrada());
+			registros = mapeado.leerBloque(CodificacionBinaria.TAMANO_CITA);
+			numeroCitas = registros.limit() / CodificacionBinaria.TAMANO_CITA;
+			vista = null;
+			identificadoresAlumnos = identificadores(alumnos);
+			identificadoresSesiones = identificadores(sesiones);
+			posicionesSesiones = posiciones(CodificacionBinaria::getIdentificadorSesion, sesiones.size());
+			posicionesAlumnos = posiciones(CodificacionBinaria::getIdentificadorAlumno, alumnos.size());
+			System.out.println("Fichero citas proyectado en memoria satisfactoriamente.");
+		} catch (NoSuchFileException e) {
+			System.out.println("No puedo abrir el fichero de citas.");
+		} catch (IOException | IllegalArgumentException | NullPointerException e) {
+			vaciar();
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	private static <T> Map<T, Integer> identificadores(List<T> elementos) 
+	{
+		Map<T, Integer> identificadores = new HashMap<>(elementos.size() * 4 / 3 + 1);
+		for (int i = 0; i < elementos.size(); i++) 
+		{
+			identificadores.put(elementos.get(i), i);
+		}
+		return identificadores;
+	}
+
+	/*
+	 * Agrupa las posiciones de los registros por el identificador que indica el campo: primero
+	 * cuenta los registros de cada uno y después los reparte. Un fichero con identificadores
+	 * fuera de rango se rechaza aquí y no al enlazar o consultar.
+	 */
+	private int[][] posiciones(Campo campo, int numeroIdentificadores) throws IOException 
+	{
+		int[] cuantos = new int[numeroIdentificadores];
+		for (int i = 0; i < numeroCitas; i++) 
+		{
+			int identificador = campo.leer(registros, i);
+			CodificacionBinaria.comprobarReferencia(identificador, numeroIdentificadores);
+			cuantos[identificador]++;
+		}
+		int[][] posiciones = new int[numeroIdentificadores][];
+		for (int i = 0; i < numeroIdentificadores; i++) 
+		{
+			posiciones[i] = new int[cuantos[i]];
+			cuantos[i] = 0;
+		}
+		for (int i = 0; i < numeroCitas; i++) 
+		{
+			int identificador = campo.leer(registros, i);
+			posiciones[identificador][cuantos[identificador]++] = i;
+		}
+		return posiciones;
+	}
+
+	@Override
+	public void terminar() 
+	{
+		if (citasEnMemoria == null) 
+		{
+			// Sin modificaciones el fichero proyectado sigue siendo válido
+			System.out.println("Fichero citas sin cambios.");
+		} else {
+			citasEnMemoria.terminar();
+		}
+	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		if (citasEnMemoria != null) 
+		{
+			citasEnMemoria.guardar();
+		}
+	}
+
+	/*
+	 * Sin pasar a memoria: basta con sustituir los alumnos y las sesiones de los bloques de referencias.
+	 */
+	@Override
+	public int enlazar(List<Alumno> alumnosEnlazados, List<Sesion> sesionesEnlazadas) 
+	{
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.enlazar(alumnosEnlazados, sesionesEnlazadas);
+		}
+		boolean[] alumnosSinEnlazar = SesionesMapeadas.enlazarReferencias(alumnos, alumnosEnlazados);
+		boolean[] sesionesSinEnlazar = SesionesMapeadas.enlazarReferencias(sesiones, sesionesEnlazadas);
+		vista = null;
+		int citasSinEnlazar = 0;
+		for (int i = 0; i < numeroCitas; i++) 
+		{
+			if (alumnosSinEnlazar[CodificacionBinaria.getIdentificadorAlumno(registros, i)] 
+					|| sesionesSinEnlazar[CodificacionBinaria.getIdentificadorSesion(registros, i)]) 
+			{
+				citasSinEnlazar++;
+			}
+		}
+		return citasSinEnlazar;
+	}
+
+	private Citas getCitasEnMemoria() 
+	{
+		if (citasEnMemoria == null) 
+		{
+			List<Cita> citasLeidas = decodificarTodas();
+			citasEnMemoria = new Citas(new IFormatoFichero<Cita>() {
+				@Override
+				public List<Cita> leer() 
+				{
+					return citasLeidas;
+				}
+
+				@Override
+				public void escribir(Collection<Cita> citas) throws IOException 
+				{
+					formato.escribir(citas);
+				}
+			});
+			citasEnMemoria.comenzar();
+			// Se suelta la referencia a la proyección; solo se deshace cuando el recolector libera el buffer
+			vaciar();
+		}
+		return citasEnMemoria;
+	}
+
+	private List<Cita> decodificarTodas() 
+	{
+		List<Cita> citas = new ArrayList<>(numeroCitas);
+		for (int i = 0; i < numeroCitas; i++) 
+		{
+			citas.add(decodificar(i));
+		}
+		return citas;
+	}
+
+	private Cita decodificar(int indice) 
+	{
+		try {
+			return CodificacionBinaria.leerCita(registros, indice, alumnos, sesiones);
+		} catch (IOException e) {
+			throw new UncheckedIOException("ERROR: El fichero de citas contiene un registro no válido.", e);
+		}
+	}
+
+	@Override
+	public List<Cita> get() 
+	{
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.get();
+		}
+		List<Cita> citasOrdenadas = new ArrayList<>(numeroCitas);
+		for (Cita cita : getVista()) 
+		{
+			citasOrdenadas.add(new Cita(cita));
+		}
+		return citasOrdenadas;
+	}
+
+	@Override
+	public List<Cita> getVista() 
+	{
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.getVista();
+		}
+		if (vista == null) 
+		{
+			// Los registros se decodifican una sola vez mientras el fichero proyectado no cambie
+			List<Cita> citasOrdenadas = new ArrayList<>(numeroCitas);
+			for (int i = 0; i < numeroCitas; i++) 
+			{
+				citasOrdenadas.add(decodificar(i));
+			}
+			citasOrdenadas.sort(OrdenNatural.CITAS);
+			vista = Collections.unmodifiableList(citasOrdenadas);
+		}
+		return vista;
+	}
+
+	@Override
+	public List<Cita> get(Sesion sesion) 
+	{
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.get(sesion);
+		}
+		List<Cita> citasSesion = new ArrayList<>();
+		for (int posicion : getPosiciones(posicionesSesiones, identificadoresSesiones.get(sesion))) 
+		{
+			citasSesion.add(new Cita(decodificar(posicion)));
+		}
+		citasSesion.sort(OrdenNatural.CITAS);
+		return citasSesion;
+	}
+
+	@Override
+	public List<Cita> get(Alumno alumno) 
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.get(alumno);
+		}
+		List<Cita> citasAlumno = new ArrayList<>();
+		for (int posicion : getPosiciones(posicionesAlumnos, identificadoresAlumnos.get(alumno))) 
+		{
+			citasAlumno.add(new Cita(decodificar(posicion)));
+		}
+		citasAlumno.sort(OrdenNatural.CITAS);
+		return citasAlumno;
+	}
+
+	/*
+	 * La fecha de una cita es la de su sesión: se marcan una vez las sesiones del intervalo
+	 * y después basta con mirar el identificador de sesión de cada registro.
+	 */
+	@Override
+	public Pagina<Cita> get(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano) 
+	{
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.get(desde, hasta, despuesDe, tamano);
+		}
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		boolean[] sesionesIntervalo = new boolean[sesiones.size()];
+		for (int i = 0; i < sesiones.size(); i++) 
+		{
+			LocalDate fecha = sesiones.get(i).getFecha();
+			sesionesIntervalo[i] = !fecha.isBefore(desde) && !fecha.isAfter(hasta);
+		}
+		List<Cita> citasIntervalo = new ArrayList<>();
+		for (int i = 0; i < numeroCitas; i++) 
+		{
+			if (sesionesIntervalo[CodificacionBinaria.getIdentificadorSesion(registros, i)]) 
+			{
+				citasIntervalo.add(decodificar(i));
+			}
+		}
+		citasIntervalo.sort(OrdenNatural.CITAS_POR_FECHA);
+		return Pagina.de(citasIntervalo, despuesDe, OrdenNatural.CITAS_POR_FECHA, tamano);
+	}
+
+	// Como en SesionesMapeadas, los flujos de un fichero proyectado parten de la vista decodificada
+	@Override
+	public Stream<Cita> stream() 
+	{
+		return citasEnMemoria == null ? getVista().stream() : citasEnMemoria.stream();
+	}
+
+	@Override
+	public Stream<Cita> stream(Sesion sesion) 
+	{
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.stream(sesion);
+		}
+		return getVista().stream().filter(cita -> cita.getSesion().equals(sesion));
+	}
+
+	@Override
+	public Stream<Cita> stream(Alumno alumno) 
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.stream(alumno);
+		}
+		return getVista().stream().filter(cita -> cita.getAlumno().equals(alumno));
+	}
+
+	@Override
+	public int getTamano() 
+	{
+		return citasEnMemoria == null ? numeroCitas : citasEnMemoria.getTamano();
+	}
+
+	@Override
+	public boolean estaLibre(Sesion sesion, LocalTime hora) 
+	{
+		return citasEnMemoria == null ? getHuecos(sesion).estaLibre(hora) : citasEnMemoria.estaLibre(sesion, hora);
+	}
+
+	@Override
+	public LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde) 
+	{
+		return citasEnMemoria == null ? getHuecos(sesion).getSiguienteLibre(desde) : citasEnMemoria.getSiguienteHoraLibre(sesion, desde);
+	}
+
+	@Override
+	public List<LocalTime> getHorasLibres(Sesion sesion, int cuantas) 
+	{
+		return citasEnMemoria == null ? getHuecos(sesion).getLibres(cuantas) : citasEnMemoria.getHorasLibres(sesion, cuantas);
+	}
+
+	// Las horas ocupadas salen de los registros de la sesión sin llegar a decodificarlos
+	private HuecosSesion getHuecos(Sesion sesion) 
+	{
+		HuecosSesion huecos = new HuecosSesion(sesion);
+		for (int posicion : getPosiciones(posicionesSesiones, identificadoresSesiones.get(sesion))) 
+		{
+			int minutos = CodificacionBinaria.getMinutosCita(registros, posicion);
+			huecos.reservar(LocalTime.of(minutos / 60, minutos % 60));
+		}
+		return huecos;
+	}
+
+	private static int[] getPosiciones(int[][] posiciones, Integer identificador) 
+	{
+		return identificador == null ? new int[0] : posiciones[identificador];
+	}
+
+	@Override
+	public void insertar(Cita cita) throws OperationNotSupportedException 
+	{
+		if (cita == null) 
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+		}
+		getCitasEnMemoria().insertar(cita);
+	}
+
+	@Override
+	public void insertarTodas(Collection<Cita> citas) throws OperationNotSupportedException 
+	{
+		if (citas == null) 
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar citas nulas.");
+		}
+		getCitasEnMemoria().insertarTodas(citas);
+	}
+
+	@Override
+	public Cita buscar(Cita cita) 
+	{
+		if (cita == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una cita nula.");
+		}
+		if (citasEnMemoria != null) 
+		{
+			return citasEnMemoria.buscar(cita);
+		}
+		Integer identificadorAlumno = identificadoresAlumnos.get(cita.getAlumno());
+		Integer identificadorSesion = identificadoresSesiones.get(cita.getSesion());
+		if (identificadorAlumno == null || identificadorSesion == null) 
+		{
+			return null;
+		}
+		int minutos = CodificacionBinaria.minutos(cita.getHora());
+		for (int posicion : posicionesSesiones[identificadorSesion]) 
+		{
+			if (CodificacionBinaria.getIdentificadorAlumno(registros, posicion) == identificadorAlumno
+					&& CodificacionBinaria.getMinutosCita(registros, posicion) == minutos) 
+			{
+				return new Cita(decodificar(posicion));
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void borrar(Cita cita) throws OperationNotSupportedException 
+	{
+		if (cita == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una cita nula.");
+		}
+		getCitasEnMemoria().borrar(cita);
+	}
+
+	@Override
+	public int borrarTodas(Sesion sesion) 
+	{
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		// Sin ninguna cita que borrar no hace falta pasar el fichero a memoria
+		if (citasEnMemoria == null && getPosiciones(posicionesSesiones, identificadoresSesiones.get(sesion)).length == 0) 
+		{
+			return 0;
+		}
+		return getCitasEnMemoria().borrarTodas(sesion);
+	}
+
+	@Override
+	public int borrarTodas(Alumno alumno) 
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		if (citasEnMemoria == null && getPosiciones(posicionesAlumnos, identificadoresAlumnos.get(alumno)).length == 0) 
+		{
+			return 0;
+		}
+		return getCitasEnMemoria().borrarTodas(alumno);
+	}
+
+	@FunctionalInterface
+	private interface Campo {
+		int leer(ByteBuffer registros, int indice);
+	}
+
+}
@@ -0,0 +1,271 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Codificación de cada entidad en el formato binario. Cada bloque empieza por el número de
+ * registros. Las sesiones y las citas tienen tamaño fijo: las entidades de las que dependen
+ * se guardan antes en su propio bloque y se referencian por su posición en él.
+ */
+final class CodificacionBinaria {
+
+	// identificador de tutoría, fecha (día epoch), hora de inicio, hora de fin y minutos de duración
+	static final int TAMANO_SESION = 4 + 4 + 2 + 2 + 2;
+	// identificador de alumno, identificador de sesión y hora
+	static final int TAMANO_CITA = 4 + 4 + 2;
+
+	private CodificacionBinaria() 
+	{
+	}
+
+	static void escribirProfesores(DataOutput salida, List<Profesor> profesores) throws IOException 
+	{
+		salida.writeInt(profesores.size());
+		for (Profesor profesor : profesores) 
+		{
+			salida.writeUTF(profesor.getNombre());
+			salida.writeUTF(profesor.getDni());
+			salida.writeUTF(profesor.getCorreo());
+		}
+	}
+
+	static List<Profesor> leerProfesores(DataInput entrada) throws IOException 
+	{
+		int numeroProfesores = leerNumeroRegistros(entrada);
+		List<Profesor> profesores = new ArrayList<>(numeroProfesores);
+		for (int i = 0; i < numeroProfesores; i++) 
+		{
+			profesores.add(Profesor.restaurar(entrada.readUTF(), entrada.readUTF(), entrada.readUTF()));
+		}
+		return profesores;
+	}
+
+	static void escribirAlumnos(DataOutput salida, List<Alumno> alumnos) throws IOException 
+	{
+		salida.writeInt(alumnos.size());
+		for (Alumno alumno : alumnos) 
+		{
+			salida.writeUTF(alumno.getNombre());
+			salida.writeUTF(alumno.getCorreo());
+			salida.writeUTF(alumno.getExpediente());
+		}
+	}
+
+	static List<Alumno> leerAlumnos(DataInput entrada) throws IOException 
+	{
+		int numeroAlumnos = leerNumeroRegistros(entrada);
+		List<Alumno> alumnos = new ArrayList<>(numeroAlumnos);
+		for (int i = 0; i < numeroAlumnos; i++) 
+		{
+			alumnos.add(Alumno.restaurar(entrada.readUTF(), entrada.readUTF(), entrada.readUTF()));
+		}
+		return alumnos;
+	}
+
+	static void escribirTutorias(DataOutput salida, List<Tutoria> tutorias, TablaReferencias<Profesor> profesores) throws IOException 
+	{
+		salida.writeInt(tutorias.size());
+		for (Tutoria tutoria : tutorias) 
+		{
+			salida.writeInt(profesores.getIdentificador(tutoria.getProfesor()));
+			salida.writeUTF(tutoria.getNombre());
+		}
+	}
+
+	static List<Tutoria> leerTutorias(DataInput entrada, List<Profesor> profesores) throws IOException 
+	{
+		int numeroTutorias = leerNumeroRegistros(entrada);
+		List<Tutoria> tutorias = new ArrayList<>(numeroTutorias);
+		for (int i = 0; i < numeroTutorias; i++) 
+		{
+			Profesor profesor = referencia(profesores, entrada.readInt());
+			tutorias.add(Tutoria.restaurar(profesor, entrada.readUTF()));
+		}
+		return tutorias;
+	}
+
+	static void escribirSesiones(DataOutput salida, List<Sesion> sesiones, TablaReferencias<Tutoria> tutorias) throws IOException 
+	{
+		salida.writeInt(sesiones.size());
+		for (Sesion sesion : sesiones) 
+		{
+			escribirSesion(salida, sesion, tutorias);
+		}
+	}
+
+	static void escribirSesion(DataOutput salida, Sesion sesion, TablaReferencias<Tutoria> tutorias) throws IOException 
+	{
+		salida.writeInt(tutorias.getIdentificador(sesion.getTutoria()));
+		salida.writeInt((int) sesion.getFecha().toEpochDay());
+		escribirHora(salida, sesion.getHoraInicio());
+		escribirHora(salida, sesion.getHoraFin());
+		salida.writeShort(sesion.getMinutosDuracion());
+	}
+
+	static List<Sesion> leerSesiones(DataInput entrada, List<Tutoria> tutorias) throws IOException 
+	{
+		int numeroSesiones = leerNumeroRegistros(entrada);
+		List<Sesion> sesiones = new ArrayList<>(numeroSesiones);
+		for (int i = 0; i < numeroSesiones; i++) 
+		{
+			sesiones.add(leerSesion(entrada, tutorias));
+		}
+		return sesiones;
+	}
+
+	static Sesion leerSesion(DataInput entrada, List<Tutoria> tutorias) throws IOException 
+	{
+		Tutoria tutoria = referencia(tutorias, entrada.readInt());
+		LocalDate fecha = LocalDate.ofEpochDay(entrada.readInt());
+		LocalTime horaInicio = leerHora(entrada);
+		LocalTime horaFin = leerHora(entrada);
+		return sesion(tutoria, fecha, horaInicio, horaFin, entrada.readShort());
+	}
+
+	private static Sesion sesion(Tutoria tutoria, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, int minutosDuracion) throws IOException 
+	{
+		try {
+			return Sesion.restaurar(tutoria, fecha, horaInicio, horaFin, minutosDuracion);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("ERROR: El fichero contiene una sesión no válida.", e);
+		}
+	}
+
+	/*
+	 * Acceso directo a los registros de sesiones de un bloque proyectado en memoria: los
+	 * campos que sirven para filtrar se leen sin crear objetos.
+	 */
+	static int getIdentificadorTutoria(ByteBuffer sesiones, int indice) 
+	{
+		return sesiones.getInt(indice * TAMANO_SESION);
+	}
+
+	static int getDiaSesion(ByteBuffer sesiones, int indice) 
+	{
+		return sesiones.getInt(indice * TAMANO_SESION + 4);
+	}
+
+	static Sesion leerSesion(ByteBuffer sesiones, int indice, List<Tutoria> tutorias) throws IOException 
+	{
+		int posicion = indice * TAMANO_SESION;
+		Tutoria tutoria = referencia(tutorias, sesiones.getInt(posicion));
+		LocalDate fecha = LocalDate.ofEpochDay(sesiones.getInt(posicion + 4));
+		LocalTime horaInicio = hora(sesiones.getShort(posicion + 8));
+		LocalTime horaFin = hora(sesiones.getShort(posicion + 10));
+		return sesion(tutoria, fecha, horaInicio, horaFin, sesiones.getShort(posicion + 12));
+	}
+
+	static void escribirCitas(DataOutput salida, List<Cita> citas, TablaReferencias<Alumno> alumnos, TablaReferencias<Sesion> sesiones) throws IOException 
+	{
+		salida.writeInt(citas.size());
+		for (Cita cita : citas) 
+		{
+			salida.writeInt(alumnos.getIdentificador(cita.getAlumno()));
+			salida.writeInt(sesiones.getIdentificador(cita.getSesion()));
+			escribirHora(salida, cita.getHora());
+		}
+	}
+
+	static List<Cita> leerCitas(DataInput entrada, List<Alumno> alumnos, List<Sesion> sesiones) throws IOException 
+	{
+		int numeroCitas = leerNumeroRegistros(entrada);
+		List<Cita> citas = new ArrayList<>(numeroCitas);
+		for (int i = 0; i < numeroCitas; i++) 
+		{
+			citas.add(leerCita(entrada, alumnos, sesiones));
+		}
+		return citas;
+	}
+
+	static Cita leerCita(DataInput entrada, List<Alumno> alumnos, List<Sesion> sesiones) throws IOException 
+	{
+		Alumno alumno = referencia(alumnos, entrada.readInt());
+		Sesion sesion = referencia(sesiones, entrada.readInt());
+		return Cita.restaurar(alumno, sesion, leerHora(entrada));
+	}
+
+	static int getIdentificadorAlumno(ByteBuffer citas, int indice) 
+	{
+		return citas.getInt(indice * TAMANO_CITA);
+	}
+
+	static int getIdentificadorSesion(ByteBuffer citas, int indice) 
+	{
+		return citas.getInt(indice * TAMANO_CITA + 4);
+	}
+
+	static int getMinutosCita(ByteBuffer citas, int indice) 
+	{
+		return citas.getShort(indice * TAMANO_CITA + 8);
+	}
+
+	static Cita leerCita(ByteBuffer citas, int indice, List<Alumno> alumnos, List<Sesion> sesiones) throws IOException 
+	{
+		int posicion = indice * TAMANO_CITA;
+		Alumno alumno = referencia(alumnos, citas.getInt(posicion));
+		Sesion sesion = referencia(sesiones, citas.getInt(posicion + 4));
+		return Cita.restaurar(alumno, sesion, hora(citas.getShort(posicion + 8)));
+	}
+
+	static int leerNumeroRegistros(DataInput entrada) throws IOException 
+	{
+		int numeroRegistros = entrada.readInt();
+		if (numeroRegistros < 0) 
+		{
+			throw new IOException("ERROR: El número de registros del fichero no es válido.");
+		}
+		return numeroRegistros;
+	}
+
+	private static void escribirHora(DataOutput salida, LocalTime hora) throws IOException 
+	{
+		salida.writeShort(minutos(hora));
+	}
+
+	private static LocalTime leerHora(DataInput entrada) throws IOException 
+	{
+		return hora(entrada.readShort());
+	}
+
+	static int minutos(LocalTime hora) 
+	{
+		return hora.getHour() * 60 + hora.getMinute();
+	}
+
+	private static LocalTime hora(int minutos) throws IOException 
+	{
+		if (minutos < 0 || minutos >= 24 * 60) 
+		{
+			throw new IOException("ERROR: El fichero contiene una hora no válida.");
+		}
+		return LocalTime.of(minutos / 60, minutos % 60);
+	}
+
+	private static <T> T referencia(List<T> elementos, int identificador) throws IOException 
+	{
+		comprobarReferencia(identificador, elementos.size());
+		return elementos.get(identificador);
+	}
+
+	static void comprobarReferencia(int identificador, int numeroReferencias) throws IOException 
+	{
+		if (identificador < 0 || identificador >= numeroReferencias) 
+		{
+			throw new IOException("ERROR: El fichero contiene una referencia no válida.");
+		}
+	}
+
+}
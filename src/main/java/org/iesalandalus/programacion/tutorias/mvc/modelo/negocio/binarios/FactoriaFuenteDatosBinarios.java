@@ -0,0 +1,67 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Alumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Profesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Sesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Tutorias;
+
+public class FactoriaFuenteDatosBinarios implements IFuenteDatos {
+
+	private static final String NOMBRE_FICHERO_ALUMNOS = "datos/alumnos.bin";
+	private static final String NOMBRE_FICHERO_PROFESORES = "datos/profesores.bin";
+	private static final String NOMBRE_FICHERO_TUTORIAS = "datos/tutorias.bin";
+	private static final String NOMBRE_FICHERO_SESIONES = "datos/sesiones.bin";
+	private static final String NOMBRE_FICHERO_CITAS = "datos/citas.bin";
+
+	@Override
+	public IAlumnos crearAlumnos() 
+	{
+		return new Alumnos(new FormatoAlumnos(NOMBRE_FICHERO_ALUMNOS));
+	}
+
+
+	@Override
+	public IProfesores crearProfesores() 
+	{
+		return new Profesores(new FormatoProfesores(NOMBRE_FICHERO_PROFESORES));
+	}
+
+
+	@Override
+	public ITutorias crearTutorias() 
+	{
+		return new Tutorias(new FormatoTutorias(NOMBRE_FICHERO_TUTORIAS));
+	}
+
+
+	@Override
+	public ISesiones crearSesiones() 
+	{
+		return new Sesiones(new FormatoSesiones(NOMBRE_FICHERO_SESIONES));
+	}
+
+
+	@Override
+	public ICitas crearCitas() 
+	{
+		return new Citas(new FormatoCitas(NOMBRE_FICHERO_CITAS));
+	}
+
+
+	// Los cambios se hacen en memoria y se guardan todos juntos al terminar
+	@Override
+	public int aplicarJuntos(Cambios cambios) throws OperationNotSupportedException 
+	{
+		return cambios.aplicar();
+	}
+	
+}
\ No newline at end of file
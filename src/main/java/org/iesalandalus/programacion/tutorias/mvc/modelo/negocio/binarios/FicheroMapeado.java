@@ -0,0 +1,117 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/*
+ * Fichero binario proyectado en memoria con FileChannel.map. Los bloques de tamaño variable
+ * (profesores, tutorías, alumnos...) se leen en orden con getEntrada(), y los bloques de
+ * registros de tamaño fijo se devuelven sin decodificar para acceder a ellos por posición.
+ *
+ * Una proyección no se deshace al soltarla, sino cuando el recolector libera el buffer. Windows no
+ * deja reemplazar un fichero mientras siga proyectado, así que allí el fichero se lee entero a un
+ * buffer del montón: las colecciones siguen decodificando cada registro solo cuando lo necesitan.
+ */
+final class FicheroMapeado {
+
+	private static final boolean PROYECTAR = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+	private ByteBuffer contenido;
+	private DataInput entrada;
+
+	private FicheroMapeado(ByteBuffer contenido) 
+	{
+		this.contenido = contenido;
+		entrada = new DataInputStream(new EntradaBuffer(contenido));
+	}
+
+	static FicheroMapeado abrir(File fichero, byte tipo) throws IOException 
+	{
+		try (FileChannel canal = FileChannel.open(fichero.toPath(), StandardOpenOption.READ)) {
+			if (canal.size() > Integer.MAX_VALUE) 
+			{
+				throw new IOException("ERROR: El fichero " + fichero + " es demasiado grande para proyectarlo en memoria.");
+			}
+			// La proyección sigue siendo válida después de cerrar el canal
+			FicheroMapeado mapeado = new FicheroMapeado(PROYECTAR ? canal.map(MapMode.READ_ONLY, 0, canal.size()) : leer(canal));
+			FormatoBinario.comprobarCabecera(mapeado.entrada, tipo);
+			return mapeado;
+		}
+	}
+
+	private static ByteBuffer leer(FileChannel canal) throws IOException 
+	{
+		ByteBuffer contenido = ByteBuffer.allocate((int) canal.size());
+		while (contenido.hasRemaining()) 
+		{
+			if (canal.read(contenido) < 0) 
+			{
+				throw new EOFException("ERROR: El fichero está incompleto.");
+			}
+		}
+		contenido.flip();
+		return contenido;
+	}
+
+	DataInput getEntrada() 
+	{
+		return entrada;
+	}
+
+	ByteBuffer leerBloque(int tamanoRegistro) throws IOException 
+	{
+		int numeroRegistros = CodificacionBinaria.leerNumeroRegistros(entrada);
+		long tamanoBloque = (long) numeroRegistros * tamanoRegistro;
+		if (tamanoBloque > contenido.remaining()) 
+		{
+			throw new EOFException("ERROR: El fichero está incompleto.");
+		}
+		ByteBuffer bloque = contenido.slice();
+		bloque.limit((int) tamanoBloque);
+		contenido.position(contenido.position() + (int) tamanoBloque);
+		return bloque;
+	}
+
+	private static class EntradaBuffer extends InputStream {
+
+		private ByteBuffer buffer;
+
+		EntradaBuffer(ByteBuffer buffer) 
+		{
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() 
+		{
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] destino, int desplazamiento, int longitud) 
+		{
+			if (longitud == 0) 
+			{
+				return 0;
+			}
+			if (!buffer.hasRemaining()) 
+			{
+				return -1;
+			}
+			int leidos = Math.min(longitud, buffer.remaining());
+			buffer.get(destino, desplazamiento, leidos);
+			return leidos;
+		}
+
+	}
+
+}
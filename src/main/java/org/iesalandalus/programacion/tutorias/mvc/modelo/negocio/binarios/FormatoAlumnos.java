@@ -0,0 +1,31 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+
+public class FormatoAlumnos extends FormatoBinario<Alumno> {
+
+	public FormatoAlumnos(String nombreFichero) 
+	{
+		super(nombreFichero, TIPO_ALUMNOS);
+	}
+
+	@Override
+	protected List<Alumno> leerRegistros(DataInput entrada) throws IOException 
+	{
+		return CodificacionBinaria.leerAlumnos(entrada);
+	}
+
+	@Override
+	protected void escribirRegistros(DataOutput salida, Collection<Alumno> alumnos) throws IOException 
+	{
+		CodificacionBinaria.escribirAlumnos(salida, new ArrayList<>(alumnos));
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.EscritorAtomico;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.IFormatoFichero;
+
+/*
+ * Formato binario versionado: una cabecera con un número mágico, el tipo de fichero y la versión,
+ * seguida de los bloques de registros que escribe cada subclase.
+ */
+abstract class FormatoBinario<T> implements IFormatoFichero<T> {
+
+	static final int MAGIA = 0x54555452;
+	static final short VERSION = 1;
+
+	static final byte TIPO_PROFESORES = 1;
+	static final byte TIPO_ALUMNOS = 2;
+	static final byte TIPO_TUTORIAS = 3;
+	static final byte TIPO_SESIONES = 4;
+	static final byte TIPO_CITAS = 5;
+
+	private static final int TAMANO_BUFFER = 64 * 1024;
+
+	private File fichero;
+	private byte tipo;
+
+	protected FormatoBinario(String nombreFichero, byte tipo) 
+	{
+		if (nombreFichero == null) 
+		{
+			throw new NullPointerException("ERROR: El nombre del fichero no puede ser nulo.");
+		}
+		this.fichero = new File(nombreFichero);
+		this.tipo = tipo;
+	}
+
+	protected File getFichero() 
+	{
+		return fichero;
+	}
+
+	@Override
+	public List<T> leer() throws IOException 
+	{
+		try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(new FileInputStream(fichero), TAMANO_BUFFER))) {
+			comprobarCabecera(entrada, tipo);
+			return leerRegistros(entrada);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw new IOException("ERROR: El fichero " + fichero + " contiene un registro no válido.", e);
+		}
+	}
+
+	@Override
+	public void escribir(Collection<T> elementos) throws IOException 
+	{
+		EscritorAtomico.escribir(fichero, salida -> {
+			DataOutputStream salidaDatos = new DataOutputStream(salida);
+			salidaDatos.writeInt(MAGIA);
+			salidaDatos.writeByte(tipo);
+			salidaDatos.writeShort(VERSION);
+			escribirRegistros(salidaDatos, elementos);
+			salidaDatos.flush();
+		});
+	}
+
+	static void comprobarCabecera(DataInput entrada, byte tipo) throws IOException 
+	{
+		if (entrada.readInt() != MAGIA || entrada.readByte() != tipo) 
+		{
+			throw new IOException("ERROR: El fichero no tiene el formato esperado.");
+		}
+		short version = entrada.readShort();
+		if (version != VERSION) 
+		{
+			throw new IOException("ERROR: Versión de fichero no soportada: " + version + ".");
+		}
+	}
+
+	protected abstract List<T> leerRegistros(DataInput entrada) throws IOException;
+
+	protected abstract void escribirRegistros(DataOutput salida, Collection<T> elementos) throws IOException;
+
+}
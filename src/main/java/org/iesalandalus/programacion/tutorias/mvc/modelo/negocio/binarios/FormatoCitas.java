@@ -0,0 +1,59 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Bloques de profesores, tutorías, sesiones y alumnos referenciados, cada uno guardado una sola vez,
+ * seguidos del bloque de citas, de tamaño fijo.
+ */
+public class FormatoCitas extends FormatoBinario<Cita> {
+
+	public FormatoCitas(String nombreFichero) 
+	{
+		super(nombreFichero, TIPO_CITAS);
+	}
+
+	@Override
+	protected List<Cita> leerRegistros(DataInput entrada) throws IOException 
+	{
+		List<Profesor> profesores = CodificacionBinaria.leerProfesores(entrada);
+		List<Tutoria> tutorias = CodificacionBinaria.leerTutorias(entrada, profesores);
+		List<Sesion> sesiones = CodificacionBinaria.leerSesiones(entrada, tutorias);
+		List<Alumno> alumnos = CodificacionBinaria.leerAlumnos(entrada);
+		return CodificacionBinaria.leerCitas(entrada, alumnos, sesiones);
+	}
+
+	@Override
+	protected void escribirRegistros(DataOutput salida, Collection<Cita> citas) throws IOException 
+	{
+		TablaReferencias<Profesor> profesores = new TablaReferencias<>();
+		TablaReferencias<Tutoria> tutorias = new TablaReferencias<>();
+		TablaReferencias<Sesion> sesiones = new TablaReferencias<>();
+		TablaReferencias<Alumno> alumnos = new TablaReferencias<>();
+		for (Cita cita : citas) 
+		{
+			Tutoria tutoria = cita.getSesion().getTutoria();
+			profesores.registrar(tutoria.getProfesor());
+			tutorias.registrar(tutoria);
+			sesiones.registrar(cita.getSesion());
+			alumnos.registrar(cita.getAlumno());
+		}
+		CodificacionBinaria.escribirProfesores(salida, profesores.getElementos());
+		CodificacionBinaria.escribirTutorias(salida, tutorias.getElementos(), profesores);
+		CodificacionBinaria.escribirSesiones(salida, sesiones.getElementos(), tutorias);
+		CodificacionBinaria.escribirAlumnos(salida, alumnos.getElementos());
+		CodificacionBinaria.escribirCitas(salida, new ArrayList<>(citas), alumnos, sesiones);
+	}
+
+}
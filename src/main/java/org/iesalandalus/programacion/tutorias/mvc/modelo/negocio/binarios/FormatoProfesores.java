@@ -0,0 +1,31 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+
+public class FormatoProfesores extends FormatoBinario<Profesor> {
+
+	public FormatoProfesores(String nombreFichero) 
+	{
+		super(nombreFichero, TIPO_PROFESORES);
+	}
+
+	@Override
+	protected List<Profesor> leerRegistros(DataInput entrada) throws IOException 
+	{
+		return CodificacionBinaria.leerProfesores(entrada);
+	}
+
+	@Override
+	protected void escribirRegistros(DataOutput salida, Collection<Profesor> profesores) throws IOException 
+	{
+		CodificacionBinaria.escribirProfesores(salida, new ArrayList<>(profesores));
+	}
+
+}
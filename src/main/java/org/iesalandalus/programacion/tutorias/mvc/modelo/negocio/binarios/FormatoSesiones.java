@@ -0,0 +1,47 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Bloques de profesores y tutorías referenciados seguidos del bloque de sesiones, de tamaño fijo.
+ */
+public class FormatoSesiones extends FormatoBinario<Sesion> {
+
+	public FormatoSesiones(String nombreFichero) 
+	{
+		super(nombreFichero, TIPO_SESIONES);
+	}
+
+	@Override
+	protected List<Sesion> leerRegistros(DataInput entrada) throws IOException 
+	{
+		List<Profesor> profesores = CodificacionBinaria.leerProfesores(entrada);
+		List<Tutoria> tutorias = CodificacionBinaria.leerTutorias(entrada, profesores);
+		return CodificacionBinaria.leerSesiones(entrada, tutorias);
+	}
+
+	@Override
+	protected void escribirRegistros(DataOutput salida, Collection<Sesion> sesiones) throws IOException 
+	{
+		TablaReferencias<Profesor> profesores = new TablaReferencias<>();
+		TablaReferencias<Tutoria> tutorias = new TablaReferencias<>();
+		for (Sesion sesion : sesiones) 
+		{
+			profesores.registrar(sesion.getTutoria().getProfesor());
+			tutorias.registrar(sesion.getTutoria());
+		}
+		CodificacionBinaria.escribirProfesores(salida, profesores.getElementos());
+		CodificacionBinaria.escribirTutorias(salida, tutorias.getElementos(), profesores);
+		CodificacionBinaria.escribirSesiones(salida, new ArrayList<>(sesiones), tutorias);
+	}
+
+}
@@ -0,0 +1,42 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Bloque de profesores referenciados seguido del bloque de tutorías.
+ */
+public class FormatoTutorias extends FormatoBinario<Tutoria> {
+
+	public FormatoTutorias(String nombreFichero) 
+	{
+		super(nombreFichero, TIPO_TUTORIAS);
+	}
+
+	@Override
+	protected List<Tutoria> leerRegistros(DataInput entrada) throws IOException 
+	{
+		List<Profesor> profesores = CodificacionBinaria.leerProfesores(entrada);
+		return CodificacionBinaria.leerTutorias(entrada, profesores);
+	}
+
+	@Override
+	protected void escribirRegistros(DataOutput salida, Collection<Tutoria> tutorias) throws IOException 
+	{
+		TablaReferencias<Profesor> profesores = new TablaReferencias<>();
+		for (Tutoria tutoria : tutorias) 
+		{
+			profesores.registrar(tutoria.getProfesor());
+		}
+		CodificacionBinaria.escribirProfesores(salida, profesores.getElementos());
+		CodificacionBinaria.escribirTutorias(salida, new ArrayList<>(tutorias), profesores);
+	}
+
+}
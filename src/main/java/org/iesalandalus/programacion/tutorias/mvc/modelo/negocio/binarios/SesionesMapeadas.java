@@ -0,0 +1,429 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.OrdenNatural;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.IFormatoFichero;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Sesiones;
+
+/*
+ * Sesiones leídas de un fichero binario proyectado en memoria. Al comenzar solo se decodifican
+ * los profesores y las tutorías; cada sesión se decodifica cuando una consulta la devuelve.
+ * La primera modificación pasa todas las sesiones a memoria.
+ */
+public class SesionesMapeadas implements ISesiones {
+
+	private FormatoSesiones formato;
+	private ByteBuffer registros;
+	private int numeroSesiones;
+	private List<Tutoria> tutorias;
+	private Map<Tutoria, Integer> identificadoresTutorias;
+	// Posición de cada registro por tutoría y día, para buscar una sesión sin recorrer el fichero
+	private Map<Long, Integer> posiciones;
+	private Sesiones sesionesEnMemoria;
+	private volatile List<Sesion> vista;
+
+	public SesionesMapeadas(String nombreFichero) 
+	{
+		formato = new FormatoSesiones(nombreFichero);
+		vaciar();
+	}
+
+	private void vaciar() 
+	{
+		registros = ByteBuffer.allocate(0);
+		vista = null;
+		numeroSesiones = 0;
+		tutorias = new ArrayList<>();
+		identificadoresTutorias = new HashMap<>();
+		posiciones = new HashMap<>();
+	}
+
+	@Override
+	public void comenzar() 
+	{
+		//Proyectar
+		File fichero = formato.getFichero();
+		try {
+			FicheroMapeado mapeado = FicheroMapeado.abrir(fichero, FormatoBinario.TIPO_SESIONES);
+			List<Profesor> profesores = CodificacionBinaria.leerProfesores(mapeado.getEntrada());
+			tutorias = CodificacionBinaria.leerTutorias(mapeado.getEntrada(), profesores);
+			registros = mapeado.leerBloque(CodificacionBinaria.TAMANO_SESION);
+			numeroSesiones = registros.limit() / CodificacionBinaria.TAMANO_SESION;
+			vista = null;
+			identificadoresTutorias = new HashMap<>(tutorias.size() * 4 / 3 + 1);
+			for (int i = 0; i < tutorias.size(); i++) 
+			{
+				identificadoresTutorias.put(tutorias.get(i), i);
+			}
+			posiciones = new HashMap<>(numeroSesiones * 4 / 3 + 1);
+			for (int i = 0; i < numeroSesiones; i++) 
+			{
+				int identificadorTutoria = CodificacionBinaria.getIdentificadorTutoria(registros, i);
+				// Un fichero dañado se rechaza aquí y no al enlazar o consultar
+				CodificacionBinaria.comprobarReferencia(identificadorTutoria, tutorias.size());
+				posiciones.putIfAbsent(clave(identificadorTutoria, CodificacionBinaria.getDiaSesion(registros, i)), i);
+			}
+			System.out.println("Fichero sesiones proyectado en memoria satisfactoriamente.");
+		} catch (NoSuchFileException e) {
+			System.out.println("No puedo abrir el fichero de sesiones.");
+		} catch (IOException | IllegalArgumentException | NullPointerException e) {
+			vaciar();
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	@Override
+	public void terminar() 
+	{
+		if (sesionesEnMemoria == null) 
+		{
+			// Sin modificaciones el fichero proyectado sigue siendo válido
+			System.out.println("Fichero sesiones sin cambios.");
+		} else {
+			sesionesEnMemoria.terminar();
+		}
+	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		if (sesionesEnMemoria != null) 
+		{
+			sesionesEnMemoria.guardar();
+		}
+	}
+
+	/*
+	 * Sin pasar a memoria: basta con sustituir las tutorías del bloque de referencias.
+	 */
+	@Override
+	public int enlazar(List<Tutoria> tutoriasEnlazadas) 
+	{
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.enlazar(tutoriasEnlazadas);
+		}
+		boolean[] sinEnlazar = enlazarReferencias(tutorias, tutoriasEnlazadas);
+		vista = null;
+		int sesionesSinEnlazar = 0;
+		for (int i = 0; i < numeroSesiones; i++) 
+		{
+			if (sinEnlazar[CodificacionBinaria.getIdentificadorTutoria(registros, i)]) 
+			{
+				sesionesSinEnlazar++;
+			}
+		}
+		return sesionesSinEnlazar;
+	}
+
+	private Sesiones getSesionesEnMemoria() 
+	{
+		if (sesionesEnMemoria == null) 
+		{
+			List<Sesion> sesionesLeidas = new ArrayList<>(numeroSesiones);
+			for (int i = 0; i < numeroSesiones; i++) 
+			{
+				sesionesLeidas.add(decodificar(i));
+			}
+			sesionesEnMemoria = new Sesiones(new IFormatoFichero<Sesion>() {
+				@Override
+				public List<Sesion> leer() 
+				{
+					return sesionesLeidas;
+				}
+
+				@Override
+				public void escribir(Collection<Sesion> sesiones) throws IOException 
+				{
+					formato.escribir(sesiones);
+				}
+			});
+			sesionesEnMemoria.comenzar();
+			// Ya no hace falta la proyección: se suelta su referencia y se deshará cuando el recolector
+			// libere el buffer (reemplazar el fichero al terminar no depende de ello, ver FicheroMapeado)
+			vaciar();
+		}
+		return sesionesEnMemoria;
+	}
+
+	/*
+	 * Sustituye cada elemento de un bloque de referencias por la instancia igual que se recibe.
+	 * Devuelve, por posición, qué referencias no se han encontrado.
+	 */
+	static <T> boolean[] enlazarReferencias(List<T> referencias, List<T> instancias) 
+	{
+		Map<T, T> instanciasPorValor = new HashMap<>(instancias.size() * 4 / 3 + 1);
+		for (T instancia : instancias) 
+		{
+			instanciasPorValor.put(instancia, instancia);
+		}
+		boolean[] sinEnlazar = new boolean[referencias.size()];
+		for (int i = 0; i < referencias.size(); i++) 
+		{
+			T instancia = instanciasPorValor.get(referencias.get(i));
+			if (instancia == null) 
+			{
+				sinEnlazar[i] = true;
+			} else {
+				referencias.set(i, instancia);
+			}
+		}
+		return sinEnlazar;
+	}
+
+	private static long clave(int identificadorTutoria, int dia) 
+	{
+		return (long) identificadorTutoria << 32 | dia & 0xFFFFFFFFL;
+	}
+
+	private Sesion decodificar(int indice) 
+	{
+		try {
+			return CodificacionBinaria.leerSesion(registros, indice, tutorias);
+		} catch (IOException e) {
+			throw new UncheckedIOException("ERROR: El fichero de sesiones contiene un registro no válido.", e);
+		}
+	}
+
+	@Override
+	public List<Sesion> get() 
+	{
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.get();
+		}
+		List<Sesion> sesionesOrdenadas = new ArrayList<>(numeroSesiones);
+		for (Sesion sesion : getVista()) 
+		{
+			sesionesOrdenadas.add(new Sesion(sesion));
+		}
+		return sesionesOrdenadas;
+	}
+
+	@Override
+	public List<Sesion> getVista() 
+	{
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.getVista();
+		}
+		if (vista == null) 
+		{
+			// Los registros se decodifican una sola vez mientras el fichero proyectado no cambie
+			List<Sesion> sesionesOrdenadas = new ArrayList<>(numeroSesiones);
+			for (int i = 0; i < numeroSesiones; i++) 
+			{
+				sesionesOrdenadas.add(decodificar(i));
+			}
+			sesionesOrdenadas.sort(OrdenNatural.SESIONES);
+			vista = Collections.unmodifiableList(sesionesOrdenadas);
+		}
+		return vista;
+	}
+
+	@Override
+	public List<Sesion> get(Tutoria tutoria) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.get(tutoria);
+		}
+		List<Sesion> sesionesTutoria = new ArrayList<>();
+		Integer identificador = identificadoresTutorias.get(tutoria);
+		if (identificador != null) 
+		{
+			for (int i = 0; i < numeroSesiones; i++) 
+			{
+				if (CodificacionBinaria.getIdentificadorTutoria(registros, i) == identificador) 
+				{
+					sesionesTutoria.add(new Sesion(decodificar(i)));
+				}
+			}
+		}
+		sesionesTutoria.sort(OrdenNatural.SESIONES);
+		return sesionesTutoria;
+	}
+
+	/*
+	 * Las fechas se comparan sobre el día guardado en cada registro; solo se decodifican las
+	 * sesiones del intervalo, que se ordenan para cortar la página detrás del cursor.
+	 */
+	@Override
+	public Pagina<Sesion> get(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano) 
+	{
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.get(desde, hasta, despuesDe, tamano);
+		}
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		long primerDia = desde.toEpochDay();
+		long ultimoDia = hasta.toEpochDay();
+		List<Sesion> sesionesIntervalo = new ArrayList<>();
+		for (int i = 0; i < numeroSesiones; i++) 
+		{
+			int dia = CodificacionBinaria.getDiaSesion(registros, i);
+			if (dia >= primerDia && dia <= ultimoDia) 
+			{
+				sesionesIntervalo.add(decodificar(i));
+			}
+		}
+		sesionesIntervalo.sort(OrdenNatural.SESIONES_POR_FECHA);
+		return Pagina.de(sesionesIntervalo, despuesDe, OrdenNatural.SESIONES_POR_FECHA, tamano);
+	}
+
+	@Override
+	public Pagina<Sesion> get(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.get(tutoria, desde, despuesDe, tamano);
+		}
+		if (desde == null) 
+		{
+			throw new NullPointerException("ERROR: Las fechas de la consulta no pueden ser nulas.");
+		}
+		Pagina.comprobarTamano(tamano);
+		List<Sesion> sesionesTutoria = new ArrayList<>();
+		Integer identificador = identificadoresTutorias.get(tutoria);
+		if (identificador != null) 
+		{
+			long primerDia = desde.toEpochDay();
+			for (int i = 0; i < numeroSesiones; i++) 
+			{
+				if (CodificacionBinaria.getIdentificadorTutoria(registros, i) == identificador 
+						&& CodificacionBinaria.getDiaSesion(registros, i) >= primerDia) 
+				{
+					sesionesTutoria.add(decodificar(i));
+				}
+			}
+		}
+		sesionesTutoria.sort(OrdenNatural.SESIONES);
+		// Un cursor de otra tutoría no cuenta: se empieza por la primera sesión
+		Sesion cursor = despuesDe != null && despuesDe.getTutoria().equals(tutoria) ? despuesDe : null;
+		return Pagina.de(sesionesTutoria, cursor, OrdenNatural.SESIONES, tamano);
+	}
+
+	/*
+	 * Sin pasar a memoria el flujo recorre la vista decodificada, que no cambia aunque después
+	 * se modifiquen las sesiones.
+	 */
+	@Override
+	public Stream<Sesion> stream() 
+	{
+		return sesionesEnMemoria == null ? getVista().stream() : sesionesEnMemoria.stream();
+	}
+
+	@Override
+	public Stream<Sesion> stream(Tutoria tutoria) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.stream(tutoria);
+		}
+		return getVista().stream().filter(sesion -> sesion.getTutoria().equals(tutoria));
+	}
+
+	@Override
+	public int getTamano() 
+	{
+		return sesionesEnMemoria == null ? numeroSesiones : sesionesEnMemoria.getTamano();
+	}
+
+	@Override
+	public void insertar(Sesion sesion) throws OperationNotSupportedException 
+	{
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una sesión nula.");
+		}
+		getSesionesEnMemoria().insertar(sesion);
+	}
+
+	@Override
+	public Sesion buscar(Sesion sesion) 
+	{
+		if (sesion == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una sesión nula.");
+		}
+		if (sesionesEnMemoria != null) 
+		{
+			return sesionesEnMemoria.buscar(sesion);
+		}
+		Integer identificador = identificadoresTutorias.get(sesion.getTutoria());
+		if (identificador == null) 
+		{
+			return null;
+		}
+		Integer posicion = posiciones.get(clave(identificador, (int) sesion.getFecha().toEpochDay()));
+		return posicion == null ? null : new Sesion(decodificar(posicion));
+	}
+
+	@Override
+	public void borrar(Sesion sesion) throws OperationNotSupportedException 
+	{
+		if (sesion == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una sesión nula.");
+		}
+		getSesionesEnMemoria().borrar(sesion);
+	}
+
+	@Override
+	public List<Sesion> borrarTodas(Tutoria tutoria) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (sesionesEnMemoria == null) 
+		{
+			// Si la tutoría no tiene sesiones no hace falta pasar el fichero a memoria
+			Integer identificador = identificadoresTutorias.get(tutoria);
+			boolean tieneSesiones = false;
+			for (int i = 0; identificador != null && i < numeroSesiones && !tieneSesiones; i++) 
+			{
+				tieneSesiones = CodificacionBinaria.getIdentificadorTutoria(registros, i) == identificador;
+			}
+			if (!tieneSesiones) 
+			{
+				return new ArrayList<>();
+			}
+		}
+		return getSesionesEnMemoria().borrarTodas(tutoria);
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Asigna a cada entidad distinta un identificador entero consecutivo, para que en el fichero
+ * se guarde una sola vez y los registros que dependen de ella la referencien por ese número.
+ */
+class TablaReferencias<T> {
+
+	private Map<T, Integer> identificadores;
+	private List<T> elementos;
+
+	TablaReferencias() 
+	{
+		identificadores = new HashMap<>();
+		elementos = new ArrayList<>();
+	}
+
+	int registrar(T elemento) 
+	{
+		Integer identificador = identificadores.get(elemento);
+		if (identificador == null) 
+		{
+			identificador = elementos.size();
+			identificadores.put(elemento, identificador);
+			elementos.add(elemento);
+		}
+		return identificador;
+	}
+
+	int getIdentificador(T elemento) 
+	{
+		return identificadores.get(elemento);
+	}
+
+	List<T> getElementos() 
+	{
+		return elementos;
+	}
+
+}
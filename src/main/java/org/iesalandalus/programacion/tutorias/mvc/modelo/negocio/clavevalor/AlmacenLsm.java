@@ -0,0 +1,487 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Almacén clave-valor ordenado con estructura LSM. Los cambios se anotan en el diario, que se
+ * fuerza a disco, y se aplican a una tabla ordenada en memoria; cuando esta crece se vuelca a un
+ * segmento inmutable en disco y el diario se vacía. Una lectura consulta la tabla en memoria y
+ * después los segmentos del más reciente al más antiguo. Cuando hay demasiados segmentos se
+ * compactan en uno solo, que ya no necesita guardar los borrados.
+ *
+ * Las escrituras están sincronizadas; las lecturas no bloquean. Varias colecciones pueden
+ * compartir un almacén, cada una en su espacio de claves (ver EspacioClaves): entonces cada una
+ * lo abre y lo cierra, y solo se cierra de verdad cuando lo ha cerrado la última.
+ */
+final class AlmacenLsm {
+
+	// Valor de un borrado: se compara por identidad, nunca por contenido
+	static final byte[] BORRADO = new byte[0];
+	// La menor cadena mayor que una clave es la clave seguida de este carácter
+	static final char MINIMO = '\u0000';
+
+	private static final int LIMITE_MEMORIA = 4096;
+	private static final int MAXIMO_SEGMENTOS = 4;
+	private static final String EXTENSION_SEGMENTO = ".seg";
+	private static final String EXTENSION_DIARIO = ".log";
+
+	/* Cambios que se escriben juntos: o se aplican todos o, tras una caída, ninguno */
+	static final class Lote {
+
+		private final Map<String, byte[]> cambios = new TreeMap<>();
+
+		Lote poner(String clave, byte[] valor)
+		{
+			if (valor == null || valor == BORRADO)
+			{
+				throw new IllegalArgumentException("ERROR: El valor de una clave no puede ser nulo.");
+			}
+			cambios.put(clave, valor);
+			return this;
+		}
+
+		Lote borrar(String clave)
+		{
+			cambios.put(clave, BORRADO);
+			return this;
+		}
+
+		Lote conPrefijo(String prefijo)
+		{
+			Lote lote = new Lote();
+			for (Map.Entry<String, byte[]> cambio : cambios.entrySet())
+			{
+				lote.cambios.put(prefijo + cambio.getKey(), cambio.getValue());
+			}
+			return lote;
+		}
+
+	}
+
+	private final File directorio;
+	private final String nombre;
+	private volatile NavigableMap<String, byte[]> memoria;
+	// Del más reciente al más antiguo
+	private volatile List<Segmento> segmentos;
+	private DiarioEscrituras diario;
+	private int aperturas;
+	// Cambios del grupo en curso, que se anotan juntos al acabar, y valores en memoria que tenían antes
+	private Map<String, byte[]> grupo;
+	private Map<String, byte[]> anteriores;
+	private int ultimoSegmento;
+	// Cambia con cada escritura: los recorridos abiertos vuelven a buscar su posición
+	private volatile long version;
+
+	AlmacenLsm(File directorio, String nombre)
+	{
+		if (directorio == null || nombre == null)
+		{
+			throw new NullPointerException("ERROR: El directorio y el nombre del almacén no pueden ser nulos.");
+		}
+		this.directorio = directorio;
+		this.nombre = nombre;
+		memoria = new ConcurrentSkipListMap<>();
+		segmentos = Collections.emptyList();
+	}
+
+	synchronized void abrir() throws IOException
+	{
+		if (diario != null)
+		{
+			aperturas++;
+			return;
+		}
+		Files.createDirectories(directorio.toPath());
+		TreeMap<Integer, File> porNumero = new TreeMap<>(Comparator.reverseOrder());
+		File[] ficheros = directorio.listFiles((carpeta, fichero) -> fichero.startsWith(nombre + "-") && fichero.endsWith(EXTENSION_SEGMENTO));
+		for (File fichero : ficheros == null ? new File[0] : ficheros)
+		{
+			String nombreFichero = fichero.getName();
+			try {
+				porNumero.put(Integer.parseInt(nombreFichero.substring(nombre.length() + 1, nombreFichero.length() - EXTENSION_SEGMENTO.length())),
+						fichero);
+			} catch (NumberFormatException e) {
+				// No es un segmento de este almacén
+			}
+		}
+		List<Segmento> abiertos = new ArrayList<>();
+		int primeroSustituido = Integer.MAX_VALUE;
+		for (Map.Entry<Integer, File> segmento : porNumero.entrySet())
+		{
+			int numero = segmento.getKey();
+			ultimoSegmento = Math.max(ultimoSegmento, numero);
+			// Una compactación interrumpida antes de borrar los segmentos que ya había sustituido
+			if (numero >= primeroSustituido)
+			{
+				Files.deleteIfExists(segmento.getValue().toPath());
+				continue;
+			}
+			Segmento abierto = Segmento.abrir(segmento.getValue(), numero);
+			abiertos.add(abierto);
+			primeroSustituido = Math.min(primeroSustituido, abierto.getPrimeroSustituido());
+		}
+		segmentos = Collections.unmodifiableList(abiertos);
+		NavigableMap<String, byte[]> recuperada = new ConcurrentSkipListMap<>();
+		DiarioEscrituras abierto = new DiarioEscrituras(new File(directorio, nombre + EXTENSION_DIARIO));
+		abierto.reproducir(recuperada::put);
+		memoria = recuperada;
+		diario = abierto;
+		aperturas = 1;
+		version++;
+	}
+
+	/* Vuelca la tabla en memoria a un segmento y cierra el almacén */
+	synchronized void cerrar() throws IOException
+	{
+		if (diario == null || --aperturas > 0)
+		{
+			return;
+		}
+		try {
+			volcar();
+		} finally {
+			diario.cerrar();
+			diario = null;
+			for (Segmento segmento : segmentos)
+			{
+				segmento.cerrar();
+			}
+			segmentos = Collections.emptyList();
+			memoria = new ConcurrentSkipListMap<>();
+			version++;
+		}
+	}
+
+	private void comprobarAbierto()
+	{
+		if (diario == null)
+		{
+			throw new IllegalStateException("ERROR: El almacén de " + nombre + " no está abierto.");
+		}
+	}
+
+	/* Valor de la clave, o null si no está */
+	byte[] get(String clave)
+	{
+		// La tabla en memoria se lee antes que los segmentos: al volcarla, el segmento se publica antes
+		byte[] valor = memoria.get(clave);
+		if (valor == null)
+		{
+			try {
+				for (Segmento segmento : segmentos)
+				{
+					valor = segmento.get(clave);
+					if (valor != null)
+					{
+						break;
+					}
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("ERROR: No se ha podido leer el almacén de " + nombre + ".", e);
+			}
+		}
+		return valor == BORRADO ? null : valor;
+	}
+
+	boolean contiene(String clave)
+	{
+		return get(clave) != null;
+	}
+
+	/*
+	 * Escribe el lote en el diario y después lo aplica en memoria. Es la única forma de modificar
+	 * el almacén, así que cada cambio está en disco antes de que nadie pueda leerlo.
+	 */
+	synchronized void escribir(Lote lote)
+	{
+		comprobarAbierto();
+		if (lote.cambios.isEmpty())
+		{
+			return;
+		}
+		if (grupo != null)
+		{
+			for (Map.Entry<String, byte[]> cambio : lote.cambios.entrySet())
+			{
+				if (!anteriores.containsKey(cambio.getKey()))
+				{
+					anteriores.put(cambio.getKey(), memoria.get(cambio.getKey()));
+				}
+			}
+			grupo.putAll(lote.cambios);
+			memoria.putAll(lote.cambios);
+			version++;
+			return;
+		}
+		try {
+			diario.anotar(lote.cambios);
+			memoria.putAll(lote.cambios);
+			version++;
+			if (memoria.size() >= LIMITE_MEMORIA)
+			{
+				volcar();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("ERROR: No se ha podido escribir en el almacén de " + nombre + ".", e);
+		}
+	}
+
+	/*
+	 * Aplica los cambios como un único lote: lo que escriben se ve enseguida en memoria, pero no se
+	 * anota en el diario hasta que acaban todos. Si alguno falla se deshacen en memoria, y una caída
+	 * a mitad no deja nada en disco. Las demás escrituras esperan a que acabe el grupo.
+	 */
+	synchronized int agrupar(IFuenteDatos.Cambios cambios) throws OperationNotSupportedException
+	{
+		comprobarAbierto();
+		if (grupo != null)
+		{
+			return cambios.aplicar();
+		}
+		grupo = new TreeMap<>();
+		anteriores = new HashMap<>();
+		boolean anotado = false;
+		try {
+			int resultado = cambios.aplicar();
+			if (!grupo.isEmpty())
+			{
+				diario.anotar(grupo);
+			}
+			anotado = true;
+			return resultado;
+		} catch (IOException e) {
+			throw new IllegalStateException("ERROR: No se ha podido escribir en el almacén de " + nombre + ".", e);
+		} finally {
+			if (!anotado)
+			{
+				deshacer();
+			}
+			grupo = null;
+			anteriores = null;
+			if (anotado && memoria.size() >= LIMITE_MEMORIA)
+			{
+				volcarTrasGrupo();
+			}
+		}
+	}
+
+	private void deshacer()
+	{
+		for (Map.Entry<String, byte[]> anterior : anteriores.entrySet())
+		{
+			if (anterior.getValue() == null)
+			{
+				memoria.remove(anterior.getKey());
+			} else {
+				memoria.put(anterior.getKey(), anterior.getValue());
+			}
+		}
+		version++;
+	}
+
+	// El grupo ya está en el diario: si no se puede volcar, se volcará con la siguiente escritura
+	private void volcarTrasGrupo()
+	{
+		try {
+			volcar();
+		} catch (IOException e) {
+			// Los cambios siguen a salvo en el diario
+		}
+	}
+
+	/* Pasa la tabla en memoria a un segmento nuevo; los borrados se guardan para tapar a los anteriores */
+	synchronized void volcar() throws IOException
+	{
+		comprobarAbierto();
+		// Lo que ha escrito un grupo en curso todavía no está en el diario
+		if (memoria.isEmpty() || grupo != null)
+		{
+			return;
+		}
+		ultimoSegmento++;
+		Segmento volcado = Segmento.escribir(fichero(ultimoSegmento), ultimoSegmento, ultimoSegmento, memoria.entrySet().iterator());
+		List<Segmento> nuevos = new ArrayList<>(segmentos.size() + 1);
+		nuevos.add(volcado);
+		nuevos.addAll(segmentos);
+		segmentos = Collections.unmodifiableList(nuevos);
+		memoria = new ConcurrentSkipListMap<>();
+		version++;
+		// Si se cae aquí, el diario se reproduce sobre el segmento: vuelve a escribir lo mismo
+		diario.vaciar();
+		if (segmentos.size() > MAXIMO_SEGMENTOS)
+		{
+			compactar();
+		}
+	}
+
+	/* Une todos los segmentos en uno que sustituye desde el más antiguo y ya no lleva borrados */
+	private void compactar() throws IOException
+	{
+		List<Segmento> antiguos = segmentos;
+		List<Iterator<Map.Entry<String, byte[]>>> recorridos = new ArrayList<>(antiguos.size());
+		for (Segmento segmento : antiguos)
+		{
+			recorridos.add(segmento.recorrer("", null));
+		}
+		ultimoSegmento++;
+		Segmento compactado = Segmento.escribir(fichero(ultimoSegmento), ultimoSegmento,
+				antiguos.get(antiguos.size() - 1).getPrimeroSustituido(), new Mezcla(recorridos));
+		segmentos = Collections.singletonList(compactado);
+		version++;
+		for (Segmento segmento : antiguos)
+		{
+			segmento.borrar();
+		}
+	}
+
+	private File fichero(int numero)
+	{
+		return new File(directorio, String.format("%s-%06d%s", nombre, numero, EXTENSION_SEGMENTO));
+	}
+
+	private Mezcla mezclar(String desde, String hasta)
+	{
+		NavigableMap<String, byte[]> enMemoria = memoria;
+		List<Segmento> enDisco = segmentos;
+		List<Iterator<Map.Entry<String, byte[]>>> recorridos = new ArrayList<>(enDisco.size() + 1);
+		recorridos.add((hasta == null ? enMemoria.tailMap(desde, true) : enMemoria.subMap(desde, true, hasta, false)).entrySet().iterator());
+		for (Segmento segmento : enDisco)
+		{
+			recorridos.add(segmento.recorrer(desde, hasta));
+		}
+		return new Mezcla(recorridos);
+	}
+
+	/*
+	 * Entradas con clave en [desde, hasta), en orden. Como el recorrido de las colecciones en
+	 * memoria, no guarda nada más que la última clave devuelta: si el almacén cambia entre dos
+	 * pasos, vuelve a buscar a partir de ella y ve los cambios posteriores.
+	 */
+	Iterator<Map.Entry<String, byte[]>> recorrer(String desde, String hasta)
+	{
+		return new Iterator<Map.Entry<String, byte[]>>() {
+
+			private Mezcla mezcla;
+			private long versionLeida;
+			private String ultima;
+
+			@Override
+			public boolean hasNext()
+			{
+				long versionActual = version;
+				if (mezcla == null || versionLeida != versionActual)
+				{
+					mezcla = mezclar(ultima == null ? desde : siguiente(ultima), hasta);
+					versionLeida = versionActual;
+				}
+				return mezcla.hasNext();
+			}
+
+			@Override
+			public Map.Entry<String, byte[]> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				Map.Entry<String, byte[]> entrada = mezcla.next();
+				ultima = entrada.getKey();
+				return entrada;
+			}
+
+		};
+	}
+
+	static <T> List<T> valores(Iterator<Map.Entry<String, byte[]>> entradas, Function<byte[], T> leer)
+	{
+		List<T> valores = new ArrayList<>();
+		while (entradas.hasNext())
+		{
+			valores.add(leer.apply(entradas.next().getValue()));
+		}
+		return valores;
+	}
+
+	/* El recorrido no busca nada hasta que se empieza a consumir el flujo */
+	static <T> Stream<T> flujo(Iterator<Map.Entry<String, byte[]>> entradas, Function<byte[], T> leer)
+	{
+		Iterator<T> valores = new Iterator<T>() {
+
+			@Override
+			public boolean hasNext()
+			{
+				return entradas.hasNext();
+			}
+
+			@Override
+			public T next()
+			{
+				return leer.apply(entradas.next().getValue());
+			}
+
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(valores, Spliterator.ORDERED | Spliterator.DISTINCT
+				| Spliterator.NONNULL), false);
+	}
+
+	static <T> Pagina<T> pagina(Iterator<Map.Entry<String, byte[]>> entradas, int tamano, Function<byte[], T> leer)
+	{
+		List<T> elementos = new ArrayList<>();
+		while (entradas.hasNext())
+		{
+			if (elementos.size() == tamano)
+			{
+				return new Pagina<>(elementos, true);
+			}
+			elementos.add(leer.apply(entradas.next().getValue()));
+		}
+		return new Pagina<>(elementos, false);
+	}
+
+	/* Claves con el prefijo dado seguido del separador, es decir, las que descienden de él */
+	Iterator<Map.Entry<String, byte[]>> recorrerPrefijo(String prefijo)
+	{
+		return recorrer(siguiente(prefijo), finPrefijo(prefijo));
+	}
+
+	/* La menor clave mayor que la dada: un recorrido que empieza en ella sigue justo detrás */
+	static String siguiente(String clave)
+	{
+		return clave + MINIMO;
+	}
+
+	/* La menor clave mayor que todas las que descienden del prefijo */
+	static String finPrefijo(String prefijo)
+	{
+		return prefijo + (char) (MINIMO + 1);
+	}
+
+	static String mayor(String clave1, String clave2)
+	{
+		return clave1.compareTo(clave2) >= 0 ? clave1 : clave2;
+	}
+
+}
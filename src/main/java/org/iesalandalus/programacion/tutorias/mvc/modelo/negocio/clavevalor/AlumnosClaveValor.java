@@ -0,0 +1,204 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.SecuenciaExpedientes;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+
+/*
+ * Cada alumno se guarda por su correo y, para buscarlo por expediente, también por este. El
+ * mayor número de expediente guardado se escribe con cada alumno, así que al comenzar no hace
+ * falta recorrerlos para que la secuencia siga a partir de él.
+ */
+public class AlumnosClaveValor implements IAlumnos {
+
+	private final EspacioClaves almacen;
+	private volatile int tamano;
+	private int mayorNumero;
+
+	public AlumnosClaveValor(File directorio)
+	{
+		this(new EspacioClaves(new AlmacenLsm(directorio, "alumnos"), ""));
+	}
+
+	AlumnosClaveValor(EspacioClaves almacen)
+	{
+		this.almacen = almacen;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		try {
+			almacen.abrir();
+			releer();
+			SecuenciaExpedientes.avanzarHasta(mayorNumero);
+			System.out.println("Almacén de alumnos abierto satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("No puedo abrir el almacén de alumnos.");
+		}
+	}
+
+	void releer()
+	{
+		tamano = CodificacionClaveValor.leerEntero(almacen.get(CodificacionClaveValor.TAMANO));
+		mayorNumero = CodificacionClaveValor.leerEntero(almacen.get(CodificacionClaveValor.MAYOR_EXPEDIENTE));
+	}
+
+	@Override
+	public void terminar()
+	{
+		try {
+			almacen.cerrar();
+			System.out.println("Almacén de alumnos cerrado satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	// Cada cambio ya está en el diario del almacén: guardar solo lo pasa a un segmento
+	@Override
+	public void guardar() throws IOException
+	{
+		almacen.volcar();
+	}
+
+	private static String clave(Alumno alumno)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(alumno));
+	}
+
+	private static String clavePorExpediente(String expediente)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.POR_EXPEDIENTE, expediente);
+	}
+
+	@Override
+	public List<Alumno> get()
+	{
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerAlumno);
+	}
+
+	@Override
+	public List<Alumno> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public Stream<Alumno> stream()
+	{
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerAlumno);
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return tamano;
+	}
+
+	@Override
+	public void insertar(Alumno alumno) throws OperationNotSupportedException
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+		}
+		if (almacen.contiene(clave(alumno)))
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe un alumno con ese expediente.");
+		}
+		escribir(Collections.singletonList(alumno));
+	}
+
+	@Override
+	public void insertarTodos(Collection<Alumno> alumnos) throws OperationNotSupportedException
+	{
+		if (alumnos == null)
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar alumnos nulos.");
+		}
+		// Se comprueba todo antes de escribir el lote: o entran todos o no entra ninguno
+		Set<String> correos = new HashSet<>(alumnos.size() * 4 / 3 + 1);
+		for (Alumno alumno : alumnos)
+		{
+			if (alumno == null)
+			{
+				throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+			}
+			if (!correos.add(alumno.getCorreo()) || almacen.contiene(clave(alumno)))
+			{
+				throw new OperationNotSupportedException("ERROR: Ya existe un alumno con ese expediente.");
+			}
+		}
+		escribir(alumnos);
+	}
+
+	private void escribir(Collection<Alumno> alumnos)
+	{
+		AlmacenLsm.Lote lote = new AlmacenLsm.Lote();
+		int nuevoMayor = mayorNumero;
+		for (Alumno alumno : alumnos)
+		{
+			byte[] valor = CodificacionClaveValor.codificar(alumno);
+			lote.poner(clave(alumno), valor).poner(clavePorExpediente(alumno.getExpediente()), valor);
+			nuevoMayor = Math.max(nuevoMayor, SecuenciaExpedientes.numero(alumno.getExpediente()));
+		}
+		almacen.escribir(lote.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano + alumnos.size()))
+				.poner(CodificacionClaveValor.MAYOR_EXPEDIENTE, CodificacionClaveValor.codificar(nuevoMayor)));
+		tamano += alumnos.size();
+		mayorNumero = nuevoMayor;
+		// Un alumno restaurado (por ejemplo, desde el registro de operaciones) trae su propio número
+		SecuenciaExpedientes.reconocer(nuevoMayor);
+	}
+
+	@Override
+	public Alumno buscar(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un alumno nulo.");
+		}
+		byte[] encontrado = almacen.get(clave(alumno));
+		return encontrado == null ? null : CodificacionClaveValor.leerAlumno(encontrado);
+	}
+
+	@Override
+	public Alumno buscarPorExpediente(String expediente)
+	{
+		if (expediente == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un alumno con expediente nulo.");
+		}
+		byte[] encontrado = almacen.get(clavePorExpediente(expediente));
+		return encontrado == null ? null : CodificacionClaveValor.leerAlumno(encontrado);
+	}
+
+	@Override
+	public void borrar(Alumno alumno) throws OperationNotSupportedException
+	{
+		if (alumno == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar un alumno nulo.");
+		}
+		Alumno borrado = buscar(alumno);
+		if (borrado == null)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ningún alumno con ese expediente.");
+		}
+		almacen.escribir(new AlmacenLsm.Lote().borrar(clave(borrado)).borrar(clavePorExpediente(borrado.getExpediente()))
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - 1)));
+		tamano--;
+	}
+
+}
@@ -0,0 +1,338 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.HuecosSesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Cada cita se guarda tres veces en el mismo lote: por su clave natural, precedida de su fecha
+ * (OrdenNatural.CITAS_POR_FECHA) y precedida del correo de su alumno. La clave natural acaba en
+ * la hora, así que las horas ocupadas de una sesión son las claves que empiezan por la suya.
+ */
+public class CitasClaveValor implements ICitas {
+
+	private final EspacioClaves almacen;
+	private volatile int tamano;
+
+	public CitasClaveValor(File directorio)
+	{
+		this(new EspacioClaves(new AlmacenLsm(directorio, "citas"), ""));
+	}
+
+	CitasClaveValor(EspacioClaves almacen)
+	{
+		this.almacen = almacen;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		try {
+			almacen.abrir();
+			releer();
+			System.out.println("Almacén de citas abierto satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("No puedo abrir el almacén de citas.");
+		}
+	}
+
+	void releer()
+	{
+		tamano = CodificacionClaveValor.leerEntero(almacen.get(CodificacionClaveValor.TAMANO));
+	}
+
+	@Override
+	public void terminar()
+	{
+		try {
+			almacen.cerrar();
+			System.out.println("Almacén de citas cerrado satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	// Cada cambio ya está en el diario del almacén: guardar solo lo pasa a un segmento
+	@Override
+	public void guardar() throws IOException
+	{
+		almacen.volcar();
+	}
+
+	/* Cada cita se guarda con su sesión y su alumno, así que no hay nada que enlazar */
+	@Override
+	public int enlazar(List<Alumno> alumnos, List<Sesion> sesiones)
+	{
+		return 0;
+	}
+
+	private static String clave(Cita cita)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(cita));
+	}
+
+	private static String clavePorFecha(Cita cita)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.POR_FECHA, CodificacionClaveValor.campo(cita.getSesion().getFecha()),
+				CodificacionClaveValor.campo(cita));
+	}
+
+	private static String clavePorAlumno(Cita cita)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.POR_ALUMNO, CodificacionClaveValor.campo(cita.getAlumno()),
+				CodificacionClaveValor.campo(cita));
+	}
+
+	private static String prefijo(Sesion sesion)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(sesion));
+	}
+
+	private static String prefijo(Alumno alumno)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.POR_ALUMNO, CodificacionClaveValor.campo(alumno));
+	}
+
+	@Override
+	public List<Cita> get()
+	{
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public List<Cita> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public List<Cita> get(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(prefijo(sesion)), CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public List<Cita> get(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(prefijo(alumno)), CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public Pagina<Cita> get(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano)
+	{
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		String inicio = CodificacionClaveValor.clave(CodificacionClaveValor.POR_FECHA, CodificacionClaveValor.campo(desde));
+		if (despuesDe != null)
+		{
+			inicio = AlmacenLsm.mayor(inicio, AlmacenLsm.siguiente(clavePorFecha(despuesDe)));
+		}
+		String fin = AlmacenLsm.finPrefijo(CodificacionClaveValor.clave(CodificacionClaveValor.POR_FECHA, CodificacionClaveValor.campo(hasta)));
+		return AlmacenLsm.pagina(almacen.recorrer(inicio, fin), tamano, CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public Stream<Cita> stream()
+	{
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public Stream<Cita> stream(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(prefijo(sesion)), CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public Stream<Cita> stream(Alumno alumno)
+	{
+		if (alumno == null)
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(prefijo(alumno)), CodificacionClaveValor::leerCita);
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return tamano;
+	}
+
+	@Override
+	public boolean estaLibre(Sesion sesion, LocalTime hora)
+	{
+		return getHuecos(sesion).estaLibre(hora);
+	}
+
+	@Override
+	public LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde)
+	{
+		return getHuecos(sesion).getSiguienteLibre(desde);
+	}
+
+	@Override
+	public List<LocalTime> getHorasLibres(Sesion sesion, int cuantas)
+	{
+		return getHuecos(sesion).getLibres(cuantas);
+	}
+
+	private HuecosSesion getHuecos(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		HuecosSesion huecos = new HuecosSesion(sesion);
+		for (Cita cita : get(sesion))
+		{
+			huecos.reservar(cita.getHora());
+		}
+		return huecos;
+	}
+
+	private static AlmacenLsm.Lote poner(AlmacenLsm.Lote lote, Cita cita)
+	{
+		byte[] valor = CodificacionClaveValor.codificar(cita);
+		return lote.poner(clave(cita), valor).poner(clavePorFecha(cita), valor).poner(clavePorAlumno(cita), valor);
+	}
+
+	private static AlmacenLsm.Lote borrar(AlmacenLsm.Lote lote, Cita cita)
+	{
+		return lote.borrar(clave(cita)).borrar(clavePorFecha(cita)).borrar(clavePorAlumno(cita));
+	}
+
+	@Override
+	public void insertar(Cita cita) throws OperationNotSupportedException
+	{
+		if (cita == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+		}
+		if (!estaLibre(cita.getSesion(), cita.getHora()))
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe una cita con esa hora.");
+		}
+		almacen.escribir(poner(new AlmacenLsm.Lote(), cita).poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano + 1)));
+		tamano++;
+	}
+
+	@Override
+	public void insertarTodas(Collection<Cita> citas) throws OperationNotSupportedException
+	{
+		if (citas == null)
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar citas nulas.");
+		}
+		// Se comprueba todo antes de escribir el lote: o entran todas o no entra ninguna
+		Map<Sesion, HuecosSesion> huecos = new HashMap<>();
+		AlmacenLsm.Lote lote = new AlmacenLsm.Lote();
+		for (Cita cita : citas)
+		{
+			if (cita == null)
+			{
+				throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+			}
+			if (!huecos.computeIfAbsent(cita.getSesion(), this::getHuecos).reservar(cita.getHora()))
+			{
+				throw new OperationNotSupportedException("ERROR: Ya existe una cita con esa hora.");
+			}
+			poner(lote, cita);
+		}
+		almacen.escribir(lote.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano + citas.size())));
+		tamano += citas.size();
+	}
+
+	// La clave natural no incluye al alumno: la cita guardada solo vale si también coincide
+	private Cita guardada(Cita cita)
+	{
+		byte[] valor = almacen.get(clave(cita));
+		if (valor == null)
+		{
+			return null;
+		}
+		Cita encontrada = CodificacionClaveValor.leerCita(valor);
+		return encontrada.equals(cita) ? encontrada : null;
+	}
+
+	@Override
+	public Cita buscar(Cita cita)
+	{
+		if (cita == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una cita nula.");
+		}
+		return guardada(cita);
+	}
+
+	@Override
+	public void borrar(Cita cita) throws OperationNotSupportedException
+	{
+		if (cita == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una cita nula.");
+		}
+		if (guardada(cita) == null)
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna cita con esa hora.");
+		}
+		almacen.escribir(borrar(new AlmacenLsm.Lote(), cita).poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - 1)));
+		tamano--;
+	}
+
+	@Override
+	public int borrarTodas(Sesion sesion)
+	{
+		return borrarTodas(get(sesion));
+	}
+
+	@Override
+	public int borrarTodas(Alumno alumno)
+	{
+		return borrarTodas(get(alumno));
+	}
+
+	private int borrarTodas(List<Cita> borradas)
+	{
+		if (!borradas.isEmpty())
+		{
+			AlmacenLsm.Lote lote = new AlmacenLsm.Lote();
+			for (Cita cita : borradas)
+			{
+				borrar(lote, cita);
+			}
+			almacen.escribir(lote.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - borradas.size())));
+			tamano -= borradas.size();
+		}
+		return borradas.size();
+	}
+
+}
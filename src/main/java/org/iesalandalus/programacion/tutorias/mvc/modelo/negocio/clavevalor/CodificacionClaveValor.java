@@ -0,0 +1,255 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+
+/*
+ * Claves y valores de las entidades en el almacén. La clave de cada entidad es la de su padre
+ * seguida de su propio campo (correo, DNI, nombre, fecha y hora), separados por un carácter
+ * menor que cualquier otro: el orden de las claves es el de OrdenNatural y las entidades de un
+ * mismo padre quedan seguidas. Cada clave va precedida del espacio al que pertenece, para que un
+ * almacén guarde junto a las entidades sus índices por fecha, por alumno o por expediente.
+ *
+ * El valor guarda la entidad completa con sus padres, así que leer una entidad es leer una clave.
+ */
+final class CodificacionClaveValor {
+
+	static final char SEPARADOR = AlmacenLsm.MINIMO;
+
+	// Espacios de claves
+	static final String NATURAL = "n";
+	static final String POR_FECHA = "f";
+	static final String POR_ALUMNO = "a";
+	static final String POR_EXPEDIENTE = "e";
+	// Contadores que se escriben en el mismo lote que el cambio que los modifica
+	static final String TAMANO = "t";
+	static final String MAYOR_EXPEDIENTE = "x";
+
+	private interface Escritura {
+		void escribir(DataOutputStream salida) throws IOException;
+	}
+
+	private CodificacionClaveValor()
+	{
+	}
+
+	static String clave(String espacio, String... campos)
+	{
+		StringBuilder clave = new StringBuilder(espacio);
+		for (String campo : campos)
+		{
+			clave.append(SEPARADOR).append(campo);
+		}
+		return clave.toString();
+	}
+
+	static String campo(Profesor profesor)
+	{
+		return profesor.getDni();
+	}
+
+	static String campo(Alumno alumno)
+	{
+		return alumno.getCorreo();
+	}
+
+	static String campo(Tutoria tutoria)
+	{
+		return campo(tutoria.getProfesor()) + SEPARADOR + tutoria.getNombre();
+	}
+
+	static String campo(Sesion sesion)
+	{
+		return campo(sesion.getTutoria()) + SEPARADOR + campo(sesion.getFecha());
+	}
+
+	static String campo(Cita cita)
+	{
+		return campo(cita.getSesion()) + SEPARADOR + cita.getHora().format(DateTimeFormatter.ISO_LOCAL_TIME);
+	}
+
+	// En formato ISO las fechas se ordenan igual como texto que como fechas
+	static String campo(LocalDate fecha)
+	{
+		return fecha.format(DateTimeFormatter.ISO_LOCAL_DATE);
+	}
+
+	private static byte[] codificar(Escritura escritura)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream salida = new DataOutputStream(bytes)) {
+			escritura.escribir(salida);
+		} catch (IOException e) {
+			// Escribir en memoria no falla
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static DataInputStream entrada(byte[] valor)
+	{
+		return new DataInputStream(new ByteArrayInputStream(valor));
+	}
+
+	private static IllegalStateException corrupto(IOException e)
+	{
+		return new IllegalStateException("ERROR: El almacén contiene un valor que no se puede leer.", e);
+	}
+
+	static byte[] codificar(int numero)
+	{
+		return ByteBuffer.allocate(Integer.BYTES).putInt(numero).array();
+	}
+
+	static int leerEntero(byte[] valor)
+	{
+		return valor == null ? 0 : ByteBuffer.wrap(valor).getInt();
+	}
+
+	static byte[] codificar(Profesor profesor)
+	{
+		return codificar(salida -> escribir(salida, profesor));
+	}
+
+	static byte[] codificar(Alumno alumno)
+	{
+		return codificar(salida -> escribir(salida, alumno));
+	}
+
+	static byte[] codificar(Tutoria tutoria)
+	{
+		return codificar(salida -> escribir(salida, tutoria));
+	}
+
+	static byte[] codificar(Sesion sesion)
+	{
+		return codificar(salida -> escribir(salida, sesion));
+	}
+
+	static byte[] codificar(Cita cita)
+	{
+		return codificar(salida -> {
+			escribir(salida, cita.getSesion());
+			escribir(salida, cita.getAlumno());
+			salida.writeLong(cita.getHora().toNanoOfDay());
+		});
+	}
+
+	private static void escribir(DataOutputStream salida, Profesor profesor) throws IOException
+	{
+		salida.writeUTF(profesor.getNombre());
+		salida.writeUTF(profesor.getDni());
+		salida.writeUTF(profesor.getCorreo());
+	}
+
+	private static void escribir(DataOutputStream salida, Alumno alumno) throws IOException
+	{
+		salida.writeUTF(alumno.getNombre());
+		salida.writeUTF(alumno.getCorreo());
+		salida.writeUTF(alumno.getExpediente());
+	}
+
+	private static void escribir(DataOutputStream salida, Tutoria tutoria) throws IOException
+	{
+		escribir(salida, tutoria.getProfesor());
+		salida.writeUTF(tutoria.getNombre());
+	}
+
+	private static void escribir(DataOutputStream salida, Sesion sesion) throws IOException
+	{
+		escribir(salida, sesion.getTutoria());
+		salida.writeLong(sesion.getFecha().toEpochDay());
+		salida.writeLong(sesion.getHoraInicio().toNanoOfDay());
+		salida.writeLong(sesion.getHoraFin().toNanoOfDay());
+		salida.writeInt(sesion.getMinutosDuracion());
+	}
+
+	static Profesor leerProfesor(byte[] valor)
+	{
+		try {
+			return leerProfesor(entrada(valor));
+		} catch (IOException e) {
+			throw corrupto(e);
+		}
+	}
+
+	static Alumno leerAlumno(byte[] valor)
+	{
+		try {
+			return leerAlumno(entrada(valor));
+		} catch (IOException e) {
+			throw corrupto(e);
+		}
+	}
+
+	static Tutoria leerTutoria(byte[] valor)
+	{
+		try {
+			return leerTutoria(entrada(valor));
+		} catch (IOException e) {
+			throw corrupto(e);
+		}
+	}
+
+	static Sesion leerSesion(byte[] valor)
+	{
+		try {
+			return leerSesion(entrada(valor));
+		} catch (IOException e) {
+			throw corrupto(e);
+		}
+	}
+
+	static Cita leerCita(byte[] valor)
+	{
+		try {
+			DataInputStream entrada = entrada(valor);
+			Sesion sesion = leerSesion(entrada);
+			Alumno alumno = leerAlumno(entrada);
+			return Cita.restaurar(alumno, sesion, LocalTime.ofNanoOfDay(entrada.readLong()));
+		} catch (IOException e) {
+			throw corrupto(e);
+		}
+	}
+
+	private static Profesor leerProfesor(DataInputStream entrada) throws IOException
+	{
+		return Profesor.restaurar(entrada.readUTF(), entrada.readUTF(), entrada.readUTF());
+	}
+
+	private static Alumno leerAlumno(DataInputStream entrada) throws IOException
+	{
+		return Alumno.restaurar(entrada.readUTF(), entrada.readUTF(), entrada.readUTF());
+	}
+
+	private static Tutoria leerTutoria(DataInputStream entrada) throws IOException
+	{
+		return Tutoria.restaurar(leerProfesor(entrada), entrada.readUTF());
+	}
+
+	private static Sesion leerSesion(DataInputStream entrada) throws IOException
+	{
+		Tutoria tutoria = leerTutoria(entrada);
+		try {
+			return Sesion.restaurar(tutoria, LocalDate.ofEpochDay(entrada.readLong()), LocalTime.ofNanoOfDay(entrada.readLong()),
+					LocalTime.ofNanoOfDay(entrada.readLong()), entrada.readInt());
+		} catch (DateTimeException | IllegalArgumentException e) {
+			throw new IOException("ERROR: El valor contiene una sesión no válida.", e);
+		}
+	}
+
+}
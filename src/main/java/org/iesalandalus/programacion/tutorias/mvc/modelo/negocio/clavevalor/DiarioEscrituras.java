@@ -0,0 +1,124 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/*
+ * Diario de escritura anticipada del almacén: cada lote de cambios se añade al final del fichero
+ * y se fuerza a disco antes de aplicarse en memoria, así que un cambio confirmado sobrevive a una
+ * caída aunque la tabla en memoria no se haya volcado todavía a un segmento. Cada lote lleva su
+ * longitud y una suma de control: al reproducirlo se descarta el último si quedó a medio escribir.
+ */
+final class DiarioEscrituras {
+
+	private final File fichero;
+	private FileOutputStream salida;
+
+	DiarioEscrituras(File fichero)
+	{
+		this.fichero = fichero;
+	}
+
+	/* Aplica los lotes completos del diario, en orden, y lo deja abierto para añadir los siguientes */
+	void reproducir(BiConsumer<String, byte[]> aplicar) throws IOException
+	{
+		long validos = 0;
+		long tamanoFichero = fichero.length();
+		try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(new FileInputStream(fichero)))) {
+			while (true)
+			{
+				byte[] lote;
+				try {
+					int longitud = entrada.readInt();
+					// Una longitud imposible es la de un lote que no llegó a escribirse entero
+					if (longitud < 0 || longitud > tamanoFichero - validos - Integer.BYTES - Long.BYTES)
+					{
+						break;
+					}
+					lote = new byte[longitud];
+					entrada.readFully(lote);
+					if (entrada.readLong() != sumaControl(lote))
+					{
+						break;
+					}
+				} catch (EOFException e) {
+					break;
+				}
+				DataInputStream cambios = new DataInputStream(new ByteArrayInputStream(lote));
+				while (cambios.available() > 0)
+				{
+					Map.Entry<String, byte[]> cambio = Segmento.leerEntrada(cambios);
+					aplicar.accept(cambio.getKey(), cambio.getValue());
+				}
+				validos += Integer.BYTES + lote.length + Long.BYTES;
+			}
+		} catch (FileNotFoundException e) {
+			// Sin diario no hay cambios pendientes
+		}
+		// Lo que sigue al último lote completo es basura de una escritura interrumpida
+		if (fichero.exists() && fichero.length() > validos)
+		{
+			try (RandomAccessFile truncar = new RandomAccessFile(fichero, "rw")) {
+				truncar.setLength(validos);
+			}
+		}
+		salida = new FileOutputStream(fichero, true);
+	}
+
+	void anotar(Map<String, byte[]> cambios) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream lote = new DataOutputStream(bytes);
+		for (Map.Entry<String, byte[]> cambio : cambios.entrySet())
+		{
+			Segmento.escribirEntrada(lote, cambio.getKey(), cambio.getValue());
+		}
+		byte[] contenido = bytes.toByteArray();
+		ByteArrayOutputStream registro = new ByteArrayOutputStream(contenido.length + Integer.BYTES + Long.BYTES);
+		DataOutputStream escritura = new DataOutputStream(registro);
+		escritura.writeInt(contenido.length);
+		escritura.write(contenido);
+		escritura.writeLong(sumaControl(contenido));
+		// Una sola escritura por lote: o llega entero al fichero o la suma de control lo descarta
+		salida.write(registro.toByteArray());
+		salida.getFD().sync();
+	}
+
+	/* Vacía el diario cuando todo lo que contenía ya está en un segmento */
+	void vaciar() throws IOException
+	{
+		salida.close();
+		salida = new FileOutputStream(fichero, false);
+		salida.getFD().sync();
+	}
+
+	void cerrar() throws IOException
+	{
+		if (salida != null)
+		{
+			salida.close();
+			salida = null;
+		}
+	}
+
+	private static long sumaControl(byte[] contenido)
+	{
+		CRC32 suma = new CRC32();
+		suma.update(contenido, 0, contenido.length);
+		return suma.getValue();
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * Parte de un almacén que puede compartirse entre colecciones: las claves de cada una van
+ * precedidas del nombre de su espacio, así que cada colección solo ve las suyas. Al compartir el
+ * almacén, los cambios de varias colecciones pueden escribirse en un mismo lote del diario.
+ */
+final class EspacioClaves {
+
+	private final AlmacenLsm almacen;
+	private final String prefijo;
+	private final String fin;
+
+	/* Un espacio sin nombre es el almacén entero */
+	EspacioClaves(AlmacenLsm almacen, String espacio)
+	{
+		if (almacen == null || espacio == null)
+		{
+			throw new NullPointerException("ERROR: El almacén y el espacio de claves no pueden ser nulos.");
+		}
+		this.almacen = almacen;
+		prefijo = espacio.isEmpty() ? "" : CodificacionClaveValor.clave(espacio, "");
+		fin = espacio.isEmpty() ? null : AlmacenLsm.finPrefijo(espacio);
+	}
+
+	void abrir() throws IOException
+	{
+		almacen.abrir();
+	}
+
+	void cerrar() throws IOException
+	{
+		almacen.cerrar();
+	}
+
+	void volcar() throws IOException
+	{
+		almacen.volcar();
+	}
+
+	byte[] get(String clave)
+	{
+		return almacen.get(prefijo + clave);
+	}
+
+	boolean contiene(String clave)
+	{
+		return almacen.contiene(prefijo + clave);
+	}
+
+	void escribir(AlmacenLsm.Lote lote)
+	{
+		almacen.escribir(prefijo.isEmpty() ? lote : lote.conPrefijo(prefijo));
+	}
+
+	Iterator<Map.Entry<String, byte[]>> recorrer(String desde, String hasta)
+	{
+		return almacen.recorrer(prefijo + desde, hasta == null ? fin : prefijo + hasta);
+	}
+
+	Iterator<Map.Entry<String, byte[]>> recorrerPrefijo(String prefijoClaves)
+	{
+		return almacen.recorrerPrefijo(prefijo + prefijoClaves);
+	}
+
+}
@@ -0,0 +1,105 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+
+/*
+ * Las colecciones comparten un almacén clave-valor ordenado, cada una en su espacio de claves:
+ * cada cambio se fuerza a disco al hacerlo, en lugar de escribirse todo al terminar. Al compartir
+ * el diario, un borrado en cascada se anota como un único lote en todas las colecciones.
+ */
+public class FactoriaFuenteDatosClaveValor implements IFuenteDatos {
+
+	private static final String DIRECTORIO_ALMACENES = "datos/clavevalor";
+	private static final String NOMBRE_ALMACEN = "datos";
+
+	private final AlmacenLsm almacen;
+	// Contadores que cada colección guarda en memoria: se releen si se deshace un grupo de cambios
+	private final List<Runnable> contadores = new ArrayList<>();
+
+	public FactoriaFuenteDatosClaveValor()
+	{
+		this(new File(DIRECTORIO_ALMACENES));
+	}
+
+	public FactoriaFuenteDatosClaveValor(File directorio)
+	{
+		if (directorio == null)
+		{
+			throw new NullPointerException("ERROR: El directorio de los almacenes no puede ser nulo.");
+		}
+		almacen = new AlmacenLsm(directorio, NOMBRE_ALMACEN);
+	}
+
+	@Override
+	public IAlumnos crearAlumnos() 
+	{
+		AlumnosClaveValor alumnos = new AlumnosClaveValor(new EspacioClaves(almacen, "alumnos"));
+		contadores.add(alumnos::releer);
+		return alumnos;
+	}
+
+
+	@Override
+	public IProfesores crearProfesores() 
+	{
+		ProfesoresClaveValor profesores = new ProfesoresClaveValor(new EspacioClaves(almacen, "profesores"));
+		contadores.add(profesores::releer);
+		return profesores;
+	}
+
+
+	@Override
+	public ITutorias crearTutorias() 
+	{
+		TutoriasClaveValor tutorias = new TutoriasClaveValor(new EspacioClaves(almacen, "tutorias"));
+		contadores.add(tutorias::releer);
+		return tutorias;
+	}
+
+
+	@Override
+	public ISesiones crearSesiones() 
+	{
+		SesionesClaveValor sesiones = new SesionesClaveValor(new EspacioClaves(almacen, "sesiones"));
+		contadores.add(sesiones::releer);
+		return sesiones;
+	}
+
+
+	@Override
+	public ICitas crearCitas() 
+	{
+		CitasClaveValor citas = new CitasClaveValor(new EspacioClaves(almacen, "citas"));
+		contadores.add(citas::releer);
+		return citas;
+	}
+
+
+	@Override
+	public int aplicarJuntos(Cambios cambios) throws OperationNotSupportedException 
+	{
+		boolean aplicados = false;
+		try {
+			int resultado = almacen.agrupar(cambios);
+			aplicados = true;
+			return resultado;
+		} finally {
+			if (!aplicados)
+			{
+				contadores.forEach(Runnable::run);
+			}
+		}
+	}
+	
+}
\ No newline at end of file
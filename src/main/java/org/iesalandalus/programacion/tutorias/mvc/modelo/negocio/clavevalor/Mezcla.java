@@ -0,0 +1,85 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/*
+ * Une varios recorridos ordenados por clave en uno solo. Las fuentes llegan de la más reciente a
+ * la más antigua: de cada clave solo se devuelve la versión más reciente, y nada si es un borrado.
+ */
+final class Mezcla implements Iterator<Map.Entry<String, byte[]>> {
+
+	private static final class Fuente {
+
+		private final Iterator<Map.Entry<String, byte[]>> entradas;
+		private final int antiguedad;
+		private Map.Entry<String, byte[]> actual;
+
+		private Fuente(Iterator<Map.Entry<String, byte[]>> entradas, int antiguedad)
+		{
+			this.entradas = entradas;
+			this.antiguedad = antiguedad;
+		}
+
+	}
+
+	private final PriorityQueue<Fuente> fuentes;
+	private Map.Entry<String, byte[]> siguiente;
+
+	Mezcla(List<Iterator<Map.Entry<String, byte[]>>> recorridos)
+	{
+		fuentes = new PriorityQueue<>(Math.max(1, recorridos.size()),
+				Comparator.comparing((Fuente fuente) -> fuente.actual.getKey()).thenComparingInt(fuente -> fuente.antiguedad));
+		for (int i = 0; i < recorridos.size(); i++)
+		{
+			avanzar(new Fuente(recorridos.get(i), i));
+		}
+	}
+
+	private void avanzar(Fuente fuente)
+	{
+		if (fuente.entradas.hasNext())
+		{
+			fuente.actual = fuente.entradas.next();
+			fuentes.add(fuente);
+		}
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		while (siguiente == null && !fuentes.isEmpty())
+		{
+			Fuente masReciente = fuentes.poll();
+			Map.Entry<String, byte[]> entrada = masReciente.actual;
+			avanzar(masReciente);
+			// Las versiones anteriores de la misma clave quedan tapadas
+			while (!fuentes.isEmpty() && fuentes.peek().actual.getKey().equals(entrada.getKey()))
+			{
+				avanzar(fuentes.poll());
+			}
+			if (entrada.getValue() != AlmacenLsm.BORRADO)
+			{
+				siguiente = entrada;
+			}
+		}
+		return siguiente != null;
+	}
+
+	@Override
+	public Map.Entry<String, byte[]> next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		Map.Entry<String, byte[]> entrada = siguiente;
+		siguiente = null;
+		return entrada;
+	}
+
+}
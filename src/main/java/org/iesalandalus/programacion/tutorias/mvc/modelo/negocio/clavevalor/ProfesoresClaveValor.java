@@ -0,0 +1,136 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+
+public class ProfesoresClaveValor implements IProfesores {
+
+	private final EspacioClaves almacen;
+	private volatile int tamano;
+
+	public ProfesoresClaveValor(File directorio)
+	{
+		this(new EspacioClaves(new AlmacenLsm(directorio, "profesores"), ""));
+	}
+
+	ProfesoresClaveValor(EspacioClaves almacen)
+	{
+		this.almacen = almacen;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		try {
+			almacen.abrir();
+			releer();
+			System.out.println("Almacén de profesores abierto satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("No puedo abrir el almacén de profesores.");
+		}
+	}
+
+	void releer()
+	{
+		tamano = CodificacionClaveValor.leerEntero(almacen.get(CodificacionClaveValor.TAMANO));
+	}
+
+	@Override
+	public void terminar()
+	{
+		try {
+			almacen.cerrar();
+			System.out.println("Almacén de profesores cerrado satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	// Cada cambio ya está en el diario del almacén: guardar solo lo pasa a un segmento
+	@Override
+	public void guardar() throws IOException
+	{
+		almacen.volcar();
+	}
+
+	private static String clave(Profesor profesor)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(profesor));
+	}
+
+	@Override
+	public List<Profesor> get()
+	{
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerProfesor);
+	}
+
+	@Override
+	public List<Profesor> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public Stream<Profesor> stream()
+	{
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerProfesor);
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return tamano;
+	}
+
+	@Override
+	public void insertar(Profesor profesor) throws OperationNotSupportedException
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar un profesor nulo.");
+		}
+		if (almacen.contiene(clave(profesor)))
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe un profesor con ese DNI.");
+		}
+		almacen.escribir(new AlmacenLsm.Lote().poner(clave(profesor), CodificacionClaveValor.codificar(profesor))
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano + 1)));
+		tamano++;
+	}
+
+	@Override
+	public Profesor buscar(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un profesor nulo.");
+		}
+		byte[] encontrado = almacen.get(clave(profesor));
+		return encontrado == null ? null : CodificacionClaveValor.leerProfesor(encontrado);
+	}
+
+	@Override
+	public void borrar(Profesor profesor) throws OperationNotSupportedException
+	{
+		if (profesor == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar un profesor nulo.");
+		}
+		if (!almacen.contiene(clave(profesor)))
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ningún profesor con ese DNI.");
+		}
+		almacen.escribir(new AlmacenLsm.Lote().borrar(clave(profesor))
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - 1)));
+		tamano--;
+	}
+
+}
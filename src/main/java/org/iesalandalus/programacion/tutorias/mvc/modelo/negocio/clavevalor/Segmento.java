@@ -0,0 +1,278 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.EscritorAtomico;
+
+/*
+ * Fichero inmutable con entradas ordenadas por clave. Se escribe de una vez al volcar la tabla en
+ * memoria o al compactar, y se lee por bloques: en memoria solo se guarda la primera clave de cada
+ * bloque, así que buscar una clave es una búsqueda binaria y la lectura de un bloque del disco.
+ * Una entrada sin valor es un borrado que tapa las versiones de la clave en segmentos anteriores.
+ *
+ * Formato: cabecera (marca y primer segmento que sustituye), entradas, índice de bloques y, al
+ * final, la posición del índice.
+ */
+final class Segmento {
+
+	private static final int MARCA = 0x5345474D;
+	private static final int TAMANO_CABECERA = 4 + 4;
+	private static final int TAMANO_BLOQUE = 4 * 1024;
+
+	private final File fichero;
+	private final int numero;
+	private final int primeroSustituido;
+	private final FileChannel canal;
+	private final String[] primerasClaves;
+	// Posición de cada bloque, más la del índice, donde termina el último
+	private final long[] posiciones;
+
+	private Segmento(File fichero, int numero, int primeroSustituido, FileChannel canal, String[] primerasClaves, long[] posiciones)
+	{
+		this.fichero = fichero;
+		this.numero = numero;
+		this.primeroSustituido = primeroSustituido;
+		this.canal = canal;
+		this.primerasClaves = primerasClaves;
+		this.posiciones = posiciones;
+	}
+
+	/*
+	 * Escribe las entradas, que deben llegar ordenadas, en un segmento nuevo. El segmento sustituye
+	 * a todos los anteriores a partir del número dado, que es el suyo si no viene de una compactación.
+	 */
+	static Segmento escribir(File fichero, int numero, int primeroSustituido, Iterator<Map.Entry<String, byte[]>> entradas) throws IOException
+	{
+		EscritorAtomico.escribir(fichero, flujo -> {
+			DataOutputStream salida = new DataOutputStream(flujo);
+			salida.writeInt(MARCA);
+			salida.writeInt(primeroSustituido);
+			List<String> claves = new ArrayList<>();
+			List<Long> posiciones = new ArrayList<>();
+			long inicioBloque = -TAMANO_BLOQUE;
+			while (entradas.hasNext())
+			{
+				Map.Entry<String, byte[]> entrada = entradas.next();
+				if (salida.size() - inicioBloque >= TAMANO_BLOQUE)
+				{
+					inicioBloque = salida.size();
+					claves.add(entrada.getKey());
+					posiciones.add(inicioBloque);
+				}
+				escribirEntrada(salida, entrada.getKey(), entrada.getValue());
+			}
+			long posicionIndice = salida.size();
+			salida.writeInt(claves.size());
+			for (int i = 0; i < claves.size(); i++)
+			{
+				salida.writeUTF(claves.get(i));
+				salida.writeLong(posiciones.get(i));
+			}
+			salida.writeLong(posicionIndice);
+			salida.flush();
+		});
+		return abrir(fichero, numero);
+	}
+
+	static void escribirEntrada(DataOutputStream salida, String clave, byte[] valor) throws IOException
+	{
+		salida.writeUTF(clave);
+		if (valor == AlmacenLsm.BORRADO)
+		{
+			salida.writeInt(-1);
+		} else {
+			salida.writeInt(valor.length);
+			salida.write(valor);
+		}
+	}
+
+	static Map.Entry<String, byte[]> leerEntrada(DataInputStream entrada) throws IOException
+	{
+		String clave = entrada.readUTF();
+		int longitud = entrada.readInt();
+		byte[] valor = AlmacenLsm.BORRADO;
+		if (longitud >= 0)
+		{
+			valor = new byte[longitud];
+			entrada.readFully(valor);
+		}
+		return new AbstractMap.SimpleImmutableEntry<>(clave, valor);
+	}
+
+	static Segmento abrir(File fichero, int numero) throws IOException
+	{
+		FileChannel canal = FileChannel.open(fichero.toPath(), StandardOpenOption.READ);
+		try {
+			DataInputStream cabecera = new DataInputStream(new ByteArrayInputStream(leer(canal, 0, TAMANO_CABECERA)));
+			if (cabecera.readInt() != MARCA)
+			{
+				throw new IOException("El fichero " + fichero.getName() + " no es un segmento del almacén.");
+			}
+			int primeroSustituido = cabecera.readInt();
+			long posicionIndice = ByteBuffer.wrap(leer(canal, canal.size() - Long.BYTES, Long.BYTES)).getLong();
+			DataInputStream indice = new DataInputStream(new ByteArrayInputStream(
+					leer(canal, posicionIndice, (int) (canal.size() - Long.BYTES - posicionIndice))));
+			int numeroBloques = indice.readInt();
+			String[] primerasClaves = new String[numeroBloques];
+			long[] posiciones = new long[numeroBloques + 1];
+			for (int i = 0; i < numeroBloques; i++)
+			{
+				primerasClaves[i] = indice.readUTF();
+				posiciones[i] = indice.readLong();
+			}
+			posiciones[numeroBloques] = posicionIndice;
+			return new Segmento(fichero, numero, primeroSustituido, canal, primerasClaves, posiciones);
+		} catch (IOException | RuntimeException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	private static byte[] leer(FileChannel canal, long posicion, int longitud) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(longitud);
+		while (buffer.hasRemaining())
+		{
+			if (canal.read(buffer, posicion + buffer.position()) < 0)
+			{
+				throw new EOFException();
+			}
+		}
+		return buffer.array();
+	}
+
+	private List<Map.Entry<String, byte[]>> leerBloque(int bloque) throws IOException
+	{
+		DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(
+				leer(canal, posiciones[bloque], (int) (posiciones[bloque + 1] - posiciones[bloque]))));
+		List<Map.Entry<String, byte[]>> entradas = new ArrayList<>();
+		while (entrada.available() > 0)
+		{
+			entradas.add(leerEntrada(entrada));
+		}
+		return entradas;
+	}
+
+	// Bloque en el que estaría la clave: el último cuya primera clave no es mayor que ella
+	private int bloque(String clave)
+	{
+		int posicion = Arrays.binarySearch(primerasClaves, clave);
+		return posicion >= 0 ? posicion : Math.max(0, -posicion - 2);
+	}
+
+	/* Valor guardado para la clave, BORRADO si este segmento la borra, o null si no la tiene */
+	byte[] get(String clave) throws IOException
+	{
+		if (primerasClaves.length == 0 || clave.compareTo(primerasClaves[0]) < 0)
+		{
+			return null;
+		}
+		for (Map.Entry<String, byte[]> entrada : leerBloque(bloque(clave)))
+		{
+			int comparacion = entrada.getKey().compareTo(clave);
+			if (comparacion == 0)
+			{
+				return entrada.getValue();
+			}
+			if (comparacion > 0)
+			{
+				break;
+			}
+		}
+		return null;
+	}
+
+	/* Entradas, borrados incluidos, con clave en [desde, hasta), o sin límite si hasta es nulo */
+	Iterator<Map.Entry<String, byte[]>> recorrer(String desde, String hasta)
+	{
+		return new Iterator<Map.Entry<String, byte[]>>() {
+
+			private int bloque = bloque(desde);
+			private Iterator<Map.Entry<String, byte[]>> entradas;
+			private Map.Entry<String, byte[]> siguiente;
+
+			@Override
+			public boolean hasNext()
+			{
+				while (siguiente == null)
+				{
+					while (entradas == null || !entradas.hasNext())
+					{
+						if (bloque >= primerasClaves.length)
+						{
+							return false;
+						}
+						try {
+							entradas = leerBloque(bloque++).iterator();
+						} catch (IOException e) {
+							throw new IllegalStateException("ERROR: No se ha podido leer el segmento " + fichero.getName() + ".", e);
+						}
+					}
+					Map.Entry<String, byte[]> entrada = entradas.next();
+					if (hasta != null && entrada.getKey().compareTo(hasta) >= 0)
+					{
+						bloque = primerasClaves.length;
+						entradas = null;
+						return false;
+					}
+					if (entrada.getKey().compareTo(desde) >= 0)
+					{
+						siguiente = entrada;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			public Map.Entry<String, byte[]> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				Map.Entry<String, byte[]> entrada = siguiente;
+				siguiente = null;
+				return entrada;
+			}
+
+		};
+	}
+
+	int getNumero()
+	{
+		return numero;
+	}
+
+	int getPrimeroSustituido()
+	{
+		return primeroSustituido;
+	}
+
+	void cerrar() throws IOException
+	{
+		canal.close();
+	}
+
+	void borrar() throws IOException
+	{
+		cerrar();
+		Files.deleteIfExists(fichero.toPath());
+	}
+
+}
@@ -0,0 +1,236 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Cada sesión se guarda dos veces en el mismo lote: por su clave natural y, para las consultas
+ * por fechas, precedida de su fecha, que es el orden de OrdenNatural.SESIONES_POR_FECHA.
+ */
+public class SesionesClaveValor implements ISesiones {
+
+	private final EspacioClaves almacen;
+	private volatile int tamano;
+
+	public SesionesClaveValor(File directorio)
+	{
+		this(new EspacioClaves(new AlmacenLsm(directorio, "sesiones"), ""));
+	}
+
+	SesionesClaveValor(EspacioClaves almacen)
+	{
+		this.almacen = almacen;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		try {
+			almacen.abrir();
+			releer();
+			System.out.println("Almacén de sesiones abierto satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("No puedo abrir el almacén de sesiones.");
+		}
+	}
+
+	void releer()
+	{
+		tamano = CodificacionClaveValor.leerEntero(almacen.get(CodificacionClaveValor.TAMANO));
+	}
+
+	@Override
+	public void terminar()
+	{
+		try {
+			almacen.cerrar();
+			System.out.println("Almacén de sesiones cerrado satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	// Cada cambio ya está en el diario del almacén: guardar solo lo pasa a un segmento
+	@Override
+	public void guardar() throws IOException
+	{
+		almacen.volcar();
+	}
+
+	/* Cada sesión se guarda con su tutoría, así que no hay nada que enlazar */
+	@Override
+	public int enlazar(List<Tutoria> tutorias)
+	{
+		return 0;
+	}
+
+	private static String clave(Sesion sesion)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(sesion));
+	}
+
+	private static String clavePorFecha(Sesion sesion)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.POR_FECHA, CodificacionClaveValor.campo(sesion.getFecha()),
+				CodificacionClaveValor.campo(sesion));
+	}
+
+	private static String prefijo(Tutoria tutoria)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(tutoria));
+	}
+
+	@Override
+	public List<Sesion> get()
+	{
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerSesion);
+	}
+
+	@Override
+	public List<Sesion> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public List<Sesion> get(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(prefijo(tutoria)), CodificacionClaveValor::leerSesion);
+	}
+
+	@Override
+	public Pagina<Sesion> get(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano)
+	{
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		String inicio = CodificacionClaveValor.clave(CodificacionClaveValor.POR_FECHA, CodificacionClaveValor.campo(desde));
+		if (despuesDe != null)
+		{
+			inicio = AlmacenLsm.mayor(inicio, AlmacenLsm.siguiente(clavePorFecha(despuesDe)));
+		}
+		String fin = AlmacenLsm.finPrefijo(CodificacionClaveValor.clave(CodificacionClaveValor.POR_FECHA, CodificacionClaveValor.campo(hasta)));
+		return AlmacenLsm.pagina(almacen.recorrer(inicio, fin), tamano, CodificacionClaveValor::leerSesion);
+	}
+
+	@Override
+	public Pagina<Sesion> get(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (desde == null)
+		{
+			throw new NullPointerException("ERROR: Las fechas de la consulta no pueden ser nulas.");
+		}
+		Pagina.comprobarTamano(tamano);
+		String inicio = CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(tutoria),
+				CodificacionClaveValor.campo(desde));
+		// El cursor solo sirve si es una sesión de la misma tutoría
+		if (despuesDe != null && despuesDe.getTutoria().equals(tutoria))
+		{
+			inicio = AlmacenLsm.mayor(inicio, AlmacenLsm.siguiente(clave(despuesDe)));
+		}
+		return AlmacenLsm.pagina(almacen.recorrer(inicio, AlmacenLsm.finPrefijo(prefijo(tutoria))), tamano,
+				CodificacionClaveValor::leerSesion);
+	}
+
+	@Override
+	public Stream<Sesion> stream()
+	{
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerSesion);
+	}
+
+	@Override
+	public Stream<Sesion> stream(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(prefijo(tutoria)), CodificacionClaveValor::leerSesion);
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return tamano;
+	}
+
+	@Override
+	public void insertar(Sesion sesion) throws OperationNotSupportedException
+	{
+		if (sesion == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una sesión nula.");
+		}
+		if (almacen.contiene(clave(sesion)))
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe una sesión con esa fecha.");
+		}
+		byte[] valor = CodificacionClaveValor.codificar(sesion);
+		almacen.escribir(new AlmacenLsm.Lote().poner(clave(sesion), valor).poner(clavePorFecha(sesion), valor)
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano + 1)));
+		tamano++;
+	}
+
+	@Override
+	public Sesion buscar(Sesion sesion)
+	{
+		if (sesion == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una sesión nula.");
+		}
+		byte[] encontrada = almacen.get(clave(sesion));
+		return encontrada == null ? null : CodificacionClaveValor.leerSesion(encontrada);
+	}
+
+	@Override
+	public void borrar(Sesion sesion) throws OperationNotSupportedException
+	{
+		if (sesion == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una sesión nula.");
+		}
+		if (!almacen.contiene(clave(sesion)))
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna sesión con esa fecha.");
+		}
+		almacen.escribir(new AlmacenLsm.Lote().borrar(clave(sesion)).borrar(clavePorFecha(sesion))
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - 1)));
+		tamano--;
+	}
+
+	@Override
+	public List<Sesion> borrarTodas(Tutoria tutoria)
+	{
+		List<Sesion> borradas = get(tutoria);
+		if (!borradas.isEmpty())
+		{
+			AlmacenLsm.Lote lote = new AlmacenLsm.Lote();
+			for (Sesion sesion : borradas)
+			{
+				lote.borrar(clave(sesion)).borrar(clavePorFecha(sesion));
+			}
+			almacen.escribir(lote.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - borradas.size())));
+			tamano -= borradas.size();
+		}
+		return borradas;
+	}
+
+}
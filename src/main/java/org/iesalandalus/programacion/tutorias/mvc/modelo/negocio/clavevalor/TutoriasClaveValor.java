@@ -0,0 +1,187 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+
+public class TutoriasClaveValor implements ITutorias {
+
+	private final EspacioClaves almacen;
+	private volatile int tamano;
+
+	public TutoriasClaveValor(File directorio)
+	{
+		this(new EspacioClaves(new AlmacenLsm(directorio, "tutorias"), ""));
+	}
+
+	TutoriasClaveValor(EspacioClaves almacen)
+	{
+		this.almacen = almacen;
+	}
+
+	@Override
+	public void comenzar()
+	{
+		try {
+			almacen.abrir();
+			releer();
+			System.out.println("Almacén de tutorías abierto satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("No puedo abrir el almacén de tutorías.");
+		}
+	}
+
+	void releer()
+	{
+		tamano = CodificacionClaveValor.leerEntero(almacen.get(CodificacionClaveValor.TAMANO));
+	}
+
+	@Override
+	public void terminar()
+	{
+		try {
+			almacen.cerrar();
+			System.out.println("Almacén de tutorías cerrado satisfactoriamente.");
+		} catch (IOException e) {
+			System.out.println("Error inesperado de Entrada/Salida.");
+		}
+	}
+
+	// Cada cambio ya está en el diario del almacén: guardar solo lo pasa a un segmento
+	@Override
+	public void guardar() throws IOException
+	{
+		almacen.volcar();
+	}
+
+	/* Cada tutoría se guarda con su profesor, así que no hay nada que enlazar */
+	@Override
+	public int enlazar(List<Profesor> profesores)
+	{
+		return 0;
+	}
+
+	private static String clave(Tutoria tutoria)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(tutoria));
+	}
+
+	// Las tutorías de un profesor son las claves que empiezan por la suya
+	private static String prefijo(Profesor profesor)
+	{
+		return CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, CodificacionClaveValor.campo(profesor));
+	}
+
+	@Override
+	public List<Tutoria> get()
+	{
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerTutoria);
+	}
+
+	@Override
+	public List<Tutoria> getVista()
+	{
+		return Collections.unmodifiableList(get());
+	}
+
+	@Override
+	public List<Tutoria> get(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		return AlmacenLsm.valores(almacen.recorrerPrefijo(prefijo(profesor)), CodificacionClaveValor::leerTutoria);
+	}
+
+	@Override
+	public Stream<Tutoria> stream()
+	{
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(CodificacionClaveValor.NATURAL), CodificacionClaveValor::leerTutoria);
+	}
+
+	@Override
+	public Stream<Tutoria> stream(Profesor profesor)
+	{
+		if (profesor == null)
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		return AlmacenLsm.flujo(almacen.recorrerPrefijo(prefijo(profesor)), CodificacionClaveValor::leerTutoria);
+	}
+
+	@Override
+	public int getTamano()
+	{
+		return tamano;
+	}
+
+	@Override
+	public void insertar(Tutoria tutoria) throws OperationNotSupportedException
+	{
+		if (tutoria == null)
+		{
+			throw new NullPointerException("ERROR: No se puede insertar una tutoría nula.");
+		}
+		if (almacen.contiene(clave(tutoria)))
+		{
+			throw new OperationNotSupportedException("ERROR: Ya existe una tutoría con ese identificador.");
+		}
+		almacen.escribir(new AlmacenLsm.Lote().poner(clave(tutoria), CodificacionClaveValor.codificar(tutoria))
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano + 1)));
+		tamano++;
+	}
+
+	@Override
+	public Tutoria buscar(Tutoria tutoria)
+	{
+		if (tutoria == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar una tutoría nula.");
+		}
+		byte[] encontrada = almacen.get(clave(tutoria));
+		return encontrada == null ? null : CodificacionClaveValor.leerTutoria(encontrada);
+	}
+
+	@Override
+	public void borrar(Tutoria tutoria) throws OperationNotSupportedException
+	{
+		if (tutoria == null)
+		{
+			throw new IllegalArgumentException("ERROR: No se puede borrar una tutoría nula.");
+		}
+		if (!almacen.contiene(clave(tutoria)))
+		{
+			throw new OperationNotSupportedException("ERROR: No existe ninguna tutoría con ese identificador.");
+		}
+		almacen.escribir(new AlmacenLsm.Lote().borrar(clave(tutoria))
+				.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - 1)));
+		tamano--;
+	}
+
+	@Override
+	public List<Tutoria> borrarTodas(Profesor profesor)
+	{
+		List<Tutoria> borradas = get(profesor);
+		if (!borradas.isEmpty())
+		{
+			AlmacenLsm.Lote lote = new AlmacenLsm.Lote();
+			for (Tutoria tutoria : borradas)
+			{
+				lote.borrar(clave(tutoria));
+			}
+			almacen.escribir(lote.poner(CodificacionClaveValor.TAMANO, CodificacionClaveValor.codificar(tamano - borradas.size())));
+			tamano -= borradas.size();
+		}
+		return borradas;
+	}
+
+}
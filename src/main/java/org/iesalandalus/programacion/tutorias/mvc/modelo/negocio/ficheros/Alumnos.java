@@ -1,55 +1,94 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.SecuenciaExpedientes;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
 
 public class Alumnos implements IAlumnos {
 
 	private static final String NOMBRE_FICHERO_ALUMNOS = "datos/alumnos.dat";
 	
-	private List<Alumno> coleccionAlumnos;
+	private IFormatoFichero<Alumno> formato;
+	// Árbol principal ordenado por correo (el campo que usa Alumno.equals) e índice secundario por expediente
+	private TreeMap<String, Alumno> coleccionAlumnos;
+	private Map<String, Alumno> alumnosPorExpediente;
+	// Copia ordenada de solo lectura de la colección; se descarta cada vez que esta cambia
+	private volatile List<Alumno> vista;
 	
 	public Alumnos() 
 	{
-		coleccionAlumnos = new ArrayList<>();
+		this(new FormatoObjetos<>(NOMBRE_FICHERO_ALUMNOS, Alumno.class));
+	}
+	
+	public Alumnos(IFormatoFichero<Alumno> formato) 
+	{
+		if (formato == null) 
+		{
+			throw new NullPointerException("ERROR: El formato del fichero no puede ser nulo.");
+		}
+		this.formato = formato;
+		coleccionAlumnos = new TreeMap<>();
+		alumnosPorExpediente = new HashMap<>();
 	}
 	
 	@Override
 	public void comenzar() 
 	{
 		//Leer
-		File ficheroAlumnos = new File(NOMBRE_FICHERO_ALUMNOS);
-		try (ObjectInputStream entrada = new ObjectInputStream(new FileInputStream(ficheroAlumnos))) {
-			Alumno alumno = null;
-			do 
-			{
-				alumno = (Alumno) entrada.readObject();
-				insertar(alumno);
-			} while (alumno != null);
+		try {
+			cargar(formato.leer());
+			System.out.println("Fichero alumnos leído satisfactoriamente.");
 		} catch (ClassNotFoundException e) {
 			System.out.println("No puedo encontrar la clase que tengo que leer.");
 		} catch (FileNotFoundException e) {
-			System.out.println("No puedo abrir el fihero de alumnos.");
-		} catch (EOFException e) {
-			System.out.println("Fichero profesores leído satisfactoriamente.");
+			System.out.println("No puedo abrir el fichero de alumnos.");
 		} catch (IOException e) {
 			System.out.println("Error inesperado de Entrada/Salida.");
-		} catch (OperationNotSupportedException e) {
-			System.out.println(e.getMessage());
+		}
+	}
+
+	private void cargar(List<Alumno> alumnosLeidos) 
+	{
+		// Los objetos leídos no se comparten con nadie, así que se guardan sin copia defensiva
+		int tamanoTotal = coleccionAlumnos.size() + alumnosLeidos.size();
+		TreeMap<String, Alumno> nuevaColeccion = new TreeMap<>(coleccionAlumnos);
+		Map<String, Alumno> nuevoIndiceExpedientes = new HashMap<>(LectorFicheroObjetos.capacidadHash(tamanoTotal));
+		nuevoIndiceExpedientes.putAll(alumnosPorExpediente);
+		int repetidos = 0;
+		int mayorNumero = 0;
+		for (Alumno alumno : alumnosLeidos) 
+		{
+			if (nuevaColeccion.putIfAbsent(alumno.getCorreo(), alumno) == null) 
+			{
+				nuevoIndiceExpedientes.put(alumno.getExpediente(), alumno);
+				mayorNumero = Math.max(mayorNumero, SecuenciaExpedientes.numero(alumno.getExpediente()));
+			} else {
+				repetidos++;
+			}
+		}
+		// Los alumnos nuevos de esta ejecución siguen numerando a partir de los ya guardados
+		SecuenciaExpedientes.avanzarHasta(mayorNumero);
+		coleccionAlumnos = nuevaColeccion;
+		vista = null;
+		alumnosPorExpediente = nuevoIndiceExpedientes;
+		if (repetidos > 0) 
+		{
+			System.out.println("Se han descartado " + repetidos + " alumnos repetidos en el fichero de alumnos.");
 		}
 	}
 
@@ -57,10 +96,8 @@ public class Alumnos implements IAlumnos {
 	public void terminar() 
 	{
 		//Escribir
-		File ficheroAlumnos = new File(NOMBRE_FICHERO_ALUMNOS);
-		try (ObjectOutputStream salida = new ObjectOutputStream(new FileOutputStream(ficheroAlumnos))){
-			for (Alumno alumno : coleccionAlumnos)
-				salida.writeObject(alumno);
+		try {
+			guardar();
 			System.out.println("Fichero alumnos escrito satisfactoriamente.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo crear el fichero de alumnos.");
@@ -68,25 +105,46 @@ public class Alumnos implements IAlumnos {
 			System.out.println("Error inesperado de Entrada/Salida.");
 		}
 	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		formato.escribir(coleccionAlumnos.values());
+	}
 	
 	@Override
 	public List<Alumno> get() 
 	{
-		List<Alumno> alumnosOrdenados = copiaProfundaAlumnos();
-		alumnosOrdenados.sort(Comparator.comparing(Alumno::getCorreo));
-		return alumnosOrdenados;
+		return copiaProfundaAlumnos(getVista());
+	}
+	
+	@Override
+	public List<Alumno> getVista() 
+	{
+		if (vista == null) 
+		{
+			vista = Collections.unmodifiableList(new ArrayList<>(coleccionAlumnos.values()));
+		}
+		return vista;
 	}
 	
-	private List<Alumno> copiaProfundaAlumnos() 
+	private List<Alumno> copiaProfundaAlumnos(Collection<Alumno> alumnos) 
 	{
-		List<Alumno> copiaAlumnos = new ArrayList<>();
-		for (Alumno alumno : coleccionAlumnos) 
+		List<Alumno> copiaAlumnos = new ArrayList<>(alumnos.size());
+		for (Alumno alumno : alumnos) 
 		{
 			copiaAlumnos.add(new Alumno(alumno));
 		}
 		return copiaAlumnos;
 	}
 	
+	@Override
+	public Stream<Alumno> stream() 
+	{
+		return Recorrido.flujo(() -> Recorrido.valor(coleccionAlumnos.firstEntry()), 
+				alumno -> Recorrido.valor(coleccionAlumnos.higherEntry(alumno.getCorreo())));
+	}
+	
 	@Override
 	public int getTamano() 
 	{
@@ -100,14 +158,47 @@ public class Alumnos implements IAlumnos {
 		{
 			throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
 		}
-		int indice = coleccionAlumnos.indexOf(alumno);
-		if (indice == -1) 
+		if (coleccionAlumnos.containsKey(alumno.getCorreo())) 
 		{
-			coleccionAlumnos.add(new Alumno(alumno));
-		} else {
 			throw new OperationNotSupportedException("ERROR: Ya existe un alumno con ese expediente.");
-		}		
-		
+		}
+		anadir(alumno);
+	}
+	
+	@Override
+	public void insertarTodos(Collection<Alumno> alumnos) throws OperationNotSupportedException
+	{
+		if (alumnos == null) 
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar alumnos nulos.");
+		}
+		// Se comprueba todo antes de insertar: o entran todos o no entra ninguno
+		Set<String> correos = new HashSet<>(alumnos.size() * 4 / 3 + 1);
+		for (Alumno alumno : alumnos) 
+		{
+			if (alumno == null) 
+			{
+				throw new NullPointerException("ERROR: No se puede insertar un alumno nulo.");
+			}
+			if (!correos.add(alumno.getCorreo()) || coleccionAlumnos.containsKey(alumno.getCorreo())) 
+			{
+				throw new OperationNotSupportedException("ERROR: Ya existe un alumno con ese expediente.");
+			}
+		}
+		for (Alumno alumno : alumnos) 
+		{
+			anadir(alumno);
+		}
+	}
+	
+	private void anadir(Alumno alumno) 
+	{
+		Alumno copiaAlumno = new Alumno(alumno);
+		coleccionAlumnos.put(copiaAlumno.getCorreo(), copiaAlumno);
+		vista = null;
+		alumnosPorExpediente.put(copiaAlumno.getExpediente(), copiaAlumno);
+		// Un alumno restaurado (por ejemplo, desde el registro de operaciones) trae su propio número
+		SecuenciaExpedientes.reconocer(SecuenciaExpedientes.numero(copiaAlumno.getExpediente()));
 	}
 
 	@Override
@@ -117,12 +208,28 @@ public class Alumnos implements IAlumnos {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede buscar un alumno nulo.");
 		}
-		int indice = coleccionAlumnos.indexOf(alumno);
-		if (indice == -1)
+		Alumno encontrado = coleccionAlumnos.get(alumno.getCorreo());
+		if (encontrado == null)
+		{
+			return null;
+		} else {
+			return new Alumno(encontrado);
+		}
+	}
+	
+	@Override
+	public Alumno buscarPorExpediente(String expediente) 
+	{
+		if (expediente == null) 
+		{
+			throw new IllegalArgumentException("ERROR: No se puede buscar un alumno con expediente nulo.");
+		}
+		Alumno encontrado = alumnosPorExpediente.get(expediente);
+		if (encontrado == null)
 		{
 			return null;
 		} else {
-			return new Alumno(coleccionAlumnos.get(indice));
+			return new Alumno(encontrado);
 		}
 	}
 	
@@ -132,12 +239,13 @@ public class Alumnos implements IAlumnos {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede borrar un alumno nulo.");
 		}
-		int indice = coleccionAlumnos.indexOf(alumno);
-		if (indice == -1) 
+		Alumno borrado = coleccionAlumnos.remove(alumno.getCorreo());
+		if (borrado == null) 
 		{
 			throw new OperationNotSupportedException("ERROR: No existe ningún alumno con ese expediente.");
 		} else {
-			coleccionAlumnos.remove(indice);
+			alumnosPorExpediente.remove(borrado.getExpediente(), borrado);
+			vista = null;
 		}
 	}
 }
\ No newline at end of file
@@ -1,60 +1,101 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
-import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
-import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.HuecosSesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.OrdenNatural;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
 
 public class Citas implements ICitas {
 	
 	private static final String NOMBRE_FICHERO_CITAS = "datos/citas.dat";
+	private static final Comparator<Cita> MISMA_HORA = Comparator.comparing(Cita::getSesion, OrdenNatural.SESIONES).thenComparing(Cita::getHora);
 	
-	private List<Cita> coleccionCitas;
+	private IFormatoFichero<Cita> formato;
+	// Árbol ordenado por sesión y hora, e índices secundarios que guardan cada lista en ese mismo orden
+	private TreeMap<Cita, Cita> coleccionCitas;
+	private Map<Sesion, List<Cita>> citasPorSesion;
+	private Map<Alumno, List<Cita>> citasPorAlumno;
+	private IndiceFechas<Cita> citasPorFecha;
+	// Horas libres de cada sesión con citas: una hora solo puede tener una cita, sea del alumno que sea
+	private Map<Sesion, HuecosSesion> huecosPorSesion;
+	// Copia ordenada de solo lectura de la colección; se descarta cada vez que esta cambia
+	private volatile List<Cita> vista;
 	
 	public Citas() 
 	{
-		coleccionCitas = new ArrayList<>();
+		this(new FormatoObjetos<>(NOMBRE_FICHERO_CITAS, Cita.class));
+	}
+	
+	public Citas(IFormatoFichero<Cita> formato) 
+	{
+		if (formato == null) 
+		{
+			throw new NullPointerException("ERROR: El formato del fichero no puede ser nulo.");
+		}
+		this.formato = formato;
+		coleccionCitas = new TreeMap<>(OrdenNatural.CITAS);
+		citasPorSesion = new HashMap<>();
+		citasPorAlumno = new HashMap<>();
+		citasPorFecha = new IndiceFechas<>(cita -> cita.getSesion().getFecha(), OrdenNatural.CITAS);
+		huecosPorSesion = new HashMap<>();
 	}
 	
 	@Override
 	public void comenzar() 
 	{
 		//Leer
-		File ficheroCitas = new File(NOMBRE_FICHERO_CITAS);
-		try (ObjectInputStream entrada = new ObjectInputStream(new FileInputStream(ficheroCitas))) {
-			Cita cita = null;
-			do 
-			{
-				cita = (Cita) entrada.readObject();
-				insertar(cita);
-			} while (cita != null);
+		try {
+			cargar(formato.leer());
+			System.out.println("Fichero citas leído satisfactoriamente.");
 		} catch (ClassNotFoundException e) {
 			System.out.println("No puedo encontrar la clase que tengo que leer.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo abrir el fichero de citas.");
-		} catch (EOFException e) {
-			System.out.println("Fichero citas leído satisfactoriamente.");
 		} catch (IOException e) {
 			System.out.println("Error inesperado de Entrada/Salida.");
-		} catch (OperationNotSupportedException e) {
-			System.out.println(e.getMessage());
+		}
+	}
+
+	private void cargar(List<Cita> citasLeidas) 
+	{
+		// Los objetos leídos no se comparten con nadie, así que se guardan sin copia defensiva
+		vista = null;
+		int repetidas = 0;
+		for (Cita cita : citasLeidas) 
+		{
+			if (coleccionCitas.putIfAbsent(cita, cita) == null) 
+			{
+				indexar(cita);
+			} else {
+				repetidas++;
+			}
+		}
+		if (repetidas > 0) 
+		{
+			System.out.println("Se han descartado " + repetidas + " citas repetidas en el fichero de citas.");
 		}
 	}
 
@@ -62,10 +103,8 @@ public class Citas implements ICitas {
 	public void terminar() 
 	{
 		//Escribir
-		File ficheroCitas = new File(NOMBRE_FICHERO_CITAS);
-		try (ObjectOutputStream salida = new ObjectOutputStream(new FileOutputStream(ficheroCitas))){
-			for (Cita cita : coleccionCitas)
-				salida.writeObject(cita);
+		try {
+			guardar();
 			System.out.println("Fichero citas escrito satisfactoriamente.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo crear el fichero de citas.");
@@ -73,22 +112,74 @@ public class Citas implements ICitas {
 			System.out.println("Error inesperado de Entrada/Salida.");
 		}
 	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		formato.escribir(coleccionCitas.values());
+	}
+
+	/*
+	 * Fase de enlace: cada cita pasa a apuntar a las instancias de su alumno y de su sesión que
+	 * se reciben. Devuelve cuántas citas tienen un alumno o una sesión que no están en las listas.
+	 */
+	@Override
+	public int enlazar(List<Alumno> alumnos, List<Sesion> sesiones) 
+	{
+		Map<Alumno, Alumno> instanciasAlumnos = new HashMap<>(LectorFicheroObjetos.capacidadHash(alumnos.size()));
+		for (Alumno alumno : alumnos) 
+		{
+			instanciasAlumnos.put(alumno, alumno);
+		}
+		Map<Sesion, Sesion> instanciasSesiones = new HashMap<>(LectorFicheroObjetos.capacidadHash(sesiones.size()));
+		for (Sesion sesion : sesiones) 
+		{
+			instanciasSesiones.put(sesion, sesion);
+		}
+		List<Cita> citasEnlazadas = new ArrayList<>(coleccionCitas.size());
+		int sinEnlazar = 0;
+		for (Cita cita : coleccionCitas.values()) 
+		{
+			Alumno alumno = instanciasAlumnos.get(cita.getAlumno());
+			Sesion sesion = instanciasSesiones.get(cita.getSesion());
+			if (alumno == null || sesion == null) 
+			{
+				sinEnlazar++;
+				citasEnlazadas.add(cita);
+			} else {
+				citasEnlazadas.add(Cita.restaurar(alumno, sesion, cita.getHora()));
+			}
+		}
+		// Las claves de los índices también deben ser las instancias nuevas
+		coleccionCitas.clear();
+		citasPorSesion.clear();
+		citasPorAlumno.clear();
+		citasPorFecha.vaciar();
+		huecosPorSesion.clear();
+		cargar(citasEnlazadas);
+		return sinEnlazar;
+	}
 	
 	@Override
 	public List<Cita> get() 
 	{
-		List<Cita> citasOrdenadas = copiaProfundaCitas();
-		Comparator<Profesor> comparadorP = Comparator.comparing(Profesor::getDni);
-		Comparator<Tutoria> comparadorT = Comparator.comparing(Tutoria::getProfesor, comparadorP).thenComparing(Tutoria::getNombre);
-		Comparator<Sesion> comparadorS = Comparator.comparing(Sesion::getTutoria, comparadorT).thenComparing(Sesion::getFecha);
-		citasOrdenadas.sort(Comparator.comparing(Cita::getSesion, comparadorS).thenComparing(Cita::getHora));
-		return citasOrdenadas;
+		return copiaProfundaCitas(getVista());
 	}
 	
-	private List<Cita> copiaProfundaCitas() 
+	@Override
+	public List<Cita> getVista() 
+	{
+		if (vista == null) 
+		{
+			vista = Collections.unmodifiableList(new ArrayList<>(coleccionCitas.values()));
+		}
+		return vista;
+	}
+	
+	private List<Cita> copiaProfundaCitas(Collection<Cita> citas) 
 	{
-		List<Cita> copiaCitas = new ArrayList<>();
-		for (Cita cita : coleccionCitas) 
+		List<Cita> copiaCitas = new ArrayList<>(citas.size());
+		for (Cita cita : citas) 
 		{
 			copiaCitas.add(new Cita(cita));
 		}
@@ -102,16 +193,8 @@ public class Citas implements ICitas {
 		{
 			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
 		}			
-		List<Cita> copiaCitasSesion = new ArrayList<>();
-		for (Cita cita : coleccionCitas) 
-		{
-			if (cita.getSesion().equals(sesion)) 
-			{
-				copiaCitasSesion.add(new Cita(cita));			
-			}
-		}
-		copiaCitasSesion.sort(Comparator.comparing(Cita::getHora));
-		return copiaCitasSesion;
+		// Ya están ordenadas en el índice
+		return copiaProfundaCitas(citasPorSesion.getOrDefault(sesion, Collections.emptyList()));
 	}
 
 	@Override
@@ -121,19 +204,60 @@ public class Citas implements ICitas {
 		{
 			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
 		}			
-		List<Cita> copiaCitasAlumno = new ArrayList<>();
-		for (Cita cita : coleccionCitas) 
+		// Ya están ordenadas en el índice
+		return copiaProfundaCitas(citasPorAlumno.getOrDefault(alumno, Collections.emptyList()));
+	}
+	
+	@Override
+	public Pagina<Cita> get(LocalDate desde, LocalDate hasta, Cita despuesDe, int tamano) 
+	{
+		return citasPorFecha.get(desde, hasta, despuesDe, tamano);
+	}
+	
+	@Override
+	public Stream<Cita> stream() 
+	{
+		return Recorrido.flujo(() -> Recorrido.valor(coleccionCitas.firstEntry()), 
+				cita -> coleccionCitas.higherKey(cita));
+	}
+	
+	@Override
+	public Stream<Cita> stream(Sesion sesion) 
+	{
+		if (sesion == null) 
 		{
-			if (cita.getAlumno().equals(alumno)) 
-			{
-				copiaCitasAlumno.add(new Cita(cita));			
-			}
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return Recorrido.flujo(() -> siguiente(citasPorSesion, sesion, null), 
+				cita -> siguiente(citasPorSesion, sesion, cita));
+	}
+	
+	@Override
+	public Stream<Cita> stream(Alumno alumno) 
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return Recorrido.flujo(() -> siguiente(citasPorAlumno, alumno, null), 
+				cita -> siguiente(citasPorAlumno, alumno, cita));
+	}
+	
+	// La lista del índice puede haber cambiado desde la cita anterior: se vuelve a buscar su posición
+	private static <K> Cita siguiente(Map<K, List<Cita>> indice, K clave, Cita despuesDe) 
+	{
+		List<Cita> citas = indice.get(clave);
+		if (citas == null) 
+		{
+			return null;
+		}
+		int posicion = 0;
+		if (despuesDe != null) 
+		{
+			posicion = Collections.binarySearch(citas, despuesDe, OrdenNatural.CITAS);
+			posicion = posicion < 0 ? -posicion - 1 : posicion + 1;
 		}
-		Comparator<Profesor> comparadorP = Comparator.comparing(Profesor::getDni);
-		Comparator<Tutoria> comparadorT = Comparator.comparing(Tutoria::getProfesor, comparadorP).thenComparing(Tutoria::getNombre);
-		Comparator<Sesion> comparadorS = Comparator.comparing(Sesion::getTutoria, comparadorT).thenComparing(Sesion::getFecha);
-		copiaCitasAlumno.sort(Comparator.comparing(Cita::getSesion, comparadorS).thenComparing(Cita::getHora));
-		return copiaCitasAlumno;
+		return posicion < citas.size() ? citas.get(posicion) : null;
 	}
 	
 	@Override
@@ -142,6 +266,16 @@ public class Citas implements ICitas {
 		return coleccionCitas.size();
 	}
 	
+	private static <T> T instancia(Map<T, List<Cita>> indice, T clave, Function<Cita, T> extractor)
+	{
+		List<Cita> citasClave = indice.get(clave);
+		if (citasClave == null || citasClave.isEmpty())
+		{
+			return clave;
+		}
+		return extractor.apply(citasClave.get(0));
+	}
+	
 	@Override
 	public void insertar(Cita cita) throws OperationNotSupportedException
 	{
@@ -149,14 +283,137 @@ public class Citas implements ICitas {
 		{
 			throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
 		}
-		int indice = coleccionCitas.indexOf(cita);
-		if (indice == -1) 
+		if (!estaLibre(cita.getSesion(), cita.getHora())) 
 		{
-			coleccionCitas.add(new Cita(cita));
-		} else {
 			throw new OperationNotSupportedException("ERROR: Ya existe una cita con esa hora.");
-		}		
-		
+		}
+		anadir(cita);
+	}
+	
+	@Override
+	public void insertarTodas(Collection<Cita> citas) throws OperationNotSupportedException
+	{
+		if (citas == null) 
+		{
+			throw new NullPointerException("ERROR: No se pueden insertar citas nulas.");
+		}
+		// Se comprueba todo antes de insertar: o entran todas o no entra ninguna
+		Set<Cita> nuevas = new TreeSet<>(MISMA_HORA);
+		for (Cita cita : citas) 
+		{
+			if (cita == null) 
+			{
+				throw new NullPointerException("ERROR: No se puede insertar una cita nula.");
+			}
+			if (!nuevas.add(cita) || !estaLibre(cita.getSesion(), cita.getHora())) 
+			{
+				throw new OperationNotSupportedException("ERROR: Ya existe una cita con esa hora.");
+			}
+		}
+		for (Cita cita : citas) 
+		{
+			anadir(cita);
+		}
+	}
+	
+	// Todas las citas de un alumno o de una sesión comparten la misma instancia
+	private void anadir(Cita cita) 
+	{
+		Cita copiaCita = Cita.restaurar(instancia(citasPorAlumno, cita.getAlumno(), Cita::getAlumno),
+				instancia(citasPorSesion, cita.getSesion(), Cita::getSesion), cita.getHora());
+		coleccionCitas.put(copiaCita, copiaCita);
+		vista = null;
+		indexar(copiaCita);
+	}
+	
+	private void indexar(Cita cita) 
+	{
+		insertarOrdenada(citasPorSesion.computeIfAbsent(cita.getSesion(), sesion -> new ArrayList<>()), cita);
+		insertarOrdenada(citasPorAlumno.computeIfAbsent(cita.getAlumno(), alumno -> new ArrayList<>()), cita);
+		citasPorFecha.insertar(cita);
+		huecosPorSesion.computeIfAbsent(cita.getSesion(), HuecosSesion::new).reservar(cita.getHora());
+	}
+	
+	private static void insertarOrdenada(List<Cita> citas, Cita cita) 
+	{
+		int posicion = Collections.binarySearch(citas, cita, OrdenNatural.CITAS);
+		if (posicion < 0) 
+		{
+			citas.add(-posicion - 1, cita);
+		}
+	}
+	
+	private void desindexar(Cita cita) 
+	{
+		quitarDeIndice(citasPorSesion, cita.getSesion(), cita);
+		quitarDeIndice(citasPorAlumno, cita.getAlumno(), cita);
+		citasPorFecha.borrar(cita);
+		liberarHora(cita);
+	}
+	
+	// Un fichero antiguo puede traer dos citas a la misma hora: la hora solo se libera con la última
+	private void liberarHora(Cita cita) 
+	{
+		List<Cita> citasSesion = citasPorSesion.get(cita.getSesion());
+		if (citasSesion == null) 
+		{
+			huecosPorSesion.remove(cita.getSesion());
+			return;
+		}
+		for (Cita otra : citasSesion) 
+		{
+			if (otra.getHora().equals(cita.getHora())) 
+			{
+				return;
+			}
+		}
+		huecosPorSesion.get(cita.getSesion()).liberar(cita.getHora());
+	}
+	
+	@Override
+	public boolean estaLibre(Sesion sesion, LocalTime hora) 
+	{
+		return getHuecos(sesion).estaLibre(hora);
+	}
+	
+	@Override
+	public LocalTime getSiguienteHoraLibre(Sesion sesion, LocalTime desde) 
+	{
+		return getHuecos(sesion).getSiguienteLibre(desde);
+	}
+	
+	@Override
+	public List<LocalTime> getHorasLibres(Sesion sesion, int cuantas) 
+	{
+		return getHuecos(sesion).getLibres(cuantas);
+	}
+	
+	// Una sesión sin citas tiene todas sus horas libres: no hace falta guardarla en el índice
+	private HuecosSesion getHuecos(Sesion sesion) 
+	{
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		HuecosSesion huecos = huecosPorSesion.get(sesion);
+		return huecos == null ? new HuecosSesion(sesion) : huecos;
+	}
+	
+	private static <K> void quitarDeIndice(Map<K, List<Cita>> indice, K clave, Cita cita) 
+	{
+		List<Cita> citasClave = indice.get(clave);
+		if (citasClave != null) 
+		{
+			int posicion = Collections.binarySearch(citasClave, cita, OrdenNatural.CITAS);
+			if (posicion >= 0) 
+			{
+				citasClave.remove(posicion);
+			}
+			if (citasClave.isEmpty()) 
+			{
+				indice.remove(clave);
+			}
+		}
 	}
 
 	@Override
@@ -166,12 +423,12 @@ public class Citas implements ICitas {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede buscar una cita nula.");
 		}
-		int indice = coleccionCitas.indexOf(cita);
-		if (indice == -1) 
+		Cita encontrada = coleccionCitas.get(cita);
+		if (encontrada == null) 
 		{
 			return null;
 		} else {
-			return new Cita(coleccionCitas.get(indice));
+			return new Cita(encontrada);
 		}
 	}
 	
@@ -182,12 +439,49 @@ public class Citas implements ICitas {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede borrar una cita nula.");
 		}
-		int indice = coleccionCitas.indexOf(cita);
-		if (indice == -1) 
+		Cita borrada = coleccionCitas.remove(cita);
+		if (borrada == null) 
 		{
 			throw new OperationNotSupportedException("ERROR: No existe ninguna cita con esa hora.");
 		} else {
-			coleccionCitas.remove(indice);
+			desindexar(borrada);
+			vista = null;
+		}
+	}
+	
+	@Override
+	public int borrarTodas(Sesion sesion) 
+	{
+		if (sesion == null) 
+		{
+			throw new NullPointerException("ERROR: La sesión no puede ser nula.");
+		}
+		return borrarIndexadas(citasPorSesion.remove(sesion));
+	}
+	
+	@Override
+	public int borrarTodas(Alumno alumno) 
+	{
+		if (alumno == null) 
+		{
+			throw new NullPointerException("ERROR: El alumno no puede ser nulo.");
+		}
+		return borrarIndexadas(citasPorAlumno.remove(alumno));
+	}
+	
+	// La lista ya se ha sacado de su índice, así que desindexar solo toca los otros dos
+	private int borrarIndexadas(List<Cita> borradas) 
+	{
+		if (borradas == null) 
+		{
+			return 0;
+		}
+		for (Cita cita : borradas) 
+		{
+			coleccionCitas.remove(cita);
+			desindexar(cita);
 		}
+		vista = null;
+		return borradas.size();
 	}
 }
@@ -0,0 +1,109 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Escritura de instantáneas de los ficheros de datos: el contenido se escribe a través de un buffer
+ * a un fichero temporal en el mismo directorio, se fuerza a disco y se renombra sobre el
+ * fichero destino, de forma que un fallo a mitad de escritura deja intacto el fichero anterior.
+ * Cada escritura usa su propio temporal, así que dos escritores del mismo fichero no se pisan.
+ * El temporal se crea con los permisos por defecto, como un fichero nuevo, y si el destino ya
+ * existe recibe sus permisos antes del renombrado para que el fichero no los pierda al reemplazarlo.
+ */
+public final class EscritorAtomico {
+
+	private static final int TAMANO_BUFFER = 64 * 1024;
+	private static final String SUFIJO_TEMPORAL = ".tmp";
+
+	@FunctionalInterface
+	public interface ContenidoFichero {
+		void escribir(OutputStream salida) throws IOException;
+	}
+
+	private EscritorAtomico() 
+	{
+	}
+
+	public static void escribir(File fichero, ContenidoFichero contenido) throws IOException 
+	{
+		Path destino = fichero.getAbsoluteFile().toPath();
+		Path directorio = destino.getParent();
+		Files.createDirectories(directorio);
+		Path temporal = crearTemporal(destino);
+		try {
+			try (FileOutputStream salidaFichero = new FileOutputStream(temporal.toFile())) {
+				BufferedOutputStream salida = new BufferedOutputStream(salidaFichero, TAMANO_BUFFER);
+				contenido.escribir(salida);
+				salida.flush();
+				salidaFichero.getFD().sync();
+			}
+			copiarPermisos(destino, temporal);
+			renombrar(temporal, destino);
+			sincronizar(directorio);
+		} finally {
+			Files.deleteIfExists(temporal);
+		}
+	}
+
+	/*
+	 * Files.createTempFile crearía el temporal solo legible por su dueño (0600): se crea como
+	 * cualquier otro fichero, con un nombre al azar que no exista ya.
+	 */
+	private static Path crearTemporal(Path destino) throws IOException 
+	{
+		while (true) 
+		{
+			Path temporal = destino.resolveSibling(destino.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + SUFIJO_TEMPORAL);
+			try {
+				Files.newOutputStream(temporal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+				return temporal;
+			} catch (FileAlreadyExistsException e) {
+				// Otro escritor ha elegido el mismo nombre: se prueba con otro
+			}
+		}
+	}
+
+	private static void copiarPermisos(Path origen, Path destino) throws IOException 
+	{
+		if (Files.exists(origen) && Files.getFileAttributeView(destino, PosixFileAttributeView.class) != null) 
+		{
+			Files.setPosixFilePermissions(destino, Files.getPosixFilePermissions(origen));
+		}
+	}
+
+	private static void renombrar(Path origen, Path destino) throws IOException 
+	{
+		try {
+			Files.move(origen, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/*
+	 * Fuerza a disco el directorio para que el renombrado también sobreviva a una caída. Hay sistemas
+	 * (Windows) que no dejan abrir un directorio: en ellos basta con el renombrado.
+	 */
+	private static void sincronizar(Path directorio)
+	{
+		try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+			canal.force(true);
+		} catch (IOException e) {
+			// El sistema no permite sincronizar directorios
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
+import javax.naming.OperationNotSupportedException;
+
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
@@ -42,5 +44,13 @@ public class FactoriaFuenteDatosFicheros implements IFuenteDatos {
 	{
 		return new Citas();
 	}
+
+
+	// Los cambios se hacen en memoria y se guardan todos juntos al terminar
+	@Override
+	public int aplicarJuntos(Cambios cambios) throws OperationNotSupportedException 
+	{
+		return cambios.aplicar();
+	}
 	
-}
+}
\ No newline at end of file
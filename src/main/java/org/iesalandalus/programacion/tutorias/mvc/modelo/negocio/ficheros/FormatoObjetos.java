@@ -0,0 +1,50 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Formato original de los ficheros de datos: un fichero de objetos con serialización de Java.
+ */
+public class FormatoObjetos<T> implements IFormatoFichero<T> {
+
+	private File fichero;
+	private Class<T> tipo;
+
+	public FormatoObjetos(String nombreFichero, Class<T> tipo) 
+	{
+		if (nombreFichero == null) 
+		{
+			throw new NullPointerException("ERROR: El nombre del fichero no puede ser nulo.");
+		}
+		if (tipo == null) 
+		{
+			throw new NullPointerException("ERROR: El tipo de los objetos no puede ser nulo.");
+		}
+		this.fichero = new File(nombreFichero);
+		this.tipo = tipo;
+	}
+
+	@Override
+	public List<T> leer() throws IOException, ClassNotFoundException 
+	{
+		return LectorFicheroObjetos.leer(fichero, tipo);
+	}
+
+	@Override
+	public void escribir(Collection<T> elementos) throws IOException 
+	{
+		EscritorAtomico.escribir(fichero, salida -> {
+			ObjectOutputStream salidaObjetos = new ObjectOutputStream(salida);
+			for (T elemento : elementos) 
+			{
+				salidaObjetos.writeObject(elemento);
+			}
+			salidaObjetos.flush();
+		});
+	}
+
+}
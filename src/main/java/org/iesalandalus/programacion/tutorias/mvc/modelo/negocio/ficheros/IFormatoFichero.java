@@ -0,0 +1,13 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+public interface IFormatoFichero<T> {
+
+	List<T> leer() throws IOException, ClassNotFoundException;
+
+	void escribir(Collection<T> elementos) throws IOException;
+
+}
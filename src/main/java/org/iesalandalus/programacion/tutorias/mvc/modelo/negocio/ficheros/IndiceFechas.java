@@ -0,0 +1,96 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+
+/*
+ * Índice por la fecha de la sesión: cada día guarda sus elementos ordenados, de modo que una
+ * consulta por fechas solo recorre los días del intervalo y se detiene al llenar la página.
+ */
+class IndiceFechas<T> {
+
+	private final Function<T, LocalDate> fecha;
+	private final Comparator<T> orden;
+	private final TreeMap<LocalDate, List<T>> elementosPorFecha;
+
+	IndiceFechas(Function<T, LocalDate> fecha, Comparator<T> orden)
+	{
+		this.fecha = fecha;
+		this.orden = orden;
+		elementosPorFecha = new TreeMap<>();
+	}
+
+	void insertar(T elemento)
+	{
+		List<T> delDia = elementosPorFecha.computeIfAbsent(fecha.apply(elemento), dia -> new ArrayList<>());
+		int posicion = Collections.binarySearch(delDia, elemento, orden);
+		if (posicion < 0)
+		{
+			delDia.add(-posicion - 1, elemento);
+		}
+	}
+
+	void borrar(T elemento)
+	{
+		LocalDate dia = fecha.apply(elemento);
+		List<T> delDia = elementosPorFecha.get(dia);
+		if (delDia != null)
+		{
+			int posicion = Collections.binarySearch(delDia, elemento, orden);
+			if (posicion >= 0)
+			{
+				delDia.remove(posicion);
+			}
+			if (delDia.isEmpty())
+			{
+				elementosPorFecha.remove(dia);
+			}
+		}
+	}
+
+	void vaciar()
+	{
+		elementosPorFecha.clear();
+	}
+
+	Pagina<T> get(LocalDate desde, LocalDate hasta, T despuesDe, int tamano)
+	{
+		Pagina.comprobarIntervalo(desde, hasta);
+		Pagina.comprobarTamano(tamano);
+		LocalDate diaCursor = despuesDe == null ? null : fecha.apply(despuesDe);
+		LocalDate inicio = diaCursor != null && diaCursor.isAfter(desde) ? diaCursor : desde;
+		List<T> elementos = new ArrayList<>();
+		if (inicio.isAfter(hasta))
+		{
+			return new Pagina<>(elementos, false);
+		}
+		for (Map.Entry<LocalDate, List<T>> dia : elementosPorFecha.subMap(inicio, true, hasta, true).entrySet())
+		{
+			List<T> delDia = dia.getValue();
+			int posicion = 0;
+			if (dia.getKey().equals(diaCursor))
+			{
+				posicion = Collections.binarySearch(delDia, despuesDe, orden);
+				posicion = posicion < 0 ? -posicion - 1 : posicion + 1;
+			}
+			for (; posicion < delDia.size(); posicion++)
+			{
+				if (elementos.size() == tamano)
+				{
+					return new Pagina<>(elementos, true);
+				}
+				elementos.add(delDia.get(posicion));
+			}
+		}
+		return new Pagina<>(elementos, false);
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Lectura masiva de los ficheros de objetos: se leen todos los registros de una vez
+ * y cada colección comprueba los repetidos en una sola pasada, en lugar de llamar
+ * a insertar (con su búsqueda y su copia) por cada objeto leído.
+ */
+final class LectorFicheroObjetos {
+
+	private static final int TAMANO_BUFFER = 64 * 1024;
+	private static final float FACTOR_CARGA = 0.75f;
+
+	private LectorFicheroObjetos() 
+	{
+	}
+
+	static <T> List<T> leer(File fichero, Class<T> tipo) throws IOException, ClassNotFoundException 
+	{
+		List<T> objetosLeidos = new ArrayList<>();
+		try (ObjectInputStream entrada = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fichero), TAMANO_BUFFER))) {
+			while (true) 
+			{
+				objetosLeidos.add(tipo.cast(entrada.readObject()));
+			}
+		} catch (EOFException e) {
+			// Fin del fichero: ya se han leído todos los objetos
+		}
+		return objetosLeidos;
+	}
+
+	static int capacidadHash(int elementos) 
+	{
+		return (int) (elementos / FACTOR_CARGA) + 1;
+	}
+
+}
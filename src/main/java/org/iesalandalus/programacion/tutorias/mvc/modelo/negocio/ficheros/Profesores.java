@@ -1,16 +1,13 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -22,35 +19,57 @@ public class Profesores implements IProfesores {
 
 	private static final String NOMBRE_FICHERO_PROFESORES = "datos/profesores.dat";
 	
-	private List<Profesor> coleccionProfesores;
+	private IFormatoFichero<Profesor> formato;
+	// Árbol ordenado por DNI (el campo que usa Profesor.equals)
+	private TreeMap<String, Profesor> coleccionProfesores;
+	// Copia ordenada de solo lectura de la colección; se descarta cada vez que esta cambia
+	private volatile List<Profesor> vista;
 	
 	public Profesores() 
 	{
-		coleccionProfesores = new ArrayList<>();
+		this(new FormatoObjetos<>(NOMBRE_FICHERO_PROFESORES, Profesor.class));
+	}
+	
+	public Profesores(IFormatoFichero<Profesor> formato) 
+	{
+		if (formato == null) 
+		{
+			throw new NullPointerException("ERROR: El formato del fichero no puede ser nulo.");
+		}
+		this.formato = formato;
+		coleccionProfesores = new TreeMap<>();
 	}
 	
 	@Override
 	public void comenzar() 
 	{
 		//Leer
-		File ficheroProfesores = new File(NOMBRE_FICHERO_PROFESORES);
-		try (ObjectInputStream entrada = new ObjectInputStream(new FileInputStream(ficheroProfesores))) {
-			Profesor profesor = null;
-			do 
-			{
-				profesor = (Profesor) entrada.readObject();
-				insertar(profesor);
-			} while (profesor != null);
+		try {
+			cargar(formato.leer());
+			System.out.println("Fichero profesores leído satisfactoriamente.");
 		} catch (ClassNotFoundException e) {
 			System.out.println("No puedo encontrar la clase que tengo que leer.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo abrir el fichero de profesores.");
-		} catch (EOFException e) {
-			System.out.println("Fichero profesores leído satisfactoriamente.");
 		} catch (IOException e) {
 			System.out.println("Error inesperado de Entrada/Salida.");
-		} catch (OperationNotSupportedException e) {
-			System.out.println(e.getMessage());
+		}
+	}
+
+	private void cargar(List<Profesor> profesoresLeidos) 
+	{
+		int repetidos = 0;
+		for (Profesor profesor : profesoresLeidos) 
+		{
+			if (coleccionProfesores.putIfAbsent(profesor.getDni(), profesor) != null) 
+			{
+				repetidos++;
+			}
+		}
+		vista = null;
+		if (repetidos > 0) 
+		{
+			System.out.println("Se han descartado " + repetidos + " profesores repetidos en el fichero de profesores.");
 		}
 	}
 
@@ -58,10 +77,8 @@ public class Profesores implements IProfesores {
 	public void terminar() 
 	{
 		//Escribir
-		File ficheroProfesores = new File(NOMBRE_FICHERO_PROFESORES);
-		try (ObjectOutputStream salida = new ObjectOutputStream(new FileOutputStream(ficheroProfesores))){
-			for (Profesor profesor : coleccionProfesores)
-				salida.writeObject(profesor);
+		try {
+			guardar();
 			System.out.println("Fichero profesores escrito satisfactoriamente.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo crear el fichero de profesores.");
@@ -69,25 +86,46 @@ public class Profesores implements IProfesores {
 			System.out.println("Error inesperado de Entrada/Salida.");
 		}
 	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		formato.escribir(coleccionProfesores.values());
+	}
 	
 	@Override
 	public List<Profesor> get() 
 	{
-		List<Profesor> profesoresOrdenados = copiaProfundaProfesores();
-		profesoresOrdenados.sort(Comparator.comparing(Profesor::getDni));
-		return profesoresOrdenados;
+		return copiaProfundaProfesores(getVista());
 	}
 	
-	private List<Profesor> copiaProfundaProfesores()
+	@Override
+	public List<Profesor> getVista() 
 	{
-		List<Profesor> copiaProfesores = new ArrayList<>();
-		for (Profesor profesor : coleccionProfesores) 
+		if (vista == null) 
+		{
+			vista = Collections.unmodifiableList(new ArrayList<>(coleccionProfesores.values()));
+		}
+		return vista;
+	}
+	
+	private List<Profesor> copiaProfundaProfesores(Collection<Profesor> profesores)
+	{
+		List<Profesor> copiaProfesores = new ArrayList<>(profesores.size());
+		for (Profesor profesor : profesores) 
 		{
 			copiaProfesores.add(new Profesor(profesor));
 		}
 		return copiaProfesores;
 	}
 	
+	@Override
+	public Stream<Profesor> stream() 
+	{
+		return Recorrido.flujo(() -> Recorrido.valor(coleccionProfesores.firstEntry()), 
+				profesor -> Recorrido.valor(coleccionProfesores.higherEntry(profesor.getDni())));
+	}
+	
 	@Override
 	public int getTamano() 
 	{
@@ -101,10 +139,10 @@ public class Profesores implements IProfesores {
 		{
 			throw new NullPointerException("ERROR: No se puede insertar un profesor nulo.");
 		}
-		int indice = coleccionProfesores.indexOf(profesor);
-		if (indice == -1) 
+		if (!coleccionProfesores.containsKey(profesor.getDni())) 
 		{
-			coleccionProfesores.add(new Profesor(profesor));
+			coleccionProfesores.put(profesor.getDni(), new Profesor(profesor));
+			vista = null;
 		} else {
 			throw new OperationNotSupportedException("ERROR: Ya existe un profesor con ese DNI.");
 		}		
@@ -118,12 +156,12 @@ public class Profesores implements IProfesores {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede buscar un profesor nulo.");
 		}
-		int indice = coleccionProfesores.indexOf(profesor);
-		if (indice == -1) 
+		Profesor encontrado = coleccionProfesores.get(profesor.getDni());
+		if (encontrado == null) 
 		{
 			return null;
 		} else {
-			return new Profesor(coleccionProfesores.get(indice));
+			return new Profesor(encontrado);
 		}
 	}
 	
@@ -134,12 +172,11 @@ public class Profesores implements IProfesores {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede borrar un profesor nulo.");
 		}
-		int indice = coleccionProfesores.indexOf(profesor);
-		if (indice == -1) 
+		if (coleccionProfesores.remove(profesor.getDni()) == null) 
 		{
 			throw new OperationNotSupportedException("ERROR: No existe ningún profesor con ese DNI.");
 		} else {
-			coleccionProfesores.remove(indice);
+			vista = null;
 		}
 	}
 }
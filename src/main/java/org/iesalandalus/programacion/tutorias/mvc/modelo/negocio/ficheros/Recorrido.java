@@ -0,0 +1,59 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Flujo perezoso sobre una colección ordenada que no guarda posiciones ni copias: cada elemento
+ * se busca en la colección a partir del anterior, así que el recorrido sigue siendo válido
+ * aunque se inserte o se borre entre dos elementos, y ve los cambios posteriores al cursor.
+ */
+class Recorrido<T> extends Spliterators.AbstractSpliterator<T> {
+
+	private final Supplier<T> primero;
+	private final UnaryOperator<T> siguiente;
+	private T actual;
+	private boolean terminado;
+
+	private Recorrido(Supplier<T> primero, UnaryOperator<T> siguiente)
+	{
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+		this.primero = primero;
+		this.siguiente = siguiente;
+	}
+
+	/* El primer elemento se busca al empezar a consumir el flujo, no al crearlo */
+	static <T> Stream<T> flujo(Supplier<T> primero, UnaryOperator<T> siguiente)
+	{
+		return StreamSupport.stream(new Recorrido<>(primero, siguiente), false);
+	}
+
+	static <T> T valor(Map.Entry<?, T> entrada)
+	{
+		return entrada == null ? null : entrada.getValue();
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> accion)
+	{
+		if (terminado)
+		{
+			return false;
+		}
+		actual = actual == null ? primero.get() : siguiente.apply(actual);
+		if (actual == null)
+		{
+			terminado = true;
+			return false;
+		}
+		accion.accept(actual);
+		return true;
+	}
+
+}
@@ -1,57 +1,86 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
-import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.OrdenNatural;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
 
 public class Sesiones implements ISesiones {
 	
 	private static final String NOMBRE_FICHERO_SESIONES = "datos/sesiones.dat";
 	
-	private List<Sesion> coleccionSesiones;
+	private IFormatoFichero<Sesion> formato;
+	// Árbol ordenado por tutoría y fecha: las sesiones de cada tutoría quedan consecutivas
+	private TreeMap<Sesion, Sesion> coleccionSesiones;
+	private IndiceFechas<Sesion> sesionesPorFecha;
+	// Copia ordenada de solo lectura de la colección; se descarta cada vez que esta cambia
+	private volatile List<Sesion> vista;
 	
 	public Sesiones() 
 	{
-		coleccionSesiones = new ArrayList<>();
+		this(new FormatoObjetos<>(NOMBRE_FICHERO_SESIONES, Sesion.class));
+	}
+	
+	public Sesiones(IFormatoFichero<Sesion> formato) 
+	{
+		if (formato == null) 
+		{
+			throw new NullPointerException("ERROR: El formato del fichero no puede ser nulo.");
+		}
+		this.formato = formato;
+		coleccionSesiones = new TreeMap<>(OrdenNatural.SESIONES);
+		sesionesPorFecha = new IndiceFechas<>(Sesion::getFecha, OrdenNatural.SESIONES);
 	}
 	
 	@Override
 	public void comenzar() 
 	{
 		//Leer
-		File ficheroSesiones = new File(NOMBRE_FICHERO_SESIONES);
-		try (ObjectInputStream entrada = new ObjectInputStream(new FileInputStream(ficheroSesiones))) {
-			Sesion sesion = null;
-			do 
-			{
-				sesion = (Sesion) entrada.readObject();
-				insertar(sesion);
-			} while (sesion != null);
+		try {
+			cargar(formato.leer());
+			System.out.println("Fichero sesiones leído satisfactoriamente.");
 		} catch (ClassNotFoundException e) {
 			System.out.println("No puedo encontrar la clase que tengo que leer.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo abrir el fichero de sesiones.");
-		} catch (EOFException e) {
-			System.out.println("Fichero sesiones leído satisfactoriamente.");
 		} catch (IOException e) {
 			System.out.println("Error inesperado de Entrada/Salida.");
-		} catch (OperationNotSupportedException e) {
-			System.out.println(e.getMessage());
+		}
+	}
+
+	private void cargar(List<Sesion> sesionesLeidas) 
+	{
+		int repetidas = 0;
+		for (Sesion sesion : sesionesLeidas) 
+		{
+			if (coleccionSesiones.putIfAbsent(sesion, sesion) == null) 
+			{
+				sesionesPorFecha.insertar(sesion);
+			} else {
+				repetidas++;
+			}
+		}
+		vista = null;
+		if (repetidas > 0) 
+		{
+			System.out.println("Se han descartado " + repetidas + " sesiones repetidas en el fichero de sesiones.");
 		}
 	}
 
@@ -59,10 +88,8 @@ public class Sesiones implements ISesiones {
 	public void terminar() 
 	{
 		//Escribir
-		File ficheroSesiones = new File(NOMBRE_FICHERO_SESIONES);
-		try (ObjectOutputStream salida = new ObjectOutputStream(new FileOutputStream(ficheroSesiones))){
-			for (Sesion sesion : coleccionSesiones)
-				salida.writeObject(sesion);
+		try {
+			guardar();
 			System.out.println("Fichero sesiones escrito satisfactoriamente.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo crear el fichero de sesiones.");
@@ -70,21 +97,66 @@ public class Sesiones implements ISesiones {
 			System.out.println("Error inesperado de Entrada/Salida.");
 		}
 	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		formato.escribir(coleccionSesiones.values());
+	}
+
+	/*
+	 * Fase de enlace: cada sesión pasa a apuntar a la instancia de su tutoría que se recibe.
+	 * Devuelve cuántas sesiones tienen una tutoría que no está en la lista.
+	 */
+	@Override
+	public int enlazar(List<Tutoria> tutorias) 
+	{
+		Map<Tutoria, Tutoria> instancias = new HashMap<>(LectorFicheroObjetos.capacidadHash(tutorias.size()));
+		for (Tutoria tutoria : tutorias) 
+		{
+			instancias.put(tutoria, tutoria);
+		}
+		// Las claves del árbol también deben ser las instancias nuevas
+		TreeMap<Sesion, Sesion> sesionesEnlazadas = new TreeMap<>(OrdenNatural.SESIONES);
+		sesionesPorFecha.vaciar();
+		int sinEnlazar = 0;
+		for (Sesion sesion : coleccionSesiones.values()) 
+		{
+			Tutoria tutoria = instancias.get(sesion.getTutoria());
+			if (tutoria == null) 
+			{
+				sinEnlazar++;
+			} else {
+				sesion = Sesion.restaurar(tutoria, sesion.getFecha(), sesion.getHoraInicio(), sesion.getHoraFin(), sesion.getMinutosDuracion());
+			}
+			sesionesEnlazadas.put(sesion, sesion);
+			sesionesPorFecha.insertar(sesion);
+		}
+		coleccionSesiones = sesionesEnlazadas;
+		vista = null;
+		return sinEnlazar;
+	}
 	
 	@Override
 	public List<Sesion> get() 
 	{
-		List<Sesion> sesionesOrdenadas = copiaProfundaSesiones();
-		Comparator<Profesor> comparadorP = Comparator.comparing(Profesor::getDni);
-		Comparator<Tutoria> comparadorT = Comparator.comparing(Tutoria::getProfesor, comparadorP).thenComparing(Tutoria::getNombre);
-		sesionesOrdenadas.sort(Comparator.comparing(Sesion::getTutoria, comparadorT).thenComparing(Sesion::getFecha));
-		return sesionesOrdenadas;
+		return copiaProfundaSesiones(getVista());
+	}
+	
+	@Override
+	public List<Sesion> getVista() 
+	{
+		if (vista == null) 
+		{
+			vista = Collections.unmodifiableList(new ArrayList<>(coleccionSesiones.values()));
+		}
+		return vista;
 	}
 	
-	private List<Sesion> copiaProfundaSesiones() 
+	private List<Sesion> copiaProfundaSesiones(Collection<Sesion> sesiones) 
 	{
-		List<Sesion> copiaSesiones = new ArrayList<>();
-		for (Sesion sesion : coleccionSesiones) 
+		List<Sesion> copiaSesiones = new ArrayList<>(sesiones.size());
+		for (Sesion sesion : sesiones) 
 		{
 			copiaSesiones.add(new Sesion(sesion));
 		}
@@ -99,23 +171,106 @@ public class Sesiones implements ISesiones {
 			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
 		}			
 		List<Sesion> copiaSesionesTutoria = new ArrayList<>();
-		for (Sesion sesion : coleccionSesiones) 
+		for (Sesion sesion : coleccionSesiones.tailMap(clave(tutoria, LocalDate.MIN)).values()) 
 		{
-			if (sesion.getTutoria().equals(tutoria)) 
+			if (!sesion.getTutoria().equals(tutoria)) 
 			{
-				copiaSesionesTutoria.add(new Sesion(sesion));			
+				break;
 			}
+			copiaSesionesTutoria.add(new Sesion(sesion));
 		}
-		copiaSesionesTutoria.sort(Comparator.comparing(Sesion::getFecha));
 		return copiaSesionesTutoria;
 	}
 
+	@Override
+	public Pagina<Sesion> get(LocalDate desde, LocalDate hasta, Sesion despuesDe, int tamano) 
+	{
+		return sesionesPorFecha.get(desde, hasta, despuesDe, tamano);
+	}
+	
+	@Override
+	public Pagina<Sesion> get(Tutoria tutoria, LocalDate desde, Sesion despuesDe, int tamano) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		if (desde == null) 
+		{
+			throw new NullPointerException("ERROR: Las fechas de la consulta no pueden ser nulas.");
+		}
+		Pagina.comprobarTamano(tamano);
+		// El cursor solo sirve si es una sesión de la misma tutoría a partir de la fecha pedida
+		Map<Sesion, Sesion> siguientes;
+		if (despuesDe != null && despuesDe.getTutoria().equals(tutoria) && !despuesDe.getFecha().isBefore(desde)) 
+		{
+			siguientes = coleccionSesiones.tailMap(despuesDe, false);
+		} else {
+			siguientes = coleccionSesiones.tailMap(clave(tutoria, desde), true);
+		}
+		List<Sesion> elementos = new ArrayList<>();
+		for (Sesion sesion : siguientes.values()) 
+		{
+			if (!sesion.getTutoria().equals(tutoria)) 
+			{
+				break;
+			}
+			if (elementos.size() == tamano) 
+			{
+				return new Pagina<>(elementos, true);
+			}
+			elementos.add(sesion);
+		}
+		return new Pagina<>(elementos, false);
+	}
+
+	@Override
+	public Stream<Sesion> stream() 
+	{
+		return Recorrido.flujo(() -> Recorrido.valor(coleccionSesiones.firstEntry()), 
+				sesion -> coleccionSesiones.higherKey(sesion));
+	}
+	
+	@Override
+	public Stream<Sesion> stream(Tutoria tutoria) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		Sesion primera = clave(tutoria, LocalDate.MIN);
+		return Recorrido.flujo(() -> deTutoria(coleccionSesiones.ceilingKey(primera), tutoria), 
+				sesion -> deTutoria(coleccionSesiones.higherKey(sesion), tutoria));
+	}
+	
+	private static Sesion deTutoria(Sesion sesion, Tutoria tutoria) 
+	{
+		return sesion != null && sesion.getTutoria().equals(tutoria) ? sesion : null;
+	}
+	
 	@Override
 	public int getTamano() 
 	{
 		return coleccionSesiones.size();
 	}
 	
+	// Clave de búsqueda: el árbol solo compara la tutoría y la fecha
+	private static Sesion clave(Tutoria tutoria, LocalDate fecha)
+	{
+		return Sesion.restaurar(tutoria, fecha, LocalTime.of(16, 0), LocalTime.of(16, 15), 15);
+	}
+	
+	// Todas las sesiones de una tutoría comparten la misma instancia
+	private Tutoria instancia(Tutoria tutoria)
+	{
+		Sesion primera = coleccionSesiones.ceilingKey(clave(tutoria, LocalDate.MIN));
+		if (primera != null && primera.getTutoria().equals(tutoria))
+		{
+			return primera.getTutoria();
+		}
+		return tutoria;
+	}
+	
 	@Override
 	public void insertar(Sesion sesion) throws OperationNotSupportedException
 	{
@@ -123,10 +278,13 @@ public class Sesiones implements ISesiones {
 		{
 			throw new NullPointerException("ERROR: No se puede insertar una sesión nula.");
 		}
-		int indice = coleccionSesiones.indexOf(sesion);
-		if (indice == -1) 
+		if (!coleccionSesiones.containsKey(sesion)) 
 		{
-			coleccionSesiones.add(new Sesion(sesion));
+			Sesion copiaSesion = Sesion.restaurar(instancia(sesion.getTutoria()), sesion.getFecha(), sesion.getHoraInicio(),
+					sesion.getHoraFin(), sesion.getMinutosDuracion());
+			coleccionSesiones.put(copiaSesion, copiaSesion);
+			sesionesPorFecha.insertar(copiaSesion);
+			vista = null;
 		} else {
 			throw new OperationNotSupportedException("ERROR: Ya existe una sesión con esa fecha.");
 		}		
@@ -140,12 +298,12 @@ public class Sesiones implements ISesiones {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede buscar una sesión nula.");
 		}
-		int indice = coleccionSesiones.indexOf(sesion);
-		if (indice == -1) 
+		Sesion encontrada = coleccionSesiones.get(sesion);
+		if (encontrada == null) 
 		{
 			return null;
 		} else {
-			return new Sesion(coleccionSesiones.get(indice));
+			return new Sesion(encontrada);
 		}
 	}
 	
@@ -156,12 +314,40 @@ public class Sesiones implements ISesiones {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede borrar una sesión nula.");
 		}
-		int indice = coleccionSesiones.indexOf(sesion);
-		if (indice == -1) 
+		Sesion borrada = coleccionSesiones.remove(sesion);
+		if (borrada == null) 
 		{
 			throw new OperationNotSupportedException("ERROR: No existe ninguna sesión con esa fecha.");
 		} else {
-			coleccionSesiones.remove(indice);
+			sesionesPorFecha.borrar(borrada);
+			vista = null;
+		}
+	}
+	
+	@Override
+	public List<Sesion> borrarTodas(Tutoria tutoria) 
+	{
+		if (tutoria == null) 
+		{
+			throw new NullPointerException("ERROR: La tutoría no puede ser nula.");
+		}
+		List<Sesion> borradas = new ArrayList<>();
+		Iterator<Sesion> siguientes = coleccionSesiones.tailMap(clave(tutoria, LocalDate.MIN)).keySet().iterator();
+		while (siguientes.hasNext()) 
+		{
+			Sesion sesion = siguientes.next();
+			if (!sesion.getTutoria().equals(tutoria)) 
+			{
+				break;
+			}
+			borradas.add(sesion);
+			siguientes.remove();
+			sesionesPorFecha.borrar(sesion);
+		}
+		if (!borradas.isEmpty()) 
+		{
+			vista = null;
 		}
+		return borradas;
 	}
 }
@@ -1,56 +1,79 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.OrdenNatural;
 
 public class Tutorias implements ITutorias {
 
 	private static final String NOMBRE_FICHERO_TUTORIAS = "datos/tutorias.dat";
 	
-	private List<Tutoria> coleccionTutorias;
+	private IFormatoFichero<Tutoria> formato;
+	// Árbol ordenado por DNI del profesor y nombre: recorrerlo ya da el listado ordenado
+	private TreeMap<Tutoria, Tutoria> coleccionTutorias;
+	// Copia ordenada de solo lectura de la colección; se descarta cada vez que esta cambia
+	private volatile List<Tutoria> vista;
 	
 	public Tutorias() 
 	{
-		coleccionTutorias = new ArrayList<>();
+		this(new FormatoObjetos<>(NOMBRE_FICHERO_TUTORIAS, Tutoria.class));
+	}
+	
+	public Tutorias(IFormatoFichero<Tutoria> formato) 
+	{
+		if (formato == null) 
+		{
+			throw new NullPointerException("ERROR: El formato del fichero no puede ser nulo.");
+		}
+		this.formato = formato;
+		coleccionTutorias = new TreeMap<>(OrdenNatural.TUTORIAS);
 	}
 	
 	@Override
 	public void comenzar() 
 	{
 		//Leer
-		File ficheroTutorias = new File(NOMBRE_FICHERO_TUTORIAS);
-		try (ObjectInputStream entrada = new ObjectInputStream(new FileInputStream(ficheroTutorias))) {
-			Tutoria tutoria = null;
-			do 
-			{
-				tutoria = (Tutoria) entrada.readObject();
-				insertar(tutoria);
-			} while (tutoria != null);
+		try {
+			cargar(formato.leer());
+			System.out.println("Fichero tutorias leído satisfactoriamente.");
 		} catch (ClassNotFoundException e) {
 			System.out.println("No puedo encontrar la clase que tengo que leer.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo abrir el fichero de tutorias.");
-		} catch (EOFException e) {
-			System.out.println("Fichero tutorias leído satisfactoriamente.");
 		} catch (IOException e) {
 			System.out.println("Error inesperado de Entrada/Salida.");
-		} catch (OperationNotSupportedException e) {
-			System.out.println(e.getMessage());
+		}
+	}
+
+	private void cargar(List<Tutoria> tutoriasLeidas) 
+	{
+		int repetidas = 0;
+		for (Tutoria tutoria : tutoriasLeidas) 
+		{
+			if (coleccionTutorias.putIfAbsent(tutoria, tutoria) != null) 
+			{
+				repetidas++;
+			}
+		}
+		vista = null;
+		if (repetidas > 0) 
+		{
+			System.out.println("Se han descartado " + repetidas + " tutorías repetidas en el fichero de tutorias.");
 		}
 	}
 
@@ -58,10 +81,8 @@ public class Tutorias implements ITutorias {
 	public void terminar() 
 	{
 		//Escribir
-		File ficheroTutorias = new File(NOMBRE_FICHERO_TUTORIAS);
-		try (ObjectOutputStream salida = new ObjectOutputStream(new FileOutputStream(ficheroTutorias))){
-			for (Tutoria tutoria : coleccionTutorias)
-				salida.writeObject(tutoria);
+		try {
+			guardar();
 			System.out.println("Fichero tutorias escrito satisfactoriamente.");
 		} catch (FileNotFoundException e) {
 			System.out.println("No puedo crear el fichero de tutorias.");
@@ -69,20 +90,65 @@ public class Tutorias implements ITutorias {
 			System.out.println("Error inesperado de Entrada/Salida.");
 		}
 	}
+
+	@Override
+	public void guardar() throws IOException 
+	{
+		formato.escribir(coleccionTutorias.values());
+	}
+
+	/*
+	 * Fase de enlace: cada tutoría pasa a apuntar a la instancia de su profesor que se recibe,
+	 * de modo que todas las tutorías de un profesor la comparten. Devuelve cuántas tutorías
+	 * tienen un profesor que no está en la lista.
+	 */
+	@Override
+	public int enlazar(List<Profesor> profesores) 
+	{
+		Map<Profesor, Profesor> instancias = new HashMap<>(LectorFicheroObjetos.capacidadHash(profesores.size()));
+		for (Profesor profesor : profesores) 
+		{
+			instancias.put(profesor, profesor);
+		}
+		// Las claves del árbol también deben ser las instancias nuevas
+		TreeMap<Tutoria, Tutoria> tutoriasEnlazadas = new TreeMap<>(OrdenNatural.TUTORIAS);
+		int sinEnlazar = 0;
+		for (Tutoria tutoria : coleccionTutorias.values()) 
+		{
+			Profesor profesor = instancias.get(tutoria.getProfesor());
+			if (profesor == null) 
+			{
+				sinEnlazar++;
+			} else {
+				tutoria = Tutoria.restaurar(profesor, tutoria.getNombre());
+			}
+			tutoriasEnlazadas.put(tutoria, tutoria);
+		}
+		coleccionTutorias = tutoriasEnlazadas;
+		vista = null;
+		return sinEnlazar;
+	}
 	
 	@Override
 	public List<Tutoria> get() 
 	{
-		List<Tutoria> tutoriasOrdenadas = copiaProfundaTutorias();
-		Comparator<Profesor> comparadorP = Comparator.comparing(Profesor::getDni);
-		tutoriasOrdenadas.sort(Comparator.comparing(Tutoria::getProfesor, comparadorP).thenComparing(Tutoria::getNombre));
-		return tutoriasOrdenadas;
+		return copiaProfundaTutorias(getVista());
 	}
 	
-	private List<Tutoria> copiaProfundaTutorias() 
+	@Override
+	public List<Tutoria> getVista() 
 	{
-		List<Tutoria> copiaTutorias = new ArrayList<>();
-		for (Tutoria tutoria : coleccionTutorias) 
+		if (vista == null) 
+		{
+			vista = Collections.unmodifiableList(new ArrayList<>(coleccionTutorias.values()));
+		}
+		return vista;
+	}
+	
+	private List<Tutoria> copiaProfundaTutorias(Collection<Tutoria> tutorias) 
+	{
+		List<Tutoria> copiaTutorias = new ArrayList<>(tutorias.size());
+		for (Tutoria tutoria : tutorias) 
 		{
 			copiaTutorias.add(new Tutoria(tutoria));
 		}
@@ -96,24 +162,60 @@ public class Tutorias implements ITutorias {
 		{
 			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
 		}			
+		// Las tutorías de un profesor son consecutivas en el árbol: empiezan en la de nombre vacío
 		List<Tutoria> copiaTutoriasProfesor = new ArrayList<>();
-		for (Tutoria tutoria : coleccionTutorias) 
+		for (Tutoria tutoria : coleccionTutorias.tailMap(Tutoria.restaurar(profesor, "")).values()) 
 		{
-			if (tutoria.getProfesor().equals(profesor)) 
+			if (!tutoria.getProfesor().equals(profesor)) 
 			{
-				copiaTutoriasProfesor.add(new Tutoria(tutoria));			
+				break;
 			}
+			copiaTutoriasProfesor.add(new Tutoria(tutoria));
 		}
-		copiaTutoriasProfesor.sort(Comparator.comparing(Tutoria::getNombre));
 		return copiaTutoriasProfesor;
 	}
 
+	@Override
+	public Stream<Tutoria> stream() 
+	{
+		return Recorrido.flujo(() -> Recorrido.valor(coleccionTutorias.firstEntry()), 
+				tutoria -> coleccionTutorias.higherKey(tutoria));
+	}
+	
+	@Override
+	public Stream<Tutoria> stream(Profesor profesor) 
+	{
+		if (profesor == null) 
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		Tutoria primera = Tutoria.restaurar(profesor, "");
+		return Recorrido.flujo(() -> deProfesor(coleccionTutorias.ceilingKey(primera), profesor), 
+				tutoria -> deProfesor(coleccionTutorias.higherKey(tutoria), profesor));
+	}
+	
+	private static Tutoria deProfesor(Tutoria tutoria, Profesor profesor) 
+	{
+		return tutoria != null && tutoria.getProfesor().equals(profesor) ? tutoria : null;
+	}
+	
 	@Override
 	public int getTamano() 
 	{
 		return coleccionTutorias.size();
 	}
 	
+	// Todas las tutorías de un profesor comparten la misma instancia
+	private Profesor instancia(Profesor profesor)
+	{
+		Tutoria primera = coleccionTutorias.ceilingKey(Tutoria.restaurar(profesor, ""));
+		if (primera != null && primera.getProfesor().equals(profesor))
+		{
+			return primera.getProfesor();
+		}
+		return profesor;
+	}
+	
 	@Override
 	public void insertar(Tutoria tutoria) throws OperationNotSupportedException
 	{
@@ -121,10 +223,11 @@ public class Tutorias implements ITutorias {
 		{
 			throw new NullPointerException("ERROR: No se puede insertar una tutoría nula.");
 		}
-		int indice = coleccionTutorias.indexOf(tutoria);
-		if (indice == -1) 
+		if (!coleccionTutorias.containsKey(tutoria)) 
 		{
-			coleccionTutorias.add(new Tutoria(tutoria));
+			Tutoria copiaTutoria = Tutoria.restaurar(instancia(tutoria.getProfesor()), tutoria.getNombre());
+			coleccionTutorias.put(copiaTutoria, copiaTutoria);
+			vista = null;
 		} else {
 			throw new OperationNotSupportedException("ERROR: Ya existe una tutoría con ese identificador.");
 		}		
@@ -138,12 +241,12 @@ public class Tutorias implements ITutorias {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede buscar una tutoría nula.");
 		}
-		int indice = coleccionTutorias.indexOf(tutoria);
-		if (indice == -1) 
+		Tutoria encontrada = coleccionTutorias.get(tutoria);
+		if (encontrada == null) 
 		{
 			return null;
 		} else {
-			return new Tutoria(coleccionTutorias.get(indice));
+			return new Tutoria(encontrada);
 		}
 	}
 	
@@ -154,12 +257,38 @@ public class Tutorias implements ITutorias {
 		{
 			throw new IllegalArgumentException("ERROR: No se puede borrar una tutoría nula.");
 		}
-		int indice = coleccionTutorias.indexOf(tutoria);
-		if (indice == -1) 
+		if (coleccionTutorias.remove(tutoria) == null) 
 		{
 			throw new OperationNotSupportedException("ERROR: No existe ninguna tutoría con ese identificador.");
 		} else {
-			coleccionTutorias.remove(indice);
+			vista = null;
+		}
+	}
+	
+	@Override
+	public List<Tutoria> borrarTodas(Profesor profesor) 
+	{
+		if (profesor == null) 
+		{
+			throw new NullPointerException("ERROR: El profesor no puede ser nulo.");
+		}
+		// Las tutorías del profesor son consecutivas: se quitan del árbol en el mismo recorrido
+		List<Tutoria> borradas = new ArrayList<>();
+		Iterator<Tutoria> siguientes = coleccionTutorias.tailMap(Tutoria.restaurar(profesor, "")).keySet().iterator();
+		while (siguientes.hasNext()) 
+		{
+			Tutoria tutoria = siguientes.next();
+			if (!tutoria.getProfesor().equals(profesor)) 
+			{
+				break;
+			}
+			borradas.add(tutoria);
+			siguientes.remove();
+		}
+		if (!borradas.isEmpty()) 
+		{
+			vista = null;
 		}
+		return borradas;
 	}
 }
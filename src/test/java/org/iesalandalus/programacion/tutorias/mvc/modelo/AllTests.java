@@ -3,11 +3,20 @@ package org.iesalandalus.programacion.tutorias.mvc.modelo;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.AlumnoTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.CitaTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.ProfesorTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.SecuenciaExpedientesTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.SesionTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.TutoriaTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.BuscadorHuecosTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ModeloFicherosTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.basedatos.ModeloBaseDatosTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios.CitasMapeadasTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios.FormatoCitasTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios.SesionesMapeadasTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor.AlmacenLsmTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor.ModeloClaveValorTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.AlumnosTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.CitasTest;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.EscritorAtomicoTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.ProfesoresTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.SesionesTest;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.TutoriasTest;
@@ -18,7 +27,11 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({ AlumnoTest.class, CitaTest.class, ProfesorTest.class, SesionTest.class, TutoriaTest.class,
 	AlumnosTest.class, CitasTest.class, ProfesoresTest.class, SesionesTest.class, TutoriasTest.class,
-	ModeloFicherosTest.class })
+	ModeloFicherosTest.class, FormatoCitasTest.class, CitasMapeadasTest.class, RegistroOperacionesTest.class,
+	BuscadorHuecosTest.class, ModeloConcurrenteTest.class, SecuenciaExpedientesTest.class,
+	InstantaneaTest.class, AlmacenLsmTest.class, ModeloClaveValorTest.class,
+	ModeloBaseDatosTest.class, SesionesMapeadasTest.class, ModeloParaleloTest.class,
+	EscritorAtomicoTest.class })
 public class AllTests {
 
 }
@@ -0,0 +1,128 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InstantaneaTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String CITA_NO_ESPERADA = "La cita devuelta no es la que debería ser.";
+	private static final String INSTANTANEA_NO_ESPERADA = "La instantánea devuelta no es la esperada.";
+
+	private IModelo modelo;
+	private Profesor profesor;
+	private Tutoria tutoria;
+	private Sesion sesion;
+	private Alumno alumno1;
+	private Alumno alumno2;
+	private Cita cita1;
+
+	@Before
+	public void crearModelo() {
+		modelo = new Modelo(FactoriaFuenteDatos.FICHEROS.crear());
+		profesor = new Profesor("Bob Esponja", "11223344B", "bob@gmail.com");
+		tutoria = new Tutoria(profesor, "Tutoria 1");
+		sesion = new Sesion(tutoria, LocalDate.now().plusDays(7), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+		alumno1 = Alumno.getAlumnoFicticio("patricio@gmail.com");
+		alumno2 = Alumno.getAlumnoFicticio("arenita@gmail.com");
+		cita1 = new Cita(alumno1, sesion, LocalTime.of(16, 0));
+		try {
+			modelo.insertar(profesor);
+			modelo.insertar(tutoria);
+			modelo.insertar(sesion);
+			modelo.insertar(alumno1);
+			modelo.insertar(alumno2);
+			modelo.insertar(cita1);
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void instantaneaNoVeCambiosPosteriores() {
+		Instantanea instantanea = modelo.getInstantanea();
+		assertThat(INSTANTANEA_NO_ESPERADA, modelo.getInstantanea(), sameInstance(instantanea));
+		try {
+			modelo.insertar(new Cita(alumno2, sesion, LocalTime.of(16, 15)));
+			assertThat(INSTANTANEA_NO_ESPERADA, modelo.getInstantanea(), not(sameInstance(instantanea)));
+			modelo.borrar(alumno1);
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+		assertThat(TAMANO_NO_ESPERADO, instantanea.getAlumnos().size(), is(2));
+		assertThat(TAMANO_NO_ESPERADO, instantanea.getCitas().size(), is(1));
+		assertThat(CITA_NO_ESPERADA, instantanea.getCitas(alumno1).get(0), is(cita1));
+		assertThat(TAMANO_NO_ESPERADO, instantanea.getCitas(alumno2).size(), is(0));
+		assertThat(TAMANO_NO_ESPERADO, instantanea.getCitas(sesion).size(), is(1));
+		Instantanea actual = modelo.getInstantanea();
+		assertThat(TAMANO_NO_ESPERADO, actual.getAlumnos().size(), is(1));
+		assertThat(TAMANO_NO_ESPERADO, actual.getCitas(alumno2).size(), is(1));
+		assertThat(TAMANO_NO_ESPERADO, actual.getCitas(alumno1).size(), is(0));
+	}
+
+	@Test
+	public void cambioRechazadoNoCongelaLaInstantanea() {
+		Instantanea instantanea = modelo.getInstantanea();
+		try {
+			modelo.insertar(alumno1);
+			fail(EXCEPCION_ESPERADA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(INSTANTANEA_NO_ESPERADA, modelo.getInstantanea(), sameInstance(instantanea));
+		}
+		try {
+			modelo.insertar(new Cita(alumno2, sesion, LocalTime.of(16, 0)));
+			fail(EXCEPCION_ESPERADA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(INSTANTANEA_NO_ESPERADA, modelo.getInstantanea(), sameInstance(instantanea));
+		}
+		try {
+			modelo.borrar(Alumno.getAlumnoFicticio("calamardo@gmail.com"));
+			fail(EXCEPCION_ESPERADA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(INSTANTANEA_NO_ESPERADA, modelo.getInstantanea(), sameInstance(instantanea));
+		}
+		try {
+			Sesion sesionNula = null;
+			modelo.insertar(sesionNula);
+			fail(EXCEPCION_ESPERADA);
+		} catch (NullPointerException e) {
+			assertThat(INSTANTANEA_NO_ESPERADA, modelo.getInstantanea(), sameInstance(instantanea));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void instantaneaComparteVistasConElModelo() {
+		Instantanea instantanea = modelo.getInstantanea();
+		assertThat(INSTANTANEA_NO_ESPERADA, instantanea.getCitas(), sameInstance(modelo.getVistaCitas()));
+		try {
+			modelo.borrar(tutoria);
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+		assertThat(TAMANO_NO_ESPERADO, instantanea.getTutorias(profesor).size(), is(1));
+		assertThat(TAMANO_NO_ESPERADO, instantanea.getSesiones(tutoria).size(), is(1));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getSesiones().size(), is(0));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getCitas().size(), is(0));
+	}
+
+}
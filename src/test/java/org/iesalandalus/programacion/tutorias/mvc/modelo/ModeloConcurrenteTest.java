@@ -0,0 +1,177 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModeloConcurrenteTest {
+
+	private static final int NUMERO_PUESTOS = 8;
+	private static final int ALUMNOS_POR_PUESTO = 20;
+	private static final int NUMERO_SESIONES = 4;
+	// De 16:00 a 22:00 cada 15 minutos, ambas incluidas
+	private static final int HORAS_POR_SESION = 25;
+	private static final String ERROR_SIN_HORAS = "ERROR: No quedan horas libres en esta sesión.";
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String HORA_REPETIDA = "Dos citas no pueden ocupar la misma hora de una sesión.";
+	private static final String BORRADO_A_MEDIAS = "Un borrado en cascada no debería verse a medias.";
+
+	private IModelo modelo;
+	private List<Sesion> sesiones;
+	private List<List<Alumno>> alumnosPorPuesto;
+
+	@Before
+	public void crearModelo() {
+		modelo = new ModeloConcurrente(new Modelo(FactoriaFuenteDatos.FICHEROS.crear()));
+		Profesor profesor = new Profesor("Bob Esponja", "11223344B", "bob@gmail.com");
+		Tutoria tutoria = new Tutoria(profesor, "Tutoria 1");
+		sesiones = new ArrayList<>();
+		alumnosPorPuesto = new ArrayList<>();
+		try {
+			modelo.insertar(profesor);
+			modelo.insertar(tutoria);
+			for (int i = 0; i < NUMERO_SESIONES; i++) {
+				Sesion sesion = new Sesion(tutoria, LocalDate.now().plusDays(7 + i), LocalTime.of(16, 0), LocalTime.of(22, 0), 15);
+				modelo.insertar(sesion);
+				sesiones.add(sesion);
+			}
+			// Los alumnos se crean aquí porque el constructor les asigna el expediente
+			for (int puesto = 0; puesto < NUMERO_PUESTOS; puesto++) {
+				List<Alumno> alumnos = new ArrayList<>();
+				for (int i = 0; i < ALUMNOS_POR_PUESTO; i++) {
+					Alumno alumno = new Alumno("Alumno Prueba", "alumno" + puesto + "x" + i + "@gmail.com");
+					modelo.insertar(alumno);
+					alumnos.add(alumno);
+				}
+				alumnosPorPuesto.add(alumnos);
+			}
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	// Cada puesto intenta dar cita a todos sus alumnos en todas las sesiones hasta llenarlas
+	private Callable<Integer> puestoReservando(List<Alumno> alumnos) {
+		return () -> {
+			int reservadas = 0;
+			for (Sesion sesion : sesiones) {
+				for (Alumno alumno : alumnos) {
+					try {
+						modelo.reservar(alumno, sesion);
+						reservadas++;
+					} catch (OperationNotSupportedException e) {
+						assertThat(e.getMessage(), is(ERROR_SIN_HORAS));
+					}
+				}
+			}
+			return reservadas;
+		};
+	}
+
+	private Callable<Integer> puestoConsultando() {
+		return () -> {
+			int consultas = 0;
+			for (int i = 0; i < 200; i++) {
+				comprobarHorasDistintas(modelo.getVistaCitas());
+				modelo.streamCitas().count();
+				modelo.getHuecos(sesiones.get(0).getTutoria(), sesiones.get(0).getFecha(), sesiones.get(NUMERO_SESIONES - 1).getFecha(), 5);
+				consultas++;
+			}
+			return consultas;
+		};
+	}
+
+	private static void comprobarHorasDistintas(List<Cita> citas) {
+		Set<String> horas = new HashSet<>();
+		for (Cita cita : citas) {
+			assertThat(HORA_REPETIDA, horas.add(cita.getSesion().getFecha() + " " + cita.getHora()), is(true));
+		}
+	}
+
+	private static int esperar(List<Future<Integer>> tareas) throws Exception {
+		int total = 0;
+		for (Future<Integer> tarea : tareas) {
+			total += tarea.get();
+		}
+		return total;
+	}
+
+	@Test
+	public void reservasConcurrentesNoRepitenHoras() throws Exception {
+		ExecutorService puestos = Executors.newFixedThreadPool(NUMERO_PUESTOS + 2);
+		List<Future<Integer>> reservas = new ArrayList<>();
+		List<Future<Integer>> consultas = new ArrayList<>();
+		for (List<Alumno> alumnos : alumnosPorPuesto) {
+			reservas.add(puestos.submit(puestoReservando(alumnos)));
+		}
+		consultas.add(puestos.submit(puestoConsultando()));
+		consultas.add(puestos.submit(puestoConsultando()));
+		int reservadas = esperar(reservas);
+		esperar(consultas);
+		puestos.shutdown();
+		puestos.awaitTermination(1, TimeUnit.MINUTES);
+		assertThat(TAMANO_NO_ESPERADO, reservadas, is(NUMERO_SESIONES * HORAS_POR_SESION));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getCitas().size(), is(NUMERO_SESIONES * HORAS_POR_SESION));
+		comprobarHorasDistintas(modelo.getCitas());
+	}
+
+	@Test
+	public void borradosConcurrentesNoSeVenAMedias() throws Exception {
+		ExecutorService puestos = Executors.newFixedThreadPool(NUMERO_PUESTOS + 2);
+		esperar(Collections.singletonList(puestos.submit(puestoReservando(alumnosPorPuesto.get(0)))));
+		List<Alumno> alumnos = alumnosPorPuesto.get(0);
+		List<Future<Integer>> tareas = new ArrayList<>();
+		tareas.add(puestos.submit(() -> {
+			int borradas = 0;
+			for (Alumno alumno : alumnos) {
+				borradas += modelo.borrar(alumno);
+			}
+			return borradas;
+		}));
+		for (int puesto = 0; puesto < NUMERO_PUESTOS; puesto++) {
+			tareas.add(puestos.submit(() -> {
+				int comprobados = 0;
+				while (modelo.getVistaAlumnos().size() > (NUMERO_PUESTOS - 1) * ALUMNOS_POR_PUESTO) {
+					for (Alumno alumno : alumnos) {
+						// Si el alumno ya no está, sus citas tampoco pueden estar
+						if (modelo.buscar(alumno) == null) {
+							assertThat(BORRADO_A_MEDIAS, modelo.getCitas(alumno).size(), is(0));
+						}
+						comprobados++;
+					}
+				}
+				return comprobados;
+			}));
+		}
+		esperar(tareas);
+		puestos.shutdown();
+		puestos.awaitTermination(1, TimeUnit.MINUTES);
+		assertThat(TAMANO_NO_ESPERADO, modelo.getCitas().size(), is(0));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getAlumnos().size(), is((NUMERO_PUESTOS - 1) * ALUMNOS_POR_PUESTO));
+	}
+
+}
@@ -0,0 +1,177 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Alumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.FactoriaFuenteDatosFicheros;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.FormatoObjetos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Profesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Sesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Tutorias;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModeloParaleloTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String NO_ENLAZADO = "La referencia debería ser la instancia guardada en el modelo.";
+	private static final String FICHERO_NO_ESCRITO = "El fichero debería haberse escrito.";
+	private static final String FALLO_NO_INFORMADO = "El fallo del fichero debería haberse informado.";
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@Before
+	public void crearCarpetaDatos() {
+		new File(carpeta.getRoot(), "datos").mkdir();
+	}
+
+	@Test
+	public void comenzarEnParaleloEnlazaConLasInstanciasGuardadas() {
+		try {
+			Modelo modeloInicial = new Modelo(fuenteDatos(sesionesEnCarpeta(), citasEnCarpeta()));
+			insertarDatos(modeloInicial);
+			modeloInicial.terminar();
+
+			Modelo modelo = new Modelo(fuenteDatos(sesionesEnCarpeta(), citasEnCarpeta()));
+			modelo.setEnParalelo(true);
+			modelo.comenzar();
+			assertThat(TAMANO_NO_ESPERADO, modelo.getVistaCitas().size(), is(1));
+			Profesor profesor = modelo.getVistaProfesores().get(0);
+			Tutoria tutoria = modelo.getVistaTutorias().get(0);
+			Sesion sesion = modelo.getVistaSesiones().get(0);
+			Alumno alumno = modelo.getVistaAlumnos().get(0);
+			Cita cita = modelo.getVistaCitas().get(0);
+			assertThat(NO_ENLAZADO, tutoria.getProfesor(), sameInstance(profesor));
+			assertThat(NO_ENLAZADO, sesion.getTutoria(), sameInstance(tutoria));
+			assertThat(NO_ENLAZADO, cita.getSesion(), sameInstance(sesion));
+			assertThat(NO_ENLAZADO, cita.getAlumno(), sameInstance(alumno));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void terminarEnParaleloInformaDeCadaFicheroQueFalla() {
+		Sesiones sesionesQueFallan = new Sesiones(new FormatoObjetos<Sesion>(ruta("sesiones.dat"), Sesion.class) {
+			@Override
+			public void escribir(Collection<Sesion> elementos) throws IOException {
+				throw new FileNotFoundException("Permiso denegado.");
+			}
+		});
+		Citas citasQueFallan = new Citas(new FormatoObjetos<Cita>(ruta("citas.dat"), Cita.class) {
+			@Override
+			public void escribir(Collection<Cita> elementos) {
+				throw new UncheckedIOException(new IOException("Disco lleno."));
+			}
+		});
+		PrintStream salidaOriginal = System.out;
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		try {
+			Modelo modelo = new Modelo(fuenteDatos(sesionesQueFallan, citasQueFallan));
+			modelo.setEnParalelo(true);
+			insertarDatos(modelo);
+			System.setOut(new PrintStream(salida, true));
+			modelo.terminar();
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		} finally {
+			System.setOut(salidaOriginal);
+		}
+		String mensajes = salida.toString();
+		// Los ficheros que no fallan se escriben igualmente
+		assertThat(FICHERO_NO_ESCRITO, new File(ruta("alumnos.dat")).exists(), is(true));
+		assertThat(FICHERO_NO_ESCRITO, new File(ruta("profesores.dat")).exists(), is(true));
+		assertThat(FICHERO_NO_ESCRITO, new File(ruta("tutorias.dat")).exists(), is(true));
+		assertThat(FICHERO_NO_ESCRITO, mensajes, containsString("Fichero alumnos escrito satisfactoriamente."));
+		assertThat(FALLO_NO_INFORMADO, mensajes, containsString("No puedo crear el fichero de sesiones."));
+		assertThat(FALLO_NO_INFORMADO, mensajes, containsString("No se ha podido escribir el fichero de citas: "));
+		assertThat(FALLO_NO_INFORMADO, mensajes, not(containsString("fichero de sesiones: ")));
+	}
+
+	private void insertarDatos(IModelo modelo) throws OperationNotSupportedException {
+		Profesor profesor = new Profesor("Bob Esponja", "11223344B", "bob@gmail.com");
+		Tutoria tutoria = new Tutoria(profesor, "Tutoria 1");
+		Sesion sesion = new Sesion(tutoria, LocalDate.now().plusDays(7), LocalTime.of(16, 0), LocalTime.of(17, 0), 15);
+		Alumno alumno = new Alumno("Patricio Estrella", "patricio@gmail.com");
+		modelo.insertar(profesor);
+		modelo.insertar(tutoria);
+		modelo.insertar(sesion);
+		modelo.insertar(alumno);
+		modelo.insertar(new Cita(alumno, sesion, LocalTime.of(16, 15)));
+	}
+
+	private String ruta(String nombreFichero) {
+		return carpeta.getRoot() + "/datos/" + nombreFichero;
+	}
+
+	private Sesiones sesionesEnCarpeta() {
+		return new Sesiones(new FormatoObjetos<>(ruta("sesiones.dat"), Sesion.class));
+	}
+
+	private Citas citasEnCarpeta() {
+		return new Citas(new FormatoObjetos<>(ruta("citas.dat"), Cita.class));
+	}
+
+	private IFuenteDatos fuenteDatos(Sesiones sesiones, Citas citas) {
+		return new FactoriaFuenteDatosFicheros() {
+			@Override
+			public IAlumnos crearAlumnos() {
+				return new Alumnos(new FormatoObjetos<>(ruta("alumnos.dat"), Alumno.class));
+			}
+
+			@Override
+			public IProfesores crearProfesores() {
+				return new Profesores(new FormatoObjetos<>(ruta("profesores.dat"), Profesor.class));
+			}
+
+			@Override
+			public ITutorias crearTutorias() {
+				return new Tutorias(new FormatoObjetos<>(ruta("tutorias.dat"), Tutoria.class));
+			}
+
+			@Override
+			public ISesiones crearSesiones() {
+				return sesiones;
+			}
+
+			@Override
+			public ICitas crearCitas() {
+				return citas;
+			}
+		};
+	}
+
+}
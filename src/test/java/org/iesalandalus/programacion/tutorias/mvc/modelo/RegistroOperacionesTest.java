@@ -0,0 +1,252 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IFuenteDatos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Alumnos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.FactoriaFuenteDatosFicheros;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.FormatoObjetos;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Profesores;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Sesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Tutorias;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+public class RegistroOperacionesTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String OPERACIONES_NO_ESPERADAS = "El número de operaciones no es el esperado.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+
+	private static Alumno alumno;
+	private static Profesor profesor;
+	private static Tutoria tutoria;
+	private static Sesion sesion;
+	private static Cita cita;
+
+	private String nombreFichero;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@BeforeClass
+	public static void asignarValoresAtributos() {
+		alumno = new Alumno("Bob Esponja", "bob@gmail.com");
+		profesor = new Profesor("Jose Ramon Jimenez", "11223344B", "joseramon.jimenez@iesalandalus.org");
+		tutoria = new Tutoria(profesor, "Dudas PROG05");
+		sesion = new Sesion(tutoria, LocalDate.now().plusDays(1), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+		cita = new Cita(alumno, sesion, LocalTime.of(16, 15));
+	}
+
+	@Before
+	public void asignarFichero() {
+		nombreFichero = carpeta.getRoot() + "/datos/operaciones.log";
+	}
+
+	@Test
+	public void reproducirAplicaLasOperacionesAnotadasEnOrden() {
+		try {
+			RegistroOperaciones registro = new RegistroOperaciones(nombreFichero);
+			registro.reproducir(mock(IModelo.class));
+			registro.anotarInsercion(profesor);
+			registro.anotarInsercion(tutoria);
+			registro.anotarInsercion(sesion);
+			registro.anotarInsercion(alumno);
+			registro.anotarInsercion(cita);
+			registro.anotarBorrado(cita);
+			registro.anotarBorrado(profesor);
+			registro.cerrar();
+			IModelo modelo = mock(IModelo.class);
+			RegistroOperaciones registroReabierto = new RegistroOperaciones(nombreFichero);
+			assertThat(OPERACIONES_NO_ESPERADAS, registroReabierto.reproducir(modelo), is(7));
+			assertThat(OPERACIONES_NO_ESPERADAS, registroReabierto.getNumeroOperaciones(), is(7));
+			InOrder orden = Mockito.inOrder(modelo);
+			orden.verify(modelo).insertar(profesor);
+			orden.verify(modelo).insertar(tutoria);
+			orden.verify(modelo).insertar(sesion);
+			orden.verify(modelo).insertar(alumno);
+			orden.verify(modelo).insertar(cita);
+			orden.verify(modelo).borrar(cita);
+			orden.verify(modelo).borrar(profesor);
+			registroReabierto.cerrar();
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void reproducirDescartaRegistroFinalIncompleto() {
+		try {
+			RegistroOperaciones registro = new RegistroOperaciones(nombreFichero);
+			registro.reproducir(mock(IModelo.class));
+			registro.anotarInsercion(alumno);
+			registro.cerrar();
+			Path fichero = carpeta.getRoot().toPath().resolve("datos/operaciones.log");
+			long tamanoValido = Files.size(fichero);
+			Files.write(fichero, new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND);
+			IModelo modelo = mock(IModelo.class);
+			RegistroOperaciones registroReabierto = new RegistroOperaciones(nombreFichero);
+			assertThat(OPERACIONES_NO_ESPERADAS, registroReabierto.reproducir(modelo), is(1));
+			verify(modelo).insertar(alumno);
+			assertThat(OPERACIONES_NO_ESPERADAS, Files.size(fichero), is(tamanoValido));
+			registroReabierto.cerrar();
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void vaciarDejaElRegistroSinOperaciones() {
+		try {
+			RegistroOperaciones registro = new RegistroOperaciones(nombreFichero);
+			registro.reproducir(mock(IModelo.class));
+			registro.anotarInsercion(alumno);
+			registro.vaciar();
+			registro.cerrar();
+			IModelo modelo = mock(IModelo.class);
+			RegistroOperaciones registroReabierto = new RegistroOperaciones(nombreFichero);
+			assertThat(OPERACIONES_NO_ESPERADAS, registroReabierto.reproducir(modelo), is(0));
+			verify(modelo, never()).insertar(alumno);
+			registroReabierto.cerrar();
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void terminarGuardaLosDatosSiUnCambioNoSeHaPodidoAnotar() {
+		IFuenteDatos fuenteDatos = mock(IFuenteDatos.class);
+		IAlumnos alumnos = mock(IAlumnos.class);
+		when(fuenteDatos.crearAlumnos()).thenReturn(alumnos);
+		when(fuenteDatos.crearProfesores()).thenReturn(mock(IProfesores.class));
+		when(fuenteDatos.crearTutorias()).thenReturn(mock(ITutorias.class));
+		when(fuenteDatos.crearSesiones()).thenReturn(mock(ISesiones.class));
+		when(fuenteDatos.crearCitas()).thenReturn(mock(ICitas.class));
+		RegistroOperaciones registro = new RegistroOperaciones(nombreFichero) {
+			@Override
+			public void anotarInsercion(Alumno alumno) throws IOException {
+				throw new IOException("No queda espacio en el disco.");
+			}
+		};
+		Modelo modelo = new Modelo(fuenteDatos, registro);
+		try {
+			modelo.comenzar();
+			modelo.insertar(alumno);
+			assertThat(OPERACIONES_NO_ESPERADAS, registro.getNumeroOperaciones(), is(0));
+			modelo.terminar();
+			verify(alumnos).insertar(alumno);
+			verify(alumnos).guardar();
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void reproducirCompletaUnBorradoSiLaCompactacionSeCortoEntreDosFicheros() {
+		try {
+			Modelo modelo = new Modelo(fuenteDatos(tutoriasEnCarpeta()), new RegistroOperaciones(nombreFichero));
+			modelo.comenzar();
+			modelo.insertar(profesor);
+			modelo.insertar(tutoria);
+			modelo.insertar(sesion);
+			modelo.insertar(alumno);
+			modelo.insertar(cita);
+			modelo.terminar();
+			// La caída llega después de reescribir alumnos y profesores y antes que el resto de ficheros
+			Tutorias tutoriasQueCaen = new Tutorias(new FormatoObjetos<>(ruta("tutorias.dat"), Tutoria.class)) {
+				@Override
+				public void guardar() throws IOException {
+					throw new IllegalStateException("Caída simulada.");
+				}
+			};
+			RegistroOperaciones registro = new RegistroOperaciones(nombreFichero);
+			Modelo modeloInterrumpido = new Modelo(fuenteDatos(tutoriasQueCaen), registro);
+			modeloInterrumpido.comenzar();
+			modeloInterrumpido.borrar(profesor);
+			try {
+				modeloInterrumpido.terminar();
+				fail(EXCEPCION_ESPERADA);
+			} catch (IllegalStateException e) {
+				registro.cerrar();
+			}
+			Modelo modeloRecuperado = new Modelo(fuenteDatos(tutoriasEnCarpeta()), new RegistroOperaciones(nombreFichero));
+			modeloRecuperado.comenzar();
+			assertThat(TAMANO_NO_ESPERADO, modeloRecuperado.getProfesores().size(), is(0));
+			assertThat(TAMANO_NO_ESPERADO, modeloRecuperado.getTutorias().size(), is(0));
+			assertThat(TAMANO_NO_ESPERADO, modeloRecuperado.getSesiones().size(), is(0));
+			assertThat(TAMANO_NO_ESPERADO, modeloRecuperado.getCitas().size(), is(0));
+			assertThat(TAMANO_NO_ESPERADO, modeloRecuperado.getAlumnos().size(), is(1));
+			modeloRecuperado.terminar();
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	private String ruta(String nombreFichero) {
+		return carpeta.getRoot() + "/datos/" + nombreFichero;
+	}
+
+	private Tutorias tutoriasEnCarpeta() {
+		return new Tutorias(new FormatoObjetos<>(ruta("tutorias.dat"), Tutoria.class));
+	}
+
+	private IFuenteDatos fuenteDatos(Tutorias tutorias) {
+		return new FactoriaFuenteDatosFicheros() {
+			@Override
+			public IAlumnos crearAlumnos() {
+				return new Alumnos(new FormatoObjetos<>(ruta("alumnos.dat"), Alumno.class));
+			}
+
+			@Override
+			public IProfesores crearProfesores() {
+				return new Profesores(new FormatoObjetos<>(ruta("profesores.dat"), Profesor.class));
+			}
+
+			@Override
+			public ITutorias crearTutorias() {
+				return tutorias;
+			}
+
+			@Override
+			public ISesiones crearSesiones() {
+				return new Sesiones(new FormatoObjetos<>(ruta("sesiones.dat"), Sesion.class));
+			}
+
+			@Override
+			public ICitas crearCitas() {
+				return new Citas(new FormatoObjetos<>(ruta("citas.dat"), Cita.class));
+			}
+		};
+	}
+
+}
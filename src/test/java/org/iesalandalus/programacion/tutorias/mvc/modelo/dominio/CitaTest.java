@@ -7,6 +7,9 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -33,6 +36,8 @@ public class CitaTest {
 	private static final String SESION_NO_ESPERADA = "La sesión devuelta no es la misma que la pasada al constructor.";
 	private static final String OBJETO_DEBERIA_SER_NULO = "No se debería haber creado el objeto sesión.";
 	private static final String REFERENCIA_NO_ESPERADA = "La referencia devuelta es la misma que la pasada.";
+	private static final String FICHERO_NO_LEIDO = "Debería poder leerse una cita escrita por la versión original.";
+	private static final String FICHERO_VERSION_ORIGINAL = "citas-version-original.dat";
 
 	private static final Sesion SESION = new Sesion(
 			new Tutoria(Profesor.getProfesorFicticio("11223344B"), "Revisión tarea presencial1"), 
@@ -145,6 +150,31 @@ public class CitaTest {
 		}
 	}
 	
+	@Test
+	public void leerCitaEscritaPorVersionOriginalDevuelveLaCitaEsperada() {
+		Profesor profesor = new Profesor("Ana Lopez", "11223344B", "ana@gmail.com");
+		Tutoria tutoria = new Tutoria(profesor, "Revisión tarea presencial1");
+		Sesion sesion = Sesion.getSesionFicticia(tutoria, LocalDate.of(2030, 1, 15));
+		Alumno alumno = Alumno.getAlumnoFicticio("bob@gmail.com");
+		try (InputStream fichero = CitaTest.class.getResourceAsStream(FICHERO_VERSION_ORIGINAL);
+				ObjectInputStream entrada = new ObjectInputStream(fichero)) {
+			Cita cita = (Cita) entrada.readObject();
+			assertThat(HORA_NO_ESPERADA, cita.getHora(), is(LocalTime.of(16, 20)));
+			assertThat(ALUMNO_NO_ESPERADO, cita.getAlumno(), is(alumno));
+			assertThat(ALUMNO_NO_ESPERADO, cita.getAlumno().getNombre(), is("Bob Esponja"));
+			assertThat(ALUMNO_NO_ESPERADO, cita.getAlumno().getExpediente(), is("SP_BE_1"));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion(), is(sesion));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion().getHoraInicio(), is(LocalTime.of(16, 0)));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion().getHoraFin(), is(LocalTime.of(17, 0)));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion().getMinutosDuracion(), is(10));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion().getTutoria(), is(tutoria));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion().getTutoria().getProfesor().getNombre(), is("Ana Lopez"));
+			assertThat(SESION_NO_ESPERADA, cita.getSesion().getTutoria().getProfesor().getCorreo(), is("ana@gmail.com"));
+		} catch (IOException | ClassNotFoundException e) {
+			fail(FICHERO_NO_LEIDO);
+		}
+	}
+	
 	@Test
 	public void toStringDevuelveLaCadenaEsperada() {
 		Cita cita = new Cita(ALUMNO, SESION, HORA);
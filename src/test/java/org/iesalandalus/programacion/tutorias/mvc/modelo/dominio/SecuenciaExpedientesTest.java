@@ -0,0 +1,61 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.dominio;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class SecuenciaExpedientesTest {
+
+	private static final int NUMERO_HILOS = 8;
+	private static final int NUMEROS_POR_HILO = 1000;
+	private static final String NUMERO_REPETIDO = "La secuencia no debería repartir dos veces el mismo número.";
+	private static final String NUMERO_NO_ESPERADO = "El número devuelto no es el esperado.";
+
+	@Test
+	public void siguienteDesdeVariosHilosNoRepiteNumeros() throws Exception {
+		Set<Integer> numeros = ConcurrentHashMap.newKeySet();
+		ExecutorService hilos = Executors.newFixedThreadPool(NUMERO_HILOS);
+		List<Future<Boolean>> tareas = new ArrayList<>();
+		for (int i = 0; i < NUMERO_HILOS; i++) {
+			tareas.add(hilos.submit(() -> {
+				boolean distintos = true;
+				for (int j = 0; j < NUMEROS_POR_HILO; j++) {
+					distintos &= numeros.add(SecuenciaExpedientes.siguiente());
+				}
+				return distintos;
+			}));
+		}
+		for (Future<Boolean> tarea : tareas) {
+			assertThat(NUMERO_REPETIDO, tarea.get(), is(true));
+		}
+		hilos.shutdown();
+		assertThat(NUMERO_REPETIDO, numeros.size(), is(NUMERO_HILOS * NUMEROS_POR_HILO));
+	}
+
+	@Test
+	public void avanzarHastaSigueDespuesDelMayorGuardado() {
+		int anterior = SecuenciaExpedientes.siguiente();
+		SecuenciaExpedientes.avanzarHasta(anterior + 5000);
+		assertThat(NUMERO_NO_ESPERADO, SecuenciaExpedientes.siguiente(), is(anterior + 5001));
+		// Un número ya repartido no hace saltar la secuencia
+		SecuenciaExpedientes.reconocer(anterior);
+		assertThat(NUMERO_NO_ESPERADO, SecuenciaExpedientes.siguiente(), is(anterior + 5002));
+	}
+
+	@Test
+	public void numeroDevuelveNumeroFinalDelExpediente() {
+		assertThat(NUMERO_NO_ESPERADO, SecuenciaExpedientes.numero("SP_JRJR_42"), is(42));
+		assertThat(NUMERO_NO_ESPERADO, SecuenciaExpedientes.numero("SP_JRJR_"), is(0));
+		assertThat(NUMERO_NO_ESPERADO, SecuenciaExpedientes.numero(null), is(0));
+	}
+
+}
@@ -273,6 +273,61 @@ public class SesionTest {
 		}
 	}
 	
+	@Test
+	public void restaurarFechaPasadaCreaSesionCorrectamente() {
+		LocalDate fechaPasada = LocalDate.now().minusDays(7);
+		Sesion sesion = Sesion.restaurar(TUTORIA, fechaPasada, HORA_INICIO, HORA_FIN, MINUTOS_DURACION);
+		assertThat(TUTORIA_NO_ESPERADA, sesion.getTutoria(), sameInstance(TUTORIA));
+		assertThat(FECHA_NO_ESPERADA, sesion.getFecha(), is(fechaPasada));
+		assertThat(MINUTOS_DURACION_NO_ESPERADOS, sesion.getMinutosDuracion(), is(MINUTOS_DURACION));
+	}
+	
+	@Test
+	public void restaurarHorasNoValidasLanzaExcepcion() {
+		Sesion sesion = null;
+		try {
+			sesion = Sesion.restaurar(TUTORIA, FECHA, HORA_FIN, HORA_INICIO, MINUTOS_DURACION);
+			fail(HORA_FIN_INCORRECTA);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_HORAS_NO_VALIDAS));
+			assertThat(OBJETO_DEBERIA_SER_NULO, sesion, is(nullValue()));
+		} catch (Exception e) {
+			fail(TIPO_NO_CORRECTO);
+		}
+		try {
+			sesion = Sesion.restaurar(TUTORIA, FECHA, LocalTime.MIN, HORA_FIN, MINUTOS_DURACION);
+			fail(HORA_INICIO_INCORRECTA);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_HORA_INICIO_NO_VALIDA));
+			assertThat(OBJETO_DEBERIA_SER_NULO, sesion, is(nullValue()));
+		} catch (Exception e) {
+			fail(TIPO_NO_CORRECTO);
+		}
+	}
+	
+	@Test
+	public void restaurarMinutosDuracionNoValidosLanzaExcepcion() {
+		Sesion sesion = null;
+		try {
+			sesion = Sesion.restaurar(TUTORIA, FECHA, HORA_INICIO, HORA_FIN, -MINUTOS_DURACION);
+			fail(MINUTOS_DURACION_INCORRECTOS);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_MINUTOS_DURACION_NO_VALIDOS));
+			assertThat(OBJETO_DEBERIA_SER_NULO, sesion, is(nullValue()));
+		} catch (Exception e) {
+			fail(TIPO_NO_CORRECTO);
+		}
+		try {
+			sesion = Sesion.restaurar(TUTORIA, FECHA, HORA_INICIO, HORA_FIN, 35);
+			fail(MINUTOS_DURACION_INCORRECTOS);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_MINUTOS_DURACION_NO_DIVISOR));
+			assertThat(OBJETO_DEBERIA_SER_NULO, sesion, is(nullValue()));
+		} catch (Exception e) {
+			fail(TIPO_NO_CORRECTO);
+		}
+	}
+	
 	@Test
 	public void toStringDevuelveLaCadenaEsperada() {
 		Sesion sesion = new Sesion(TUTORIA, FECHA, HORA_INICIO, HORA_FIN, MINUTOS_DURACION);
@@ -0,0 +1,97 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Sesiones;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BuscadorHuecosTest {
+
+	private static final String ERROR_NUMERO_HUECOS = "ERROR: El número de huecos debe ser mayor que cero.";
+	private static final String OPERACION_NO_PERMITIDA = "Debería haber saltado una excepción indicando que dicha operación no está permitida.";
+	private static final String MENSAJE_NO_CORRECTO = "El mensaje devuelto por la excepción no es correcto.";
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String HUECO_NO_ESPERADO = "El hueco devuelto no es el que debería ser.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+
+	private Tutoria tutoria1;
+	private Tutoria tutoria2;
+	private Sesion sesion1;
+	private Sesion sesion2;
+	private Sesion sesion3;
+	private LocalDate dia1;
+	private LocalDate dia2;
+	private BuscadorHuecos buscador;
+
+	@Before
+	public void crearColecciones() {
+		Profesor profesor = Profesor.getProfesorFicticio("22334455Y");
+		tutoria1 = new Tutoria(profesor, "Tutoria 1");
+		tutoria2 = new Tutoria(profesor, "Tutoria 2");
+		dia1 = LocalDate.now().plusDays(7);
+		dia2 = LocalDate.now().plusDays(8);
+		sesion1 = new Sesion(tutoria1, dia1, LocalTime.of(17, 0), LocalTime.of(18, 0), 30);
+		sesion2 = new Sesion(tutoria1, dia2, LocalTime.of(16, 0), LocalTime.of(18, 0), 30);
+		sesion3 = new Sesion(tutoria2, dia1, LocalTime.of(16, 30), LocalTime.of(17, 30), 30);
+		ISesiones sesiones = new Sesiones();
+		ICitas citas = new Citas();
+		try {
+			sesiones.insertar(sesion2);
+			sesiones.insertar(sesion1);
+			sesiones.insertar(sesion3);
+			citas.insertar(new Cita(Alumno.getAlumnoFicticio("bob@gmail.com"), sesion1, LocalTime.of(17, 0)));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+		buscador = new BuscadorHuecos(sesiones, citas);
+	}
+
+	@Test
+	public void buscarTutoriaDevuelvePrimerasHorasLibresPorFecha() {
+		List<Hueco> huecos = buscador.buscar(Collections.singletonList(tutoria1), dia1, dia2, 3);
+		assertThat(TAMANO_NO_ESPERADO, huecos.size(), is(3));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(0), is(new Hueco(sesion1, LocalTime.of(17, 30))));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(1), is(new Hueco(sesion1, LocalTime.of(18, 0))));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(2), is(new Hueco(sesion2, LocalTime.of(16, 0))));
+		assertThat(TAMANO_NO_ESPERADO, buscador.buscar(Collections.singletonList(tutoria1), dia2, dia2, 10).size(), is(5));
+	}
+
+	@Test
+	public void buscarVariasTutoriasMezclaSesionesDelMismoDiaPorHora() {
+		List<Hueco> huecos = buscador.buscar(Arrays.asList(tutoria1, tutoria2), dia1, dia1, 10);
+		assertThat(TAMANO_NO_ESPERADO, huecos.size(), is(5));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(0), is(new Hueco(sesion3, LocalTime.of(16, 30))));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(1), is(new Hueco(sesion3, LocalTime.of(17, 0))));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(2), is(new Hueco(sesion1, LocalTime.of(17, 30))));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(3), is(new Hueco(sesion3, LocalTime.of(17, 30))));
+		assertThat(HUECO_NO_ESPERADO, huecos.get(4), is(new Hueco(sesion1, LocalTime.of(18, 0))));
+	}
+
+	@Test
+	public void buscarNumeroHuecosNoValidoLanzaExcepcion() {
+		try {
+			buscador.buscar(Collections.singletonList(tutoria1), dia1, dia2, 0);
+			fail(OPERACION_NO_PERMITIDA);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_NUMERO_HUECOS));
+		}
+	}
+
+}
@@ -3,12 +3,15 @@ package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.naming.OperationNotSupportedException;
@@ -48,6 +51,8 @@ public class ModeloFicherosTest {
 	private static final String MENSAJE_NO_CORRECTO = "El mensaje devuelto por la excepción no es correcto.";
 	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
 	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String BORRADAS_NO_ESPERADAS = "El número de entidades borradas no es el esperado.";
+	private static final String INSERTADAS_NO_ESPERADAS = "El número de entidades insertadas no es el esperado.";
 	
 	private static Alumno alumnoExistente;
 	private static Alumno alumnoNoExistente;
@@ -119,30 +124,19 @@ public class ModeloFicherosTest {
 	}
 	
 	@Test
-	public void borrarAlumnoLlamaCitasGetAlumnoCitasBorrarAlumnosBorrar() {
+	public void borrarAlumnoLlamaCitasBorrarTodasAlumnosBorrar() {
 		try {
-			List<Cita> citasAlumno = simularComportamientoBorrarAlumnoConCitas();
-			modelo.borrar(alumnoExistente);
+			when(citasSimuladas.borrarTodas(alumnoExistente)).thenReturn(3);
+			int borradas = modelo.borrar(alumnoExistente);
 			InOrder orden = Mockito.inOrder(alumnosSimulados, citasSimuladas);
-			orden.verify(citasSimuladas).get(alumnoExistente);
-			for (Cita cita : citasAlumno) {
-				orden.verify(citasSimuladas).borrar(cita);
-			}
+			orden.verify(citasSimuladas).borrarTodas(alumnoExistente);
 			orden.verify(alumnosSimulados).borrar(alumnoExistente);
+			assertThat(BORRADAS_NO_ESPERADAS, borradas, is(4));
 		} catch (OperationNotSupportedException e) {
 			fail(EXCEPCION_NO_PROCEDE);
 		}
 	}
 	
-	private List<Cita> simularComportamientoBorrarAlumnoConCitas() {
-		List<Cita> citasAlumno = new ArrayList<>();
-		citasAlumno.add(new Cita(alumnoExistente, sesionExistente, LocalTime.of(16, 0)));
-		citasAlumno.add(new Cita(alumnoExistente, sesionExistente, LocalTime.of(16, 15)));
-		citasAlumno.add(new Cita(alumnoExistente, sesionExistente, LocalTime.of(16, 30)));
-		when(citasSimuladas.get(alumnoExistente)).thenReturn(citasAlumno);
-		return citasAlumno;
-	}
-	
 	@Test
 	public void getAlumnosLlamaAlumnosGet() {
 		modelo.getAlumnos();
@@ -166,16 +160,17 @@ public class ModeloFicherosTest {
 	}
 	
 	@Test
-	public void borrarProfesorLlamaTutoriasGetProfesorTutoriasBorrarProfesoresBorrar() {
+	public void borrarProfesorLlamaSesionesBorrarTodasTutoriasBorrarTodasProfesoresBorrar() {
 		try {
 			List<Tutoria> tutoriasProfesor = simularComportamientoBorrarProfesorConTutorias();
-			modelo.borrar(profesorExistente);
-			InOrder orden = Mockito.inOrder(tutoriasSimuladas, profesoresSimulados);
-			orden.verify(tutoriasSimuladas).get(profesorExistente);
+			int borradas = modelo.borrar(profesorExistente);
+			InOrder orden = Mockito.inOrder(profesoresSimulados, tutoriasSimuladas, sesionesSimuladas);
 			for (Tutoria tutoria : tutoriasProfesor) {
-				orden.verify(tutoriasSimuladas).borrar(tutoria);
+				orden.verify(sesionesSimuladas).borrarTodas(tutoria);
 			}
+			orden.verify(tutoriasSimuladas).borrarTodas(profesorExistente);
 			orden.verify(profesoresSimulados).borrar(profesorExistente);
+			assertThat(BORRADAS_NO_ESPERADAS, borradas, is(4));
 		} catch (OperationNotSupportedException e) {
 			fail(EXCEPCION_NO_PROCEDE);
 		}
@@ -187,6 +182,7 @@ public class ModeloFicherosTest {
 		tutoriasProfesor.add(new Tutoria(profesorExistente, "Tutoria 2"));
 		tutoriasProfesor.add(new Tutoria(profesorExistente, "Tutoria 3"));
 		when(tutoriasSimuladas.get(profesorExistente)).thenReturn(tutoriasProfesor);
+		when(tutoriasSimuladas.borrarTodas(profesorExistente)).thenReturn(tutoriasProfesor);
 		return tutoriasProfesor;
 	}
 	
@@ -249,16 +245,17 @@ public class ModeloFicherosTest {
 	}
 	
 	@Test
-	public void borrarTutoriaLlamaSesionesGetTutoriaSesionesBorrarTutoriasBorrar() {
+	public void borrarTutoriaLlamaCitasBorrarTodasSesionesBorrarTodasTutoriasBorrar() {
 		try {
 			List<Sesion> sesionesTutoria = simularComportamientoBorrarTutoriaConSesiones();
-			modelo.borrar(tutoriaExistente);
-			InOrder orden = Mockito.inOrder(sesionesSimuladas, tutoriasSimuladas);
-			orden.verify(sesionesSimuladas).get(tutoriaExistente);
+			int borradas = modelo.borrar(tutoriaExistente);
+			InOrder orden = Mockito.inOrder(tutoriasSimuladas, sesionesSimuladas, citasSimuladas);
 			for (Sesion sesion : sesionesTutoria) {
-				orden.verify(sesionesSimuladas).borrar(sesion);
+				orden.verify(citasSimuladas).borrarTodas(sesion);
 			}
+			orden.verify(sesionesSimuladas).borrarTodas(tutoriaExistente);
 			orden.verify(tutoriasSimuladas).borrar(tutoriaExistente);
+			assertThat(BORRADAS_NO_ESPERADAS, borradas, is(4));
 		} catch (OperationNotSupportedException e) {
 			fail(EXCEPCION_NO_PROCEDE);
 		}
@@ -270,6 +267,7 @@ public class ModeloFicherosTest {
 		sesionesTutoria.add(Sesion.getSesionFicticia(tutoriaExistente, LocalDate.now().plusDays(8)));
 		sesionesTutoria.add(Sesion.getSesionFicticia(tutoriaExistente, LocalDate.now().plusDays(9)));
 		when(sesionesSimuladas.get(tutoriaExistente)).thenReturn(sesionesTutoria);
+		when(sesionesSimuladas.borrarTodas(tutoriaExistente)).thenReturn(sesionesTutoria);
 		return sesionesTutoria;
 	}
 	
@@ -338,30 +336,19 @@ public class ModeloFicherosTest {
 	}
 	
 	@Test
-	public void borrarSesionLlamaCitasGetSesionCitasBorrarSesionesBorrar() {
+	public void borrarSesionLlamaCitasBorrarTodasSesionesBorrar() {
 		try {
-			List<Cita> citasSesion = simularComportamientoBorrarSesionConCitas();
-			modelo.borrar(sesionExistente);
+			when(citasSimuladas.borrarTodas(sesionExistente)).thenReturn(3);
+			int borradas = modelo.borrar(sesionExistente);
 			InOrder orden = Mockito.inOrder(sesionesSimuladas, citasSimuladas);
-			orden.verify(citasSimuladas).get(sesionExistente);
-			for (Cita cita : citasSesion) {
-				orden.verify(citasSimuladas).borrar(cita);
-			}
+			orden.verify(citasSimuladas).borrarTodas(sesionExistente);
 			orden.verify(sesionesSimuladas).borrar(sesionExistente);
+			assertThat(BORRADAS_NO_ESPERADAS, borradas, is(4));
 		} catch (OperationNotSupportedException e) {
 			fail(EXCEPCION_NO_PROCEDE);
 		}
 	}
 	
-	private List<Cita> simularComportamientoBorrarSesionConCitas() {
-		List<Cita> citasSesion = new ArrayList<>();
-		citasSesion.add(new Cita(Alumno.getAlumnoFicticio("patricio@gmail.com"), sesionExistente, LocalTime.of(16, 0)));
-		citasSesion.add(new Cita(Alumno.getAlumnoFicticio("bob@gmail.com"), sesionExistente, LocalTime.of(16, 15)));
-		citasSesion.add(new Cita(Alumno.getAlumnoFicticio("calamardo@gmail.com"), sesionExistente, LocalTime.of(16, 30)));
-		when(citasSimuladas.get(sesionExistente)).thenReturn(citasSesion);
-		return citasSesion;
-	}
-	
 	@Test
 	public void getSesionesLlamaSesionesGet() {
 		modelo.getSesiones();
@@ -426,6 +413,64 @@ public class ModeloFicherosTest {
 		when(sesionesSimuladas.buscar(sesionNoExistente)).thenReturn(null);
 	}
 	
+	@Test
+	public void insertarCitasLlamaAlumnosGetVistaSesionesGetVistaCitasInsertarTodas() {
+		simularComportamientoInsertarCitas();
+		List<Cita> citasNuevas = new ArrayList<>();
+		citasNuevas.add(cita);
+		citasNuevas.add(new Cita(alumnoExistente, sesionExistente, LocalTime.of(16, 15)));
+		InOrder orden = Mockito.inOrder(alumnosSimulados, sesionesSimuladas, citasSimuladas);
+		try {
+			assertThat(INSERTADAS_NO_ESPERADAS, modelo.insertarCitas(citasNuevas), is(2));
+			orden.verify(alumnosSimulados).getVista();
+			orden.verify(sesionesSimuladas).getVista();
+			orden.verify(citasSimuladas).insertarTodas(citasNuevas);
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void insertarCitasSesionNoExistenteNoInsertaNinguna() throws OperationNotSupportedException {
+		simularComportamientoInsertarCitas();
+		List<Cita> citasNuevas = new ArrayList<>();
+		citasNuevas.add(cita);
+		citasNuevas.add(new Cita(alumnoExistente, sesionNoExistente, LocalTime.of(16, 0)));
+		try {
+			modelo.insertarCitas(citasNuevas);
+			fail(EXCEPCION_ESPERADA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_CITA_SESION_NO_EXISTENTE));
+			verify(citasSimuladas, never()).insertarTodas(anyCollection());
+		}
+	}
+	
+	@Test
+	public void insertarCitasMenosQueRegistradosBuscaCadaAlumnoYSesionUnaVez() {
+		when(alumnosSimulados.getTamano()).thenReturn(100);
+		when(sesionesSimuladas.getTamano()).thenReturn(100);
+		when(alumnosSimulados.buscar(alumnoExistente)).thenReturn(alumnoExistente);
+		when(sesionesSimuladas.buscar(sesionExistente)).thenReturn(sesionExistente);
+		List<Cita> citasNuevas = new ArrayList<>();
+		citasNuevas.add(cita);
+		citasNuevas.add(new Cita(alumnoExistente, sesionExistente, LocalTime.of(16, 15)));
+		try {
+			assertThat(INSERTADAS_NO_ESPERADAS, modelo.insertarCitas(citasNuevas), is(2));
+			verify(alumnosSimulados, never()).getVista();
+			verify(sesionesSimuladas, never()).getVista();
+			verify(alumnosSimulados).buscar(alumnoExistente);
+			verify(sesionesSimuladas).buscar(sesionExistente);
+			verify(citasSimuladas).insertarTodas(citasNuevas);
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	private void simularComportamientoInsertarCitas() {
+		when(alumnosSimulados.getVista()).thenReturn(Collections.singletonList(alumnoExistente));
+		when(sesionesSimuladas.getVista()).thenReturn(Collections.singletonList(sesionExistente));
+	}
+	
 	
 	@Test
 	public void insertarCitaNulaLanzaExcepcion() {
@@ -473,4 +518,16 @@ public class ModeloFicherosTest {
 		verify(citasSimuladas).get(sesionExistente);
 	}
 	
+	@Test
+	public void getVistaAlumnosLlamaAlumnosGetVista() {
+		modelo.getVistaAlumnos();
+		verify(alumnosSimulados).getVista();
+	}
+	
+	@Test
+	public void getVistaCitasLlamaCitasGetVista() {
+		modelo.getVistaCitas();
+		verify(citasSimuladas).getVista();
+	}
+	
 }
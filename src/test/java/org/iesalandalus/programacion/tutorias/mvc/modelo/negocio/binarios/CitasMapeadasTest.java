@@ -0,0 +1,132 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CitasMapeadasTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String CITA_NO_ESPERADA = "La cita devuelta no es la que debería ser.";
+	private static final String REFERENCIA_NO_ESPERADA = "La referencia devuelta es la misma que la pasada.";
+	private static final String OPERACION_NO_REALIZADA = "La operación no la ha realizado correctamente.";
+	private static final String HORAS_NO_ESPERADAS = "Las horas libres devueltas no son las esperadas.";
+
+	private static Sesion sesion1;
+	private static Sesion sesion2;
+	private static Alumno alumno1;
+	private static Cita cita1;
+	private static Cita cita2;
+	private static Cita cita3;
+
+	private String nombreFichero;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@BeforeClass
+	public static void asignarValoresAtributos() {
+		sesion1 = new Sesion(new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Tutoria 1"), LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+		sesion2 = new Sesion(new Tutoria(Profesor.getProfesorFicticio("11223344B"), "Tutoria 2"), LocalDate.now().plusDays(7), LocalTime.of(16, 0), LocalTime.of(18, 0), 30);
+		alumno1 = new Alumno("Bob Esponja", "bob@gmail.com");
+		cita1 = new Cita(alumno1, sesion1, LocalTime.of(17, 15));
+		cita2 = new Cita(alumno1, sesion2, LocalTime.of(16, 30));
+		cita3 = new Cita(new Alumno("Patricio Estrella", "patricio@gmail.com"), sesion1, LocalTime.of(16, 0));
+	}
+
+	@Before
+	public void escribirFichero() throws Exception {
+		nombreFichero = carpeta.getRoot() + "/citas.bin";
+		new FormatoCitas(nombreFichero).escribir(Arrays.asList(cita1, cita2, cita3));
+	}
+
+	@Test
+	public void consultasSobreFicheroProyectadoDevuelvenCitasCorrectas() {
+		CitasMapeadas citas = new CitasMapeadas(nombreFichero);
+		citas.comenzar();
+		assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(3));
+		List<Cita> citasSesion = citas.get(sesion1);
+		assertThat(TAMANO_NO_ESPERADO, citasSesion.size(), is(2));
+		assertThat(CITA_NO_ESPERADA, citasSesion.get(0), is(cita3));
+		assertThat(CITA_NO_ESPERADA, citasSesion.get(1), is(cita1));
+		List<Cita> citasAlumno = citas.get(alumno1);
+		assertThat(TAMANO_NO_ESPERADO, citasAlumno.size(), is(2));
+		assertThat(CITA_NO_ESPERADA, citasAlumno.get(0), is(cita2));
+		assertThat(CITA_NO_ESPERADA, citasAlumno.get(1), is(cita1));
+		Cita citaEncontrada = citas.buscar(cita2);
+		assertThat(CITA_NO_ESPERADA, citaEncontrada, is(cita2));
+		assertThat(REFERENCIA_NO_ESPERADA, citaEncontrada, not(sameInstance(cita2)));
+		assertThat(CITA_NO_ESPERADA, citas.buscar(new Cita(alumno1, sesion1, LocalTime.of(16, 0))), is(nullValue()));
+	}
+
+	@Test
+	public void borrarYTerminarEscribeElFichero() {
+		CitasMapeadas citas = new CitasMapeadas(nombreFichero);
+		citas.comenzar();
+		try {
+			citas.borrar(cita1);
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(2));
+			assertThat(CITA_NO_ESPERADA, citas.buscar(cita1), is(nullValue()));
+			citas.terminar();
+			CitasMapeadas citasReabiertas = new CitasMapeadas(nombreFichero);
+			citasReabiertas.comenzar();
+			assertThat(TAMANO_NO_ESPERADO, citasReabiertas.getTamano(), is(2));
+			assertThat(OPERACION_NO_REALIZADA, citasReabiertas.buscar(cita1), is(nullValue()));
+			assertThat(CITA_NO_ESPERADA, citasReabiertas.buscar(cita3), is(cita3));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void horasLibresYBorrarTodasSobreFicheroProyectado() {
+		CitasMapeadas citas = new CitasMapeadas(nombreFichero);
+		citas.comenzar();
+		assertThat(HORAS_NO_ESPERADAS, citas.getHorasLibres(sesion1, 3), is(Arrays.asList(LocalTime.of(16, 15), LocalTime.of(16, 30), LocalTime.of(16, 45))));
+		assertThat(HORAS_NO_ESPERADAS, citas.estaLibre(sesion1, LocalTime.of(17, 15)), is(false));
+		assertThat(TAMANO_NO_ESPERADO, citas.borrarTodas(new Alumno("Calamardo Tentáculos", "calamardo@gmail.com")), is(0));
+		assertThat(TAMANO_NO_ESPERADO, citas.borrarTodas(sesion2), is(1));
+		assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(2));
+		assertThat(TAMANO_NO_ESPERADO, citas.get(alumno1).size(), is(1));
+	}
+
+	@Test
+	public void ficheroConReferenciaFueraDeRangoSeRechazaAlComenzar() throws Exception {
+		// El último registro del fichero es el de la última cita: su identificador de alumno va primero
+		try (RandomAccessFile fichero = new RandomAccessFile(nombreFichero, "rw")) {
+			fichero.seek(fichero.length() - 10);
+			fichero.writeInt(99);
+		}
+		CitasMapeadas citas = new CitasMapeadas(nombreFichero);
+		try {
+			citas.comenzar();
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(0));
+			assertThat(TAMANO_NO_ESPERADO, citas.enlazar(Arrays.asList(alumno1), Arrays.asList(sesion1, sesion2)), is(0));
+			assertThat(TAMANO_NO_ESPERADO, citas.get(LocalDate.now(), LocalDate.now().plusDays(30), null, 10).getElementos().size(), is(0));
+		} catch (RuntimeException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FormatoCitasTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String CITA_NO_ESPERADA = "La cita devuelta no es la que debería ser.";
+	private static final String DATO_NO_ESPERADO = "El dato leído no es el que debería ser.";
+
+	private static Cita cita1;
+	private static Cita cita2;
+	private static Cita cita3;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@BeforeClass
+	public static void asignarValoresAtributos() {
+		Sesion sesion1 = new Sesion(new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Tutoria 1"), LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+		Sesion sesion2 = new Sesion(new Tutoria(Profesor.getProfesorFicticio("11223344B"), "Tutoria 2"), LocalDate.now().plusDays(7), LocalTime.of(16, 0), LocalTime.of(18, 0), 30);
+		Alumno alumno = new Alumno("Bob Esponja", "bob@gmail.com");
+		cita1 = new Cita(alumno, sesion1, LocalTime.of(17, 15));
+		cita2 = new Cita(alumno, sesion2, LocalTime.of(16, 30));
+		cita3 = new Cita(new Alumno("Patricio Estrella", "patricio@gmail.com"), sesion1, LocalTime.of(16, 0));
+	}
+
+	@Test
+	public void escribirYLeerConservaLasCitas() {
+		try {
+			FormatoCitas formato = new FormatoCitas(carpeta.getRoot() + "/citas.bin");
+			formato.escribir(Arrays.asList(cita1, cita2, cita3));
+			List<Cita> citasLeidas = formato.leer();
+			assertThat(TAMANO_NO_ESPERADO, citasLeidas.size(), is(3));
+			assertThat(CITA_NO_ESPERADA, citasLeidas.get(0), is(cita1));
+			assertThat(CITA_NO_ESPERADA, citasLeidas.get(1), is(cita2));
+			assertThat(CITA_NO_ESPERADA, citasLeidas.get(2), is(cita3));
+			assertThat(DATO_NO_ESPERADO, citasLeidas.get(0).getAlumno().getExpediente(), is(cita1.getAlumno().getExpediente()));
+			assertThat(DATO_NO_ESPERADO, citasLeidas.get(1).getSesion().getMinutosDuracion(), is(30));
+			assertThat(DATO_NO_ESPERADO, citasLeidas.get(2).getSesion().getTutoria().getProfesor().getCorreo(), is(cita3.getSesion().getTutoria().getProfesor().getCorreo()));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void escribirColeccionVaciaYLeerDevuelveListaVacia() {
+		try {
+			FormatoCitas formato = new FormatoCitas(carpeta.getRoot() + "/citas.bin");
+			formato.escribir(Arrays.asList());
+			assertThat(TAMANO_NO_ESPERADO, formato.leer().size(), is(0));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void leerFicheroDeOtroTipoLanzaExcepcion() {
+		try {
+			File fichero = new File(carpeta.getRoot(), "alumnos.bin");
+			new FormatoAlumnos(fichero.getPath()).escribir(Arrays.asList(cita1.getAlumno()));
+			new FormatoCitas(fichero.getPath()).leer();
+			fail(EXCEPCION_ESPERADA);
+		} catch (IOException e) {
+			// Es lo esperado
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void leerFicheroTruncadoLanzaExcepcion() {
+		try {
+			File fichero = new File(carpeta.getRoot(), "citas.bin");
+			FormatoCitas formato = new FormatoCitas(fichero.getPath());
+			formato.escribir(Arrays.asList(cita1, cita2, cita3));
+			byte[] contenido = Files.readAllBytes(fichero.toPath());
+			Files.write(fichero.toPath(), Arrays.copyOf(contenido, contenido.length - 3));
+			formato.leer();
+			fail(EXCEPCION_ESPERADA);
+		} catch (IOException e) {
+			// Es lo esperado
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.binarios;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SesionesMapeadasTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String SESION_NO_ESPERADA = "La sesión devuelta no es la que debería ser.";
+	private static final String REFERENCIA_NO_ESPERADA = "La referencia devuelta es la misma que la pasada.";
+	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String MENSAJE_NO_CORRECTO = "El mensaje devuelto por la excepción no es correcto.";
+
+	private static Tutoria tutoria1;
+	private static Tutoria tutoria2;
+	private static Sesion sesion1;
+	private static Sesion sesion2;
+	private static Sesion sesion3;
+
+	private String nombreFichero;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@BeforeClass
+	public static void asignarValoresAtributos() {
+		tutoria1 = new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Tutoria 1");
+		tutoria2 = new Tutoria(Profesor.getProfesorFicticio("11223344B"), "Tutoria 2");
+		sesion1 = new Sesion(tutoria1, LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+		sesion2 = new Sesion(tutoria1, LocalDate.now().plusDays(9), LocalTime.of(17, 0), LocalTime.of(18, 0), 30);
+		sesion3 = new Sesion(tutoria2, LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(17, 0), 20);
+	}
+
+	@Before
+	public void escribirFichero() throws Exception {
+		nombreFichero = carpeta.getRoot() + "/sesiones.bin";
+		new FormatoSesiones(nombreFichero).escribir(Arrays.asList(sesion1, sesion2, sesion3));
+	}
+
+	@Test
+	public void buscarSobreFicheroProyectadoDevuelveLaSesionDeLaTutoriaYElDia() {
+		SesionesMapeadas sesiones = new SesionesMapeadas(nombreFichero);
+		sesiones.comenzar();
+		assertThat(TAMANO_NO_ESPERADO, sesiones.getTamano(), is(3));
+		Sesion sesionEncontrada = sesiones.buscar(Sesion.getSesionFicticia(tutoria1, sesion2.getFecha()));
+		assertThat(SESION_NO_ESPERADA, sesionEncontrada, is(sesion2));
+		assertThat(SESION_NO_ESPERADA, sesionEncontrada.getHoraInicio(), is(LocalTime.of(17, 0)));
+		assertThat(REFERENCIA_NO_ESPERADA, sesionEncontrada, not(sameInstance(sesion2)));
+		assertThat(SESION_NO_ESPERADA, sesiones.buscar(sesion3).getMinutosDuracion(), is(20));
+		assertThat(SESION_NO_ESPERADA, sesiones.buscar(Sesion.getSesionFicticia(tutoria2, sesion2.getFecha())), is(nullValue()));
+		assertThat(SESION_NO_ESPERADA, sesiones.buscar(Sesion.getSesionFicticia(new Tutoria(Profesor.getProfesorFicticio("11223344B"),
+				"Tutoria 3"), sesion1.getFecha())), is(nullValue()));
+	}
+
+	@Test
+	public void buscarDespuesDeModificarConsultaLasSesionesEnMemoria() {
+		SesionesMapeadas sesiones = new SesionesMapeadas(nombreFichero);
+		sesiones.comenzar();
+		try {
+			sesiones.borrar(sesion1);
+			assertThat(SESION_NO_ESPERADA, sesiones.buscar(sesion1), is(nullValue()));
+			assertThat(SESION_NO_ESPERADA, sesiones.buscar(sesion2), is(sesion2));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void sesionConDuracionNoValidaSeRechazaAlDecodificarla() throws Exception {
+		// La duración es el último campo del último registro del fichero
+		try (RandomAccessFile fichero = new RandomAccessFile(nombreFichero, "rw")) {
+			fichero.seek(fichero.length() - 2);
+			fichero.writeShort(-20);
+		}
+		SesionesMapeadas sesiones = new SesionesMapeadas(nombreFichero);
+		sesiones.comenzar();
+		assertThat(SESION_NO_ESPERADA, sesiones.buscar(sesion1), is(sesion1));
+		try {
+			sesiones.buscar(sesion3);
+			fail(EXCEPCION_ESPERADA);
+		} catch (UncheckedIOException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is("ERROR: El fichero de sesiones contiene un registro no válido."));
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AlmacenLsmTest {
+
+	private static final String VALOR_NO_ESPERADO = "El valor devuelto no es el esperado.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String CLAVE_NO_ESPERADA = "La clave devuelta no es la esperada.";
+	private static final int CLAVES_POR_LOTE = 5000;
+	private static final int LOTES = 6;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private File directorio;
+
+	@Before
+	public void asignarDirectorio() {
+		directorio = carpeta.getRoot();
+	}
+
+	private static byte[] valor(String texto) {
+		return texto.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String texto(byte[] valor) {
+		return valor == null ? null : new String(valor, StandardCharsets.UTF_8);
+	}
+
+	private static String clave(int numero) {
+		return String.format("k%06d", numero);
+	}
+
+	private static List<String> claves(Iterator<Map.Entry<String, byte[]>> entradas) {
+		List<String> claves = new ArrayList<>();
+		while (entradas.hasNext()) {
+			claves.add(entradas.next().getKey());
+		}
+		return claves;
+	}
+
+	@Test
+	public void cambioConfirmadoSobreviveSinCerrarElAlmacen() throws Exception {
+		AlmacenLsm almacen = new AlmacenLsm(directorio, "prueba");
+		almacen.abrir();
+		almacen.escribir(new AlmacenLsm.Lote().poner("a", valor("uno")).poner("b", valor("dos")));
+		almacen.escribir(new AlmacenLsm.Lote().borrar("a"));
+		// Otro almacén sobre los mismos ficheros, como tras una caída: solo queda el diario
+		AlmacenLsm recuperado = new AlmacenLsm(directorio, "prueba");
+		recuperado.abrir();
+		assertThat(VALOR_NO_ESPERADO, recuperado.get("a"), is(nullValue()));
+		assertThat(VALOR_NO_ESPERADO, texto(recuperado.get("b")), is("dos"));
+		recuperado.cerrar();
+	}
+
+	@Test
+	public void loteAMedioEscribirSeDescartaAlReproducirElDiario() throws Exception {
+		AlmacenLsm almacen = new AlmacenLsm(directorio, "prueba");
+		almacen.abrir();
+		almacen.escribir(new AlmacenLsm.Lote().poner("a", valor("uno")));
+		try (FileOutputStream diario = new FileOutputStream(new File(directorio, "prueba.log"), true)) {
+			diario.write(new byte[] { 0, 0, 0, 40, 1, 2, 3 });
+		}
+		AlmacenLsm recuperado = new AlmacenLsm(directorio, "prueba");
+		recuperado.abrir();
+		assertThat(VALOR_NO_ESPERADO, texto(recuperado.get("a")), is("uno"));
+		recuperado.escribir(new AlmacenLsm.Lote().poner("b", valor("dos")));
+		AlmacenLsm otraVez = new AlmacenLsm(directorio, "prueba");
+		otraVez.abrir();
+		assertThat(VALOR_NO_ESPERADO, texto(otraVez.get("a")), is("uno"));
+		assertThat(VALOR_NO_ESPERADO, texto(otraVez.get("b")), is("dos"));
+		otraVez.cerrar();
+	}
+
+	@Test
+	public void volcadosYCompactacionConservanLaUltimaVersionDeCadaClave() throws Exception {
+		AlmacenLsm almacen = new AlmacenLsm(directorio, "prueba");
+		almacen.abrir();
+		// Cada lote supera la tabla en memoria: se vuelca en un segmento y, a partir del quinto, se compacta
+		for (int lote = 0; lote < LOTES; lote++) {
+			AlmacenLsm.Lote cambios = new AlmacenLsm.Lote();
+			for (int i = 0; i < CLAVES_POR_LOTE; i++) {
+				cambios.poner(clave(i), valor("v" + lote));
+			}
+			if (lote == LOTES - 1) {
+				for (int i = 0; i < CLAVES_POR_LOTE; i += 2) {
+					cambios.borrar(clave(i));
+				}
+			}
+			almacen.escribir(cambios);
+		}
+		almacen.escribir(new AlmacenLsm.Lote().poner(clave(0), valor("nuevo")));
+		comprobarUltimasVersiones(almacen);
+		almacen.cerrar();
+		AlmacenLsm reabierto = new AlmacenLsm(directorio, "prueba");
+		reabierto.abrir();
+		comprobarUltimasVersiones(reabierto);
+		reabierto.cerrar();
+		assertThat(TAMANO_NO_ESPERADO, directorio.list((carpeta, nombre) -> nombre.endsWith(".seg")).length < LOTES, is(true));
+	}
+
+	private static void comprobarUltimasVersiones(AlmacenLsm almacen) {
+		assertThat(VALOR_NO_ESPERADO, texto(almacen.get(clave(0))), is("nuevo"));
+		assertThat(VALOR_NO_ESPERADO, almacen.get(clave(2)), is(nullValue()));
+		assertThat(VALOR_NO_ESPERADO, texto(almacen.get(clave(4999))), is("v" + (LOTES - 1)));
+		List<String> claves = claves(almacen.recorrer(clave(0), clave(10)));
+		assertThat(TAMANO_NO_ESPERADO, claves.size(), is(6));
+		assertThat(CLAVE_NO_ESPERADA, claves.get(0), is(clave(0)));
+		assertThat(CLAVE_NO_ESPERADA, claves.get(1), is(clave(1)));
+		assertThat(CLAVE_NO_ESPERADA, claves.get(5), is(clave(9)));
+		assertThat(TAMANO_NO_ESPERADO, claves(almacen.recorrer("", null)).size(), is(CLAVES_POR_LOTE / 2 + 1));
+	}
+
+	@Test
+	public void recorridoVeLosCambiosPosterioresALaUltimaClaveDevuelta() throws Exception {
+		AlmacenLsm almacen = new AlmacenLsm(directorio, "prueba");
+		almacen.abrir();
+		almacen.escribir(new AlmacenLsm.Lote().poner("a", valor("1")).poner("c", valor("3")).poner("e", valor("5")));
+		almacen.volcar();
+		Iterator<Map.Entry<String, byte[]>> recorrido = almacen.recorrer("", null);
+		assertThat(CLAVE_NO_ESPERADA, recorrido.next().getKey(), is("a"));
+		almacen.escribir(new AlmacenLsm.Lote().poner("b", valor("2")).borrar("c"));
+		assertThat(CLAVE_NO_ESPERADA, recorrido.next().getKey(), is("b"));
+		assertThat(CLAVE_NO_ESPERADA, recorrido.next().getKey(), is("e"));
+		assertThat(CLAVE_NO_ESPERADA, recorrido.hasNext(), is(false));
+		almacen.cerrar();
+	}
+
+	@Test
+	public void recorridoPorPrefijoSoloDevuelveLasClavesQueDescienden() throws Exception {
+		AlmacenLsm almacen = new AlmacenLsm(directorio, "prueba");
+		almacen.abrir();
+		String padre = CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, "11223344B");
+		almacen.escribir(new AlmacenLsm.Lote().poner(padre + AlmacenLsm.MINIMO + "Tutoria 1", valor("1"))
+				.poner(CodificacionClaveValor.clave(CodificacionClaveValor.NATURAL, "11223344BC", "Tutoria 2"), valor("2"))
+				.poner(padre + AlmacenLsm.MINIMO + "Tutoria 3", valor("3")));
+		List<String> claves = claves(almacen.recorrerPrefijo(padre));
+		assertThat(TAMANO_NO_ESPERADO, claves.size(), is(2));
+		assertThat(CLAVE_NO_ESPERADA, claves.get(1), is(padre + AlmacenLsm.MINIMO + "Tutoria 3"));
+		almacen.cerrar();
+	}
+
+}
@@ -0,0 +1,201 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.clavevalor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.naming.OperationNotSupportedException;
+
+import org.iesalandalus.programacion.tutorias.mvc.modelo.IModelo;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.Modelo;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Cita;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModeloClaveValorTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String CITA_NO_ESPERADA = "La cita devuelta no es la que debería ser.";
+	private static final String SESION_NO_ESPERADA = "La sesión devuelta no es la que debería ser.";
+	private static final String OPERACION_NO_REALIZADA = "La operación no la ha realizado correctamente.";
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private IModelo modelo;
+	private Profesor profesor1;
+	private Tutoria tutoria1;
+	private Tutoria tutoria2;
+	private Sesion sesion1;
+	private Sesion sesion2;
+	private Sesion sesion3;
+	private Alumno alumno1;
+	private Alumno alumno2;
+	private Cita cita1;
+	private Cita cita2;
+	private Cita cita3;
+
+	@Before
+	public void crearModelo() {
+		profesor1 = new Profesor("Bob Esponja", "11223344B", "bob@gmail.com");
+		Profesor profesor2 = new Profesor("Arenita Mejillas", "22334455Y", "arenita@gmail.com");
+		tutoria1 = new Tutoria(profesor1, "Tutoria 1");
+		tutoria2 = new Tutoria(profesor2, "Tutoria 2");
+		sesion1 = new Sesion(tutoria1, LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+		sesion2 = new Sesion(tutoria1, LocalDate.now().plusDays(9), LocalTime.of(16, 0), LocalTime.of(18, 0), 30);
+		sesion3 = new Sesion(tutoria2, LocalDate.now().plusDays(7), LocalTime.of(17, 0), LocalTime.of(18, 0), 30);
+		alumno1 = Alumno.getAlumnoFicticio("patricio@gmail.com");
+		alumno2 = Alumno.getAlumnoFicticio("calamardo@gmail.com");
+		cita1 = new Cita(alumno1, sesion1, LocalTime.of(17, 15));
+		cita2 = new Cita(alumno2, sesion1, LocalTime.of(16, 0));
+		cita3 = new Cita(alumno1, sesion3, LocalTime.of(17, 30));
+		modelo = abrir();
+		try {
+			modelo.insertar(profesor1);
+			modelo.insertar(profesor2);
+			modelo.insertar(tutoria1);
+			modelo.insertar(tutoria2);
+			modelo.insertar(sesion1);
+			modelo.insertar(sesion2);
+			modelo.insertar(sesion3);
+			modelo.insertarAlumnos(Arrays.asList(alumno1, alumno2));
+			modelo.insertarCitas(Arrays.asList(cita1, cita2, cita3));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	private IModelo abrir() {
+		IModelo abierto = new Modelo(new FactoriaFuenteDatosClaveValor(carpeta.getRoot()));
+		abierto.comenzar();
+		return abierto;
+	}
+
+	@After
+	public void cerrarModelo() {
+		modelo.terminar();
+	}
+
+	@Test
+	public void consultasPorClaveYPorIndiceDevuelvenElOrdenNatural() {
+		List<Cita> citasSesion = modelo.getCitas(sesion1);
+		assertThat(TAMANO_NO_ESPERADO, citasSesion.size(), is(2));
+		assertThat(CITA_NO_ESPERADA, citasSesion.get(0), is(cita2));
+		assertThat(CITA_NO_ESPERADA, citasSesion.get(1), is(cita1));
+		List<Cita> citasAlumno = modelo.getCitas(alumno1);
+		assertThat(TAMANO_NO_ESPERADO, citasAlumno.size(), is(2));
+		assertThat(CITA_NO_ESPERADA, citasAlumno.get(0), is(cita1));
+		assertThat(CITA_NO_ESPERADA, citasAlumno.get(1), is(cita3));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getTutorias(profesor1).size(), is(1));
+		Pagina<Sesion> pagina = modelo.getSesiones(LocalDate.now(), LocalDate.now().plusDays(8), null, 1);
+		assertThat(SESION_NO_ESPERADA, pagina.getElementos().get(0), is(sesion3));
+		pagina = modelo.getSesiones(LocalDate.now(), LocalDate.now().plusDays(8), pagina.getCursor(), 1);
+		assertThat(SESION_NO_ESPERADA, pagina.getElementos().get(0), is(sesion1));
+		assertThat(OPERACION_NO_REALIZADA, pagina.hayMas(), is(false));
+		assertThat(OPERACION_NO_REALIZADA, modelo.estaLibre(sesion1, LocalTime.of(16, 0)), is(false));
+		assertThat(OPERACION_NO_REALIZADA, modelo.getSiguienteHoraLibre(sesion1, LocalTime.of(16, 0)), is(LocalTime.of(16, 15)));
+		try {
+			modelo.insertar(new Cita(alumno1, sesion1, LocalTime.of(16, 0)));
+			fail(OPERACION_NO_REALIZADA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(OPERACION_NO_REALIZADA, e.getMessage(), is("ERROR: Ya existe una cita con esa hora."));
+		}
+	}
+
+	@Test
+	public void borrarArrastraLosDependientesYSeConservaAlVolverAAbrir() {
+		try {
+			assertThat(TAMANO_NO_ESPERADO, modelo.borrar(profesor1), is(1 + 1 + 2 + 2));
+			assertThat(TAMANO_NO_ESPERADO, modelo.borrar(alumno1), is(1 + 1));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+		modelo.terminar();
+		modelo = abrir();
+		assertThat(TAMANO_NO_ESPERADO, modelo.getProfesores().size(), is(1));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getSesiones().size(), is(1));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getCitas().size(), is(0));
+		assertThat(TAMANO_NO_ESPERADO, modelo.getAlumnos().size(), is(1));
+		assertThat(OPERACION_NO_REALIZADA, modelo.buscar(tutoria1), is(nullValue()));
+		assertThat(OPERACION_NO_REALIZADA, modelo.buscar(alumno2), is(alumno2));
+		assertThat(OPERACION_NO_REALIZADA, modelo.streamSesiones().map(Sesion::getTutoria).collect(Collectors.toList()),
+				is(Arrays.asList(tutoria2)));
+	}
+
+	@Test
+	public void borradoEnCascadaInterrumpidoNoBorraNadaNiEnMemoriaNiEnDisco() {
+		File copia = new File(carpeta.getRoot(), "copia");
+		modelo.terminar();
+		modelo = new Modelo(new FactoriaFuenteDatosClaveValor(carpeta.getRoot()) {
+			@Override
+			public ITutorias crearTutorias() {
+				ITutorias tutorias = spy(super.crearTutorias());
+				// Las citas y sesiones del profesor ya se han borrado: se copia el disco como si se cayera aquí
+				doAnswer(invocacion -> {
+					copiar(carpeta.getRoot().toPath(), copia.toPath());
+					throw new IllegalStateException("Caída simulada.");
+				}).when(tutorias).borrarTodas(any(Profesor.class));
+				return tutorias;
+			}
+		});
+		modelo.comenzar();
+		try {
+			modelo.borrar(profesor1);
+			fail(EXCEPCION_ESPERADA);
+		} catch (IllegalStateException e) {
+			assertThat(TAMANO_NO_ESPERADO, modelo.getCitas().size(), is(3));
+			assertThat(TAMANO_NO_ESPERADO, modelo.getSesiones().size(), is(3));
+			assertThat(OPERACION_NO_REALIZADA, modelo.buscar(cita1), is(cita1));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+		IModelo recuperado = new Modelo(new FactoriaFuenteDatosClaveValor(copia));
+		recuperado.comenzar();
+		try {
+			assertThat(TAMANO_NO_ESPERADO, recuperado.getCitas().size(), is(3));
+			assertThat(TAMANO_NO_ESPERADO, recuperado.getSesiones().size(), is(3));
+			assertThat(TAMANO_NO_ESPERADO, recuperado.getTutorias().size(), is(2));
+			assertThat(OPERACION_NO_REALIZADA, recuperado.buscar(profesor1), is(profesor1));
+		} finally {
+			recuperado.terminar();
+		}
+	}
+
+	private static void copiar(Path origen, Path destino) throws IOException {
+		try (Stream<Path> ficheros = Files.list(origen)) {
+			Files.createDirectories(destino);
+			for (Path fichero : (Iterable<Path>) ficheros::iterator) {
+				if (Files.isRegularFile(fichero)) {
+					Files.copy(fichero, destino.resolve(fichero.getFileName()));
+				}
+			}
+		}
+	}
+
+}
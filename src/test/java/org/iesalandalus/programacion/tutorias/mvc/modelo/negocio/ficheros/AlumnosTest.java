@@ -1,5 +1,6 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -7,21 +8,29 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.naming.OperationNotSupportedException;
 
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Alumno;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.SecuenciaExpedientes;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IAlumnos;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Alumnos;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class AlumnosTest {
 
 	private static final String ERROR_INSERTAR_ALUMNO_NULO = "ERROR: No se puede insertar un alumno nulo.";
 	private static final String ERROR_BORRAR_ALUMNO_NULO = "ERROR: No se puede borrar un alumno nulo.";
 	private static final String ERROR_BUSCAR_ALUMNO_NULO = "ERROR: No se puede buscar un alumno nulo.";
+	private static final String ERROR_BUSCAR_EXPEDIENTE_NULO = "ERROR: No se puede buscar un alumno con expediente nulo.";
 	private static final String ERROR_ALUMNO_EXISTE = "ERROR: Ya existe un alumno con ese expediente.";
 	private static final String ERROR_ALUMNO_BORRAR_NO_EXISTE = "ERROR: No existe ningún alumno con ese expediente.";
 	private static final String OPERACION_NO_PERMITIDA = "Debería haber saltado una excepción indicando que dicha operación no está permitida.";
@@ -31,6 +40,7 @@ public class AlumnosTest {
 	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
 	private static final String REFERENCIA_NO_ESPERADA = "La referencia devuelta es la misma que la pasada.";
 	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
+	private static final String EXPEDIENTE_NO_ESPERADO = "El número de expediente generado no es el esperado.";
 	private static final String ALUMNO_NO_ESPERADO = "El alumno devuelto no es la que debería ser.";
 	
 	private static Alumno alumno1;
@@ -38,6 +48,9 @@ public class AlumnosTest {
 	private static Alumno alumno3;
 	private static Alumno alumnoRepetido;
 	
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
 	@BeforeClass
 	public static void asignarValoresAtributos() {
 		alumno1 = new Alumno("Bob Esponja", "bob@gmail.com");
@@ -300,4 +313,68 @@ public class AlumnosTest {
 		}
 	}
 
+	@Test
+	public void buscarPorExpedienteDevuelveAlumnoCorrecto() {
+		IAlumnos alumnos = new Alumnos();
+		try {
+			alumnos.insertar(alumno1);
+			alumnos.insertar(alumno2);
+			assertThat(ALUMNO_NO_ESPERADO, alumnos.buscarPorExpediente(alumno1.getExpediente()), is(alumno1));
+			assertThat(REFERENCIA_NO_ESPERADA, alumnos.buscarPorExpediente(alumno1.getExpediente()), not(sameInstance(alumno1)));
+			assertThat(ALUMNO_NO_ESPERADO, alumnos.buscarPorExpediente(alumno2.getExpediente()), is(alumno2));
+			assertThat(ALUMNO_NO_ESPERADO, alumnos.buscarPorExpediente(alumno3.getExpediente()), is(nullValue()));
+			alumnos.borrar(alumno1);
+			assertThat(ALUMNO_NO_ESPERADO, alumnos.buscarPorExpediente(alumno1.getExpediente()), is(nullValue()));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void buscarPorExpedienteNuloLanzaExcepcion() {
+		IAlumnos alumnos = new Alumnos();
+		try {
+			alumnos.insertar(alumno1);
+			alumnos.buscarPorExpediente(null);
+			fail(ALUMNO_NULO);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_BUSCAR_EXPEDIENTE_NULO));
+			assertThat(TAMANO_NO_ESPERADO, alumnos.getTamano(), is(1));
+		} catch (Exception e) {
+			fail(TIPO_NO_CORRECTO);
+		}
+	}
+
+	@Test
+	public void comenzarDescartaAlumnosRepetidosYSigueLaSecuenciaDeExpedientes() throws IOException {
+		int anterior = SecuenciaExpedientes.siguiente();
+		String fichero = carpeta.getRoot() + "/alumnos.dat";
+		// El repetido tiene el mayor expediente del fichero, pero al descartarse no cuenta
+		new FormatoObjetos<>(fichero, Alumno.class).escribir(Arrays.asList(
+				Alumno.restaurar("Bob Esponja", "bob@gmail.com", "SP_BE_" + (anterior + 1000)),
+				Alumno.restaurar("Patricio Estrella", "patricio@gmail.com", "SP_PE_" + (anterior + 500)),
+				Alumno.restaurar("Otro Bob", "bob@gmail.com", "SP_OB_" + (anterior + 9000))));
+		IAlumnos alumnos = new Alumnos(new FormatoObjetos<>(fichero, Alumno.class));
+		String mensajes = comenzar(alumnos);
+		// El primer alumno nuevo sigue al mayor expediente conservado
+		assertThat(EXPEDIENTE_NO_ESPERADO, SecuenciaExpedientes.numero(new Alumno("Calamardo Tentáculos", "calamardo@gmail.com").getExpediente()),
+				is(anterior + 1001));
+		assertThat(TAMANO_NO_ESPERADO, alumnos.getTamano(), is(2));
+		assertThat(ALUMNO_NO_ESPERADO, alumnos.buscar(Alumno.getAlumnoFicticio("bob@gmail.com")).getNombre(), is("Bob Esponja"));
+		assertThat(MENSAJE_NO_CORRECTO, mensajes, containsString("Se han descartado 1 alumnos repetidos en el fichero de alumnos."));
+	}
+
+	// Lee el fichero con comenzar() y devuelve lo que ha escrito por la salida estándar
+	private static String comenzar(IAlumnos coleccion) {
+		PrintStream salidaOriginal = System.out;
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(salida, true));
+		try {
+			coleccion.comenzar();
+		} finally {
+			System.setOut(salidaOriginal);
+		}
+		return salida.toString();
+	}
+
 }
@@ -1,5 +1,6 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -7,9 +8,15 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -21,7 +28,9 @@ import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ICitas;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Citas;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class CitasTest {
 
@@ -40,7 +49,9 @@ public class CitasTest {
 	private static final String REFERENCIA_NO_ESPERADA = "La referencia devuelta es la misma que la pasada.";
 	private static final String TAMANO_NO_ESPERADO = "El tamaño devuelto no es el esperado.";
 	private static final String CITA_NO_ESPERADA = "La cita devuelta no es la que debería ser.";
+	private static final String INSTANCIA_NO_COMPARTIDA = "Las citas deberían compartir la misma instancia.";
 	private static final String OBJETO_DEBERIA_SER_NULO = "No se debería haber creado el objeto.";
+	private static final String HORA_NO_ESPERADA = "La hora devuelta no es la que debería ser.";
 	
 	private static Cita cita1;
 	private static Cita cita2;
@@ -52,6 +63,9 @@ public class CitasTest {
 	private static Cita cita8;
 	private static Cita citaRepetida;
 	
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
 	@BeforeClass
 	public static void asignarValoresAtributos() {
 		Sesion sesion1 = new Sesion(new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Tutoria 1"), LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
@@ -104,6 +118,144 @@ public class CitasTest {
 		}
 	}
 	
+	@Test
+	public void insertarCitasMismaSesionComparteInstancias() {
+		ICitas citas = new Citas();
+		try {
+			citas.insertar(cita5);
+			citas.insertar(cita6);
+			citas.insertar(cita1);
+			List<Cita> citasSesion = citas.get(cita1.getSesion());
+			assertThat(INSTANCIA_NO_COMPARTIDA, citasSesion.get(1).getSesion(), sameInstance(citasSesion.get(0).getSesion()));
+			assertThat(INSTANCIA_NO_COMPARTIDA, citasSesion.get(2).getSesion(), sameInstance(citasSesion.get(0).getSesion()));
+			assertThat(INSTANCIA_NO_COMPARTIDA, citasSesion.get(1).getAlumno(), sameInstance(citasSesion.get(0).getAlumno()));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void getVistaDevuelveCitasOrdenadasNoModificables() {
+		ICitas citas = new Citas();
+		try {
+			citas.insertar(cita1);
+			citas.insertar(cita2);
+			citas.insertar(cita5);
+			List<Cita> vista = citas.getVista();
+			assertThat(CITA_NO_ESPERADA, vista, is(citas.get()));
+			assertThat(REFERENCIA_NO_ESPERADA, citas.getVista(), sameInstance(vista));
+			try {
+				vista.add(cita3);
+				fail(OPERACION_NO_PERMITIDA);
+			} catch (UnsupportedOperationException e) {
+				assertThat(TAMANO_NO_ESPERADO, vista.size(), is(3));
+			}
+			citas.insertar(cita3);
+			assertThat(TAMANO_NO_ESPERADO, citas.getVista().size(), is(4));
+			assertThat(CITA_NO_ESPERADA, citas.getVista(), is(citas.get()));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void streamSesionRecorreCitasAunqueSeModifiquen() {
+		ICitas citas = new Citas();
+		try {
+			citas.insertar(cita5);
+			citas.insertar(cita6);
+			citas.insertar(cita1);
+			citas.insertar(cita7);
+			Iterator<Cita> recorrido = citas.stream(cita1.getSesion()).iterator();
+			assertThat(CITA_NO_ESPERADA, recorrido.next(), is(cita5));
+			citas.borrar(cita6);
+			citas.insertar(cita8);
+			assertThat(CITA_NO_ESPERADA, recorrido.next(), is(cita1));
+			assertThat(CITA_NO_ESPERADA, recorrido.next(), is(cita8));
+			assertThat(CITA_NO_ESPERADA, recorrido.next(), is(cita7));
+			assertThat(TAMANO_NO_ESPERADO, recorrido.hasNext(), is(false));
+			List<Cita> citasBob = citas.stream(cita5.getAlumno()).limit(2).collect(Collectors.toList());
+			assertThat(TAMANO_NO_ESPERADO, citasBob.size(), is(2));
+			assertThat(CITA_NO_ESPERADA, citasBob.get(0), is(cita5));
+			assertThat(CITA_NO_ESPERADA, citasBob.get(1), is(cita8));
+			assertThat(TAMANO_NO_ESPERADO, citas.stream().count(), is(4L));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void insertarTodasConCitaRepetidaNoInsertaNinguna() {
+		ICitas citas = new Citas();
+		try {
+			citas.insertar(cita1);
+			citas.insertarTodas(Arrays.asList(cita2, cita3, citaRepetida));
+			fail(OPERACION_NO_PERMITIDA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_CITA_EXISTE));
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(1));
+		}
+		try {
+			citas.insertarTodas(Arrays.asList(cita2, cita3, cita2));
+			fail(OPERACION_NO_PERMITIDA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(1));
+		}
+		try {
+			citas.insertarTodas(Arrays.asList(cita2, cita3, cita5));
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(4));
+			assertThat(TAMANO_NO_ESPERADO, citas.get(cita1.getSesion()).size(), is(2));
+			assertThat(INSTANCIA_NO_COMPARTIDA, citas.buscar(cita5).getSesion(), sameInstance(citas.buscar(cita1).getSesion()));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void insertarHoraOcupadaPorOtroAlumnoLanzaExcepcion() {
+		ICitas citas = new Citas();
+		Cita citaMismaHora = new Cita(Alumno.getAlumnoFicticio("bob@gmail.com"), cita1.getSesion(), cita1.getHora());
+		try {
+			citas.insertar(cita1);
+			citas.insertar(citaMismaHora);
+			fail(OPERACION_NO_PERMITIDA);
+		} catch (OperationNotSupportedException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_CITA_EXISTE));
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(1));
+		}
+		assertThat(HORA_NO_ESPERADA, citas.estaLibre(cita1.getSesion(), cita1.getHora()), is(false));
+		assertThat(HORA_NO_ESPERADA, citas.getSiguienteHoraLibre(cita1.getSesion(), cita1.getHora()), is(LocalTime.of(17, 30)));
+		try {
+			citas.borrar(cita1);
+			citas.insertar(citaMismaHora);
+			assertThat(CITA_NO_ESPERADA, citas.buscar(citaMismaHora), is(citaMismaHora));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void borrarTodasSesionBorraCitasSesionDeTodosLosIndices() {
+		ICitas citas = new Citas();
+		try {
+			citas.insertar(cita1);
+			citas.insertar(cita2);
+			citas.insertar(cita5);
+			citas.insertar(cita6);
+			assertThat(TAMANO_NO_ESPERADO, citas.borrarTodas(cita1.getSesion()), is(3));
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(1));
+			assertThat(TAMANO_NO_ESPERADO, citas.get(cita5.getAlumno()).size(), is(0));
+			assertThat(TAMANO_NO_ESPERADO, citas.get(cita1.getAlumno()).size(), is(1));
+			assertThat(CITA_NO_ESPERADA, citas.getVista().get(0), is(cita2));
+			assertThat(CITA_NO_ESPERADA, citas.buscar(cita1), is(nullValue()));
+			assertThat(TAMANO_NO_ESPERADO, citas.borrarTodas(cita1.getSesion()), is(0));
+			assertThat(TAMANO_NO_ESPERADO, citas.borrarTodas(cita2.getAlumno()), is(1));
+			assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(0));
+		} catch (OperationNotSupportedException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
 	@Test
 	public void getSesionValidaDevuelveCitasSesionOrdenadas() {
 		ICitas citas = new Citas();
@@ -134,6 +286,29 @@ public class CitasTest {
 		}
 	}
 	
+	@Test
+	public void getSesionYAlumnoDespuesDeBorrarNoDevuelveCitasBorradas() {
+		ICitas citas = new Citas();
+		try {
+			citas.insertar(cita1);
+			citas.insertar(cita5);
+			citas.insertar(cita6);
+			citas.insertar(cita2);
+			citas.borrar(cita6);
+			citas.borrar(cita2);
+			Sesion sesion = new Sesion(new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Tutoria 1"), LocalDate.now().plusDays(8), LocalTime.of(16, 0), LocalTime.of(18, 0), 15);
+			List<Cita> citasSesion = citas.get(sesion);
+			assertThat(TAMANO_NO_ESPERADO, citasSesion.size(), is(2));
+			assertThat(CITA_NO_ESPERADA, citasSesion.get(0), is(cita5));
+			assertThat(CITA_NO_ESPERADA, citasSesion.get(1), is(cita1));
+			List<Cita> citasAlumno = citas.get(Alumno.getAlumnoFicticio("patricio@gmail.com"));
+			assertThat(TAMANO_NO_ESPERADO, citasAlumno.size(), is(1));
+			assertThat(CITA_NO_ESPERADA, citasAlumno.get(0), is(cita1));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
 	@Test
 	public void getSesionNulaLanzaExcepcion() {
 		ICitas citas = new Citas();
@@ -435,4 +610,28 @@ public class CitasTest {
 		}
 	}
 
+	@Test
+	public void comenzarDescartaCitasRepetidasYConservaLaPrimera() throws IOException {
+		String fichero = carpeta.getRoot() + "/citas.dat";
+		new FormatoObjetos<>(fichero, Cita.class).escribir(Arrays.asList(cita1, cita5, new Cita(cita1), citaRepetida));
+		ICitas citas = new Citas(new FormatoObjetos<>(fichero, Cita.class));
+		String mensajes = comenzar(citas);
+		assertThat(TAMANO_NO_ESPERADO, citas.getTamano(), is(2));
+		assertThat(CITA_NO_ESPERADA, citas.get(cita1.getSesion()), is(Arrays.asList(cita5, cita1)));
+		assertThat(MENSAJE_NO_CORRECTO, mensajes, containsString("Se han descartado 2 citas repetidas en el fichero de citas."));
+	}
+
+	// Lee el fichero con comenzar() y devuelve lo que ha escrito por la salida estándar
+	private static String comenzar(ICitas coleccion) {
+		PrintStream salidaOriginal = System.out;
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(salida, true));
+		try {
+			coleccion.comenzar();
+		} finally {
+			System.setOut(salidaOriginal);
+		}
+		return salida.toString();
+	}
+
 }
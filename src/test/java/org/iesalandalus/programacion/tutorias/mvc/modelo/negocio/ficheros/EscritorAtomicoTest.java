@@ -0,0 +1,105 @@
+package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EscritorAtomicoTest {
+
+	private static final String EXCEPCION_NO_PROCEDE = "No debería haber saltado la excepción.";
+	private static final String EXCEPCION_ESPERADA = "Debería haber saltado la excepción.";
+	private static final String CONTENIDO_NO_ESPERADO = "El contenido del fichero no es el esperado.";
+	private static final String PERMISOS_NO_ESPERADOS = "Los permisos del fichero no son los esperados.";
+	private static final String TEMPORAL_NO_BORRADO = "No debería quedar ningún fichero temporal.";
+	private static final String CONTENIDO_ANTERIOR = "contenido anterior";
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private File fichero;
+
+	@Before
+	public void escribirFicheroAnterior() throws IOException {
+		fichero = new File(carpeta.getRoot(), "datos.dat");
+		Files.write(fichero.toPath(), CONTENIDO_ANTERIOR.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void escribirReemplazaElContenido() {
+		try {
+			EscritorAtomico.escribir(fichero, salida -> salida.write("contenido nuevo".getBytes(StandardCharsets.UTF_8)));
+			assertThat(CONTENIDO_NO_ESPERADO, leer(fichero.toPath()), is("contenido nuevo"));
+			assertThat(TEMPORAL_NO_BORRADO, carpeta.getRoot().list().length, is(1));
+		} catch (IOException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void contenidoQueFallaDejaIntactoElFicheroAnterior() {
+		try {
+			EscritorAtomico.escribir(fichero, salida -> {
+				salida.write("contenido a medias".getBytes(StandardCharsets.UTF_8));
+				throw new IOException("Disco lleno.");
+			});
+			fail(EXCEPCION_ESPERADA);
+		} catch (IOException e) {
+			assertThat(EXCEPCION_ESPERADA, e.getMessage(), is("Disco lleno."));
+		}
+		try {
+			assertThat(CONTENIDO_NO_ESPERADO, leer(fichero.toPath()), is(CONTENIDO_ANTERIOR));
+			assertThat(TEMPORAL_NO_BORRADO, carpeta.getRoot().list().length, is(1));
+		} catch (IOException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void escribirConservaLosPermisosDelFicheroAnterior() {
+		Path destino = fichero.toPath();
+		assumeTrue(Files.getFileAttributeView(destino, PosixFileAttributeView.class) != null);
+		try {
+			Set<PosixFilePermission> permisos = PosixFilePermissions.fromString("rw-rw-r--");
+			Files.setPosixFilePermissions(destino, permisos);
+			EscritorAtomico.escribir(fichero, salida -> salida.write(1));
+			assertThat(PERMISOS_NO_ESPERADOS, Files.getPosixFilePermissions(destino), is(permisos));
+		} catch (IOException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	@Test
+	public void escribirFicheroNuevoNoLoDejaSoloParaSuDueno() {
+		Path nuevo = carpeta.getRoot().toPath().resolve("nuevo.dat");
+		assumeTrue(Files.getFileAttributeView(nuevo.getParent(), PosixFileAttributeView.class) != null);
+		try {
+			EscritorAtomico.escribir(nuevo.toFile(), salida -> salida.write(1));
+			// Mismos permisos que un fichero creado sin el escritor atómico
+			Path referencia = Files.createFile(carpeta.getRoot().toPath().resolve("referencia.dat"));
+			assertThat(PERMISOS_NO_ESPERADOS, Files.getPosixFilePermissions(nuevo), is(Files.getPosixFilePermissions(referencia)));
+		} catch (IOException e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+
+	private static String leer(Path fichero) throws IOException {
+		return new String(Files.readAllBytes(fichero), StandardCharsets.UTF_8);
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -7,6 +8,10 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.naming.OperationNotSupportedException;
@@ -15,7 +20,9 @@ import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.IProfesores;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Profesores;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ProfesoresTest {
 
@@ -38,6 +45,9 @@ public class ProfesoresTest {
 	private static Profesor profesor3;
 	private static Profesor profesorRepetido;
 	
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
 	@BeforeClass
 	public static void asignarValoresAtributos() {
 		profesor1 = new Profesor("Calamardo Tentáculos", "33445566R", "calamardo@gmail.com");
@@ -302,4 +312,29 @@ public class ProfesoresTest {
 		}
 	}
 
+	@Test
+	public void comenzarDescartaProfesoresRepetidosYConservaElPrimero() throws IOException {
+		String fichero = carpeta.getRoot() + "/profesores.dat";
+		new FormatoObjetos<>(fichero, Profesor.class).escribir(Arrays.asList(profesor1, profesorRepetido, profesor2,
+				new Profesor("Otro Profesor", profesor1.getDni(), "otro@gmail.com")));
+		IProfesores profesores = new Profesores(new FormatoObjetos<>(fichero, Profesor.class));
+		String mensajes = comenzar(profesores);
+		assertThat(TAMANO_NO_ESPERADO, profesores.getTamano(), is(2));
+		assertThat(PROFESOR_NO_ESPERADO, profesores.buscar(profesor1).getNombre(), is(profesor1.getNombre()));
+		assertThat(MENSAJE_NO_CORRECTO, mensajes, containsString("Se han descartado 2 profesores repetidos en el fichero de profesores."));
+	}
+
+	// Lee el fichero con comenzar() y devuelve lo que ha escrito por la salida estándar
+	private static String comenzar(IProfesores coleccion) {
+		PrintStream salidaOriginal = System.out;
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(salida, true));
+		try {
+			coleccion.comenzar();
+		} finally {
+			System.setOut(salidaOriginal);
+		}
+		return salida.toString();
+	}
+
 }
@@ -1,5 +1,6 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -7,8 +8,12 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.naming.OperationNotSupportedException;
@@ -17,9 +22,12 @@ import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Profesor;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Sesion;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ISesiones;
+import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.Pagina;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Sesiones;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class SesionesTest {
 
@@ -29,6 +37,7 @@ public class SesionesTest {
 	private static final String ERROR_SESION_EXISTE = "ERROR: Ya existe una sesión con esa fecha.";
 	private static final String ERROR_SESION_BORRAR_NO_EXISTE = "ERROR: No existe ninguna sesión con esa fecha.";
 	private static final String ERROR_TUTORIA_NULA = "ERROR: La tutoría no puede ser nula.";
+	private static final String ERROR_INTERVALO_NO_VALIDO = "ERROR: La fecha inicial no puede ser posterior a la final.";
 	private static final String OPERACION_NO_PERMITIDA = "Debería haber saltado una excepción indicando que dicha operación no está permitida.";
 	private static final String SESION_NULA = "Debería haber saltado una excepción indicando que no se puede operar con una sesión con fecha no válido.";
 	private static final String MENSAJE_NO_CORRECTO = "El mensaje devuelto por la excepción no es correcto.";
@@ -48,6 +57,9 @@ public class SesionesTest {
 	private static Sesion sesion6;
 	private static Sesion sesionRepetida;
 	
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
 	@BeforeClass
 	public static void asignarValoresAtributos() {
 		sesion1 = new Sesion(new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Tutoria 1"), LocalDate.now().plusDays(9), LocalTime.of(16, 0), LocalTime.of(18, 0), 30);
@@ -108,6 +120,76 @@ public class SesionesTest {
 		}
 	}
 	
+	@Test
+	public void getFechasDevuelvePaginasOrdenadasPorFechaSesion() {
+		ISesiones sesiones = new Sesiones();
+		try {
+			sesiones.insertar(sesion1);
+			sesiones.insertar(sesion2);
+			sesiones.insertar(sesion3);
+			sesiones.insertar(sesion4);
+			sesiones.insertar(sesion5);
+			sesiones.insertar(sesion6);
+			LocalDate desde = LocalDate.now().plusDays(7);
+			LocalDate hasta = LocalDate.now().plusDays(9);
+			Pagina<Sesion> pagina = sesiones.get(desde, hasta, null, 4);
+			List<Sesion> sesionesPagina = pagina.getElementos();
+			assertThat(TAMANO_NO_ESPERADO, sesionesPagina.size(), is(4));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(0), is(sesion6));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(1), is(sesion3));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(2), is(sesion5));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(3), is(sesion2));
+			assertThat(OPERACION_NO_REALIZADA, pagina.hayMas(), is(true));
+			pagina = sesiones.get(desde, hasta, pagina.getCursor(), 4);
+			sesionesPagina = pagina.getElementos();
+			assertThat(TAMANO_NO_ESPERADO, sesionesPagina.size(), is(2));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(0), is(sesion4));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(1), is(sesion1));
+			assertThat(OPERACION_NO_REALIZADA, pagina.hayMas(), is(false));
+			assertThat(OPERACION_NO_REALIZADA, pagina.getCursor(), is(nullValue()));
+			sesiones.borrar(sesion5);
+			sesionesPagina = sesiones.get(hasta.minusDays(1), hasta.minusDays(1), null, 4).getElementos();
+			assertThat(TAMANO_NO_ESPERADO, sesionesPagina.size(), is(1));
+			assertThat(SESION_NO_ESPERADA, sesionesPagina.get(0), is(sesion2));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void getTutoriaFechaDevuelvePaginasSesionesTutoria() {
+		ISesiones sesiones = new Sesiones();
+		try {
+			sesiones.insertar(sesion1);
+			sesiones.insertar(sesion2);
+			sesiones.insertar(sesion3);
+			sesiones.insertar(sesion4);
+			Pagina<Sesion> pagina = sesiones.get(sesion1.getTutoria(), LocalDate.now().plusDays(8), null, 1);
+			assertThat(TAMANO_NO_ESPERADO, pagina.getElementos().size(), is(1));
+			assertThat(SESION_NO_ESPERADA, pagina.getElementos().get(0), is(sesion2));
+			assertThat(OPERACION_NO_REALIZADA, pagina.hayMas(), is(true));
+			pagina = sesiones.get(sesion1.getTutoria(), LocalDate.now().plusDays(8), pagina.getCursor(), 1);
+			assertThat(TAMANO_NO_ESPERADO, pagina.getElementos().size(), is(1));
+			assertThat(SESION_NO_ESPERADA, pagina.getElementos().get(0), is(sesion1));
+			assertThat(OPERACION_NO_REALIZADA, pagina.hayMas(), is(false));
+		} catch (Exception e) {
+			fail(EXCEPCION_NO_PROCEDE);
+		}
+	}
+	
+	@Test
+	public void getFechasIntervaloNoValidoLanzaExcepcion() {
+		ISesiones sesiones = new Sesiones();
+		try {
+			sesiones.get(LocalDate.now().plusDays(9), LocalDate.now().plusDays(7), null, 4);
+			fail(OPERACION_NO_PERMITIDA);
+		} catch (IllegalArgumentException e) {
+			assertThat(MENSAJE_NO_CORRECTO, e.getMessage(), is(ERROR_INTERVALO_NO_VALIDO));
+		} catch (Exception e) {
+			fail(TIPO_NO_CORRECTO);
+		}
+	}
+	
 	@Test
 	public void getTutoriaNoValidaLanzaExcepcion() {
 		ISesiones sesiones = new Sesiones();
@@ -362,4 +444,31 @@ public class SesionesTest {
 		}
 	}
 
+	@Test
+	public void comenzarDescartaSesionesRepetidasYConservaLaPrimera() throws IOException {
+		String fichero = carpeta.getRoot() + "/sesiones.dat";
+		// Misma tutoría y fecha que la primera, con otro horario
+		Sesion otroHorario = new Sesion(sesion1.getTutoria(), sesion1.getFecha(), LocalTime.of(19, 0), LocalTime.of(20, 0), 15);
+		new FormatoObjetos<>(fichero, Sesion.class).escribir(Arrays.asList(sesion1, sesion2, otroHorario, sesionRepetida));
+		ISesiones sesiones = new Sesiones(new FormatoObjetos<>(fichero, Sesion.class));
+		String mensajes = comenzar(sesiones);
+		assertThat(TAMANO_NO_ESPERADO, sesiones.getTamano(), is(2));
+		assertThat(SESION_NO_ESPERADA, sesiones.buscar(sesion1).getHoraInicio(), is(sesion1.getHoraInicio()));
+		assertThat(TAMANO_NO_ESPERADO, sesiones.get(LocalDate.now(), LocalDate.now().plusDays(30), null, 10).getElementos().size(), is(2));
+		assertThat(MENSAJE_NO_CORRECTO, mensajes, containsString("Se han descartado 2 sesiones repetidas en el fichero de sesiones."));
+	}
+
+	// Lee el fichero con comenzar() y devuelve lo que ha escrito por la salida estándar
+	private static String comenzar(ISesiones coleccion) {
+		PrintStream salidaOriginal = System.out;
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(salida, true));
+		try {
+			coleccion.comenzar();
+		} finally {
+			System.setOut(salidaOriginal);
+		}
+		return salida.toString();
+	}
+
 }
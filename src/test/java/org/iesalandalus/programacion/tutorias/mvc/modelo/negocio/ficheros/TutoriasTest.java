@@ -1,5 +1,6 @@
 package org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -7,6 +8,10 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.naming.OperationNotSupportedException;
@@ -16,7 +21,9 @@ import org.iesalandalus.programacion.tutorias.mvc.modelo.dominio.Tutoria;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ITutorias;
 import org.iesalandalus.programacion.tutorias.mvc.modelo.negocio.ficheros.Tutorias;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TutoriasTest {
 
@@ -42,6 +49,9 @@ public class TutoriasTest {
 	private static Tutoria tutoria3;
 	private static Tutoria tutoriaRepetida;
 	
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
 	@BeforeClass
 	public static void asignarValoresAtributos() {
 		tutoria1 = new Tutoria(Profesor.getProfesorFicticio("22334455Y"), "Resolución de dudas Unidad 6");
@@ -343,4 +353,28 @@ public class TutoriasTest {
 		}
 	}
 
+	@Test
+	public void comenzarDescartaTutoriasRepetidas() throws IOException {
+		String fichero = carpeta.getRoot() + "/tutorias.dat";
+		new FormatoObjetos<>(fichero, Tutoria.class).escribir(Arrays.asList(tutoria1, tutoria2, tutoriaRepetida, tutoria3));
+		ITutorias tutorias = new Tutorias(new FormatoObjetos<>(fichero, Tutoria.class));
+		String mensajes = comenzar(tutorias);
+		assertThat(TAMANO_NO_ESPERADO, tutorias.getTamano(), is(3));
+		assertThat(TUTORIA_NO_ESPERADA, tutorias.get(), is(Arrays.asList(tutoria3, tutoria2, tutoria1)));
+		assertThat(MENSAJE_NO_CORRECTO, mensajes, containsString("Se han descartado 1 tutorías repetidas en el fichero de tutorias."));
+	}
+
+	// Lee el fichero con comenzar() y devuelve lo que ha escrito por la salida estándar
+	private static String comenzar(ITutorias coleccion) {
+		PrintStream salidaOriginal = System.out;
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(salida, true));
+		try {
+			coleccion.comenzar();
+		} finally {
+			System.setOut(salidaOriginal);
+		}
+		return salida.toString();
+	}
+
 }